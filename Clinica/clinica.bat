@@ -0,0 +1,21 @@
+@echo off
+rem Inicia a aplicacao a partir do jar gerado por "mvn package".
+rem
+rem Se existir o arquivo AppCDS (clinica.jsa, gerado por "mvn -Pcds package"),
+rem a JVM o usa para nao ler e verificar novamente as classes a cada partida.
+rem Opcoes adicionais da JVM podem ser passadas em JAVA_OPTS.
+
+setlocal
+set JAR=clinica-1.0-SNAPSHOT.jar
+
+if exist "%~dp0%JAR%" (
+    cd /d "%~dp0"
+) else (
+    cd /d "%~dp0target"
+)
+
+set CDS=
+if exist clinica.jsa set CDS=-XX:SharedArchiveFile=clinica.jsa -Xshare:auto
+
+rem O jar e referenciado pelo mesmo caminho relativo usado no treino.
+start "" javaw %CDS% %JAVA_OPTS% -cp "%JAR%" br.com.clinica.gui.TelaLogin %*
@@ -0,0 +1,27 @@
+#!/bin/sh
+# Inicia a aplicação a partir do jar gerado por "mvn package".
+#
+# Se existir o arquivo AppCDS (clinica.jsa, gerado por "mvn -Pcds package"),
+# a JVM o usa para não ler e verificar novamente as classes da aplicação, do
+# Hibernate, do driver do MySQL e do Swing a cada partida. O arquivo precisa
+# ter sido gerado com a mesma versão do Java e do jar; caso contrário, a JVM
+# o ignora e a partida segue normalmente.
+#
+# Opções adicionais da JVM podem ser passadas em JAVA_OPTS.
+
+DIR=$(cd "$(dirname "$0")" && pwd)
+JAR=clinica-1.0-SNAPSHOT.jar
+
+if [ -f "$DIR/$JAR" ]; then
+    cd "$DIR" || exit 1
+else
+    cd "$DIR/target" || exit 1
+fi
+
+CDS=""
+if [ -f clinica.jsa ]; then
+    CDS="-XX:SharedArchiveFile=clinica.jsa -Xshare:auto"
+fi
+
+# O jar é referenciado pelo mesmo caminho relativo usado no treino.
+exec java $CDS $JAVA_OPTS -cp "$JAR" br.com.clinica.gui.TelaLogin "$@"
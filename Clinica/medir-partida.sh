@@ -0,0 +1,40 @@
+#!/bin/sh
+# Compara a partida da aplicação sem e com o arquivo AppCDS.
+#
+# Executa a aplicação N vezes (padrão 5) em cada modo, com
+# -Dclinica.medirPartida=true: a aplicação abre a tela de login, conclui a
+# primeira consulta ao banco, escreve os dois tempos (desde a partida da JVM)
+# e termina. Requer o jar e o clinica.jsa ("mvn -Pcds package"), monitor e o
+# banco acessível.
+#
+# Uso: ./medir-partida.sh [N]
+
+N=${1:-5}
+DIR=$(cd "$(dirname "$0")" && pwd)
+cd "$DIR/target" || exit 1
+JAR=clinica-1.0-SNAPSHOT.jar
+
+if [ ! -f clinica.jsa ]; then
+    echo "clinica.jsa não encontrado; gere com: mvn -Pcds package" >&2
+    exit 1
+fi
+
+medir() {
+    rotulo=$1
+    shift
+    i=0
+    while [ "$i" -lt "$N" ]; do
+        java "$@" -Dclinica.medirPartida=true -cp "$JAR" br.com.clinica.gui.TelaLogin 2>/dev/null
+        i=$((i + 1))
+    done | awk -F= -v rotulo="$rotulo" '
+        /^janela.login.ms=/ { janela += $2; n++ }
+        /^primeira.consulta.ms=/ { consulta += $2 }
+        END {
+            if (n == 0) { printf "%-8s sem medições (verifique monitor e banco)\n", rotulo; exit }
+            printf "%-8s tela de login: %6.0f ms   primeira consulta: %6.0f ms   (média de %d)\n",
+                rotulo, janela / n, consulta / n, n
+        }'
+}
+
+medir "sem CDS" -Xshare:auto
+medir "com CDS" -XX:SharedArchiveFile=clinica.jsa -Xshare:auto
@@ -0,0 +1,22 @@
+package br.com.clinica.analise;
+
+/**
+ * Critério de agrupamento das contagens do {@link SnapshotConsultas}.
+ */
+public enum Agrupamento {
+
+    /**
+     * Por id do médico.
+     */
+    MEDICO,
+
+    /**
+     * Por dia da semana (0 = segunda-feira ... 6 = domingo).
+     */
+    DIA_SEMANA,
+
+    /**
+     * Por hora do dia (0 a 23).
+     */
+    HORA
+}
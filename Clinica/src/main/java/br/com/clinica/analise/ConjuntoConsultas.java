@@ -0,0 +1,542 @@
+package br.com.clinica.analise;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de ids de consulta representado como bitmap comprimido, resultado
+ * das seleções do {@link IndiceBitmap}.
+ * <p>
+ * A compressão segue a dos bitmaps "Roaring": o espaço de ids é dividido em
+ * blocos de 65.536 ids, só os blocos com algum id presente ocupam memória, e
+ * cada bloco escolhe a forma mais compacta para a quantidade de ids que
+ * contém:
+ * <ul>
+ * <li>até {@value #LIMITE_VETOR} ids, um vetor ordenado com os 16 bits
+ * baixos de cada id (2 bytes por id);</li>
+ * <li>acima disso, um mapa de bits de 8 KB.</li>
+ * </ul>
+ * Um bitmap por médico, cujas consultas se espalham por todo o trecho de ids,
+ * fica assim com cerca de 2 bytes por consulta do médico, em vez de 8 KB por
+ * bloco. Bitmaps densos, como os de status ou de dia da semana, usam mapas de
+ * bits.
+ *
+ * <p>
+ * As operações ({@link #e}, {@link #ou}, {@link #exceto}) combinam os blocos
+ * um a um, com o algoritmo adequado a cada par de formas, e devolvem um novo
+ * conjunto, sem alterar os operandos.
+ */
+public final class ConjuntoConsultas {
+
+    private static final int BITS_BLOCO = 16;
+
+    private static final int PALAVRAS_MAPA = 1 << (BITS_BLOCO - 6);
+
+    /**
+     * Quantidade máxima de ids de um bloco guardado como vetor; acima dela o
+     * vetor ocuparia mais que os 8 KB do mapa de bits.
+     */
+    static final int LIMITE_VETOR = 4096;
+
+    private static final Bloco[] SEM_BLOCOS = new Bloco[0];
+
+    /**
+     * Blocos indexados por {@code id >>> 16}; {@code null} para blocos vazios.
+     * Nenhum bloco presente fica vazio.
+     */
+    private Bloco[] blocos;
+
+    /**
+     * Cria um conjunto vazio.
+     */
+    ConjuntoConsultas() {
+        this.blocos = SEM_BLOCOS;
+    }
+
+    private ConjuntoConsultas(Bloco[] blocos) {
+        this.blocos = blocos;
+    }
+
+    /**
+     * Acrescenta um id ao conjunto.
+     */
+    void adicionar(int id) {
+        int b = id >>> BITS_BLOCO;
+        if (b >= blocos.length) {
+            blocos = Arrays.copyOf(blocos, b + 1);
+        }
+        Bloco bloco = blocos[b];
+        blocos[b] = bloco == null ? new Vetor((char) id) : bloco.adicionar((char) id);
+    }
+
+    /**
+     * Retira um id do conjunto.
+     */
+    void remover(int id) {
+        int b = id >>> BITS_BLOCO;
+        if (b < blocos.length && blocos[b] != null) {
+            blocos[b] = blocos[b].remover((char) id);
+        }
+    }
+
+    /**
+     * Acrescenta a este conjunto todos os ids do outro (união no próprio
+     * conjunto).
+     */
+    void acumular(ConjuntoConsultas outro) {
+        if (outro.blocos.length > blocos.length) {
+            blocos = Arrays.copyOf(blocos, outro.blocos.length);
+        }
+        for (int b = 0; b < outro.blocos.length; b++) {
+            Bloco o = outro.blocos[b];
+            if (o != null) {
+                blocos[b] = blocos[b] == null ? o.copia() : ou(blocos[b], o);
+            }
+        }
+    }
+
+    /**
+     * Retorna uma cópia independente deste conjunto.
+     */
+    ConjuntoConsultas copia() {
+        Bloco[] c = new Bloco[blocos.length];
+        for (int b = 0; b < blocos.length; b++) {
+            if (blocos[b] != null) {
+                c[b] = blocos[b].copia();
+            }
+        }
+        return new ConjuntoConsultas(c);
+    }
+
+    /**
+     * Indica se o id pertence ao conjunto.
+     *
+     * @param id id da consulta
+     * @return {@code true} se presente
+     */
+    public boolean contem(int id) {
+        int b = id >>> BITS_BLOCO;
+        return b < blocos.length && blocos[b] != null && blocos[b].contem((char) id);
+    }
+
+    /**
+     * Interseção (E) com outro conjunto.
+     *
+     * @param outro outro conjunto
+     * @return ids presentes nos dois conjuntos
+     */
+    public ConjuntoConsultas e(ConjuntoConsultas outro) {
+        int n = Math.min(blocos.length, outro.blocos.length);
+        Bloco[] r = new Bloco[n];
+        for (int b = 0; b < n; b++) {
+            if (blocos[b] != null && outro.blocos[b] != null) {
+                r[b] = e(blocos[b], outro.blocos[b]);
+            }
+        }
+        return new ConjuntoConsultas(r);
+    }
+
+    /**
+     * União (OU) com outro conjunto.
+     *
+     * @param outro outro conjunto
+     * @return ids presentes em pelo menos um dos conjuntos
+     */
+    public ConjuntoConsultas ou(ConjuntoConsultas outro) {
+        ConjuntoConsultas r = copia();
+        r.acumular(outro);
+        return r;
+    }
+
+    /**
+     * Diferença (E NÃO) com outro conjunto.
+     *
+     * @param outro conjunto cujos ids serão excluídos
+     * @return ids deste conjunto ausentes do outro
+     */
+    public ConjuntoConsultas exceto(ConjuntoConsultas outro) {
+        Bloco[] r = new Bloco[blocos.length];
+        for (int b = 0; b < blocos.length; b++) {
+            Bloco x = blocos[b];
+            if (x == null) {
+                continue;
+            }
+            Bloco y = b < outro.blocos.length ? outro.blocos[b] : null;
+            r[b] = y == null ? x.copia() : exceto(x, y);
+        }
+        return new ConjuntoConsultas(r);
+    }
+
+    /**
+     * Quantidade de ids no conjunto.
+     *
+     * @return cardinalidade
+     */
+    public long cardinalidade() {
+        long total = 0;
+        for (Bloco bloco : blocos) {
+            if (bloco != null) {
+                total += bloco.tamanho;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Indica se o conjunto está vazio.
+     *
+     * @return {@code true} se não há nenhum id
+     */
+    public boolean vazio() {
+        for (Bloco bloco : blocos) {
+            if (bloco != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retorna os ids do conjunto em ordem crescente.
+     *
+     * @return vetor de ids
+     */
+    public int[] ids() {
+        int[] ids = new int[(int) cardinalidade()];
+        int n = 0;
+        for (int b = 0; b < blocos.length; b++) {
+            if (blocos[b] != null) {
+                n = blocos[b].escrever(b << BITS_BLOCO, ids, n);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Bytes ocupados pelos blocos, para acompanhar o tamanho dos índices.
+     *
+     * @return memória aproximada dos dados do conjunto
+     */
+    long bytes() {
+        long total = 0;
+        for (Bloco bloco : blocos) {
+            if (bloco instanceof Vetor v) {
+                total += 2L * v.valores.length;
+            } else if (bloco != null) {
+                total += 8L * PALAVRAS_MAPA;
+            }
+        }
+        return total;
+    }
+
+    private static Bloco e(Bloco x, Bloco y) {
+        if (x instanceof Vetor vx && y instanceof Vetor vy) {
+            char[] r = new char[Math.min(vx.tamanho, vy.tamanho)];
+            int n = 0;
+            for (int i = 0, j = 0; i < vx.tamanho && j < vy.tamanho;) {
+                char a = vx.valores[i];
+                char c = vy.valores[j];
+                if (a == c) {
+                    r[n++] = a;
+                    i++;
+                    j++;
+                } else if (a < c) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return n == 0 ? null : new Vetor(r, n);
+        }
+        if (x instanceof Vetor vx) {
+            return filtrar(vx, y, true);
+        }
+        if (y instanceof Vetor vy) {
+            return filtrar(vy, x, true);
+        }
+        long[] px = ((Mapa) x).palavras;
+        long[] py = ((Mapa) y).palavras;
+        long[] r = new long[PALAVRAS_MAPA];
+        for (int w = 0; w < PALAVRAS_MAPA; w++) {
+            r[w] = px[w] & py[w];
+        }
+        return compactar(r);
+    }
+
+    private static Bloco ou(Bloco x, Bloco y) {
+        if (x instanceof Vetor vx && y instanceof Vetor vy && vx.tamanho + vy.tamanho <= LIMITE_VETOR) {
+            char[] r = new char[vx.tamanho + vy.tamanho];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < vx.tamanho && j < vy.tamanho) {
+                char a = vx.valores[i];
+                char c = vy.valores[j];
+                if (a == c) {
+                    r[n++] = a;
+                    i++;
+                    j++;
+                } else if (a < c) {
+                    r[n++] = a;
+                    i++;
+                } else {
+                    r[n++] = c;
+                    j++;
+                }
+            }
+            while (i < vx.tamanho) {
+                r[n++] = vx.valores[i++];
+            }
+            while (j < vy.tamanho) {
+                r[n++] = vy.valores[j++];
+            }
+            return new Vetor(r, n);
+        }
+        long[] r = x.palavras();
+        if (y instanceof Mapa my) {
+            for (int w = 0; w < PALAVRAS_MAPA; w++) {
+                r[w] |= my.palavras[w];
+            }
+        } else {
+            Vetor vy = (Vetor) y;
+            for (int i = 0; i < vy.tamanho; i++) {
+                r[vy.valores[i] >>> 6] |= 1L << vy.valores[i];
+            }
+        }
+        return compactar(r);
+    }
+
+    private static Bloco exceto(Bloco x, Bloco y) {
+        if (x instanceof Vetor vx) {
+            return filtrar(vx, y, false);
+        }
+        long[] r = x.palavras();
+        if (y instanceof Mapa my) {
+            for (int w = 0; w < PALAVRAS_MAPA; w++) {
+                r[w] &= ~my.palavras[w];
+            }
+        } else {
+            Vetor vy = (Vetor) y;
+            for (int i = 0; i < vy.tamanho; i++) {
+                r[vy.valores[i] >>> 6] &= ~(1L << vy.valores[i]);
+            }
+        }
+        return compactar(r);
+    }
+
+    /**
+     * Mantém os valores do vetor que estão (ou, com {@code presentes} falso,
+     * que não estão) no outro bloco.
+     */
+    private static Bloco filtrar(Vetor v, Bloco outro, boolean presentes) {
+        char[] r = new char[v.tamanho];
+        int n = 0;
+        for (int i = 0; i < v.tamanho; i++) {
+            if (outro.contem(v.valores[i]) == presentes) {
+                r[n++] = v.valores[i];
+            }
+        }
+        return n == 0 ? null : new Vetor(r, n);
+    }
+
+    /**
+     * Escolhe a forma do bloco resultante de uma operação sobre mapas de
+     * bits: nenhum bloco, vetor ou o próprio mapa.
+     */
+    private static Bloco compactar(long[] palavras) {
+        int tamanho = 0;
+        for (long palavra : palavras) {
+            tamanho += Long.bitCount(palavra);
+        }
+        if (tamanho == 0) {
+            return null;
+        }
+        return tamanho <= LIMITE_VETOR ? Vetor.de(palavras, tamanho) : new Mapa(palavras, tamanho);
+    }
+
+    /**
+     * Um bloco de 65.536 ids, identificados pelos seus 16 bits baixos.
+     */
+    private abstract static sealed class Bloco permits Vetor, Mapa {
+
+        /**
+         * Quantidade de ids do bloco; nunca zero.
+         */
+        int tamanho;
+
+        abstract boolean contem(char valor);
+
+        /**
+         * Acrescenta o valor e devolve o bloco resultante, que pode ter mudado
+         * de forma.
+         */
+        abstract Bloco adicionar(char valor);
+
+        /**
+         * Retira o valor e devolve o bloco resultante, ou {@code null} se
+         * ficou vazio.
+         */
+        abstract Bloco remover(char valor);
+
+        abstract Bloco copia();
+
+        /**
+         * Retorna um mapa de bits novo com os valores do bloco.
+         */
+        abstract long[] palavras();
+
+        /**
+         * Escreve os ids do bloco, em ordem, a partir da posição informada e
+         * devolve a posição seguinte.
+         */
+        abstract int escrever(int base, int[] destino, int posicao);
+    }
+
+    /**
+     * Bloco esparso: valores em ordem crescente.
+     */
+    private static final class Vetor extends Bloco {
+
+        char[] valores;
+
+        Vetor(char valor) {
+            this.valores = new char[]{valor, 0, 0, 0};
+            this.tamanho = 1;
+        }
+
+        Vetor(char[] valores, int tamanho) {
+            this.valores = valores.length - tamanho > 16 ? Arrays.copyOf(valores, tamanho) : valores;
+            this.tamanho = tamanho;
+        }
+
+        static Vetor de(long[] palavras, int tamanho) {
+            char[] valores = new char[tamanho];
+            int n = 0;
+            for (int w = 0; w < PALAVRAS_MAPA; w++) {
+                long palavra = palavras[w];
+                while (palavra != 0) {
+                    valores[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palavra));
+                    palavra &= palavra - 1;
+                }
+            }
+            return new Vetor(valores, tamanho);
+        }
+
+        @Override
+        boolean contem(char valor) {
+            return Arrays.binarySearch(valores, 0, tamanho, valor) >= 0;
+        }
+
+        @Override
+        Bloco adicionar(char valor) {
+            int i = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (i >= 0) {
+                return this;
+            }
+            if (tamanho == LIMITE_VETOR) {
+                Mapa m = new Mapa(palavras(), tamanho);
+                return m.adicionar(valor);
+            }
+            i = -i - 1;
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_VETOR, tamanho * 2));
+            }
+            System.arraycopy(valores, i, valores, i + 1, tamanho - i);
+            valores[i] = valor;
+            tamanho++;
+            return this;
+        }
+
+        @Override
+        Bloco remover(char valor) {
+            int i = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (i < 0) {
+                return this;
+            }
+            System.arraycopy(valores, i + 1, valores, i, tamanho - i - 1);
+            tamanho--;
+            return tamanho == 0 ? null : this;
+        }
+
+        @Override
+        Bloco copia() {
+            return new Vetor(Arrays.copyOf(valores, tamanho), tamanho);
+        }
+
+        @Override
+        long[] palavras() {
+            long[] palavras = new long[PALAVRAS_MAPA];
+            for (int i = 0; i < tamanho; i++) {
+                palavras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return palavras;
+        }
+
+        @Override
+        int escrever(int base, int[] destino, int posicao) {
+            for (int i = 0; i < tamanho; i++) {
+                destino[posicao++] = base | valores[i];
+            }
+            return posicao;
+        }
+    }
+
+    /**
+     * Bloco denso: um bit por id.
+     */
+    private static final class Mapa extends Bloco {
+
+        final long[] palavras;
+
+        Mapa(long[] palavras, int tamanho) {
+            this.palavras = palavras;
+            this.tamanho = tamanho;
+        }
+
+        @Override
+        boolean contem(char valor) {
+            return (palavras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        Bloco adicionar(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes | (1L << valor);
+            if (antes != palavras[valor >>> 6]) {
+                tamanho++;
+            }
+            return this;
+        }
+
+        @Override
+        Bloco remover(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes & ~(1L << valor);
+            if (antes != palavras[valor >>> 6]) {
+                tamanho--;
+            }
+            return tamanho <= LIMITE_VETOR ? Vetor.de(palavras, tamanho) : this;
+        }
+
+        @Override
+        Bloco copia() {
+            return new Mapa(palavras.clone(), tamanho);
+        }
+
+        @Override
+        long[] palavras() {
+            return palavras.clone();
+        }
+
+        @Override
+        int escrever(int base, int[] destino, int posicao) {
+            for (int w = 0; w < PALAVRAS_MAPA; w++) {
+                long palavra = palavras[w];
+                while (palavra != 0) {
+                    destino[posicao++] = base | (w << 6) | Long.numberOfTrailingZeros(palavra);
+                    palavra &= palavra - 1;
+                }
+            }
+            return posicao;
+        }
+    }
+}
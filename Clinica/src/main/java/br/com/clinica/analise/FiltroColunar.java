@@ -0,0 +1,87 @@
+package br.com.clinica.analise;
+
+import br.com.clinica.enums.StatusConsulta;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Critérios de seleção das consultas no {@link SnapshotConsultas}.
+ * <p>
+ * Critérios não informados não restringem a seleção. Os métodos devolvem o
+ * próprio filtro, permitindo encadear as chamadas:
+ * <pre>
+ * new FiltroColunar().periodo(inicio, fim).status(StatusConsulta.CANCELADA)
+ * </pre>
+ */
+public class FiltroColunar {
+
+    /**
+     * Primeiro dia aceito (epoch day).
+     */
+    int diaInicial = Integer.MIN_VALUE;
+
+    /**
+     * Último dia aceito (epoch day).
+     */
+    int diaFinal = Integer.MAX_VALUE;
+
+    /**
+     * Status aceitos, um bit por {@link StatusConsulta#ordinal()}.
+     */
+    int mascaraStatus = (1 << StatusConsulta.values().length) - 1;
+
+    /**
+     * Médicos aceitos, ou {@code null} para todos.
+     */
+    int[] medicos;
+
+    /**
+     * Restringe ao período informado (datas inclusivas).
+     *
+     * @param inicio primeiro dia
+     * @param fim último dia
+     * @return este filtro
+     */
+    public FiltroColunar periodo(LocalDate inicio, LocalDate fim) {
+        this.diaInicial = (int) inicio.toEpochDay();
+        this.diaFinal = (int) fim.toEpochDay();
+        return this;
+    }
+
+    /**
+     * Restringe aos status informados.
+     *
+     * @param status status aceitos
+     * @return este filtro
+     */
+    public FiltroColunar status(StatusConsulta... status) {
+        int mascara = 0;
+        for (StatusConsulta s : status) {
+            mascara |= 1 << s.ordinal();
+        }
+        this.mascaraStatus = mascara;
+        return this;
+    }
+
+    /**
+     * Restringe a um médico.
+     *
+     * @param medicoId id do médico, ou {@code null} para todos
+     * @return este filtro
+     */
+    public FiltroColunar medico(Integer medicoId) {
+        this.medicos = medicoId == null ? null : new int[]{medicoId};
+        return this;
+    }
+
+    /**
+     * Restringe a um conjunto de médicos.
+     *
+     * @param medicoIds ids dos médicos aceitos
+     * @return este filtro
+     */
+    public FiltroColunar medicos(Collection<Integer> medicoIds) {
+        this.medicos = medicoIds.stream().mapToInt(Integer::intValue).toArray();
+        return this;
+    }
+}
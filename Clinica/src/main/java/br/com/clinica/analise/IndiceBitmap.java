@@ -0,0 +1,204 @@
+package br.com.clinica.analise;
+
+import br.com.clinica.enums.StatusConsulta;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Índices em bitmap sobre os ids das consultas do {@link SnapshotConsultas}:
+ * um bitmap por status, por médico, por dia da semana e por mês.
+ * <p>
+ * Perguntas com vários critérios (por exemplo, agendadas ou canceladas, de
+ * médicos de uma especialidade, às segundas-feiras) são respondidas
+ * combinando os bitmaps com {@link ConjuntoConsultas#e},
+ * {@link ConjuntoConsultas#ou}, {@link ConjuntoConsultas#exceto} e
+ * {@link #nao}, sem um índice composto no banco para cada combinação.
+ *
+ * <p>
+ * O índice é mantido pelo {@link SnapshotConsultas} a cada alteração da cópia
+ * e obtido por {@link SnapshotConsultas#indice()}. Cada seleção devolve uma
+ * cópia dos bitmaps; as combinações seguintes não dependem de bloqueio.
+ * Consultas removidas não fazem parte de nenhum bitmap.
+ */
+public final class IndiceBitmap {
+
+    /**
+     * Bloqueio de leitura da cópia em memória, que protege os bitmaps.
+     */
+    private final Lock leitura;
+
+    private final ConjuntoConsultas existentes = new ConjuntoConsultas();
+    private final ConjuntoConsultas[] porStatus = novos(StatusConsulta.values().length);
+    private final ConjuntoConsultas[] porDiaSemana = novos(7);
+    private final Map<Integer, ConjuntoConsultas> porMedico = new HashMap<>();
+
+    /**
+     * Bitmaps por mês, indexados por {@code ano * 12 + mês - 1}.
+     */
+    private final Map<Integer, ConjuntoConsultas> porMes = new HashMap<>();
+
+    IndiceBitmap(Lock leitura) {
+        this.leitura = leitura;
+    }
+
+    private static ConjuntoConsultas[] novos(int quantidade) {
+        ConjuntoConsultas[] c = new ConjuntoConsultas[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            c[i] = new ConjuntoConsultas();
+        }
+        return c;
+    }
+
+    /**
+     * Inclui uma consulta nos bitmaps. Chamado com o bloqueio de escrita da
+     * cópia.
+     */
+    void incluir(int id, int dia, int status, int medico) {
+        existentes.adicionar(id);
+        porStatus[status].adicionar(id);
+        porDiaSemana[Math.floorMod(dia + 3, 7)].adicionar(id); // 1970-01-01 foi quinta-feira
+        porMedico.computeIfAbsent(medico, k -> new ConjuntoConsultas()).adicionar(id);
+        porMes.computeIfAbsent(mes(dia), k -> new ConjuntoConsultas()).adicionar(id);
+    }
+
+    /**
+     * Retira uma consulta dos bitmaps, com os valores com que foi incluída.
+     * Chamado com o bloqueio de escrita da cópia.
+     */
+    void excluir(int id, int dia, int status, int medico) {
+        existentes.remover(id);
+        porStatus[status].remover(id);
+        porDiaSemana[Math.floorMod(dia + 3, 7)].remover(id);
+        ConjuntoConsultas m = porMedico.get(medico);
+        if (m != null) {
+            m.remover(id);
+        }
+        ConjuntoConsultas mes = porMes.get(mes(dia));
+        if (mes != null) {
+            mes.remover(id);
+        }
+    }
+
+    private static int mes(int dia) {
+        LocalDate data = LocalDate.ofEpochDay(dia);
+        return data.getYear() * 12 + data.getMonthValue() - 1;
+    }
+
+    /**
+     * Todas as consultas não removidas.
+     *
+     * @return conjunto com todas as consultas
+     */
+    public ConjuntoConsultas todas() {
+        leitura.lock();
+        try {
+            return existentes.copia();
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Complemento (NÃO) de um conjunto em relação a todas as consultas.
+     *
+     * @param conjunto conjunto a negar
+     * @return consultas existentes fora do conjunto
+     */
+    public ConjuntoConsultas nao(ConjuntoConsultas conjunto) {
+        leitura.lock();
+        try {
+            return existentes.exceto(conjunto);
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Consultas com algum dos status informados.
+     *
+     * @param status status aceitos
+     * @return conjunto selecionado
+     */
+    public ConjuntoConsultas status(StatusConsulta... status) {
+        leitura.lock();
+        try {
+            ConjuntoConsultas r = new ConjuntoConsultas();
+            for (StatusConsulta s : status) {
+                r.acumular(porStatus[s.ordinal()]);
+            }
+            return r;
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Consultas de algum dos médicos informados.
+     *
+     * @param medicoIds ids dos médicos aceitos
+     * @return conjunto selecionado
+     */
+    public ConjuntoConsultas medicos(Collection<Integer> medicoIds) {
+        leitura.lock();
+        try {
+            ConjuntoConsultas r = new ConjuntoConsultas();
+            for (Integer id : medicoIds) {
+                ConjuntoConsultas m = porMedico.get(id);
+                if (m != null) {
+                    r.acumular(m);
+                }
+            }
+            return r;
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Consultas em algum dos dias da semana informados.
+     *
+     * @param dias dias da semana aceitos
+     * @return conjunto selecionado
+     */
+    public ConjuntoConsultas diasDaSemana(DayOfWeek... dias) {
+        leitura.lock();
+        try {
+            ConjuntoConsultas r = new ConjuntoConsultas();
+            for (DayOfWeek d : dias) {
+                r.acumular(porDiaSemana[d.getValue() - 1]);
+            }
+            return r;
+        } finally {
+            leitura.unlock();
+        }
+    }
+
+    /**
+     * Consultas agendadas entre os meses informados (inclusive).
+     *
+     * @param inicio primeiro mês
+     * @param fim último mês
+     * @return conjunto selecionado
+     */
+    public ConjuntoConsultas meses(YearMonth inicio, YearMonth fim) {
+        leitura.lock();
+        try {
+            ConjuntoConsultas r = new ConjuntoConsultas();
+            int ultimo = fim.getYear() * 12 + fim.getMonthValue() - 1;
+            for (int m = inicio.getYear() * 12 + inicio.getMonthValue() - 1; m <= ultimo; m++) {
+                ConjuntoConsultas mes = porMes.get(m);
+                if (mes != null) {
+                    r.acumular(mes);
+                }
+            }
+            return r;
+        } finally {
+            leitura.unlock();
+        }
+    }
+}
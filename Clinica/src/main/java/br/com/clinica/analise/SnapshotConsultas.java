@@ -0,0 +1,508 @@
+package br.com.clinica.analise;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.util.BarramentoAlteracoes;
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Cópia em memória, organizada em colunas, das consultas do banco, para
+ * análises sobre vários anos sem percorrer a tabela {@code consulta} a cada
+ * pergunta.
+ * <p>
+ * Cada atributo fica em um vetor primitivo próprio (id, dia como epoch day,
+ * minuto do dia, status, médico e paciente), cerca de 19 bytes por consulta.
+ * Os operadores percorrem esses vetores em laços simples, sem objetos nem
+ * desvios dependentes dos dados, o que permite ao JIT vetorizá-los.
+ *
+ * <p>
+ * As linhas ficam ordenadas por id. A cópia é carregada uma vez
+ * ({@link #obter()}) e mantida atualizada:
+ * <ul>
+ * <li>pelas gravações desta e das demais estações, recebidas do
+ * {@link BarramentoAlteracoes} ({@link #registrarAlteracao(Consulta)} e
+ * {@link #registrarRemocao(int)});</li>
+ * <li>por {@link #sincronizar()}, chamado periodicamente pelo
+ * {@code SincronizacaoService}, que traz as consultas inseridas sem passar
+ * pelo registro de alterações.</li>
+ * </ul>
+ * Consultas removidas permanecem no vetor com status {@link #REMOVIDA} e não
+ * são contadas.
+ * <p>
+ * Durante uma leitura do banco (a carga inicial ou uma sincronização), as
+ * alterações recebidas do barramento são retidas e aplicadas ao final dela,
+ * na ordem em que chegaram. Assim nenhuma se perde enquanto a cópia ainda não
+ * foi publicada, e uma linha lida antes da gravação não sobrescreve a
+ * alteração já recebida.
+ *
+ * <p>
+ * Sobre a cópia podem ser construídos índices em bitmap ({@link #indice()}),
+ * atualizados pelas mesmas operações.
+ */
+public final class SnapshotConsultas {
+
+    private static final Logger LOG = Logger.getLogger(SnapshotConsultas.class.getName());
+
+    /**
+     * Status gravado para consultas removidas.
+     */
+    public static final byte REMOVIDA = -1;
+
+    /**
+     * Ids abaixo do maior id conhecido relidos em cada sincronização: ids de
+     * transações concorrentes podem ser confirmados fora de ordem.
+     */
+    private static final int JANELA_SINCRONIZACAO = 1000;
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final int QTD_STATUS = StatusConsulta.values().length;
+
+    /**
+     * Cópia carregada, ou {@code null} se ainda não foi usada.
+     */
+    private static volatile SnapshotConsultas atual;
+
+    /**
+     * Cópia em carga inicial, ainda não publicada em {@link #atual}, ou
+     * {@code null}.
+     */
+    private static volatile SnapshotConsultas emCarga;
+
+    static {
+        BarramentoAlteracoes.assinarImediato(Consulta.class, a -> {
+            if (a.getAlteracao() == TipoAlteracao.REMOCAO) {
+                registrarRemocao(a.getId());
+            } else {
+                registrarAlteracao(a.getRegistro(Consulta.class));
+            }
+        });
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Alterações recebidas durante a leitura do banco em curso, ou
+     * {@code null} fora de leitura. Protegido pelo monitor de
+     * {@code retencao}.
+     */
+    private List<Runnable> retidas;
+
+    private final Object retencao = new Object();
+
+    private int[] ids = new int[1024];
+    private int[] dias = new int[1024];
+    private short[] minutos = new short[1024];
+    private byte[] status = new byte[1024];
+    private int[] medicos = new int[1024];
+    private int[] pacientes = new int[1024];
+    private int tamanho;
+
+    /**
+     * Maior id de médico presente, para dimensionar os vetores de
+     * agrupamento.
+     */
+    private int maiorMedico;
+
+    /**
+     * Índices em bitmap, ou {@code null} enquanto não forem usados.
+     */
+    private IndiceBitmap indice;
+
+    private SnapshotConsultas() {
+    }
+
+    /**
+     * Retorna a cópia em memória, carregando-a do banco na primeira chamada.
+     *
+     * @return cópia carregada
+     */
+    public static SnapshotConsultas obter() {
+        SnapshotConsultas s = atual;
+        if (s == null) {
+            synchronized (SnapshotConsultas.class) {
+                s = atual;
+                if (s == null) {
+                    s = new SnapshotConsultas();
+                    emCarga = s;
+                    try {
+                        s.carregarDesde(0);
+                        atual = s;
+                    } finally {
+                        emCarga = null;
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Indica se a cópia já foi carregada.
+     *
+     * @return {@code true} se {@link #obter()} já foi chamado com sucesso
+     */
+    public static boolean carregado() {
+        return atual != null;
+    }
+
+    /**
+     * Aplica na cópia carregada (se houver) a inserção ou alteração de uma
+     * consulta feita por esta estação.
+     *
+     * @param c consulta gravada
+     */
+    public static void registrarAlteracao(Consulta c) {
+        SnapshotConsultas s = destino();
+        if (s != null && c != null) {
+            s.receber(() -> s.aplicar(c.getId(),
+                    c.getDataAgendada() != null ? (int) c.getDataAgendada().toEpochDay() : 0,
+                    c.getHoraAgendada() != null ? (short) (c.getHoraAgendada().toSecondOfDay() / 60) : 0,
+                    c.getStatus() != null ? (byte) c.getStatus().ordinal() : REMOVIDA,
+                    c.getMedico() != null ? c.getMedico().getId() : 0,
+                    c.getPaciente() != null ? c.getPaciente().getId() : 0));
+        }
+    }
+
+    /**
+     * Marca a consulta como removida na cópia carregada (se houver).
+     *
+     * @param id id da consulta removida
+     */
+    public static void registrarRemocao(int id) {
+        SnapshotConsultas s = destino();
+        if (s != null) {
+            s.receber(() -> s.remover(id));
+        }
+    }
+
+    /**
+     * Retorna a cópia que deve receber as alterações do barramento: a
+     * publicada ou, antes dela, a que está em carga.
+     */
+    private static SnapshotConsultas destino() {
+        SnapshotConsultas s = atual;
+        return s != null ? s : emCarga;
+    }
+
+    /**
+     * Aplica uma alteração recebida do barramento ou, se houver uma leitura
+     * do banco em curso, retém-na para o final da leitura.
+     */
+    private void receber(Runnable alteracao) {
+        synchronized (retencao) {
+            if (retidas != null) {
+                retidas.add(alteracao);
+                return;
+            }
+        }
+        alteracao.run();
+    }
+
+    private void remover(int id) {
+        lock.writeLock().lock();
+        try {
+            int i = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (i >= 0) {
+                if (indice != null && status[i] >= 0) {
+                    indice.excluir(id, dias[i], status[i], medicos[i]);
+                }
+                status[i] = REMOVIDA;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Traz do banco as consultas inseridas desde a última carga, inclusive
+     * por outras estações.
+     *
+     * @return quantidade de consultas lidas
+     */
+    public int sincronizar() {
+        int ultimo;
+        lock.readLock().lock();
+        try {
+            ultimo = tamanho == 0 ? 0 : ids[tamanho - 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+        return carregarDesde(Math.max(0, ultimo - JANELA_SINCRONIZACAO));
+    }
+
+    /**
+     * Retorna a quantidade de consultas na cópia, inclusive removidas.
+     *
+     * @return quantidade de linhas
+     */
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return tamanho;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os índices em bitmap da cópia, construindo-os na primeira
+     * chamada. Depois de construídos, são atualizados junto com a cópia.
+     *
+     * @return índices em bitmap
+     */
+    public IndiceBitmap indice() {
+        lock.readLock().lock();
+        try {
+            if (indice != null) {
+                return indice;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (indice == null) {
+                long t0 = System.nanoTime();
+                IndiceBitmap novo = new IndiceBitmap(lock.readLock());
+                for (int i = 0; i < tamanho; i++) {
+                    if (status[i] >= 0) {
+                        novo.incluir(ids[i], dias[i], status[i], medicos[i]);
+                    }
+                }
+                indice = novo;
+                Metricas.registrarTempo("analise.bitmap.construcao", System.nanoTime() - t0);
+            }
+            return indice;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Conta as consultas que atendem ao filtro.
+     *
+     * @param filtro critérios de seleção
+     * @return quantidade de consultas por status, indexada por
+     * {@link StatusConsulta#ordinal()}
+     */
+    public long[] contarPorStatus(FiltroColunar filtro) {
+        lock.readLock().lock();
+        try {
+            boolean[] medicoAceito = medicosAceitos(filtro);
+            int ini = filtro.diaInicial;
+            int fim = filtro.diaFinal;
+            int mascara = filtro.mascaraStatus;
+
+            // Posição extra recebe as linhas descartadas, evitando desvio.
+            long[] contagem = new long[QTD_STATUS + 1];
+            for (int i = 0; i < tamanho; i++) {
+                int d = dias[i];
+                int s = status[i];
+                boolean ok = d >= ini & d <= fim
+                        & ((mascara >>> (s & 31)) & 1) != 0 & s >= 0
+                        & (medicoAceito == null || medicoAceito[medicos[i]]);
+                contagem[ok ? s : QTD_STATUS]++;
+            }
+            return Arrays.copyOf(contagem, QTD_STATUS);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta as consultas que atendem ao filtro, agrupadas pelo critério
+     * informado e por status.
+     *
+     * @param filtro critérios de seleção
+     * @param agrupamento critério de agrupamento
+     * @return matriz {@code [grupo][status]}; o grupo é o id do médico, o dia
+     * da semana (0 = segunda) ou a hora, conforme o agrupamento
+     */
+    public long[][] contar(FiltroColunar filtro, Agrupamento agrupamento) {
+        lock.readLock().lock();
+        try {
+            boolean[] medicoAceito = medicosAceitos(filtro);
+            int ini = filtro.diaInicial;
+            int fim = filtro.diaFinal;
+            int mascara = filtro.mascaraStatus;
+
+            int grupos = switch (agrupamento) {
+                case MEDICO -> maiorMedico + 1;
+                case DIA_SEMANA -> 7;
+                case HORA -> 24;
+            };
+            // Contagens em um único vetor [grupo * largura + status]; a última
+            // coluna de cada grupo recebe as linhas descartadas.
+            int largura = QTD_STATUS + 1;
+            long[] contagem = new long[grupos * largura];
+
+            for (int i = 0; i < tamanho; i++) {
+                int d = dias[i];
+                int s = status[i];
+                boolean ok = d >= ini & d <= fim
+                        & ((mascara >>> (s & 31)) & 1) != 0 & s >= 0
+                        & (medicoAceito == null || medicoAceito[medicos[i]]);
+                int grupo = switch (agrupamento) {
+                    case MEDICO -> medicos[i];
+                    case DIA_SEMANA -> Math.floorMod(d + 3, 7); // 1970-01-01 foi quinta-feira
+                    case HORA -> minutos[i] / 60;
+                };
+                contagem[grupo * largura + (ok ? s : QTD_STATUS)]++;
+            }
+
+            long[][] resultado = new long[grupos][QTD_STATUS];
+            for (int g = 0; g < grupos; g++) {
+                System.arraycopy(contagem, g * largura, resultado[g], 0, QTD_STATUS);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Converte os médicos do filtro em uma tabela indexada pelo id, consultada
+     * sem desvio dentro dos laços.
+     */
+    private boolean[] medicosAceitos(FiltroColunar filtro) {
+        if (filtro.medicos == null) {
+            return null;
+        }
+        boolean[] aceitos = new boolean[maiorMedico + 1];
+        for (int id : filtro.medicos) {
+            if (id >= 0 && id <= maiorMedico) {
+                aceitos[id] = true;
+            }
+        }
+        return aceitos;
+    }
+
+    /**
+     * Lê do banco, em fluxo e em ordem de id, as consultas com id maior que o
+     * informado e as aplica na cópia. As alterações recebidas durante a
+     * leitura são aplicadas em seguida. Leituras simultâneas são executadas
+     * uma de cada vez.
+     */
+    private synchronized int carregarDesde(int idMinimo) {
+        long t0 = System.nanoTime();
+        int lidas = 0;
+        synchronized (retencao) {
+            retidas = new ArrayList<>();
+        }
+        EntityManager em = JPAUtil.getEntityManager();
+        try (Stream<Object[]> fluxo = em.createQuery(
+                "SELECT c.id, c.dataAgendada, c.horaAgendada, c.status, c.medico.id, c.paciente.id "
+                + "FROM Consulta c WHERE c.id > :idMinimo ORDER BY c.id",
+                Object[].class)
+                .setParameter("idMinimo", idMinimo)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<Object[]> it = fluxo.iterator();
+            while (it.hasNext()) {
+                Object[] l = it.next();
+                LocalDate data = (LocalDate) l[1];
+                LocalTime hora = (LocalTime) l[2];
+                StatusConsulta st = (StatusConsulta) l[3];
+                aplicar((Integer) l[0],
+                        data != null ? (int) data.toEpochDay() : 0,
+                        hora != null ? (short) (hora.toSecondOfDay() / 60) : 0,
+                        st != null ? (byte) st.ordinal() : REMOVIDA,
+                        l[4] != null ? (Integer) l[4] : 0,
+                        l[5] != null ? (Integer) l[5] : 0);
+                lidas++;
+            }
+        } finally {
+            if (em.isOpen()) {
+                em.close();
+            }
+            aplicarRetidas();
+        }
+        Metricas.registrarTempo("analise.snapshot.carga", System.nanoTime() - t0);
+        LOG.fine(() -> "Snapshot de consultas: " + tamanho + " linha(s) após carga desde o id " + idMinimo);
+        return lidas;
+    }
+
+    /**
+     * Aplica, na ordem de chegada, as alterações retidas durante a leitura e
+     * volta a aplicá-las de imediato. Alterações que cheguem enquanto isso
+     * aguardam o fim, para não passarem à frente das retidas.
+     */
+    private void aplicarRetidas() {
+        synchronized (retencao) {
+            for (Runnable alteracao : retidas) {
+                alteracao.run();
+            }
+            Metricas.somar("analise.snapshot.retidas", retidas.size());
+            retidas = null;
+        }
+    }
+
+    /**
+     * Insere ou substitui uma linha, mantendo a ordem por id. Ids novos (o
+     * caso comum) são acrescentados ao final.
+     */
+    private void aplicar(int id, int dia, short minuto, byte st, int medico, int paciente) {
+        lock.writeLock().lock();
+        try {
+            int i = tamanho > 0 && id > ids[tamanho - 1]
+                    ? -(tamanho + 1)
+                    : Arrays.binarySearch(ids, 0, tamanho, id);
+            if (i < 0) {
+                i = -(i + 1);
+                garantirCapacidade(tamanho + 1);
+                if (i < tamanho) {
+                    int n = tamanho - i;
+                    System.arraycopy(ids, i, ids, i + 1, n);
+                    System.arraycopy(dias, i, dias, i + 1, n);
+                    System.arraycopy(minutos, i, minutos, i + 1, n);
+                    System.arraycopy(status, i, status, i + 1, n);
+                    System.arraycopy(medicos, i, medicos, i + 1, n);
+                    System.arraycopy(pacientes, i, pacientes, i + 1, n);
+                }
+                tamanho++;
+            } else if (indice != null && status[i] >= 0) {
+                indice.excluir(id, dias[i], status[i], medicos[i]);
+            }
+            ids[i] = id;
+            dias[i] = dia;
+            minutos[i] = minuto;
+            status[i] = st;
+            medicos[i] = medico;
+            pacientes[i] = paciente;
+            maiorMedico = Math.max(maiorMedico, medico);
+            if (indice != null && st >= 0) {
+                indice.incluir(id, dia, st, medico);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= ids.length) {
+            return;
+        }
+        int capacidade = Math.max(minimo, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacidade);
+        dias = Arrays.copyOf(dias, capacidade);
+        minutos = Arrays.copyOf(minutos, capacidade);
+        status = Arrays.copyOf(status, capacidade);
+        medicos = Arrays.copyOf(medicos, capacidade);
+        pacientes = Arrays.copyOf(pacientes, capacidade);
+    }
+}
@@ -0,0 +1,139 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acumula as variações da tabela {@code resumo_diario} provocadas pelas
+ * gravações de consultas de uma transação e as aplica ao final dela.
+ * <p>
+ * Cada consulta conta uma unidade na linha (dia, médico, status). Antes de
+ * alterar uma consulta, chame {@link #remover(Consulta)} com o estado atual;
+ * depois da alteração, {@link #adicionar(Consulta)} com o novo estado.
+ * Variações que se anulam (ex.: alteração que não muda dia, médico nem status)
+ * não geram escrita.
+ *
+ * <p>
+ * {@link #aplicar(EntityManager)} usa {@code INSERT ... ON DUPLICATE KEY
+ * UPDATE}, que soma a variação de forma atômica no banco, sem ler a linha
+ * antes; estações concorrentes não perdem incrementos. As linhas são gravadas
+ * sempre na mesma ordem (dia, médico, status) para reduzir deadlocks entre
+ * transações que tocam as mesmas linhas.
+ *
+ * <p>
+ * Uma linha cujo total chega a zero é apagada na mesma transação. Sem isso,
+ * as linhas zeradas se acumulariam e, pela chave estrangeira de
+ * {@code medico_id}, impediriam a remoção de um médico que já não tem
+ * consultas.
+ */
+public class AjusteResumoDiario {
+
+    private static final String UPSERT
+            = "INSERT INTO resumo_diario (data, medico_id, status, total) "
+            + "VALUES (:data, :medicoId, :status, :delta) "
+            + "ON DUPLICATE KEY UPDATE total = total + :delta";
+
+    private static final String REMOVER_ZERADA
+            = "DELETE FROM resumo_diario "
+            + "WHERE data = :data AND medico_id = :medicoId AND status = :status AND total = 0";
+
+    /**
+     * Variação acumulada por linha do resumo, em ordem de gravação.
+     */
+    private final Map<Chave, Long> variacoes = new TreeMap<>();
+
+    /**
+     * Registra a saída da consulta de sua linha atual do resumo.
+     *
+     * @param c consulta no estado anterior à alteração (ou a ser removida)
+     */
+    public void remover(Consulta c) {
+        ajustar(c, -1);
+    }
+
+    /**
+     * Registra a entrada da consulta na linha do resumo correspondente.
+     *
+     * @param c consulta no estado posterior à alteração (ou recém-inserida)
+     */
+    public void adicionar(Consulta c) {
+        ajustar(c, 1);
+    }
+
+    /**
+     * Grava as variações acumuladas na transação do {@code em} informado,
+     * apaga as linhas que ficaram zeradas e limpa o acumulador.
+     *
+     * @param em EntityManager com transação ativa
+     */
+    public void aplicar(EntityManager em) {
+        for (Map.Entry<Chave, Long> e : variacoes.entrySet()) {
+            if (e.getValue() == 0) {
+                continue;
+            }
+            Chave k = e.getKey();
+            em.createNativeQuery(UPSERT)
+                    .setParameter("data", k.data)
+                    .setParameter("medicoId", k.medicoId)
+                    .setParameter("status", k.status.name())
+                    .setParameter("delta", e.getValue())
+                    .executeUpdate();
+            if (e.getValue() < 0) {
+                em.createNativeQuery(REMOVER_ZERADA)
+                        .setParameter("data", k.data)
+                        .setParameter("medicoId", k.medicoId)
+                        .setParameter("status", k.status.name())
+                        .executeUpdate();
+            }
+        }
+        variacoes.clear();
+    }
+
+    private void ajustar(Consulta c, long delta) {
+        if (c == null || c.getMedico() == null || c.getDataAgendada() == null || c.getStatus() == null) {
+            return;
+        }
+        variacoes.merge(new Chave(c.getDataAgendada(), c.getMedico().getId(), c.getStatus()), delta, Long::sum);
+    }
+
+    /**
+     * Identifica uma linha do resumo.
+     */
+    private static final class Chave implements Comparable<Chave> {
+
+        private static final Comparator<Chave> ORDEM = Comparator
+                .comparing((Chave k) -> k.data)
+                .thenComparingInt(k -> k.medicoId)
+                .thenComparing(k -> k.status);
+
+        private final LocalDate data;
+        private final int medicoId;
+        private final StatusConsulta status;
+
+        Chave(LocalDate data, int medicoId, StatusConsulta status) {
+            this.data = data;
+            this.medicoId = medicoId;
+            this.status = status;
+        }
+
+        @Override
+        public int compareTo(Chave outra) {
+            return ORDEM.compare(this, outra);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave k && compareTo(k) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (data.hashCode() * 31 + medicoId) * 31 + status.hashCode();
+        }
+    }
+}
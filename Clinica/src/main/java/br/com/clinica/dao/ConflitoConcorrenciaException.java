@@ -0,0 +1,102 @@
+package br.com.clinica.dao;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+
+/**
+ * Exceção lançada pelos DAOs quando uma atualização é rejeitada pelo controle
+ * de concorrência otimista ({@code @Version}).
+ * <p>
+ * Indica que o registro foi alterado (ou removido) por outra estação depois
+ * que o usuário o carregou. A exceção carrega o estado atual do registro no
+ * banco para que a tela possa oferecer as opções de recarregar os dados ou
+ * reaplicar as alterações do usuário sobre a versão mais recente.
+ */
+public class ConflitoConcorrenciaException extends RuntimeException {
+
+    /**
+     * Tipo da entidade em conflito.
+     */
+    private final Class<?> tipo;
+
+    /**
+     * Identificador do registro em conflito.
+     */
+    private final int id;
+
+    /**
+     * Estado atual do registro no banco, ou {@code null} se ele foi removido.
+     */
+    private final Object registroAtual;
+
+    /**
+     * Cria a exceção de conflito.
+     *
+     * @param tipo tipo da entidade em conflito
+     * @param id identificador do registro
+     * @param registroAtual estado atual no banco, ou {@code null} se removido
+     * @param causa exceção original do JPA/Hibernate
+     */
+    public ConflitoConcorrenciaException(Class<?> tipo, int id, Object registroAtual, Throwable causa) {
+        super(registroAtual == null
+                ? tipo.getSimpleName() + " #" + id + " foi removido por outro usuário."
+                : tipo.getSimpleName() + " #" + id + " foi alterado por outro usuário.", causa);
+        this.tipo = tipo;
+        this.id = id;
+        this.registroAtual = registroAtual;
+    }
+
+    /**
+     * Verifica se a exceção informada (ou alguma de suas causas) decorre de
+     * falha na verificação de versão.
+     *
+     * @param e exceção a ser analisada
+     * @return {@code true} se for um conflito de concorrência otimista
+     */
+    public static boolean causadoPorConflito(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retorna o tipo da entidade em conflito.
+     *
+     * @return classe da entidade
+     */
+    public Class<?> getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Retorna o identificador do registro em conflito.
+     *
+     * @return id do registro
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Indica se o registro foi removido por outro usuário.
+     *
+     * @return {@code true} se o registro não existe mais
+     */
+    public boolean isRemovido() {
+        return registroAtual == null;
+    }
+
+    /**
+     * Retorna o estado atual do registro no banco.
+     *
+     * @param <T> tipo da entidade
+     * @param tipoEsperado classe da entidade esperada
+     * @return registro atual, ou {@code null} se removido
+     */
+    public <T> T getRegistroAtual(Class<T> tipoEsperado) {
+        return tipoEsperado.cast(registroAtual);
+    }
+}
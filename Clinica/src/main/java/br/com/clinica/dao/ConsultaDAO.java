@@ -1,16 +1,28 @@
 package br.com.clinica.dao;
 
+import br.com.clinica.analise.SnapshotConsultas;
 import br.com.clinica.model.Consulta;
 import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.RequisicaoProcessada;
 import br.com.clinica.model.Usuario;
 import static br.com.clinica.util.DateTimeUtils.tryParseDate;
 import static br.com.clinica.util.DateTimeUtils.tryParseTime;
+import br.com.clinica.util.BarramentoAlteracoes;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * DAO responsável pela persistência e consultas avançadas da entidade
@@ -18,40 +30,285 @@ import java.util.List;
  * <p>
  * Além das operações CRUD, esta classe implementa múltiplos filtros e uma busca
  * dinâmica capaz de interpretar termos como textos, datas, horários e status.
+ *
+ * <p>
+ * Toda inserção, alteração e remoção atualiza também a tabela
+ * {@code resumo_diario} e grava uma entrada em {@code registro_alteracao} na
+ * mesma transação (ver {@link AjusteResumoDiario} e
+ * {@link RegistroAlteracoes}) e, depois de confirmada, é publicada no
+ * {@link br.com.clinica.util.BarramentoAlteracoes}.
  */
 public class ConsultaDAO implements DAO<Consulta> {
 
     /**
-     * Factory compartilhada para criação de EntityManager.
+     * Tempo durante o qual uma chave de idempotência devolve o resultado
+     * original.
+     */
+    private static final Duration VALIDADE_CHAVE = Duration.ofHours(24);
+
+    /**
+     * Intervalo mínimo entre duas limpezas de chaves expiradas.
+     */
+    private static final long INTERVALO_LIMPEZA_MS = Duration.ofHours(1).toMillis();
+
+    /**
+     * Momento (epoch ms) da última limpeza de chaves expiradas.
      */
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("clinicaPU");
+    private static final AtomicLong ultimaLimpeza = new AtomicLong();
+
+    /**
+     * Quantidade máxima de ids em cada cláusula {@code IN} de
+     * {@link #listarPorIds(int[])}.
+     */
+    private static final int LOTE_IDS = 1000;
 
     /**
      * Insere uma nova consulta no banco.
      *
      * @param c consulta a ser persistida
+     * @return consulta gravada, já com o id gerado
      */
     @Override
-    public void inserir(Consulta c) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.persist(c);
-        em.getTransaction().commit();
-        em.close();
+    public Consulta inserir(Consulta c) {
+        Consulta gravada = TransacaoJPA.executar(em -> persistir(em, c));
+        publicar(gravada, TipoAlteracao.INCLUSAO);
+        return gravada;
     }
 
     /**
      * Atualiza os dados de uma consulta existente.
+     * <p>
+     * A versão informada em {@link Consulta#getVersao()} deve ser a mesma do
+     * banco; caso outra estação tenha alterado a consulta nesse meio tempo, a
+     * atualização é desfeita e nada é sobrescrito.
      *
      * @param c consulta com informações atualizadas
+     * @return consulta gravada, com a nova versão
+     * @throws ConflitoConcorrenciaException se a consulta foi alterada ou
+     * removida por outro usuário
      */
     @Override
-    public void atualizar(Consulta c) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.merge(c);
-        em.getTransaction().commit();
-        em.close();
+    public Consulta atualizar(Consulta c) {
+        try {
+            Consulta gravada = TransacaoJPA.executar(em -> mesclar(em, c));
+            publicar(gravada, TipoAlteracao.ALTERACAO);
+            return gravada;
+        } catch (PersistenceException e) {
+            if (ConflitoConcorrenciaException.causadoPorConflito(e)) {
+                throw new ConflitoConcorrenciaException(Consulta.class, c.getId(), buscarPorId(c.getId()), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Insere uma nova consulta de forma idempotente.
+     * <p>
+     * Se a mesma chave já tiver sido processada (por exemplo, o usuário clicou
+     * "Salvar" de novo após uma falha de rede cujo commit chegou ao banco), a
+     * consulta gravada originalmente é devolvida e nada é inserido. A chave
+     * vale apenas para o mesmo conteúdo ({@link #hashConteudo(Consulta)}):
+     * repeti-la com outros dados é recusado.
+     *
+     * @param c consulta a ser persistida
+     * @param chave chave de idempotência da requisição
+     * @return consulta gravada por esta chamada ou pela chamada original
+     * @throws IllegalStateException se a chave já foi usada com outro
+     * conteúdo
+     */
+    public Consulta inserir(Consulta c, String chave) {
+        Consulta gravada = executarIdempotente(chave, "INSERIR", c, em -> persistir(em, c));
+        publicar(gravada, TipoAlteracao.INCLUSAO);
+        return gravada;
+    }
+
+    /**
+     * Atualiza uma consulta (inclusive mudança de status) de forma
+     * idempotente.
+     * <p>
+     * Uma repetição com a mesma chave devolve o estado atual da consulta sem
+     * aplicar a alteração outra vez, evitando também um falso conflito de
+     * versão na segunda tentativa.
+     *
+     * @param c consulta com informações atualizadas
+     * @param chave chave de idempotência, normalmente obtida com
+     * {@link #chaveAlteracao(Consulta)}
+     * @return consulta atualizada
+     * @throws ConflitoConcorrenciaException se a consulta foi alterada ou
+     * removida por outro usuário
+     * @throws IllegalStateException se a chave já foi usada com outro
+     * conteúdo
+     */
+    public Consulta atualizar(Consulta c, String chave) {
+        Consulta gravada = executarIdempotente(chave, "ALTERAR", c, em -> mesclar(em, c));
+        publicar(gravada, TipoAlteracao.ALTERACAO);
+        return gravada;
+    }
+
+    /**
+     * Gera a chave de idempotência de uma alteração a partir da versão de
+     * origem e dos novos valores da consulta. Repetir a mesma alteração gera a
+     * mesma chave; qualquer alteração posterior parte de outra versão e gera
+     * uma chave nova.
+     *
+     * @param c consulta com os novos valores
+     * @return chave de idempotência da alteração
+     */
+    public static String chaveAlteracao(Consulta c) {
+        return "ALTERAR:" + c.getId()
+                + ":v" + c.getVersao()
+                + ":" + c.getStatus()
+                + ":p" + (c.getPaciente() != null ? c.getPaciente().getId() : 0)
+                + ":m" + (c.getMedico() != null ? c.getMedico().getId() : 0)
+                + ":" + c.getDataAgendada()
+                + "T" + c.getHoraAgendada();
+    }
+
+    /**
+     * Calcula o hash do conteúdo de uma requisição de gravação: id, paciente,
+     * médico, data, horário e status da consulta. Duas requisições com o
+     * mesmo hash gravam a mesma consulta.
+     *
+     * @param c consulta a ser gravada
+     * @return hash SHA-256 em hexadecimal
+     */
+    public static String hashConteudo(Consulta c) {
+        String conteudo = c.getId()
+                + "|" + (c.getPaciente() != null ? c.getPaciente().getId() : 0)
+                + "|" + (c.getMedico() != null ? c.getMedico().getId() : 0)
+                + "|" + c.getDataAgendada()
+                + "|" + c.getHoraAgendada()
+                + "|" + c.getStatus();
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Remove as chaves de idempotência expiradas.
+     *
+     * @return quantidade de chaves removidas
+     */
+    public int limparChavesExpiradas() {
+        return TransacaoJPA.executar(em -> em.createQuery(
+                "DELETE FROM RequisicaoProcessada r WHERE r.expiraEm < :agora")
+                .setParameter("agora", LocalDateTime.now())
+                .executeUpdate());
+    }
+
+    /**
+     * Executa a operação e registra a chave, com o hash do conteúdo, na mesma
+     * transação. Se a chave já existir (e não estiver expirada), devolve a
+     * consulta registrada nela, desde que o conteúdo seja o mesmo.
+     * <p>
+     * Duas tentativas simultâneas com a mesma chave são resolvidas pela chave
+     * primária de {@code requisicao_processada}: a segunda falha no commit e
+     * passa a devolver o resultado da primeira.
+     */
+    private Consulta executarIdempotente(String chave, String operacao, Consulta c,
+            Function<EntityManager, Consulta> acao) {
+        limparChavesExpiradasPeriodicamente();
+        int id = c.getId();
+        String hash = hashConteudo(c);
+
+        try {
+            return TransacaoJPA.executarIdempotente(em -> {
+                LocalDateTime agora = LocalDateTime.now();
+
+                RequisicaoProcessada anterior = em.find(RequisicaoProcessada.class, chave);
+                if (anterior != null && anterior.getExpiraEm().isAfter(agora)) {
+                    verificarConteudo(anterior, hash);
+                    return em.find(Consulta.class, anterior.getResultadoId());
+                }
+                if (anterior != null) {
+                    em.detach(anterior);
+                    em.createQuery("DELETE FROM RequisicaoProcessada r WHERE r.chave = :chave")
+                            .setParameter("chave", chave)
+                            .executeUpdate();
+                }
+
+                Consulta resultado = acao.apply(em);
+                em.flush();
+                em.persist(new RequisicaoProcessada(chave, operacao, resultado.getId(), hash,
+                        agora.plus(VALIDADE_CHAVE)));
+                return resultado;
+            });
+        } catch (PersistenceException e) {
+            RequisicaoProcessada registrada = buscarRequisicao(chave);
+            if (registrada != null) {
+                verificarConteudo(registrada, hash);
+                return buscarPorId(registrada.getResultadoId());
+            }
+            if (ConflitoConcorrenciaException.causadoPorConflito(e)) {
+                throw new ConflitoConcorrenciaException(Consulta.class, id, buscarPorId(id), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Recusa a repetição de uma chave com conteúdo diferente do da requisição
+     * original, que devolveria como gravada uma consulta com outros dados.
+     */
+    private static void verificarConteudo(RequisicaoProcessada registrada, String hash) {
+        if (registrada.getHashConteudo() != null && !registrada.getHashConteudo().equals(hash)) {
+            throw new IllegalStateException("A requisição já foi processada com outros dados (consulta #"
+                    + registrada.getResultadoId() + "); nada foi gravado.");
+        }
+    }
+
+    /**
+     * Insere a consulta e contabiliza-a no resumo diário, na transação do
+     * {@code em} informado.
+     */
+    static Consulta persistir(EntityManager em, Consulta c) {
+        TransacaoJPA.persistir(em, c);
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.adicionar(c);
+        ajuste.aplicar(em);
+        RegistroAlteracoes.registrar(em, Consulta.class, c.getId(), TipoAlteracao.INCLUSAO);
+        return c;
+    }
+
+    /**
+     * Aplica a alteração da consulta e move sua contagem no resumo diário
+     * (do dia/médico/status anterior para o novo), na transação do {@code em}
+     * informado.
+     */
+    private static Consulta mesclar(EntityManager em, Consulta c) {
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.remover(em.find(Consulta.class, c.getId()));
+        Consulta gerenciada = em.merge(c);
+        ajuste.adicionar(gerenciada);
+        ajuste.aplicar(em);
+        RegistroAlteracoes.registrar(em, Consulta.class, gerenciada.getId(), TipoAlteracao.ALTERACAO);
+        return gerenciada;
+    }
+
+    /**
+     * Publica a gravação da consulta no {@link BarramentoAlteracoes}, que
+     * atualiza a cópia em memória ({@link SnapshotConsultas}) e as telas
+     * abertas.
+     */
+    private static void publicar(Consulta c, TipoAlteracao alteracao) {
+        if (c != null) {
+            BarramentoAlteracoes.publicar(Consulta.class, c.getId(), alteracao, c);
+        }
+    }
+
+    private RequisicaoProcessada buscarRequisicao(String chave) {
+        return TransacaoJPA.consultar(em -> em.find(RequisicaoProcessada.class, chave));
+    }
+
+    private void limparChavesExpiradasPeriodicamente() {
+        long agora = System.currentTimeMillis();
+        long anterior = ultimaLimpeza.get();
+        if (agora - anterior >= INTERVALO_LIMPEZA_MS && ultimaLimpeza.compareAndSet(anterior, agora)) {
+            limparChavesExpiradas();
+        }
     }
 
     /**
@@ -61,14 +318,18 @@ public class ConsultaDAO implements DAO<Consulta> {
      */
     @Override
     public void deletar(int id) {
-        EntityManager em = emf.createEntityManager();
-        Consulta c = em.find(Consulta.class, id);
-        if (c != null) {
-            em.getTransaction().begin();
-            em.remove(c);
-            em.getTransaction().commit();
-        }
-        em.close();
+        TransacaoJPA.executar(em -> {
+            Consulta c = em.find(Consulta.class, id);
+            if (c != null) {
+                AjusteResumoDiario ajuste = new AjusteResumoDiario();
+                ajuste.remover(c);
+                em.remove(c);
+                ajuste.aplicar(em);
+                RegistroAlteracoes.registrar(em, Consulta.class, id, TipoAlteracao.REMOCAO);
+            }
+            return c;
+        });
+        BarramentoAlteracoes.publicar(Consulta.class, id, TipoAlteracao.REMOCAO, null);
     }
 
     /**
@@ -79,10 +340,7 @@ public class ConsultaDAO implements DAO<Consulta> {
      */
     @Override
     public Consulta buscarPorId(int id) {
-        EntityManager em = emf.createEntityManager();
-        Consulta c = em.find(Consulta.class, id);
-        em.close();
-        return c;
+        return TransacaoJPA.consultar(em -> em.find(Consulta.class, id));
     }
 
     /**
@@ -92,12 +350,9 @@ public class ConsultaDAO implements DAO<Consulta> {
      */
     @Override
     public List<Consulta> listarTodos() {
-        EntityManager em = emf.createEntityManager();
-        List<Consulta> lista = em.createQuery(
+        return TransacaoJPA.consultar(em -> em.createQuery(
                 "SELECT c FROM Consulta c",
-                Consulta.class).getResultList();
-        em.close();
-        return lista;
+                Consulta.class).getResultList());
     }
 
     /**
@@ -119,8 +374,7 @@ public class ConsultaDAO implements DAO<Consulta> {
      * @return lista de consultas correspondentes
      */
     public List<Consulta> buscarConsulta(String termo, Usuario usuarioLogado, String perfil) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return TransacaoJPA.consultar(em -> {
             CriteriaBuilder cb = em.getCriteriaBuilder();
             CriteriaQuery<Consulta> cq = cb.createQuery(Consulta.class);
             Root<Consulta> root = cq.from(Consulta.class);
@@ -152,127 +406,115 @@ public class ConsultaDAO implements DAO<Consulta> {
             }
 
             return em.createQuery(cq).getResultList();
-
-        } finally {
-            em.close();
-        }
+        });
     }
 
     /**
      * Lista consultas associadas a um médico específico.
      */
     public List<Consulta> listarPorMedico(int medicoId) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.medico.id = :medicoId",
-                    Consulta.class)
-                    .setParameter("medicoId", medicoId)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.medico.id = :medicoId",
+                Consulta.class)
+                .setParameter("medicoId", medicoId)
+                .getResultList());
     }
 
     /**
      * Lista consultas de um determinado paciente.
      */
     public List<Consulta> listarPorPaciente(int pacienteId) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.paciente.id = :pacienteId",
-                    Consulta.class)
-                    .setParameter("pacienteId", pacienteId)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.paciente.id = :pacienteId",
+                Consulta.class)
+                .setParameter("pacienteId", pacienteId)
+                .getResultList());
     }
 
     /**
      * Lista consultas filtrando pelo status.
      */
     public List<Consulta> listarPorStatus(StatusConsulta status) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.status = :status",
-                    Consulta.class)
-                    .setParameter("status", status)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.status = :status",
+                Consulta.class)
+                .setParameter("status", status)
+                .getResultList());
     }
 
     /**
      * Lista consultas dentro de um intervalo de datas.
      */
     public List<Consulta> listarPorPeriodo(LocalDate dataInicial, LocalDate dataFinal) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :dataInicial AND :dataFinal",
-                    Consulta.class)
-                    .setParameter("dataInicial", dataInicial)
-                    .setParameter("dataFinal", dataFinal)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :dataInicial AND :dataFinal",
+                Consulta.class)
+                .setParameter("dataInicial", dataInicial)
+                .setParameter("dataFinal", dataFinal)
+                .getResultList());
     }
 
     /**
      * Lista consultas filtrando paciente e médico ao mesmo tempo.
      */
     public List<Consulta> listarPorPacienteEMedico(int pacienteId, int medicoId) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.paciente.id = :pacienteId AND c.medico.id = :medicoId",
-                    Consulta.class)
-                    .setParameter("pacienteId", pacienteId)
-                    .setParameter("medicoId", medicoId)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.paciente.id = :pacienteId AND c.medico.id = :medicoId",
+                Consulta.class)
+                .setParameter("pacienteId", pacienteId)
+                .setParameter("medicoId", medicoId)
+                .getResultList());
     }
 
     /**
      * Lista consultas por status e médico específico.
      */
     public List<Consulta> listarPorStatusEMedico(StatusConsulta status, int medicoId) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.status = :status AND c.medico.id = :medicoId",
-                    Consulta.class)
-                    .setParameter("status", status)
-                    .setParameter("medicoId", medicoId)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.status = :status AND c.medico.id = :medicoId",
+                Consulta.class)
+                .setParameter("status", status)
+                .setParameter("medicoId", medicoId)
+                .getResultList());
     }
 
     /**
      * Lista consultas dentro de um período para um médico específico.
      */
     public List<Consulta> listarPorPeriodoEMedico(LocalDate dataInicial, LocalDate dataFinal, int medicoId) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :dataInicial AND :dataFinal AND c.medico.id = :medicoId",
-                    Consulta.class)
-                    .setParameter("dataInicial", dataInicial)
-                    .setParameter("dataFinal", dataFinal)
-                    .setParameter("medicoId", medicoId)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :dataInicial AND :dataFinal AND c.medico.id = :medicoId",
+                Consulta.class)
+                .setParameter("dataInicial", dataInicial)
+                .setParameter("dataFinal", dataFinal)
+                .setParameter("medicoId", medicoId)
+                .getResultList());
     }
 
+    /**
+     * Lista as consultas com os ids informados, em ordem de id.
+     * <p>
+     * Os ids são enviados em lotes de {@value #LOTE_IDS}, dentro de uma
+     * única leitura.
+     *
+     * @param ids ids das consultas
+     * @return consultas encontradas
+     */
+    public List<Consulta> listarPorIds(int[] ids) {
+        List<Integer> lista = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            lista.add(id);
+        }
+        return TransacaoJPA.consultar(em -> {
+            List<Consulta> consultas = new ArrayList<>(lista.size());
+            for (int i = 0; i < lista.size(); i += LOTE_IDS) {
+                consultas.addAll(em.createQuery(
+                        "SELECT c FROM Consulta c WHERE c.id IN :ids ORDER BY c.id",
+                        Consulta.class)
+                        .setParameter("ids", lista.subList(i, Math.min(lista.size(), i + LOTE_IDS)))
+                        .getResultList());
+            }
+            return consultas;
+        });
+    }
 }
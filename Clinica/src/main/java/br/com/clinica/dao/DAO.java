@@ -19,8 +19,9 @@ public interface DAO<T> {
      * Implementações devem abrir/gerenciar transação conforme necessário.     
      *
      * @param obj instância da entidade a ser inserida
+     * @return entidade gravada, já com o id gerado
      */
-    void inserir(T obj);
+    T inserir(T obj);
 
     /**
      * Atualiza a entidade fornecida no repositório.
@@ -28,8 +29,9 @@ public interface DAO<T> {
      * Normalmente corresponde a um {@code merge} em JPA/Hibernate.     
      *
      * @param obj instância da entidade com os dados atualizados
+     * @return entidade gravada, com a nova versão
      */
-    void atualizar(T obj);
+    T atualizar(T obj);
 
     /**
      * Remove a entidade cujo identificador é {@code id}.
@@ -0,0 +1,143 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import br.com.clinica.util.BarramentoAlteracoes;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+
+/**
+ * DAO responsável pela persistência da entidade
+ * {@link br.com.clinica.model.ListaEspera}.
+ * <p>
+ * Além das operações CRUD, fornece a listagem dos pedidos ainda ativos, usada
+ * para montar o índice em memória do
+ * {@link br.com.clinica.service.ListaEsperaService}.
+ *
+ * <p>
+ * Toda gravação grava uma entrada em {@code registro_alteracao} na mesma
+ * transação (ver {@link RegistroAlteracoes}) e, depois de confirmada, é
+ * publicada no {@link BarramentoAlteracoes}, que mantém o índice em dia.
+ */
+public class ListaEsperaDAO implements DAO<ListaEspera> {
+
+    /**
+     * Insere um novo pedido na lista de espera.
+     *
+     * @param l pedido a ser persistido
+     * @return pedido gravado, já com o id gerado
+     */
+    @Override
+    public ListaEspera inserir(ListaEspera l) {
+        ListaEspera gravado = TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, l);
+            RegistroAlteracoes.registrar(em, ListaEspera.class, l.getId(), TipoAlteracao.INCLUSAO);
+            return l;
+        });
+        BarramentoAlteracoes.publicar(ListaEspera.class, gravado.getId(), TipoAlteracao.INCLUSAO, gravado);
+        return gravado;
+    }
+
+    /**
+     * Atualiza um pedido existente.
+     *
+     * @param l pedido com dados atualizados
+     * @return pedido gravado
+     */
+    @Override
+    public ListaEspera atualizar(ListaEspera l) {
+        ListaEspera gravado = TransacaoJPA.executar(em -> {
+            ListaEspera gerenciado = em.merge(l);
+            RegistroAlteracoes.registrar(em, ListaEspera.class, gerenciado.getId(), TipoAlteracao.ALTERACAO);
+            return gerenciado;
+        });
+        BarramentoAlteracoes.publicar(ListaEspera.class, gravado.getId(), TipoAlteracao.ALTERACAO, gravado);
+        return gravado;
+    }
+
+    /**
+     * Remove um pedido pelo ID, caso exista.
+     *
+     * @param id identificador do pedido
+     */
+    @Override
+    public void deletar(int id) {
+        TransacaoJPA.executar(em -> {
+            ListaEspera l = em.find(ListaEspera.class, id);
+            if (l != null) {
+                em.remove(l);
+                RegistroAlteracoes.registrar(em, ListaEspera.class, id, TipoAlteracao.REMOCAO);
+            }
+            return l;
+        });
+        BarramentoAlteracoes.publicar(ListaEspera.class, id, TipoAlteracao.REMOCAO, null);
+    }
+
+    /**
+     * Encaixa o paciente de um pedido: insere a consulta e retira o pedido da
+     * lista de espera, na mesma transação.
+     * <p>
+     * O pedido é bloqueado para escrita antes de ser verificado, de modo que
+     * duas estações que confirmem o mesmo pedido ao mesmo tempo não agendam
+     * o paciente duas vezes: a segunda aguarda a primeira e encontra o pedido
+     * já atendido. Pelo mesmo motivo, repetir a confirmação depois de um
+     * commit cuja resposta se perdeu não cria uma segunda consulta.
+     *
+     * @param pedido pedido atendido
+     * @param nova consulta a ser inserida para o paciente do pedido
+     * @return consulta gravada, já com o id gerado
+     * @throws IllegalStateException se o pedido já foi atendido ou removido
+     */
+    public Consulta encaixar(ListaEspera pedido, Consulta nova) {
+        Consulta gravada = TransacaoJPA.executar(em -> {
+            ListaEspera atual = em.find(ListaEspera.class, pedido.getId(), LockModeType.PESSIMISTIC_WRITE);
+            if (atual == null || !atual.isAtiva()) {
+                throw new IllegalStateException("O paciente já foi encaixado ou retirado da lista de espera.");
+            }
+            atual.setAtiva(false);
+            RegistroAlteracoes.registrar(em, ListaEspera.class, atual.getId(), TipoAlteracao.ALTERACAO);
+            return ConsultaDAO.persistir(em, nova);
+        });
+        pedido.setAtiva(false);
+        BarramentoAlteracoes.publicar(ListaEspera.class, pedido.getId(), TipoAlteracao.ALTERACAO, pedido);
+        BarramentoAlteracoes.publicar(Consulta.class, gravada.getId(), TipoAlteracao.INCLUSAO, gravada);
+        return gravada;
+    }
+
+    /**
+     * Busca um pedido pelo identificador.
+     *
+     * @param id identificador do pedido
+     * @return instância de {@link ListaEspera} ou {@code null} caso não exista
+     */
+    @Override
+    public ListaEspera buscarPorId(int id) {
+        return TransacaoJPA.consultar(em -> em.find(ListaEspera.class, id));
+    }
+
+    /**
+     * Retorna todos os pedidos, ativos ou não.
+     *
+     * @return lista completa de pedidos
+     */
+    @Override
+    public List<ListaEspera> listarTodos() {
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT l FROM ListaEspera l",
+                ListaEspera.class).getResultList());
+    }
+
+    /**
+     * Lista os pedidos ativos em ordem de chegada.
+     *
+     * @return pedidos que ainda aguardam encaixe
+     */
+    public List<ListaEspera> listarAtivas() {
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT l FROM ListaEspera l WHERE l.ativa = true ORDER BY l.criadoEm",
+                ListaEspera.class)
+                .getResultList());
+    }
+
+}
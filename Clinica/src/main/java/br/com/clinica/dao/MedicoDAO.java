@@ -1,6 +1,8 @@
 package br.com.clinica.dao;
 
+import br.com.clinica.enums.TipoAlteracao;
 import br.com.clinica.model.Medico;
+import br.com.clinica.util.BarramentoAlteracoes;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.*;
 import java.util.List;
@@ -10,60 +12,79 @@ import java.util.List;
  * entidade {@link br.com.clinica.model.Medico}.
  * <p>
  * Implementa as operações CRUD definidas na interface {@link DAO} e também
- * fornece um método de busca específica (nome, especialidade ou CRM). 
+ * fornece um método de busca específica (nome, especialidade ou CRM). As
+ * gravações confirmadas são publicadas no {@link BarramentoAlteracoes}.
  */
 public class MedicoDAO implements DAO<Medico> {
 
-    /**
-     * Factory compartilhada para criação de {@link EntityManager}.
-     */
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("clinicaPU");
-
     /**
      * Insere um novo médico no banco.
      *
      * @param m médico a ser persistido
+     * @return médico gravado, já com o id gerado
      */
     @Override
-    public void inserir(Medico m) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.persist(m);
-        em.getTransaction().commit();
-        em.close();
+    public Medico inserir(Medico m) {
+        Medico gravado = TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, m);
+            RegistroAlteracoes.registrar(em, Medico.class, m.getId(), TipoAlteracao.INCLUSAO);
+            return m;
+        });
+        BarramentoAlteracoes.publicar(Medico.class, gravado.getId(), TipoAlteracao.INCLUSAO, gravado);
+        return gravado;
     }
 
     /**
      * Atualiza as informações de um médico existente.
+     * <p>
+     * Rejeitada se a versão informada estiver desatualizada.
      *
      * @param m médico com dados atualizados
+     * @return médico gravado, com a nova versão
+     * @throws ConflitoConcorrenciaException se o médico foi alterado ou
+     * removido por outro usuário
      */
     @Override
-    public void atualizar(Medico m) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.merge(m);
-        em.getTransaction().commit();
-        em.close();
+    public Medico atualizar(Medico m) {
+        try {
+            Medico gravado = TransacaoJPA.executar(em -> {
+                Medico gerenciado = em.merge(m);
+                RegistroAlteracoes.registrar(em, Medico.class, gerenciado.getId(), TipoAlteracao.ALTERACAO);
+                return gerenciado;
+            });
+            BarramentoAlteracoes.publicar(Medico.class, gravado.getId(), TipoAlteracao.ALTERACAO, gravado);
+            return gravado;
+        } catch (PersistenceException e) {
+            if (ConflitoConcorrenciaException.causadoPorConflito(e)) {
+                throw new ConflitoConcorrenciaException(Medico.class, m.getId(), buscarPorId(m.getId()), e);
+            }
+            throw e;
+        }
     }
 
     /**
      * Remove um médico com base no seu id.
      * <p>
-     * Caso o médico não exista, o método apenas encerra sem exceção.     
+     * Caso o médico não exista, o método apenas encerra sem exceção. As
+     * linhas zeradas do médico em {@code resumo_diario} (deixadas por versões
+     * anteriores, que não as apagavam) são removidas na mesma transação.
      *
      * @param id identificador do médico
      */
     @Override
     public void deletar(int id) {
-        EntityManager em = emf.createEntityManager();
-        Medico m = em.find(Medico.class, id);
-        if (m != null) {
-            em.getTransaction().begin();
-            em.remove(m);
-            em.getTransaction().commit();
-        }
-        em.close();
+        TransacaoJPA.executar(em -> {
+            Medico m = em.find(Medico.class, id);
+            if (m != null) {
+                em.createQuery("DELETE FROM ResumoDiario r WHERE r.medico.id = :id AND r.total = 0")
+                        .setParameter("id", id)
+                        .executeUpdate();
+                em.remove(m);
+                RegistroAlteracoes.registrar(em, Medico.class, id, TipoAlteracao.REMOCAO);
+            }
+            return m;
+        });
+        BarramentoAlteracoes.publicar(Medico.class, id, TipoAlteracao.REMOCAO, null);
     }
 
     /**
@@ -75,10 +96,7 @@ public class MedicoDAO implements DAO<Medico> {
      */
     @Override
     public Medico buscarPorId(int id) {
-        EntityManager em = emf.createEntityManager();
-        Medico m = em.find(Medico.class, id);
-        em.close();
-        return m;
+        return TransacaoJPA.consultar(em -> em.find(Medico.class, id));
     }
 
     /**
@@ -88,10 +106,9 @@ public class MedicoDAO implements DAO<Medico> {
      */
     @Override
     public List<Medico> listarTodos() {
-        EntityManager em = emf.createEntityManager();
-        List<Medico> lista = em.createQuery("SELECT m FROM Medico m", Medico.class).getResultList();
-        em.close();
-        return lista;
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT m FROM Medico m",
+                Medico.class).getResultList());
     }
 
     /**
@@ -104,8 +121,7 @@ public class MedicoDAO implements DAO<Medico> {
      * @return lista de médicos correspondentes ao termo
      */
     public List<Medico> buscarPorNomeOuCrm(String termo) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return TransacaoJPA.consultar(em -> {
             CriteriaBuilder cb = em.getCriteriaBuilder();
             CriteriaQuery<Medico> cq = cb.createQuery(Medico.class);
             Root<Medico> root = cq.from(Medico.class);
@@ -119,11 +135,29 @@ public class MedicoDAO implements DAO<Medico> {
             cq.select(root).where(cb.or(nomeLike, especialidadeLike, crmLike));
             
             return em.createQuery(cq).getResultList();
-        } finally {
-            if (em.isOpen()) {
-                em.close();
-            }
-        }
+        });
     }
 
+    /**
+     * Busca os médicos cujo nome começa pelo prefixo informado, em ordem
+     * alfabética, limitados aos primeiros {@code limite}.
+     * <p>
+     * Usa o índice sobre o nome, de modo que o custo não depende da
+     * quantidade de médicos cadastrados. Curingas digitados no prefixo são
+     * tratados como texto.
+     *
+     * @param prefixo início do nome (vazio para os primeiros em ordem
+     * alfabética)
+     * @param limite quantidade máxima de resultados
+     * @return médicos encontrados, em ordem de nome
+     */
+    public List<Medico> buscarPorPrefixoNome(String prefixo, int limite) {
+        String padrao = prefixo.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT m FROM Medico m WHERE m.nome LIKE :padrao ESCAPE '!' ORDER BY m.nome",
+                Medico.class)
+                .setParameter("padrao", padrao)
+                .setMaxResults(limite)
+                .getResultList());
+    }
 }
@@ -1,6 +1,8 @@
 package br.com.clinica.dao;
 
+import br.com.clinica.enums.TipoAlteracao;
 import br.com.clinica.model.Paciente;
+import br.com.clinica.util.BarramentoAlteracoes;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.*;
 import java.util.List;
@@ -10,44 +12,56 @@ import java.util.List;
  * {@link br.com.clinica.model.Paciente}.
  * <p>
  * Fornece operações básicas de persistência (CRUD) e consultas específicas
- * relacionadas a pacientes. Usa JPA {@link EntityManagerFactory} configurado
- * com a unidade de persistência "clinicaPU".
+ * relacionadas a pacientes. As operações são executadas por meio de
+ * {@link TransacaoJPA}, e as gravações confirmadas são publicadas no
+ * {@link BarramentoAlteracoes}.
  */
 public class PacienteDAO implements DAO<Paciente> {
 
-    /**
-     * Factory compartilhada para criar {@link EntityManager}.
-     */
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("clinicaPU");
-
     /**
      * Persiste um novo paciente no banco.
      *
      * @param p paciente a ser inserido
+     * @return paciente gravado, já com o id gerado
      */
     @Override
-    public void inserir(Paciente p) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.persist(p);
-        em.getTransaction().commit();
-        em.close();
+    public Paciente inserir(Paciente p) {
+        Paciente gravado = TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, p);
+            RegistroAlteracoes.registrar(em, Paciente.class, p.getId(), TipoAlteracao.INCLUSAO);
+            return p;
+        });
+        BarramentoAlteracoes.publicar(Paciente.class, gravado.getId(), TipoAlteracao.INCLUSAO, gravado);
+        return gravado;
     }
 
     /**
      * Atualiza um paciente existente.
      * <p>
-     * Normalmente corresponde a um {@code merge} no contexto JPA.
+     * Normalmente corresponde a um {@code merge} no contexto JPA. Rejeitada
+     * se a versão informada estiver desatualizada.
      *
      * @param p paciente com os dados atualizados
+     * @return paciente gravado, com a nova versão
+     * @throws ConflitoConcorrenciaException se o paciente foi alterado ou
+     * removido por outro usuário
      */
     @Override
-    public void atualizar(Paciente p) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.merge(p);
-        em.getTransaction().commit();
-        em.close();
+    public Paciente atualizar(Paciente p) {
+        try {
+            Paciente gravado = TransacaoJPA.executar(em -> {
+                Paciente gerenciado = em.merge(p);
+                RegistroAlteracoes.registrar(em, Paciente.class, gerenciado.getId(), TipoAlteracao.ALTERACAO);
+                return gerenciado;
+            });
+            BarramentoAlteracoes.publicar(Paciente.class, gravado.getId(), TipoAlteracao.ALTERACAO, gravado);
+            return gravado;
+        } catch (PersistenceException e) {
+            if (ConflitoConcorrenciaException.causadoPorConflito(e)) {
+                throw new ConflitoConcorrenciaException(Paciente.class, p.getId(), buscarPorId(p.getId()), e);
+            }
+            throw e;
+        }
     }
 
     /**
@@ -59,14 +73,15 @@ public class PacienteDAO implements DAO<Paciente> {
      */
     @Override
     public void deletar(int id) {
-        EntityManager em = emf.createEntityManager();
-        Paciente p = em.find(Paciente.class, id);
-        if (p != null) {
-            em.getTransaction().begin();
-            em.remove(p);
-            em.getTransaction().commit();
-        }
-        em.close();
+        TransacaoJPA.executar(em -> {
+            Paciente p = em.find(Paciente.class, id);
+            if (p != null) {
+                em.remove(p);
+                RegistroAlteracoes.registrar(em, Paciente.class, id, TipoAlteracao.REMOCAO);
+            }
+            return p;
+        });
+        BarramentoAlteracoes.publicar(Paciente.class, id, TipoAlteracao.REMOCAO, null);
     }
 
     /**
@@ -78,10 +93,7 @@ public class PacienteDAO implements DAO<Paciente> {
      */
     @Override
     public Paciente buscarPorId(int id) {
-        EntityManager em = emf.createEntityManager();
-        Paciente p = em.find(Paciente.class, id);
-        em.close();
-        return p;
+        return TransacaoJPA.consultar(em -> em.find(Paciente.class, id));
     }
 
     /**
@@ -91,10 +103,9 @@ public class PacienteDAO implements DAO<Paciente> {
      */
     @Override
     public List<Paciente> listarTodos() {
-        EntityManager em = emf.createEntityManager();
-        List<Paciente> lista = em.createQuery("SELECT p FROM Paciente p", Paciente.class).getResultList();
-        em.close();
-        return lista;
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT p FROM Paciente p",
+                Paciente.class).getResultList());
     }
 
     /**
@@ -108,8 +119,7 @@ public class PacienteDAO implements DAO<Paciente> {
      * @return lista de pacientes correspondentes ao termo
      */
     public List<Paciente> buscarPorNomeOuCpf(String termo) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return TransacaoJPA.consultar(em -> {
             CriteriaBuilder cb = em.getCriteriaBuilder();
             CriteriaQuery<Paciente> cq = cb.createQuery(Paciente.class);
             Root<Paciente> root = cq.from(Paciente.class);
@@ -123,11 +133,29 @@ public class PacienteDAO implements DAO<Paciente> {
             cq.select(root).where(cb.or(nomeLike, cpfLike, telefoneLike));
 
             return em.createQuery(cq).getResultList();
-        } finally {
-            if (em.isOpen()) {
-                em.close();
-            }
-        }
+        });
     }
 
+    /**
+     * Busca os pacientes cujo nome começa pelo prefixo informado, em ordem
+     * alfabética, limitados aos primeiros {@code limite}.
+     * <p>
+     * Usa o índice sobre o nome, de modo que o custo não depende da
+     * quantidade de pacientes cadastrados. Curingas digitados no prefixo são
+     * tratados como texto.
+     *
+     * @param prefixo início do nome (vazio para os primeiros em ordem
+     * alfabética)
+     * @param limite quantidade máxima de resultados
+     * @return pacientes encontrados, em ordem de nome
+     */
+    public List<Paciente> buscarPorPrefixoNome(String prefixo, int limite) {
+        String padrao = prefixo.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT p FROM Paciente p WHERE p.nome LIKE :padrao ESCAPE '!' ORDER BY p.nome",
+                Paciente.class)
+                .setParameter("padrao", padrao)
+                .setMaxResults(limite)
+                .getResultList());
+    }
 }
@@ -0,0 +1,43 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.RegistroAlteracao;
+import jakarta.persistence.EntityManager;
+import java.util.UUID;
+
+/**
+ * Gravação das entradas de {@link RegistroAlteracao}, na transação da própria
+ * alteração.
+ * <p>
+ * Cada JVM recebe um identificador de estação próprio, gravado em todas as
+ * entradas; assim a leitura periódica do registro ignora as alterações feitas
+ * pela própria estação, que já foram aplicadas localmente.
+ */
+public final class RegistroAlteracoes {
+
+    private static final String ESTACAO = UUID.randomUUID().toString();
+
+    private RegistroAlteracoes() {
+    }
+
+    /**
+     * Retorna o identificador desta estação.
+     *
+     * @return identificador da estação
+     */
+    public static String estacao() {
+        return ESTACAO;
+    }
+
+    /**
+     * Grava a entrada da alteração na transação do {@code em} informado.
+     *
+     * @param em gerenciador de entidades da transação em curso
+     * @param tipo tipo da entidade alterada
+     * @param id identificador do registro
+     * @param alteracao tipo da alteração
+     */
+    public static void registrar(EntityManager em, Class<?> tipo, int id, TipoAlteracao alteracao) {
+        em.persist(new RegistroAlteracao(tipo.getSimpleName(), id, alteracao, ESTACAO));
+    }
+}
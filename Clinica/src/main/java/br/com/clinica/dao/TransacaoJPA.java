@@ -0,0 +1,304 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.Field;
+import java.net.SocketException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.exception.LockAcquisitionException;
+
+/**
+ * Modelo de execução transacional compartilhado por todos os DAOs.
+ * <p>
+ * Cada execução obtém um {@link EntityManager} de {@link JPAUtil} e garante
+ * que ele seja fechado e que a transação seja desfeita em caso de erro. Falhas
+ * transitórias do banco — deadlock, tempo de espera de bloqueio esgotado,
+ * conexão perdida ou reiniciada — são repetidas automaticamente com espera
+ * exponencial e aleatória ("jitter"), para que estações concorrentes não
+ * tentem de novo ao mesmo tempo.
+ *
+ * <p>
+ * Para não duplicar gravações, uma escrita só é repetida quando é certo que
+ * ela não foi efetivada: falhas antes do commit, ou no commit quando o banco
+ * informa que a transação foi desfeita (deadlock). Uma queda de conexão
+ * durante o próprio commit é ambígua e só é repetida em
+ * {@link #executarIdempotente(Function)}. Conflitos de versão
+ * ({@code @Version}) nunca são repetidos.
+ *
+ * <p>
+ * Uma nova tentativa executa a ação de novo, com os mesmos objetos. Por isso
+ * os registros novos devem ser gravados com {@link #persistir}: se a
+ * tentativa falhar, o id gerado e a versão atribuídos a eles pelo
+ * {@code persist} são descartados, e a tentativa seguinte os insere como
+ * registros novos em vez de recusá-los como já existentes.
+ *
+ * <p>
+ * Métricas registradas em {@link Metricas}: {@code dao.execucoes},
+ * {@code dao.retentativas}, {@code dao.falhas.transitorias} e
+ * {@code dao.retentativas.esgotadas}.
+ */
+public final class TransacaoJPA {
+
+    private static final Logger LOG = Logger.getLogger(TransacaoJPA.class.getName());
+
+    /**
+     * Número máximo de tentativas por execução (a primeira e as repetições).
+     */
+    private static final int MAX_TENTATIVAS = 4;
+
+    /**
+     * Espera base antes da primeira repetição, em milissegundos.
+     */
+    private static final long ESPERA_BASE_MS = 50;
+
+    /**
+     * Espera máxima entre duas tentativas, em milissegundos.
+     */
+    private static final long ESPERA_MAXIMA_MS = 2000;
+
+    /**
+     * Código de erro do MySQL para deadlock.
+     */
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    /**
+     * Código de erro do MySQL para tempo de espera de bloqueio esgotado.
+     */
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    /**
+     * Registros passados a {@link #persistir} na tentativa em curso nesta
+     * thread.
+     */
+    private static final ThreadLocal<List<Object>> PERSISTIDOS = new ThreadLocal<>();
+
+    private TransacaoJPA() {
+    }
+
+    /**
+     * Torna persistente um registro novo, como {@link EntityManager#persist},
+     * e o associa à tentativa em curso: se ela falhar, o id gerado e a versão
+     * do registro voltam aos valores de um registro ainda não gravado.
+     *
+     * @param em {@link EntityManager} da transação
+     * @param registro registro novo
+     */
+    public static void persistir(EntityManager em, Object registro) {
+        em.persist(registro);
+        List<Object> persistidos = PERSISTIDOS.get();
+        if (persistidos != null) {
+            persistidos.add(registro);
+        }
+    }
+
+    /**
+     * Executa a ação dentro de uma transação.
+     *
+     * @param <T> tipo do resultado
+     * @param acao operação que recebe o {@link EntityManager} da transação
+     * @return resultado da ação
+     * @throws PersistenceException se a ação falhar de forma não transitória
+     * ou se as tentativas se esgotarem
+     */
+    public static <T> T executar(Function<EntityManager, T> acao) {
+        return executar(acao, true, false);
+    }
+
+    /**
+     * Executa uma ação idempotente dentro de uma transação.
+     * <p>
+     * Igual a {@link #executar(Function)}, mas também repete falhas de conexão
+     * ocorridas durante o commit, pois reexecutar a ação não produz efeito
+     * duplicado (por exemplo, quando protegida por chave de idempotência).
+     *
+     * @param <T> tipo do resultado
+     * @param acao operação idempotente
+     * @return resultado da ação
+     */
+    public static <T> T executarIdempotente(Function<EntityManager, T> acao) {
+        return executar(acao, true, true);
+    }
+
+    /**
+     * Executa uma leitura, sem abrir transação.
+     * <p>
+     * Leituras podem ser repetidas com segurança em qualquer falha
+     * transitória.
+     *
+     * @param <T> tipo do resultado
+     * @param acao consulta que recebe o {@link EntityManager}
+     * @return resultado da consulta
+     */
+    public static <T> T consultar(Function<EntityManager, T> acao) {
+        return executar(acao, false, true);
+    }
+
+    private static <T> T executar(Function<EntityManager, T> acao, boolean transacional, boolean idempotente) {
+        for (int tentativa = 1;; tentativa++) {
+            Metricas.incrementar("dao.execucoes");
+            EntityManager em = JPAUtil.getEntityManager();
+            boolean noCommit = false;
+            List<Object> externos = PERSISTIDOS.get();
+            List<Object> persistidos = new ArrayList<>();
+            PERSISTIDOS.set(persistidos);
+            try {
+                if (!transacional) {
+                    return acao.apply(em);
+                }
+                em.getTransaction().begin();
+                T resultado = acao.apply(em);
+                em.flush();
+                noCommit = true;
+                em.getTransaction().commit();
+                return resultado;
+            } catch (RuntimeException e) {
+                desfazer(em);
+                descartarIds(em, persistidos);
+                boolean seguro = !noCommit || idempotente || transacaoDesfeita(e);
+                if (!seguro || !isTransitoria(e)) {
+                    throw e;
+                }
+                Metricas.incrementar("dao.falhas.transitorias");
+                if (tentativa >= MAX_TENTATIVAS) {
+                    Metricas.incrementar("dao.retentativas.esgotadas");
+                    throw e;
+                }
+                Metricas.incrementar("dao.retentativas");
+                LOG.log(Level.WARNING, "Falha transitória no banco (tentativa {0} de {1}): {2}",
+                        new Object[]{tentativa, MAX_TENTATIVAS, e.getMessage()});
+                aguardar(tentativa, e);
+            } finally {
+                PERSISTIDOS.set(externos);
+                if (em.isOpen()) {
+                    em.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica se a exceção (ou alguma causa) é uma falha transitória que pode
+     * ser resolvida com uma nova tentativa.
+     *
+     * @param e exceção a ser classificada
+     * @return {@code true} para deadlock, espera de bloqueio esgotada ou falha
+     * de conexão
+     */
+    public static boolean isTransitoria(Throwable e) {
+        if (ConflitoConcorrenciaException.causadoPorConflito(e)) {
+            return false;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof LockAcquisitionException
+                    || t instanceof JDBCConnectionException
+                    || t instanceof LockTimeoutException
+                    || t instanceof PessimisticLockException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof SocketException) {
+                return true;
+            }
+            if (t instanceof SQLException sql) {
+                String estado = sql.getSQLState();
+                if (sql.getErrorCode() == MYSQL_DEADLOCK
+                        || sql.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                        || (estado != null && (estado.startsWith("08") || estado.equals("40001")))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica se o banco informou explicitamente que a transação foi desfeita
+     * (deadlock), caso em que repetir uma escrita é sempre seguro.
+     */
+    private static boolean transacaoDesfeita(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransactionRollbackException || t instanceof LockAcquisitionException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getErrorCode() == MYSQL_DEADLOCK) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void desfazer(EntityManager em) {
+        try {
+            if (em.isOpen() && em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        } catch (RuntimeException e) {
+            // Conexão perdida: o banco desfaz a transação ao encerrar a sessão.
+            LOG.log(Level.FINE, "Falha ao desfazer transação", e);
+        }
+    }
+
+    /**
+     * Devolve aos registros persistidos em uma tentativa que falhou os valores
+     * de registro não gravado: zero (ou {@code null}) no id gerado e na
+     * versão.
+     */
+    private static void descartarIds(EntityManager em, List<Object> persistidos) {
+        for (Object registro : persistidos) {
+            for (SingularAttribute<?, ?> atributo : em.getMetamodel().entity(registro.getClass()).getSingularAttributes()) {
+                if (atributo.getJavaMember() instanceof Field campo
+                        && (atributo.isVersion() || (atributo.isId() && campo.isAnnotationPresent(GeneratedValue.class)))) {
+                    zerar(registro, campo);
+                }
+            }
+        }
+    }
+
+    private static void zerar(Object registro, Field campo) {
+        Class<?> tipo = campo.getType();
+        try {
+            campo.setAccessible(true);
+            if (tipo == int.class) {
+                campo.setInt(registro, 0);
+            } else if (tipo == long.class) {
+                campo.setLong(registro, 0);
+            } else if (tipo == short.class) {
+                campo.setShort(registro, (short) 0);
+            } else if (!tipo.isPrimitive()) {
+                campo.set(registro, null);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Não foi possível descartar o id de " + registro.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Espera exponencial com jitter completo: um valor aleatório entre zero e
+     * {@code ESPERA_BASE_MS * 2^(tentativa-1)}, limitado a
+     * {@code ESPERA_MAXIMA_MS}.
+     */
+    private static void aguardar(int tentativa, RuntimeException causa) {
+        long limite = Math.min(ESPERA_MAXIMA_MS, ESPERA_BASE_MS << (tentativa - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limite + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw causa;
+        }
+    }
+}
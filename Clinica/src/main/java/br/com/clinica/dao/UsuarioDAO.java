@@ -1,7 +1,6 @@
 package br.com.clinica.dao;
 
 import br.com.clinica.model.Usuario;
-import br.com.clinica.util.JPAUtil;
 import jakarta.persistence.*;
 import java.util.List;
 
@@ -10,38 +9,23 @@ import java.util.List;
  * {@link br.com.clinica.model.Usuario}.
  * <p>
  * Implementa operações CRUD básicas e uma consulta auxiliar para recuperar um
- * usuário pelo login. A implementação usa JPA {@link EntityManagerFactory}
- * configurada pela unidade de persistência {@code clinicaPU}. 
- *
- * <p>
- * Observação: a classe utiliza {@link JPAUtil#getEntityManager()} apenas no
- * método {@code buscarPorLogin} para demonstrar interoperabilidade com
- * utilitários de criação de {@link EntityManager}. Os demais métodos usam
- * diretamente a factory local {@code emf} — mantenha consistência no projeto se
- * preferir apenas uma forma de obter EntityManager. 
+ * usuário pelo login. Todas as operações são executadas por meio de
+ * {@link TransacaoJPA}.
  */
 public class UsuarioDAO implements DAO<Usuario> {
 
-    /**
-     * Factory compartilhada para criação de {@link EntityManager}.
-     * <p>
-     * Inicializada a partir do arquivo de configuração JPA (persistence.xml)
-     * com a unidade "clinicaPU".     
-     */
-    private static final EntityManagerFactory emf = Persistence.createEntityManagerFactory("clinicaPU");
-
     /**
      * Persiste um novo {@link Usuario} no banco.
      *
      * @param u usuário a ser inserido
+     * @return usuário gravado, já com o id gerado
      */
     @Override
-    public void inserir(Usuario u) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.persist(u);
-        em.getTransaction().commit();
-        em.close();
+    public Usuario inserir(Usuario u) {
+        return TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, u);
+            return u;
+        });
     }
 
     /**
@@ -50,14 +34,11 @@ public class UsuarioDAO implements DAO<Usuario> {
      * Normalmente corresponde a um {@code merge} no contexto JPA.     
      *
      * @param u usuário com os dados atualizados
+     * @return usuário gravado, com a nova versão
      */
     @Override
-    public void atualizar(Usuario u) {
-        EntityManager em = emf.createEntityManager();
-        em.getTransaction().begin();
-        em.merge(u);
-        em.getTransaction().commit();
-        em.close();
+    public Usuario atualizar(Usuario u) {
+        return TransacaoJPA.executar(em -> em.merge(u));
     }
 
     /**
@@ -67,14 +48,13 @@ public class UsuarioDAO implements DAO<Usuario> {
      */
     @Override
     public void deletar(int id) {
-        EntityManager em = emf.createEntityManager();
-        Usuario u = em.find(Usuario.class, id);
-        if (u != null) {
-            em.getTransaction().begin();
-            em.remove(u);
-            em.getTransaction().commit();
-        }
-        em.close();
+        TransacaoJPA.executar(em -> {
+            Usuario u = em.find(Usuario.class, id);
+            if (u != null) {
+                em.remove(u);
+            }
+            return u;
+        });
     }
 
     /**
@@ -86,10 +66,7 @@ public class UsuarioDAO implements DAO<Usuario> {
      */
     @Override
     public Usuario buscarPorId(int id) {
-        EntityManager em = emf.createEntityManager();
-        Usuario u = em.find(Usuario.class, id);
-        em.close();
-        return u;
+        return TransacaoJPA.consultar(em -> em.find(Usuario.class, id));
     }
 
     /**
@@ -99,36 +76,31 @@ public class UsuarioDAO implements DAO<Usuario> {
      */
     @Override
     public List<Usuario> listarTodos() {
-        EntityManager em = emf.createEntityManager();
-        List<Usuario> lista = em.createQuery("SELECT u FROM Usuario u", Usuario.class).getResultList();
-        em.close();
-        return lista;
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT u FROM Usuario u",
+                Usuario.class).getResultList());
     }
 
     /**
      * Busca um usuário pelo seu login.
      * <p>
      * Retorna {@code null} se nenhum usuário for encontrado com o login
-     * informado. Usa {@link JPAUtil#getEntityManager()} para obter o
-     * {@link EntityManager} — trate essa dependência conforme padrão do
-     * projeto.     
+     * informado.
      *
      * @param login nome de login a ser pesquisado
      * @return usuário correspondente ao login, ou {@code null} se inexistente
      */
     public Usuario buscarPorLogin(String login) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            return em.createQuery("SELECT u FROM Usuario u WHERE u.login = :login", Usuario.class)
-                    .setParameter("login", login)
-                    .getSingleResult();
-        } catch (NoResultException e) {
-            return null;
-        } finally {
-            if (em.isOpen()) {
-                em.close();
+        return TransacaoJPA.consultar(em -> {
+            try {
+                return em.createQuery("SELECT u FROM Usuario u WHERE u.login = :login", Usuario.class)
+                        .setParameter("login", login)
+                        .getSingleResult();
+            } catch (NoResultException e) {
+                return null;
             }
-        }
+        });
     }
 
+
 }
@@ -7,6 +7,7 @@ import br.com.clinica.model.Paciente;
 import br.com.clinica.model.Usuario;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public enum FiltroRelatorio {
     PACIENTE {
@@ -18,6 +19,12 @@ public enum FiltroRelatorio {
                     ? dao.listarPorPacienteEMedico(pacienteId, usuario.getId())
                     : dao.listarPorPaciente(pacienteId);
         }
+
+        @Override
+        public String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros) {
+            parametros.put("pacienteId", ((Paciente) valor).getId());
+            return "c.paciente.id = :pacienteId" + restricaoMedico(usuario, perfil, parametros);
+        }
     },
     MEDICO {
         @Override
@@ -28,6 +35,12 @@ public enum FiltroRelatorio {
                     ? dao.listarPorMedico(usuario.getId())
                     : dao.listarPorMedico(medicoId);
         }
+
+        @Override
+        public String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros) {
+            parametros.put("medicoId", "MEDICO".equals(perfil) ? usuario.getId() : ((Medico) valor).getId());
+            return "c.medico.id = :medicoId";
+        }
     },
     STATUS {
         @Override
@@ -37,6 +50,12 @@ public enum FiltroRelatorio {
                     ? dao.listarPorStatusEMedico(status, usuario.getId())
                     : dao.listarPorStatus(status);
         }
+
+        @Override
+        public String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros) {
+            parametros.put("status", (StatusConsulta) valor);
+            return "c.status = :status" + restricaoMedico(usuario, perfil, parametros);
+        }
     },
     PERIODO {
         @Override
@@ -48,6 +67,14 @@ public enum FiltroRelatorio {
                     ? dao.listarPorPeriodoEMedico(dataInicial, dataFinal, usuario.getId())
                     : dao.listarPorPeriodo(dataInicial, dataFinal);
         }
+
+        @Override
+        public String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros) {
+            LocalDate[] periodo = (LocalDate[]) valor;
+            parametros.put("dataInicial", periodo[0]);
+            parametros.put("dataFinal", periodo[1]);
+            return "c.dataAgendada BETWEEN :dataInicial AND :dataFinal" + restricaoMedico(usuario, perfil, parametros);
+        }
     },
     TODOS {
         @Override
@@ -56,7 +83,40 @@ public enum FiltroRelatorio {
                     ? dao.listarPorMedico(usuario.getId())
                     : dao.listarTodos();
         }
+
+        @Override
+        public String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros) {
+            return "1 = 1" + restricaoMedico(usuario, perfil, parametros);
+        }
     };
 
     public abstract List<Consulta> executar(ConsultaDAO dao, Usuario usuario, String perfil, Object valor);
+
+    /**
+     * Monta a condição JPQL equivalente a
+     * {@link #executar(ConsultaDAO, Usuario, String, Object)}, para consultas
+     * que não carregam entidades (exportação em fluxo, contagens).
+     * <p>
+     * A condição usa o alias {@code c} para {@link Consulta}; os parâmetros
+     * nomeados que ela referencia são adicionados em {@code parametros}.
+     *
+     * @param usuario usuário logado
+     * @param perfil perfil normalizado do usuário
+     * @param valor valor selecionado para o filtro
+     * @param parametros mapa que recebe os parâmetros da condição
+     * @return condição JPQL (sem {@code WHERE})
+     */
+    public abstract String condicao(Usuario usuario, String perfil, Object valor, Map<String, Object> parametros);
+
+    /**
+     * Restringe a condição às consultas do médico logado, quando o perfil é
+     * MEDICO.
+     */
+    private static String restricaoMedico(Usuario usuario, String perfil, Map<String, Object> parametros) {
+        if (!"MEDICO".equals(perfil)) {
+            return "";
+        }
+        parametros.put("medicoId", usuario.getId());
+        return " AND c.medico.id = :medicoId";
+    }
 }
@@ -0,0 +1,21 @@
+package br.com.clinica.enums;
+
+/**
+ * Tipo de uma alteração publicada em
+ * {@link br.com.clinica.util.BarramentoAlteracoes}.
+ */
+public enum TipoAlteracao {
+
+    /**
+     * Registro incluído.
+     */
+    INCLUSAO,
+    /**
+     * Registro existente alterado.
+     */
+    ALTERACAO,
+    /**
+     * Registro removido.
+     */
+    REMOCAO
+}
@@ -0,0 +1,57 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.dao.ConflitoConcorrenciaException;
+import java.awt.Component;
+import javax.swing.JOptionPane;
+
+/**
+ * Diálogo exibido quando uma edição é rejeitada pelo controle de concorrência
+ * otimista, isto é, quando outra estação alterou o mesmo registro depois que
+ * ele foi carregado na tela.
+ * <p>
+ * O usuário escolhe entre reaplicar suas alterações sobre a versão mais
+ * recente do registro ou descartá-las e recarregar os dados atuais.
+ */
+public final class DialogoConflito {
+
+    /**
+     * Reaplicar as alterações do usuário sobre a versão atual do registro.
+     */
+    public static final int SOBRESCREVER = 0;
+
+    /**
+     * Descartar as alterações e recarregar os dados atuais.
+     */
+    public static final int RECARREGAR = 1;
+
+    private DialogoConflito() {
+    }
+
+    /**
+     * Pergunta ao usuário como resolver o conflito.
+     * <p>
+     * Se o registro tiver sido removido, apenas informa o usuário e retorna
+     * {@link #RECARREGAR}.
+     *
+     * @param pai componente pai do diálogo
+     * @param conflito conflito detectado pelo DAO
+     * @return {@link #SOBRESCREVER} ou {@link #RECARREGAR}
+     */
+    public static int perguntar(Component pai, ConflitoConcorrenciaException conflito) {
+        if (conflito.isRemovido()) {
+            JOptionPane.showMessageDialog(pai,
+                    conflito.getMessage() + "\nOs dados serão recarregados.",
+                    "Conflito de edição", JOptionPane.WARNING_MESSAGE);
+            return RECARREGAR;
+        }
+
+        Object[] opcoes = {"Aplicar minhas alterações", "Recarregar dados atuais"};
+        int escolha = JOptionPane.showOptionDialog(pai,
+                conflito.getMessage()
+                + "\nDeseja aplicar suas alterações sobre a versão atual ou descartá-las?",
+                "Conflito de edição",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE,
+                null, opcoes, opcoes[1]);
+        return escolha == SOBRESCREVER ? SOBRESCREVER : RECARREGAR;
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.service.ListaEsperaService;
+import br.com.clinica.service.PropostaEncaixe;
+import java.awt.Component;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import javax.swing.JOptionPane;
+
+/**
+ * Diálogos da lista de espera compartilhados pelas telas de agendamento e de
+ * relatórios.
+ * <p>
+ * Permite registrar um paciente na lista de espera e, após cancelamentos,
+ * apresentar à recepção os candidatos sugeridos pelo
+ * {@link ListaEsperaService} para cada vaga liberada.
+ */
+public final class DialogoEncaixe {
+
+    /**
+     * Formatador de datas no padrão {@code dd/MM/yyyy}.
+     */
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private DialogoEncaixe() {
+    }
+
+    /**
+     * Apresenta, vaga por vaga, os candidatos da lista de espera para as
+     * consultas canceladas e agenda o candidato escolhido.
+     *
+     * @param pai componente pai dos diálogos
+     * @param service serviço da lista de espera
+     * @param canceladas consultas recém-canceladas
+     * @return quantidade de encaixes confirmados
+     */
+    public static int oferecerEncaixes(Component pai, ListaEsperaService service, Collection<Consulta> canceladas) {
+        List<PropostaEncaixe> propostas = service.proporEncaixes(canceladas);
+        int confirmados = 0;
+
+        for (PropostaEncaixe proposta : propostas) {
+            Consulta vaga = proposta.getVaga();
+            Object[] opcoes = proposta.getCandidatos().toArray();
+            Object escolhido = JOptionPane.showInputDialog(pai,
+                    "Vaga liberada com " + vaga.getMedico().getNome()
+                    + " em " + vaga.getDataAgendada().format(FMT_DATA)
+                    + " às " + vaga.getHoraAgendada() + ".\nEncaixar paciente da lista de espera:",
+                    "Lista de Espera",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    opcoes,
+                    opcoes[0]);
+
+            if (escolhido != null) {
+                try {
+                    service.confirmarEncaixe(proposta, (ListaEspera) escolhido);
+                    confirmados++;
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(pai,
+                            "Erro ao encaixar paciente: " + e.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+        return confirmados;
+    }
+
+    /**
+     * Registra o paciente na lista de espera, para o médico informado ou para
+     * a especialidade dele, dentro da janela de datas digitada.
+     *
+     * @param pai componente pai dos diálogos
+     * @param service serviço da lista de espera
+     * @param paciente paciente selecionado
+     * @param medico médico selecionado
+     */
+    public static void adicionarNaLista(Component pai, ListaEsperaService service, Paciente paciente, Medico medico) {
+        if (paciente == null || medico == null) {
+            JOptionPane.showMessageDialog(pai,
+                    "Selecione o paciente e o médico desejado.",
+                    "Aviso", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String inicio = JOptionPane.showInputDialog(pai, "Aceita a partir de (dd/MM/yyyy):",
+                LocalDate.now().format(FMT_DATA));
+        if (inicio == null) {
+            return;
+        }
+        String fim = JOptionPane.showInputDialog(pai, "Aceita até (dd/MM/yyyy):",
+                LocalDate.now().plusDays(30).format(FMT_DATA));
+        if (fim == null) {
+            return;
+        }
+
+        Object[] opcoes = {"Somente " + medico.getNome(), "Qualquer médico de " + medico.getEspecialidade()};
+        int escolha = JOptionPane.showOptionDialog(pai,
+                "O paciente aceita:", "Lista de Espera",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, opcoes, opcoes[0]);
+        if (escolha == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
+
+        try {
+            ListaEspera pedido = escolha == 0
+                    ? new ListaEspera(paciente, medico, null,
+                            LocalDate.parse(inicio.trim(), FMT_DATA), LocalDate.parse(fim.trim(), FMT_DATA))
+                    : new ListaEspera(paciente, null, medico.getEspecialidade(),
+                            LocalDate.parse(inicio.trim(), FMT_DATA), LocalDate.parse(fim.trim(), FMT_DATA));
+            service.adicionar(pedido);
+            JOptionPane.showMessageDialog(pai, "Paciente adicionado à lista de espera!");
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(pai,
+                    "Erro ao adicionar à lista de espera: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
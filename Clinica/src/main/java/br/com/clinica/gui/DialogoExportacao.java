@@ -0,0 +1,263 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.enums.FiltroRelatorio;
+import br.com.clinica.model.Usuario;
+import br.com.clinica.service.AgendaIcsService;
+import br.com.clinica.service.ExportacaoService;
+import br.com.clinica.service.PacoteGerencial;
+import br.com.clinica.service.PacoteGerencialService;
+import br.com.clinica.service.ResultadoExportacaoAgenda;
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+/**
+ * Diálogos de exportação: relatório selecionado em CSV, agendas dos médicos
+ * em iCalendar e pacote gerencial mensal em HTML.
+ * <p>
+ * As exportações rodam em segundo plano ({@link SwingWorker}). A do CSV
+ * mostra uma barra de progresso que permite cancelar; um arquivo cancelado ou
+ * com erro é apagado.
+ */
+public final class DialogoExportacao {
+
+    /**
+     * Formatador de datas no padrão {@code dd/MM/yyyy}.
+     */
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final DateTimeFormatter FMT_MES = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private DialogoExportacao() {
+    }
+
+    /**
+     * Pede o arquivo de destino e exporta o relatório.
+     *
+     * @param pai componente pai dos diálogos
+     * @param filtro filtro selecionado
+     * @param usuario usuário logado
+     * @param perfil perfil normalizado do usuário
+     * @param valor valor do filtro
+     */
+    public static void exportar(Component pai, FiltroRelatorio filtro, Usuario usuario,
+            String perfil, Object valor) {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("Arquivo CSV", "csv"));
+        seletor.setSelectedFile(new File("relatorio-consultas.csv"));
+        if (seletor.showSaveDialog(pai) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File arquivo = seletor.getSelectedFile();
+        if (!arquivo.getName().toLowerCase().endsWith(".csv")) {
+            arquivo = new File(arquivo.getParentFile(), arquivo.getName() + ".csv");
+        }
+
+        ExportacaoService service = new ExportacaoService();
+        ProgressMonitor monitor = new ProgressMonitor(pai, "Exportando consultas para " + arquivo.getName(),
+                "Contando consultas...", 0, 100);
+        monitor.setMillisToDecideToPopup(0);
+        monitor.setMillisToPopup(0);
+
+        File destino = arquivo;
+        SwingWorker<Long, Long> worker = new SwingWorker<>() {
+            private long total;
+
+            @Override
+            protected Long doInBackground() throws IOException {
+                total = service.contar(filtro, usuario, perfil, valor);
+                try (Writer out = Files.newBufferedWriter(destino.toPath(), StandardCharsets.UTF_8)) {
+                    out.write('\uFEFF'); // BOM: o Excel reconhece o arquivo como UTF-8
+                    return service.exportarCsv(filtro, usuario, perfil, valor, out, this::publish);
+                }
+            }
+
+            @Override
+            protected void process(List<Long> escritas) {
+                if (monitor.isCanceled()) {
+                    cancel(true);
+                    return;
+                }
+                long n = escritas.get(escritas.size() - 1);
+                monitor.setProgress(total == 0 ? 100 : (int) Math.min(99, n * 100 / total));
+                monitor.setNote(n + " de " + total + " consultas");
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    long linhas = get();
+                    JOptionPane.showMessageDialog(pai,
+                            linhas + " consulta(s) exportada(s) para " + destino.getAbsolutePath(),
+                            "Exportação concluída", JOptionPane.INFORMATION_MESSAGE);
+                } catch (CancellationException e) {
+                    apagar(destino);
+                } catch (InterruptedException | ExecutionException e) {
+                    apagar(destino);
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    if (causa instanceof CancellationException) {
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(pai,
+                            "Erro ao exportar: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Pede o diretório de destino e o período e gera um arquivo {@code .ics}
+     * por médico, regravando apenas as agendas alteradas desde a última
+     * exportação para o mesmo diretório.
+     *
+     * @param pai componente pai dos diálogos
+     */
+    public static void exportarAgendas(Component pai) {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setDialogTitle("Diretório das agendas (.ics)");
+        seletor.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (seletor.showSaveDialog(pai) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File diretorio = seletor.getSelectedFile();
+
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicioTrimestre = hoje.withMonth((hoje.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+        String textoInicio = JOptionPane.showInputDialog(pai, "Agendas de (dd/MM/yyyy):",
+                inicioTrimestre.format(FMT_DATA));
+        if (textoInicio == null) {
+            return;
+        }
+        String textoFim = JOptionPane.showInputDialog(pai, "Até (dd/MM/yyyy):",
+                inicioTrimestre.plusMonths(3).minusDays(1).format(FMT_DATA));
+        if (textoFim == null) {
+            return;
+        }
+
+        LocalDate inicio;
+        LocalDate fim;
+        try {
+            inicio = LocalDate.parse(textoInicio.trim(), FMT_DATA);
+            fim = LocalDate.parse(textoFim.trim(), FMT_DATA);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(pai, "Data inválida: " + e.getParsedString(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        new SwingWorker<ResultadoExportacaoAgenda, Void>() {
+            @Override
+            protected ResultadoExportacaoAgenda doInBackground() throws IOException {
+                return new AgendaIcsService().exportar(diretorio.toPath(), inicio, fim, true);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    ResultadoExportacaoAgenda r = get();
+                    JOptionPane.showMessageDialog(pai,
+                            r.getGerados() + " agenda(s) gerada(s), " + r.getInalterados()
+                            + " sem alteração, " + r.getConsultas() + " consulta(s) em "
+                            + r.getDuracaoMs() + " ms.",
+                            "Exportação de agendas", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(pai,
+                            "Erro ao exportar agendas: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Pede o mês e o arquivo de destino e gera o pacote gerencial
+     * ({@link PacoteGerencialService}) em HTML, informando ao final o tempo de
+     * cada seção.
+     *
+     * @param pai componente pai dos diálogos
+     * @param medicoId médico ao qual o pacote é restrito, ou {@code null} para
+     * todos
+     */
+    public static void exportarPacote(Component pai, Integer medicoId) {
+        String textoMes = JOptionPane.showInputDialog(pai, "Mês do pacote (MM/yyyy):",
+                YearMonth.now().minusMonths(1).format(FMT_MES));
+        if (textoMes == null) {
+            return;
+        }
+        YearMonth mes;
+        try {
+            mes = YearMonth.parse(textoMes.trim(), FMT_MES);
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(pai, "Mês inválido: " + e.getParsedString(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("Documento HTML", "html"));
+        seletor.setSelectedFile(new File("pacote-gerencial-" + mes + ".html"));
+        if (seletor.showSaveDialog(pai) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File escolhido = seletor.getSelectedFile();
+        File arquivo = escolhido.getName().toLowerCase().endsWith(".html")
+                ? escolhido : new File(escolhido.getParentFile(), escolhido.getName() + ".html");
+
+        new SwingWorker<PacoteGerencial, Void>() {
+            @Override
+            protected PacoteGerencial doInBackground() throws IOException, InterruptedException {
+                PacoteGerencialService service = new PacoteGerencialService();
+                PacoteGerencial pacote = service.gerar(mes, medicoId);
+                service.gravar(pacote, arquivo.toPath());
+                return pacote;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    PacoteGerencial pacote = get();
+                    StringBuilder msg = new StringBuilder("Pacote gravado em ")
+                            .append(arquivo.getAbsolutePath()).append("\n");
+                    pacote.getTemposMs().forEach((secao, ms) -> msg.append("\n").append(secao)
+                            .append(": ").append(ms).append(" ms"));
+                    msg.append("\n\nTotal: ").append(pacote.getDuracaoMs())
+                            .append(" ms (soma das seções: ").append(pacote.getSomaSecoesMs()).append(" ms)");
+                    JOptionPane.showMessageDialog(pai, msg.toString(),
+                            "Pacote gerencial", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(pai,
+                            "Erro ao gerar o pacote gerencial: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private static void apagar(File arquivo) {
+        try {
+            Files.deleteIfExists(arquivo.toPath());
+        } catch (IOException e) {
+            // Arquivo ainda em uso: permanece incompleto no disco.
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.analise.ConjuntoConsultas;
+import br.com.clinica.analise.IndiceBitmap;
+import br.com.clinica.analise.SnapshotConsultas;
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.util.Metricas;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Diálogo de filtro combinado dos relatórios: status, médicos, dias da semana
+ * e meses, em qualquer combinação.
+ * <p>
+ * Dentro de cada critério as opções marcadas são somadas (OU); entre
+ * critérios, todas precisam ser atendidas (E). Critérios sem opção marcada
+ * não restringem. A seleção é resolvida sobre os índices em bitmap da cópia
+ * em memória ({@link IndiceBitmap}), e a quantidade de consultas é
+ * recalculada a cada alteração, antes de qualquer acesso ao banco.
+ * <p>
+ * A primeira carga da cópia pode levar alguns segundos; por isso ela, e a
+ * lista de médicos, são lidas em segundo plano e o diálogo só é exibido ao
+ * final, sem bloquear a thread de eventos.
+ */
+public final class DialogoFiltroCombinado {
+
+    private static final DateTimeFormatter FMT_MES = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private static final Locale LOCALE = Locale.forLanguageTag("pt-BR");
+
+    private DialogoFiltroCombinado() {
+    }
+
+    /**
+     * Carrega os índices em segundo plano, abre o diálogo e entrega o filtro
+     * escolhido. Deve ser chamado na thread de eventos; o retorno é imediato.
+     *
+     * @param pai componente pai do diálogo
+     * @param medicoId médico ao qual a seleção é restrita, ou {@code null}
+     * para permitir escolher os médicos
+     * @param aoConfirmar recebe, na thread de eventos, os ids das consultas
+     * selecionadas em ordem crescente; não é chamado se o usuário cancelar
+     */
+    public static void abrir(Component pai, Integer medicoId, Consumer<int[]> aoConfirmar) {
+        pai.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<IndiceBitmap, Void>() {
+            private List<Medico> medicos;
+
+            @Override
+            protected IndiceBitmap doInBackground() {
+                medicos = medicoId == null ? new MedicoDAO().listarTodos() : List.of();
+                return SnapshotConsultas.obter().indice();
+            }
+
+            @Override
+            protected void done() {
+                pai.setCursor(Cursor.getDefaultCursor());
+                IndiceBitmap indice;
+                try {
+                    indice = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(pai,
+                            "Erro ao carregar as consultas: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                Criterios criterios = new Criterios(indice, medicoId, medicos);
+                int opcao = JOptionPane.showConfirmDialog(pai, criterios.painel, "Filtro combinado",
+                        JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+                if (opcao == JOptionPane.OK_OPTION) {
+                    aoConfirmar.accept(criterios.selecionar().ids());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Componentes do diálogo e montagem da seleção a partir deles.
+     */
+    private static final class Criterios {
+
+        private final IndiceBitmap indice;
+        private final Integer medicoId;
+        private final JPanel painel = new JPanel(new BorderLayout(8, 8));
+        private final List<JCheckBox> status = new ArrayList<>();
+        private final List<JCheckBox> dias = new ArrayList<>();
+        private final JTextField txtMesInicial = new JTextField(7);
+        private final JTextField txtMesFinal = new JTextField(7);
+        private final DefaultListModel<Medico> modeloMedicos = new DefaultListModel<>();
+        private final JList<Medico> lstMedicos = new JList<>(modeloMedicos);
+        private final JCheckBox chkExcetoMedicos = new JCheckBox("Exceto os selecionados");
+        private final JLabel lblResultado = new JLabel(" ");
+
+        Criterios(IndiceBitmap indice, Integer medicoId, List<Medico> medicos) {
+            this.indice = indice;
+            this.medicoId = medicoId;
+
+            JPanel pnlStatus = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            pnlStatus.setBorder(BorderFactory.createTitledBorder("Status"));
+            for (StatusConsulta s : StatusConsulta.values()) {
+                JCheckBox chk = new JCheckBox(s.name());
+                chk.addActionListener(e -> recontar());
+                status.add(chk);
+                pnlStatus.add(chk);
+            }
+
+            JPanel pnlDias = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            pnlDias.setBorder(BorderFactory.createTitledBorder("Dias da semana"));
+            for (DayOfWeek d : DayOfWeek.values()) {
+                JCheckBox chk = new JCheckBox(d.getDisplayName(TextStyle.SHORT, LOCALE));
+                chk.addActionListener(e -> recontar());
+                dias.add(chk);
+                pnlDias.add(chk);
+            }
+
+            JPanel pnlMeses = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            pnlMeses.setBorder(BorderFactory.createTitledBorder("Meses (MM/yyyy)"));
+            pnlMeses.add(new JLabel("De:"));
+            pnlMeses.add(txtMesInicial);
+            pnlMeses.add(new JLabel("Até:"));
+            pnlMeses.add(txtMesFinal);
+            DocumentListener aoDigitar = new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    recontar();
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                    recontar();
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                    recontar();
+                }
+            };
+            txtMesInicial.getDocument().addDocumentListener(aoDigitar);
+            txtMesFinal.getDocument().addDocumentListener(aoDigitar);
+
+            JPanel criteriosFixos = new JPanel(new GridLayout(0, 1));
+            criteriosFixos.add(pnlStatus);
+            criteriosFixos.add(pnlDias);
+            criteriosFixos.add(pnlMeses);
+            painel.add(criteriosFixos, BorderLayout.NORTH);
+
+            if (medicoId == null) {
+                painel.add(painelMedicos(medicos), BorderLayout.CENTER);
+            }
+            painel.add(lblResultado, BorderLayout.SOUTH);
+            recontar();
+        }
+
+        /**
+         * Lista de médicos com seleção múltipla e atalho por especialidade.
+         */
+        private JPanel painelMedicos(List<Medico> medicos) {
+            TreeSet<String> especialidades = new TreeSet<>();
+            for (Medico m : medicos) {
+                modeloMedicos.addElement(m);
+                if (m.getEspecialidade() != null) {
+                    especialidades.add(m.getEspecialidade());
+                }
+            }
+            lstMedicos.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+            lstMedicos.setVisibleRowCount(6);
+            lstMedicos.addListSelectionListener(e -> {
+                if (!e.getValueIsAdjusting()) {
+                    recontar();
+                }
+            });
+            chkExcetoMedicos.addActionListener(e -> recontar());
+
+            JComboBox<String> cboEspecialidade = new JComboBox<>();
+            cboEspecialidade.addItem("");
+            especialidades.forEach(cboEspecialidade::addItem);
+            cboEspecialidade.addActionListener(e -> {
+                Object escolhida = cboEspecialidade.getSelectedItem();
+                lstMedicos.clearSelection();
+                for (int i = 0; i < modeloMedicos.size(); i++) {
+                    if (escolhida != null && escolhida.equals(modeloMedicos.get(i).getEspecialidade())) {
+                        lstMedicos.addSelectionInterval(i, i);
+                    }
+                }
+            });
+
+            JPanel topo = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            topo.add(new JLabel("Especialidade:"));
+            topo.add(cboEspecialidade);
+            topo.add(chkExcetoMedicos);
+
+            JPanel pnl = new JPanel(new BorderLayout());
+            pnl.setBorder(BorderFactory.createTitledBorder("Médicos"));
+            pnl.add(topo, BorderLayout.NORTH);
+            pnl.add(new JScrollPane(lstMedicos), BorderLayout.CENTER);
+            return pnl;
+        }
+
+        /**
+         * Recalcula a quantidade de consultas selecionadas e o tempo gasto.
+         */
+        private void recontar() {
+            try {
+                long t0 = System.nanoTime();
+                long quantidade = selecionar().cardinalidade();
+                long nanos = System.nanoTime() - t0;
+                Metricas.registrarTempo("analise.bitmap.consulta", nanos);
+                lblResultado.setText(String.format(LOCALE, "%d consulta(s) selecionada(s) em %.3f ms",
+                        quantidade, nanos / 1_000_000.0));
+            } catch (DateTimeParseException e) {
+                lblResultado.setText("Mês inválido: use MM/yyyy.");
+            }
+        }
+
+        /**
+         * Combina os bitmaps dos critérios preenchidos.
+         */
+        ConjuntoConsultas selecionar() {
+            ConjuntoConsultas r = medicoId != null
+                    ? indice.medicos(List.of(medicoId))
+                    : indice.todas();
+
+            List<StatusConsulta> statusMarcados = new ArrayList<>();
+            for (int i = 0; i < status.size(); i++) {
+                if (status.get(i).isSelected()) {
+                    statusMarcados.add(StatusConsulta.values()[i]);
+                }
+            }
+            if (!statusMarcados.isEmpty()) {
+                r = r.e(indice.status(statusMarcados.toArray(StatusConsulta[]::new)));
+            }
+
+            List<DayOfWeek> diasMarcados = new ArrayList<>();
+            for (int i = 0; i < dias.size(); i++) {
+                if (dias.get(i).isSelected()) {
+                    diasMarcados.add(DayOfWeek.of(i + 1));
+                }
+            }
+            if (!diasMarcados.isEmpty()) {
+                r = r.e(indice.diasDaSemana(diasMarcados.toArray(DayOfWeek[]::new)));
+            }
+
+            String mesInicial = txtMesInicial.getText().trim();
+            String mesFinal = txtMesFinal.getText().trim();
+            if (!mesInicial.isEmpty() || !mesFinal.isEmpty()) {
+                YearMonth inicio = YearMonth.parse(mesInicial.isEmpty() ? mesFinal : mesInicial, FMT_MES);
+                YearMonth fim = YearMonth.parse(mesFinal.isEmpty() ? mesInicial : mesFinal, FMT_MES);
+                r = r.e(indice.meses(inicio, fim));
+            }
+
+            List<Integer> medicosMarcados = new ArrayList<>();
+            for (Medico m : lstMedicos.getSelectedValuesList()) {
+                medicosMarcados.add(m.getId());
+            }
+            if (!medicosMarcados.isEmpty()) {
+                ConjuntoConsultas medicos = indice.medicos(medicosMarcados);
+                r = chkExcetoMedicos.isSelected() ? r.exceto(medicos) : r.e(medicos);
+            }
+            return r;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.service.ReagendamentoService;
+import br.com.clinica.service.ResultadoReagendamento;
+import java.awt.Component;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import javax.swing.JOptionPane;
+
+/**
+ * Diálogo de reagendamento em lote da agenda de um médico ausente.
+ * <p>
+ * Coleta o período afetado e o tipo de reagendamento (deslocar por dias ou
+ * reatribuir a colegas da mesma especialidade), delega ao
+ * {@link ReagendamentoService} e apresenta as consultas que não puderam ser
+ * alocadas.
+ */
+public final class DialogoReagendamento {
+
+    /**
+     * Formatador de datas no padrão {@code dd/MM/yyyy}.
+     */
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private DialogoReagendamento() {
+    }
+
+    /**
+     * Executa o reagendamento em lote da agenda do médico informado.
+     *
+     * @param pai componente pai dos diálogos
+     * @param medico médico ausente
+     * @return resultado do reagendamento, ou {@code null} se cancelado pelo
+     * usuário
+     */
+    public static ResultadoReagendamento abrir(Component pai, Medico medico) {
+        if (medico == null) {
+            JOptionPane.showMessageDialog(pai,
+                    "Selecione o médico cuja agenda será reagendada.",
+                    "Aviso", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+
+        String textoInicio = JOptionPane.showInputDialog(pai, "Ausência de (dd/MM/yyyy):",
+                LocalDate.now().format(FMT_DATA));
+        if (textoInicio == null) {
+            return null;
+        }
+        String textoFim = JOptionPane.showInputDialog(pai, "Até (dd/MM/yyyy):", textoInicio);
+        if (textoFim == null) {
+            return null;
+        }
+
+        Object[] opcoes = {"Deslocar dias", "Reatribuir a colegas de " + medico.getEspecialidade()};
+        int escolha = JOptionPane.showOptionDialog(pai,
+                "Como reagendar as consultas de " + medico.getNome() + "?",
+                "Reagendamento em lote",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, opcoes, opcoes[0]);
+        if (escolha == JOptionPane.CLOSED_OPTION) {
+            return null;
+        }
+
+        try {
+            LocalDate inicio = LocalDate.parse(textoInicio.trim(), FMT_DATA);
+            LocalDate fim = LocalDate.parse(textoFim.trim(), FMT_DATA);
+            ReagendamentoService service = new ReagendamentoService();
+            ResultadoReagendamento resultado;
+
+            if (escolha == 0) {
+                String textoDias = JOptionPane.showInputDialog(pai, "Deslocar quantos dias?", "7");
+                if (textoDias == null) {
+                    return null;
+                }
+                resultado = service.deslocar(medico.getId(), inicio, fim, Integer.parseInt(textoDias.trim()));
+            } else {
+                resultado = service.reatribuir(medico.getId(), inicio, fim);
+            }
+
+            mostrarResultado(pai, resultado);
+            return resultado;
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(pai,
+                    "Erro ao reagendar: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
+    /**
+     * Exibe o resumo do reagendamento, listando as consultas não alocadas.
+     */
+    private static void mostrarResultado(Component pai, ResultadoReagendamento resultado) {
+        StringBuilder msg = new StringBuilder();
+        msg.append(resultado.getReagendadas().size()).append(" consulta(s) reagendada(s).");
+
+        if (!resultado.getNaoAlocadas().isEmpty()) {
+            msg.append("\n\nSem horário disponível (mantidas no horário original):");
+            for (Consulta c : resultado.getNaoAlocadas()) {
+                msg.append("\n#").append(c.getId()).append(" - ")
+                        .append(c.getPaciente() != null ? c.getPaciente().getNome() : "")
+                        .append(" em ").append(c.getDataAgendada().format(FMT_DATA))
+                        .append(" ").append(c.getHoraAgendada());
+            }
+        }
+        JOptionPane.showMessageDialog(pai, msg.toString(), "Reagendamento em lote",
+                resultado.getNaoAlocadas().isEmpty()
+                ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+}
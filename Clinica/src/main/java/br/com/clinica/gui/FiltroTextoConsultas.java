@@ -0,0 +1,101 @@
+package br.com.clinica.gui;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import javax.swing.RowFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+/**
+ * Filtro de linhas de uma tabela de consultas pelo texto de busca, aplicado
+ * em memória sobre as linhas já carregadas.
+ * <p>
+ * Reproduz a parte textual da busca do banco
+ * ({@link br.com.clinica.dao.ConsultaDAO#buscarConsulta}): a linha é exibida
+ * se o termo aparecer no nome do paciente, no nome do médico ou no status,
+ * sem diferenciar maiúsculas nem acentos. A chave normalizada de cada linha é
+ * calculada uma vez e guardada; alterações no modelo descartam apenas as
+ * chaves das linhas afetadas.
+ */
+final class FiltroTextoConsultas extends RowFilter<ModeloTabelaConsultas, Integer> implements TableModelListener {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Separador entre os campos da chave, que não aparece em termos
+     * digitados; evita que o fim de um campo e o início do seguinte formem
+     * uma ocorrência falsa.
+     */
+    private static final char SEPARADOR = '\u0000';
+
+    private final ModeloTabelaConsultas modelo;
+
+    private String[] chaves = new String[0];
+
+    /**
+     * Termo normalizado, ou {@code null} para exibir todas as linhas.
+     */
+    private String termo;
+
+    FiltroTextoConsultas(ModeloTabelaConsultas modelo) {
+        this.modelo = modelo;
+        modelo.addTableModelListener(this);
+    }
+
+    /**
+     * Define o termo de busca.
+     *
+     * @param termo texto digitado, ou {@code null} para exibir todas as
+     * linhas
+     */
+    void setTermo(String termo) {
+        this.termo = termo == null ? null : normalizar(termo);
+    }
+
+    /**
+     * Converte o texto para minúsculas e remove os acentos, como nas
+     * comparações do banco.
+     *
+     * @param texto texto original
+     * @return texto normalizado
+     */
+    static String normalizar(String texto) {
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean include(Entry<? extends ModeloTabelaConsultas, ? extends Integer> entry) {
+        return termo == null || chave(entry.getIdentifier()).contains(termo);
+    }
+
+    private String chave(int linha) {
+        if (chaves.length != modelo.getRowCount()) {
+            chaves = new String[modelo.getRowCount()];
+        }
+        String chave = chaves[linha];
+        if (chave == null) {
+            Object status = modelo.getValueAt(linha, 5);
+            chave = normalizar(modelo.getValueAt(linha, 1) + String.valueOf(SEPARADOR)
+                    + modelo.getValueAt(linha, 2) + SEPARADOR
+                    + (status != null ? status.toString() : ""));
+            chaves[linha] = chave;
+        }
+        return chave;
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        int primeira = e.getFirstRow();
+        int ultima = e.getLastRow();
+        if (e.getType() == TableModelEvent.UPDATE && primeira != TableModelEvent.HEADER_ROW
+                && ultima != Integer.MAX_VALUE && ultima < chaves.length) {
+            for (int i = primeira; i <= ultima; i++) {
+                chaves[i] = null;
+            }
+        } else {
+            chaves = new String[0];
+        }
+    }
+}
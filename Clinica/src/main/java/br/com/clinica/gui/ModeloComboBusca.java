@@ -0,0 +1,405 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.dao.PacienteDAO;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.AlteracaoEntidade;
+import br.com.clinica.util.BarramentoAlteracoes;
+import br.com.clinica.util.Metricas;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Modelo de combo de seleção de pacientes ou médicos que busca as opções sob
+ * demanda, em vez de carregar a tabela inteira ao abrir a tela.
+ * <p>
+ * O combo passa a ser editável: o texto digitado é usado como prefixo do nome
+ * e, após uma pausa de {@value #ATRASO_MS} ms, os primeiros {@value #LIMITE}
+ * registros em ordem alfabética são buscados em segundo plano e exibidos na
+ * lista. Quando o novo texto apenas estende o anterior e a busca anterior
+ * trouxe menos registros que o limite, o resultado é refinado em memória, sem
+ * ir ao banco. As seleções recentes de cada tipo são guardadas enquanto a
+ * aplicação estiver aberta e aparecem no topo da lista quando nada foi
+ * digitado. A primeira página (texto vazio) também é guardada e reaproveitada
+ * pelas telas seguintes até que um registro do tipo seja alterado; ela pode
+ * ser carregada antes da abertura da primeira tela ({@link #precarregar()}).
+ * <p>
+ * {@code getSelectedItem()} continua devolvendo o registro escolhido, ou
+ * {@code null} enquanto o texto digitado não corresponde a uma opção.
+ *
+ * @param <T> tipo dos registros
+ */
+public final class ModeloComboBusca<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+
+    private static final Logger LOG = Logger.getLogger(ModeloComboBusca.class.getName());
+
+    /**
+     * Quantidade máxima de registros buscados a cada pesquisa.
+     */
+    public static final int LIMITE = 20;
+
+    /**
+     * Pausa na digitação, em milissegundos, antes de pesquisar.
+     */
+    public static final int ATRASO_MS = 200;
+
+    /**
+     * Quantidade de seleções recentes guardadas por tipo.
+     */
+    private static final int RECENTES = 10;
+
+    private static final Guardados<Paciente> PACIENTES_GUARDADOS = new Guardados<>(Paciente.class);
+
+    private static final Guardados<Medico> MEDICOS_GUARDADOS = new Guardados<>(Medico.class);
+
+    static {
+        // Mantém os registros guardados em dia com as gravações.
+        BarramentoAlteracoes.assinarImediato(Paciente.class, PACIENTES_GUARDADOS::aplicar);
+        BarramentoAlteracoes.assinarImediato(Medico.class, MEDICOS_GUARDADOS::aplicar);
+    }
+
+    private final Class<T> tipo;
+    private final BiFunction<String, Integer, List<T>> busca;
+    private final ToIntFunction<T> id;
+    private final Guardados<T> guardados;
+
+    private List<T> itens = new ArrayList<>();
+    private T selecionado;
+
+    /**
+     * Prefixo normalizado da última busca feita no banco e o seu resultado,
+     * usados para refinar em memória as buscas seguintes.
+     */
+    private String ultimoPrefixo;
+    private List<T> ultimoResultado;
+
+    /**
+     * Número da última pesquisa iniciada; resultados de pesquisas anteriores
+     * que terminem depois são descartados.
+     */
+    private int geracao;
+
+    /**
+     * Indica que o texto do editor está sendo restaurado pelo próprio modelo,
+     * e não digitado.
+     */
+    private boolean ajustando;
+
+    private JComboBox<T> combo;
+    private JTextField campo;
+    private Timer atraso;
+
+    private ModeloComboBusca(Class<T> tipo, BiFunction<String, Integer, List<T>> busca,
+            ToIntFunction<T> id, Guardados<T> guardados) {
+        this.tipo = tipo;
+        this.busca = busca;
+        this.id = id;
+        this.guardados = guardados;
+    }
+
+    /**
+     * Cria o modelo de seleção de pacientes.
+     *
+     * @return modelo ainda não instalado
+     */
+    public static ModeloComboBusca<Paciente> pacientes() {
+        return new ModeloComboBusca<>(Paciente.class, new PacienteDAO()::buscarPorPrefixoNome,
+                Paciente::getId, PACIENTES_GUARDADOS);
+    }
+
+    /**
+     * Cria o modelo de seleção de médicos.
+     *
+     * @return modelo ainda não instalado
+     */
+    public static ModeloComboBusca<Medico> medicos() {
+        return new ModeloComboBusca<>(Medico.class, new MedicoDAO()::buscarPorPrefixoNome,
+                Medico::getId, MEDICOS_GUARDADOS);
+    }
+
+    /**
+     * Carrega a primeira página de médicos e de pacientes, se ainda não
+     * estiver guardada, para que a primeira tela com estes combos não precise
+     * ir ao banco. Pode ser chamado fora da thread de eventos do Swing.
+     */
+    public static void precarregar() {
+        if (MEDICOS_GUARDADOS.inicial() == null) {
+            MEDICOS_GUARDADOS.guardarInicial(new MedicoDAO().buscarPorPrefixoNome("", LIMITE));
+        }
+        if (PACIENTES_GUARDADOS.inicial() == null) {
+            PACIENTES_GUARDADOS.guardarInicial(new PacienteDAO().buscarPorPrefixoNome("", LIMITE));
+        }
+    }
+
+    /**
+     * Instala o modelo no combo, tornando-o editável, e inicia em segundo
+     * plano a busca das primeiras opções.
+     *
+     * @param combo combo de seleção
+     */
+    public void instalarEm(JComboBox<T> combo) {
+        this.combo = combo;
+        combo.setEditable(true);
+        combo.setModel(this);
+        campo = (JTextField) combo.getEditor().getEditorComponent();
+        atraso = new Timer(ATRASO_MS, e -> pesquisar());
+        atraso.setRepeats(false);
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                digitado();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                digitado();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                digitado();
+            }
+        });
+        pesquisar();
+    }
+
+    private void digitado() {
+        if (!ajustando) {
+            atraso.restart();
+        }
+    }
+
+    /**
+     * Atualiza as opções conforme o texto do editor. Não faz nada se o texto
+     * é o do registro selecionado (o editor acabou de exibi-lo).
+     */
+    private void pesquisar() {
+        String texto = campo.getText().trim();
+        if (selecionado != null && texto.equals(selecionado.toString())) {
+            return;
+        }
+        selecionado = null;
+        String prefixo = FiltroTextoConsultas.normalizar(texto);
+        int atual = ++geracao;
+        long t0 = System.nanoTime();
+
+        List<T> inicial = prefixo.isEmpty() ? guardados.inicial() : null;
+        if (inicial != null) {
+            ultimoPrefixo = prefixo;
+            ultimoResultado = inicial;
+            exibir(texto, inicial);
+            Metricas.registrarTempo("combo.busca.memoria", System.nanoTime() - t0);
+            return;
+        }
+
+        if (ultimoResultado != null && prefixo.startsWith(ultimoPrefixo) && ultimoResultado.size() < LIMITE) {
+            List<T> refinados = new ArrayList<>();
+            for (T r : ultimoResultado) {
+                if (FiltroTextoConsultas.normalizar(r.toString()).startsWith(prefixo)) {
+                    refinados.add(r);
+                }
+            }
+            exibir(texto, refinados);
+            Metricas.registrarTempo("combo.busca.memoria", System.nanoTime() - t0);
+            return;
+        }
+
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return busca.apply(texto, LIMITE);
+            }
+
+            @Override
+            protected void done() {
+                if (atual != geracao) {
+                    return;
+                }
+                try {
+                    List<T> resultado = get();
+                    ultimoPrefixo = prefixo;
+                    ultimoResultado = resultado;
+                    if (prefixo.isEmpty()) {
+                        guardados.guardarInicial(resultado);
+                    }
+                    exibir(texto, resultado);
+                    Metricas.registrarTempo("combo.busca.banco", System.nanoTime() - t0);
+                } catch (InterruptedException | ExecutionException e) {
+                    LOG.log(Level.WARNING, "Falha ao buscar opções de " + tipo.getSimpleName(), e);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Substitui as opções exibidas, preservando o texto digitado.
+     *
+     * @param texto texto pesquisado
+     * @param resultado registros encontrados
+     */
+    private void exibir(String texto, List<T> resultado) {
+        List<T> novos = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        if (texto.isEmpty()) {
+            for (T r : guardados.recentes()) {
+                if (ids.add(id.applyAsInt(r))) {
+                    novos.add(r);
+                }
+            }
+        }
+        for (T r : resultado) {
+            if (ids.add(id.applyAsInt(r))) {
+                novos.add(r);
+            }
+        }
+
+        // O combo recoloca o item selecionado no editor a cada alteração do
+        // modelo; o texto digitado é restaurado em seguida.
+        String digitado = campo.getText();
+        int cursor = campo.getCaretPosition();
+        ajustando = true;
+        try {
+            itens = novos;
+            fireContentsChanged(this, -1, -1);
+            campo.setText(digitado);
+            campo.setCaretPosition(Math.min(cursor, digitado.length()));
+        } finally {
+            ajustando = false;
+        }
+
+        if (!texto.isEmpty() && campo.isFocusOwner()) {
+            // Reabre a lista para ajustar a altura às novas opções.
+            combo.hidePopup();
+            if (!novos.isEmpty()) {
+                combo.showPopup();
+            }
+        }
+    }
+
+    /**
+     * Seleciona um registro. Um texto (digitado e confirmado no editor)
+     * seleciona a opção de mesmo nome, se houver.
+     *
+     * @param item registro, texto digitado ou {@code null}
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        T novo;
+        if (item == null || tipo.isInstance(item)) {
+            novo = tipo.cast(item);
+        } else {
+            novo = procurar(item.toString().trim());
+            if (novo == null) {
+                return;
+            }
+        }
+        if (novo == selecionado) {
+            return;
+        }
+        selecionado = novo;
+        if (novo != null) {
+            guardados.registrar(id.applyAsInt(novo), novo);
+        }
+        fireContentsChanged(this, -1, -1);
+    }
+
+    private T procurar(String nome) {
+        for (T r : itens) {
+            if (r.toString().equalsIgnoreCase(nome)) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selecionado;
+    }
+
+    @Override
+    public int getSize() {
+        return itens.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return itens.get(index);
+    }
+
+    /**
+     * Registros de um tipo guardados entre telas: as seleções recentes, da
+     * mais para a menos recente, e a primeira página.
+     */
+    private static final class Guardados<T> {
+
+        private final Class<T> tipo;
+
+        private List<T> inicial;
+
+        private final Map<Integer, T> porId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> antiga) {
+                return size() > RECENTES;
+            }
+        };
+
+        Guardados(Class<T> tipo) {
+            this.tipo = tipo;
+        }
+
+        synchronized void registrar(int id, T registro) {
+            porId.put(id, registro);
+        }
+
+        synchronized List<T> inicial() {
+            return inicial;
+        }
+
+        synchronized void guardarInicial(List<T> registros) {
+            inicial = registros;
+        }
+
+        synchronized List<T> recentes() {
+            List<T> lista = new ArrayList<>(porId.values());
+            Collections.reverse(lista);
+            return lista;
+        }
+
+        /**
+         * Descarta a primeira página, que pode ter mudado, e atualiza ou
+         * descarta a seleção recente do registro alterado.
+         */
+        synchronized void aplicar(AlteracaoEntidade a) {
+            inicial = null;
+            if (!porId.containsKey(a.getId())) {
+                return;
+            }
+            if (a.getAlteracao() == TipoAlteracao.REMOCAO) {
+                porId.remove(a.getId());
+            } else {
+                porId.replace(a.getId(), a.getRegistro(tipo));
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.util.AlteracaoEntidade;
+import br.com.clinica.util.BarramentoAlteracoes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Base dos modelos de tabela das telas de cadastro e de consultas, com os
+ * dados guardados em vetores por coluna.
+ * <p>
+ * Diferente do {@code DefaultTableModel}, que copia cada linha para um
+ * {@code Vector} sincronizado e dispara um evento por linha incluída, o
+ * carregamento ({@link #preencher(List)}) grava os valores diretamente nos
+ * vetores e dispara um único evento ao final. Ids e versões ficam em vetores
+ * de {@code int}; os valores exibidos só são convertidos quando a tabela os
+ * pede, e a formatação fica a cargo dos renderizadores.
+ *
+ * <p>
+ * A primeira coluna é sempre o id do registro. A versão de cada linha, usada
+ * no controle de concorrência otimista, fica disponível em
+ * {@link #getVersao(int)}.
+ *
+ * <p>
+ * Depois de uma gravação, a tela aplica só o registro afetado com
+ * {@link #incluir(Object)}, {@link #atualizar(Object)} ou
+ * {@link #remover(int)}, sem recarregar a tabela inteira. A linha alterada
+ * continua na mesma posição e os eventos disparados são os de linhas
+ * incluídas, alteradas ou removidas, de modo que a {@code JTable} preserva a
+ * seleção das demais linhas. A linha de cada id é mantida em um mapa, de modo
+ * que localizar o registro afetado não percorre a tabela.
+ *
+ * <p>
+ * As gravações feitas em outras telas abertas chegam pelo
+ * {@link BarramentoAlteracoes} ({@link #assinarAlteracoes(Predicate)}) e são
+ * aplicadas da mesma forma, linha a linha.
+ *
+ * @param <T> tipo dos registros exibidos
+ */
+public abstract class ModeloTabelaColunar<T> extends AbstractTableModel {
+
+    private final Class<T> tipo;
+    private final String[] colunas;
+    private final Class<?>[] tipos;
+
+    private int[] ids = new int[0];
+    private int[] versoes = new int[0];
+    private int linhas;
+
+    /**
+     * Linha de cada id exibido.
+     */
+    private Map<Integer, Integer> linhaPorId = new HashMap<>();
+
+    /**
+     * @param tipo classe dos registros exibidos
+     * @param colunas títulos das colunas; a primeira é o id
+     * @param tipos classe dos valores de cada coluna
+     */
+    protected ModeloTabelaColunar(Class<T> tipo, String[] colunas, Class<?>[] tipos) {
+        this.tipo = tipo;
+        this.colunas = colunas;
+        this.tipos = tipos;
+    }
+
+    /**
+     * Substitui todas as linhas pelos registros informados, com um único
+     * evento de alteração.
+     *
+     * @param registros registros a exibir, na ordem das linhas
+     */
+    public final void preencher(List<? extends T> registros) {
+        int n = registros.size();
+        int[] novosIds = new int[n];
+        int[] novasVersoes = new int[n];
+        Map<Integer, Integer> novasLinhas = new HashMap<>(Math.max(16, n * 4 / 3 + 1));
+        alocar(n);
+        for (int i = 0; i < n; i++) {
+            T r = registros.get(i);
+            novosIds[i] = id(r);
+            novasVersoes[i] = versao(r);
+            novasLinhas.put(novosIds[i], i);
+            gravar(i, r);
+        }
+        ids = novosIds;
+        versoes = novasVersoes;
+        linhaPorId = novasLinhas;
+        linhas = n;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Inclui o registro ao final da tabela. Como as listagens seguem a ordem
+     * de inclusão, o registro novo fica na mesma posição em que apareceria
+     * numa recarga.
+     *
+     * @param registro registro recém-gravado
+     */
+    public final void incluir(T registro) {
+        if (linhas == ids.length) {
+            int capacidade = Math.max(16, linhas + (linhas >> 1));
+            ids = Arrays.copyOf(ids, capacidade);
+            versoes = Arrays.copyOf(versoes, capacidade);
+            redimensionar(capacidade);
+        }
+        int linha = linhas++;
+        gravarLinha(linha, registro);
+        linhaPorId.put(ids[linha], linha);
+        fireTableRowsInserted(linha, linha);
+    }
+
+    /**
+     * Substitui a linha do registro pelos valores informados, mantendo sua
+     * posição. Se o registro ainda não estiver na tabela, ele é incluído.
+     *
+     * @param registro registro com os valores gravados
+     */
+    public final void atualizar(T registro) {
+        int linha = linhaDe(id(registro));
+        if (linha < 0) {
+            incluir(registro);
+        } else {
+            substituir(linha, registro);
+        }
+    }
+
+    /**
+     * Remove a linha do registro, se estiver na tabela.
+     *
+     * @param id identificador do registro removido
+     */
+    public final void remover(int id) {
+        int linha = linhaDe(id);
+        if (linha < 0) {
+            return;
+        }
+        int seguintes = linhas - linha - 1;
+        System.arraycopy(ids, linha + 1, ids, linha, seguintes);
+        System.arraycopy(versoes, linha + 1, versoes, linha, seguintes);
+        deslocar(linha + 1, linha, seguintes);
+        linhas--;
+        linhaPorId.remove(id);
+        for (int i = linha; i < linhas; i++) {
+            linhaPorId.put(ids[i], i);
+        }
+        fireTableRowsDeleted(linha, linha);
+    }
+
+    /**
+     * Aplica alterações publicadas no {@link BarramentoAlteracoes}.
+     * <p>
+     * Registros removidos saem da tabela e registros já exibidos são
+     * atualizados na mesma linha. Registros que ainda não estão na tabela só
+     * são incluídos se {@code exibir} os aceitar, o que permite à tela
+     * ignorar inclusões fora do filtro que estiver aplicado.
+     *
+     * @param alteracoes alterações a aplicar
+     * @param exibir critério de inclusão de registros novos na tabela
+     */
+    public void aplicar(List<AlteracaoEntidade> alteracoes, Predicate<? super T> exibir) {
+        for (AlteracaoEntidade a : alteracoes) {
+            if (a.getAlteracao() == TipoAlteracao.REMOCAO) {
+                remover(a.getId());
+                continue;
+            }
+            T registro = a.getRegistro(tipo);
+            int linha = linhaDe(a.getId());
+            if (linha >= 0) {
+                substituir(linha, registro);
+            } else if (exibir.test(registro)) {
+                incluir(registro);
+            }
+        }
+    }
+
+    /**
+     * Passa a aplicar neste modelo as alterações do tipo de registro exibido
+     * feitas em qualquer tela desta estação.
+     *
+     * @param exibir critério de inclusão de registros novos na tabela,
+     * consultado na thread de eventos do Swing
+     * @return assinatura, a ser cancelada quando a tela for fechada
+     */
+    public BarramentoAlteracoes.Assinatura assinarAlteracoes(Predicate<? super T> exibir) {
+        return BarramentoAlteracoes.assinar(tipo, alteracoes -> aplicar(alteracoes, exibir));
+    }
+
+    /**
+     * Retorna a linha em que está o registro.
+     *
+     * @param id identificador do registro
+     * @return índice da linha no modelo, ou {@code -1} se não estiver na
+     * tabela
+     */
+    public int linhaDe(int id) {
+        Integer linha = linhaPorId.get(id);
+        return linha != null ? linha : -1;
+    }
+
+    private void substituir(int linha, T registro) {
+        gravarLinha(linha, registro);
+        fireTableRowsUpdated(linha, linha);
+    }
+
+    private void gravarLinha(int linha, T registro) {
+        ids[linha] = id(registro);
+        versoes[linha] = versao(registro);
+        gravar(linha, registro);
+    }
+
+    /**
+     * Retorna o id do registro da linha.
+     *
+     * @param linha índice da linha no modelo
+     * @return id do registro
+     */
+    public int getId(int linha) {
+        return ids[linha];
+    }
+
+    /**
+     * Retorna a versão do registro no momento em que foi exibido.
+     *
+     * @param linha índice da linha no modelo
+     * @return versão do registro
+     */
+    public int getVersao(int linha) {
+        return versoes[linha];
+    }
+
+    @Override
+    public int getRowCount() {
+        return linhas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colunas.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return colunas[coluna];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int coluna) {
+        return tipos[coluna];
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        return coluna == 0 ? Integer.valueOf(ids[linha]) : valor(linha, coluna);
+    }
+
+    /**
+     * Cria os vetores das colunas próprias do modelo para a quantidade de
+     * linhas informada.
+     */
+    protected abstract void alocar(int linhas);
+
+    /**
+     * Amplia os vetores das colunas próprias do modelo para a capacidade
+     * informada, preservando as linhas existentes.
+     */
+    protected abstract void redimensionar(int capacidade);
+
+    /**
+     * Move {@code quantidade} linhas dos vetores próprios do modelo, a partir
+     * de {@code de}, para a posição {@code para}.
+     */
+    protected abstract void deslocar(int de, int para, int quantidade);
+
+    /**
+     * Grava nos vetores próprios do modelo os valores do registro.
+     */
+    protected abstract void gravar(int linha, T registro);
+
+    /**
+     * Retorna o valor de uma coluna própria do modelo (coluna maior que 0).
+     */
+    protected abstract Object valor(int linha, int coluna);
+
+    protected abstract int id(T registro);
+
+    protected abstract int versao(T registro);
+}
@@ -0,0 +1,218 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.AlteracaoEntidade;
+import br.com.clinica.util.BarramentoAlteracoes;
+import java.awt.Component;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Modelo da tabela de consultas (id, paciente, médico, data, hora e status).
+ * <p>
+ * Data, hora e status ficam em vetores primitivos (dia, minuto do dia e
+ * ordinal do status) e só viram objetos quando a linha é desenhada; a data é
+ * formatada pelo renderizador instalado em {@link #instalarEm(JTable)}.
+ *
+ * <p>
+ * Os ids do paciente e do médico de cada linha também são guardados, para que
+ * a alteração do nome de um paciente ou médico em outra tela atualize apenas
+ * as linhas das suas consultas.
+ */
+public class ModeloTabelaConsultas extends ModeloTabelaColunar<Consulta> {
+
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Valor gravado nos vetores primitivos para campos nulos.
+     */
+    private static final int NULO = -1;
+
+    private static final StatusConsulta[] STATUS = StatusConsulta.values();
+
+    private String[] pacientes = new String[0];
+    private String[] medicos = new String[0];
+    private int[] pacienteIds = new int[0];
+    private int[] medicoIds = new int[0];
+    private long[] dias = new long[0];
+    private short[] minutos = new short[0];
+    private byte[] status = new byte[0];
+
+    public ModeloTabelaConsultas() {
+        super(Consulta.class, new String[]{"ID", "Paciente", "Médico", "Data", "Hora", "Status"},
+                new Class<?>[]{Integer.class, String.class, String.class, LocalDate.class,
+                    LocalTime.class, StatusConsulta.class});
+    }
+
+    /**
+     * Define este modelo como modelo da tabela e instala o renderizador de
+     * datas.
+     *
+     * @param tabela tabela de consultas
+     */
+    public void instalarEm(JTable tabela) {
+        tabela.setModel(this);
+        tabela.setDefaultRenderer(LocalDate.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value,
+                    boolean isSelected, boolean hasFocus, int row, int column) {
+                return super.getTableCellRendererComponent(table,
+                        value != null ? ((LocalDate) value).format(FMT_DATA) : "",
+                        isSelected, hasFocus, row, column);
+            }
+        });
+    }
+
+    /**
+     * Retorna o status da consulta no momento em que foi exibida.
+     *
+     * @param linha índice da linha no modelo
+     * @return status da consulta, ou {@code null} se não informado
+     */
+    public StatusConsulta getStatus(int linha) {
+        return (StatusConsulta) valor(linha, 5);
+    }
+
+    /**
+     * Monta a consulta da linha como foi exibida: id, versão, data, hora,
+     * status e o paciente e o médico, destes apenas id e nome. Serve de base
+     * para gravar uma alteração sem ler a consulta do banco; a versão faz o
+     * DAO recusar a gravação se outra estação a tiver alterado.
+     *
+     * @param linha índice da linha no modelo
+     * @return consulta desanexada com os valores da linha
+     */
+    public Consulta getConsulta(int linha) {
+        Consulta c = new Consulta();
+        c.setId(getId(linha));
+        c.setVersao(getVersao(linha));
+        c.setDataAgendada((LocalDate) valor(linha, 3));
+        c.setHoraAgendada((LocalTime) valor(linha, 4));
+        c.setStatus(getStatus(linha));
+        if (pacienteIds[linha] != 0) {
+            Paciente p = new Paciente();
+            p.setId(pacienteIds[linha]);
+            p.setNome(pacientes[linha]);
+            c.setPaciente(p);
+        }
+        if (medicoIds[linha] != 0) {
+            Medico m = new Medico();
+            m.setId(medicoIds[linha]);
+            m.setNome(medicos[linha]);
+            c.setMedico(m);
+        }
+        return c;
+    }
+
+    /**
+     * Além das consultas, acompanha as alterações de pacientes e médicos para
+     * manter atualizados os nomes exibidos.
+     */
+    @Override
+    public BarramentoAlteracoes.Assinatura assinarAlteracoes(Predicate<? super Consulta> exibir) {
+        return BarramentoAlteracoes.Assinatura.todas(
+                super.assinarAlteracoes(exibir),
+                BarramentoAlteracoes.assinar(Paciente.class, alteracoes -> renomear(alteracoes, pacienteIds, pacientes, 1)),
+                BarramentoAlteracoes.assinar(Medico.class, alteracoes -> renomear(alteracoes, medicoIds, medicos, 2)));
+    }
+
+    /**
+     * Atualiza o nome do paciente ou médico alterado nas linhas em que
+     * aparece.
+     */
+    private void renomear(List<AlteracaoEntidade> alteracoes, int[] idsPorLinha, String[] nomes, int coluna) {
+        for (AlteracaoEntidade a : alteracoes) {
+            if (a.getAlteracao() != TipoAlteracao.ALTERACAO) {
+                continue;
+            }
+            Object registro = a.getRegistro(Object.class);
+            String nome = registro instanceof Paciente p ? p.getNome() : ((Medico) registro).getNome();
+            for (int i = 0; i < getRowCount(); i++) {
+                if (idsPorLinha[i] == a.getId() && !nome.equals(nomes[i])) {
+                    nomes[i] = nome;
+                    fireTableCellUpdated(i, coluna);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void alocar(int linhas) {
+        pacientes = new String[linhas];
+        medicos = new String[linhas];
+        pacienteIds = new int[linhas];
+        medicoIds = new int[linhas];
+        dias = new long[linhas];
+        minutos = new short[linhas];
+        status = new byte[linhas];
+    }
+
+    @Override
+    protected void redimensionar(int capacidade) {
+        pacientes = Arrays.copyOf(pacientes, capacidade);
+        medicos = Arrays.copyOf(medicos, capacidade);
+        pacienteIds = Arrays.copyOf(pacienteIds, capacidade);
+        medicoIds = Arrays.copyOf(medicoIds, capacidade);
+        dias = Arrays.copyOf(dias, capacidade);
+        minutos = Arrays.copyOf(minutos, capacidade);
+        status = Arrays.copyOf(status, capacidade);
+    }
+
+    @Override
+    protected void deslocar(int de, int para, int quantidade) {
+        System.arraycopy(pacientes, de, pacientes, para, quantidade);
+        System.arraycopy(medicos, de, medicos, para, quantidade);
+        System.arraycopy(pacienteIds, de, pacienteIds, para, quantidade);
+        System.arraycopy(medicoIds, de, medicoIds, para, quantidade);
+        System.arraycopy(dias, de, dias, para, quantidade);
+        System.arraycopy(minutos, de, minutos, para, quantidade);
+        System.arraycopy(status, de, status, para, quantidade);
+    }
+
+    @Override
+    protected void gravar(int linha, Consulta c) {
+        pacientes[linha] = c.getPaciente() != null ? c.getPaciente().getNome() : "";
+        medicos[linha] = c.getMedico() != null ? c.getMedico().getNome() : "";
+        pacienteIds[linha] = c.getPaciente() != null ? c.getPaciente().getId() : 0;
+        medicoIds[linha] = c.getMedico() != null ? c.getMedico().getId() : 0;
+        dias[linha] = c.getDataAgendada() != null ? c.getDataAgendada().toEpochDay() : Long.MIN_VALUE;
+        minutos[linha] = c.getHoraAgendada() != null ? (short) (c.getHoraAgendada().toSecondOfDay() / 60) : NULO;
+        status[linha] = c.getStatus() != null ? (byte) c.getStatus().ordinal() : NULO;
+    }
+
+    @Override
+    protected Object valor(int linha, int coluna) {
+        switch (coluna) {
+            case 1:
+                return pacientes[linha];
+            case 2:
+                return medicos[linha];
+            case 3:
+                return dias[linha] != Long.MIN_VALUE ? LocalDate.ofEpochDay(dias[linha]) : null;
+            case 4:
+                return minutos[linha] != NULO ? LocalTime.ofSecondOfDay(minutos[linha] * 60L) : null;
+            default:
+                return status[linha] != NULO ? STATUS[status[linha]] : null;
+        }
+    }
+
+    @Override
+    protected int id(Consulta c) {
+        return c.getId();
+    }
+
+    @Override
+    protected int versao(Consulta c) {
+        return c.getVersao();
+    }
+}
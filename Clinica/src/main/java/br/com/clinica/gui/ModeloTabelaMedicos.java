@@ -0,0 +1,69 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Medico;
+import java.util.Arrays;
+
+/**
+ * Modelo da tabela de médicos (id, nome, especialidade e CRM).
+ */
+public class ModeloTabelaMedicos extends ModeloTabelaColunar<Medico> {
+
+    private String[] nomes = new String[0];
+    private String[] especialidades = new String[0];
+    private String[] crms = new String[0];
+
+    public ModeloTabelaMedicos() {
+        super(Medico.class, new String[]{"ID", "Nome", "Especialidade", "CRM"},
+                new Class<?>[]{Integer.class, String.class, String.class, String.class});
+    }
+
+    @Override
+    protected void alocar(int linhas) {
+        nomes = new String[linhas];
+        especialidades = new String[linhas];
+        crms = new String[linhas];
+    }
+
+    @Override
+    protected void redimensionar(int capacidade) {
+        nomes = Arrays.copyOf(nomes, capacidade);
+        especialidades = Arrays.copyOf(especialidades, capacidade);
+        crms = Arrays.copyOf(crms, capacidade);
+    }
+
+    @Override
+    protected void deslocar(int de, int para, int quantidade) {
+        System.arraycopy(nomes, de, nomes, para, quantidade);
+        System.arraycopy(especialidades, de, especialidades, para, quantidade);
+        System.arraycopy(crms, de, crms, para, quantidade);
+    }
+
+    @Override
+    protected void gravar(int linha, Medico m) {
+        nomes[linha] = m.getNome();
+        especialidades[linha] = m.getEspecialidade();
+        crms[linha] = m.getCrm();
+    }
+
+    @Override
+    protected Object valor(int linha, int coluna) {
+        switch (coluna) {
+            case 1:
+                return nomes[linha];
+            case 2:
+                return especialidades[linha];
+            default:
+                return crms[linha];
+        }
+    }
+
+    @Override
+    protected int id(Medico m) {
+        return m.getId();
+    }
+
+    @Override
+    protected int versao(Medico m) {
+        return m.getVersao();
+    }
+}
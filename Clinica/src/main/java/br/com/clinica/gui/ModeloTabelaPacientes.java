@@ -0,0 +1,69 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Paciente;
+import java.util.Arrays;
+
+/**
+ * Modelo da tabela de pacientes (id, nome, CPF e telefone).
+ */
+public class ModeloTabelaPacientes extends ModeloTabelaColunar<Paciente> {
+
+    private String[] nomes = new String[0];
+    private String[] cpfs = new String[0];
+    private String[] telefones = new String[0];
+
+    public ModeloTabelaPacientes() {
+        super(Paciente.class, new String[]{"ID", "Nome", "CPF", "Telefone"},
+                new Class<?>[]{Integer.class, String.class, String.class, String.class});
+    }
+
+    @Override
+    protected void alocar(int linhas) {
+        nomes = new String[linhas];
+        cpfs = new String[linhas];
+        telefones = new String[linhas];
+    }
+
+    @Override
+    protected void redimensionar(int capacidade) {
+        nomes = Arrays.copyOf(nomes, capacidade);
+        cpfs = Arrays.copyOf(cpfs, capacidade);
+        telefones = Arrays.copyOf(telefones, capacidade);
+    }
+
+    @Override
+    protected void deslocar(int de, int para, int quantidade) {
+        System.arraycopy(nomes, de, nomes, para, quantidade);
+        System.arraycopy(cpfs, de, cpfs, para, quantidade);
+        System.arraycopy(telefones, de, telefones, para, quantidade);
+    }
+
+    @Override
+    protected void gravar(int linha, Paciente p) {
+        nomes[linha] = p.getNome();
+        cpfs[linha] = p.getCpf();
+        telefones[linha] = p.getTelefone();
+    }
+
+    @Override
+    protected Object valor(int linha, int coluna) {
+        switch (coluna) {
+            case 1:
+                return nomes[linha];
+            case 2:
+                return cpfs[linha];
+            default:
+                return telefones[linha];
+        }
+    }
+
+    @Override
+    protected int id(Paciente p) {
+        return p.getId();
+    }
+
+    @Override
+    protected int versao(Paciente p) {
+        return p.getVersao();
+    }
+}
@@ -0,0 +1,182 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Usuario;
+import br.com.clinica.util.Metricas;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JFrame;
+
+/**
+ * Navegação entre as telas da sessão do usuário logado.
+ * <p>
+ * Cada tela é criada na primeira vez em que é aberta e, nas seguintes, apenas
+ * reexibida: {@code initComponents()} e as consultas iniciais não são
+ * repetidos. Ao navegar para outra tela, a de origem é ocultada, e não
+ * descartada. As telas que implementam {@link Reutilizavel} deixam de
+ * atualizar as tabelas enquanto ocultas e, ao reaparecer, aplicam somente as
+ * alterações acumuladas nesse intervalo.
+ *
+ * <p>
+ * A sessão termina, e todas as suas telas são descartadas, ao sair para o
+ * login, ao entrar com outro usuário ou quando o usuário fecha uma das telas
+ * pela janela (sem isso, as telas ocultas manteriam a aplicação aberta). As
+ * telas descartadas são acompanhadas por referências fracas: a cada
+ * navegação, o log em nível {@code FINE} mostra o tempo gasto, o heap em uso
+ * e quantas delas ainda não foram coletadas. Ao fim de cada sessão, o resumo
+ * de todas as {@link Metricas} é registrado no log, também em {@code FINE}.
+ *
+ * <p>
+ * Deve ser usada apenas na thread de eventos do Swing.
+ */
+public final class Navegacao {
+
+    private static final Logger LOG = Logger.getLogger(Navegacao.class.getName());
+
+    /**
+     * Telas da sessão atual, por classe.
+     */
+    private static final Map<Class<?>, JFrame> telas = new HashMap<>();
+
+    private static Usuario usuarioSessao;
+
+    private static final ReferenceQueue<JFrame> coletadas = new ReferenceQueue<>();
+
+    /**
+     * Referências às telas descartadas ainda não coletadas.
+     */
+    private static final Set<Reference<JFrame>> descartadas = new HashSet<>();
+
+    private Navegacao() {
+    }
+
+    /**
+     * Tela que é avisada ao ser ocultada e reexibida pela navegação.
+     */
+    public interface Reutilizavel {
+
+        /**
+         * Chamado antes de a tela ser ocultada.
+         */
+        void aoOcultar();
+
+        /**
+         * Chamado antes de a tela, já criada, ser exibida novamente.
+         */
+        void aoReexibir();
+    }
+
+    /**
+     * Exibe a tela do tipo informado, criando-a apenas se ainda não existir
+     * na sessão, e oculta a tela de origem.
+     *
+     * @param <T> tipo da tela
+     * @param origem tela a partir da qual se navega; se não pertencer à
+     * sessão, é descartada. Pode ser {@code null}
+     * @param usuario usuário logado
+     * @param tipo classe da tela de destino
+     * @param criar construtor da tela, usado na primeira exibição
+     * @return tela exibida
+     */
+    public static <T extends JFrame> T exibir(JFrame origem, Usuario usuario, Class<T> tipo,
+            Function<Usuario, T> criar) {
+        long t0 = System.nanoTime();
+        if (usuarioSessao != null && usuarioSessao.getId() != usuario.getId()) {
+            encerrarSessao();
+        }
+        usuarioSessao = usuario;
+
+        T tela = tipo.cast(telas.get(tipo));
+        boolean reexibicao = tela != null;
+        if (reexibicao) {
+            if (tela instanceof Reutilizavel r) {
+                r.aoReexibir();
+            }
+        } else {
+            tela = criar.apply(usuario);
+            telas.put(tipo, tela);
+            JFrame criada = tela;
+            criada.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    fechada(criada);
+                }
+            });
+        }
+        tela.setVisible(true);
+
+        if (origem != null && origem != tela) {
+            if (telas.get(origem.getClass()) == origem) {
+                if (origem instanceof Reutilizavel r) {
+                    r.aoOcultar();
+                }
+                origem.setVisible(false);
+            } else {
+                origem.dispose();
+            }
+        }
+
+        long nanos = System.nanoTime() - t0;
+        Metricas.registrarTempo(reexibicao ? "navegacao.reexibicao" : "navegacao.criacao", nanos);
+        if (LOG.isLoggable(Level.FINE)) {
+            Runtime rt = Runtime.getRuntime();
+            LOG.fine(String.format("%s %s em %.1f ms; heap em uso %d MB; telas descartadas não coletadas: %d",
+                    tipo.getSimpleName(), reexibicao ? "reexibida" : "criada", nanos / 1_000_000.0,
+                    (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024), telasNaoColetadas()));
+        }
+        return tela;
+    }
+
+    /**
+     * Descarta todas as telas da sessão atual e registra o resumo das
+     * métricas no log. A próxima navegação cria as telas novamente.
+     */
+    public static void encerrarSessao() {
+        if (usuarioSessao != null) {
+            Metricas.registrarNoLog();
+        }
+        for (JFrame tela : telas.values()) {
+            descartadas.add(new WeakReference<>(tela, coletadas));
+            tela.dispose();
+        }
+        telas.clear();
+        usuarioSessao = null;
+    }
+
+    /**
+     * Retorna quantas telas descartadas ainda estão em memória. O valor só
+     * diminui depois que o coletor de lixo passa; uma tela que nunca é
+     * coletada indica uma referência esquecida (um ouvinte não removido, por
+     * exemplo).
+     *
+     * @return telas descartadas ainda não coletadas
+     */
+    public static int telasNaoColetadas() {
+        Reference<? extends JFrame> r;
+        while ((r = coletadas.poll()) != null) {
+            descartadas.remove(r);
+            Metricas.incrementar("navegacao.telas.coletadas");
+        }
+        return descartadas.size();
+    }
+
+    /**
+     * Trata o fechamento de uma tela. Se foi o usuário que a fechou pela
+     * janela, encerra a sessão, como acontecia quando cada tela era
+     * descartada ao navegar.
+     */
+    private static void fechada(JFrame tela) {
+        if (telas.get(tela.getClass()) == tela) {
+            encerrarSessao();
+        }
+    }
+}
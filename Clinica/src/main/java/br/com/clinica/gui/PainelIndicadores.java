@@ -0,0 +1,178 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.service.IndicadoresGrupo;
+import br.com.clinica.service.IndicadoresMes;
+import br.com.clinica.service.IndicadoresService;
+import br.com.clinica.util.UIStyle;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Painel dos indicadores mensais de cancelamento e falta
+ * ({@link IndicadoresService}), por médico, especialidade, dia da semana e
+ * antecedência do agendamento.
+ */
+public class PainelIndicadores extends JPanel {
+
+    private static final DateTimeFormatter FMT_MES = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    /**
+     * Colunas das tabelas de indicadores.
+     */
+    private static final String[] COLUNAS = {
+        "Grupo", "Consultas", "Canceladas", "Faltas", "Cancelamento (%)", "Faltas (%)"
+    };
+
+    private final IndicadoresService service = new IndicadoresService();
+
+    /**
+     * Médico ao qual os indicadores são restritos, ou {@code null} para todos.
+     */
+    private final Integer medicoId;
+
+    private final JTextField txtMes = new JTextField(7);
+    private final JLabel lblTotais = new JLabel(" ");
+    private final DefaultTableModel modeloMedicos = criarModelo();
+    private final DefaultTableModel modeloEspecialidades = criarModelo();
+    private final DefaultTableModel modeloDias = criarModelo();
+    private final DefaultTableModel modeloAntecedencia = criarModelo();
+
+    /**
+     * Cria o painel com o mês anterior como mês inicial.
+     *
+     * @param medicoId médico ao qual os indicadores são restritos, ou
+     * {@code null} para todos os médicos
+     */
+    public PainelIndicadores(Integer medicoId) {
+        super(new BorderLayout(8, 8));
+        this.medicoId = medicoId;
+        txtMes.setText(YearMonth.now().minusMonths(1).format(FMT_MES));
+
+        JLabel lblMes = new JLabel("Mês (MM/yyyy):");
+        UIStyle.aplicarAzul(lblMes, lblTotais);
+        JButton btnAtualizar = new JButton("Atualizar");
+        UIStyle.primaryButton(btnAtualizar);
+        btnAtualizar.addActionListener(e -> atualizar());
+
+        JPanel filtros = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filtros.add(lblMes);
+        filtros.add(txtMes);
+        filtros.add(btnAtualizar);
+
+        JPanel topo = new JPanel(new BorderLayout());
+        topo.add(filtros, BorderLayout.NORTH);
+        topo.add(lblTotais, BorderLayout.SOUTH);
+
+        JTabbedPane abas = new JTabbedPane();
+        if (medicoId == null) {
+            abas.addTab("Por médico", new JScrollPane(new JTable(modeloMedicos)));
+            abas.addTab("Por especialidade", new JScrollPane(new JTable(modeloEspecialidades)));
+        }
+        abas.addTab("Por dia da semana", new JScrollPane(new JTable(modeloDias)));
+        abas.addTab("Por antecedência", new JScrollPane(new JTable(modeloAntecedencia)));
+
+        add(topo, BorderLayout.NORTH);
+        add(abas, BorderLayout.CENTER);
+        atualizar();
+    }
+
+    /**
+     * Abre o painel de indicadores em uma janela modal.
+     *
+     * @param pai componente pai da janela
+     * @param medicoId médico ao qual os indicadores são restritos, ou
+     * {@code null} para todos os médicos
+     */
+    public static void abrir(Component pai, Integer medicoId) {
+        JDialog dialogo = new JDialog(SwingUtilities.getWindowAncestor(pai), "Cancelamentos e faltas",
+                JDialog.DEFAULT_MODALITY_TYPE);
+        dialogo.setContentPane(new PainelIndicadores(medicoId));
+        dialogo.setSize(720, 480);
+        dialogo.setLocationRelativeTo(pai);
+        dialogo.setVisible(true);
+    }
+
+    /**
+     * Recalcula em segundo plano os indicadores do mês informado.
+     */
+    private void atualizar() {
+        YearMonth mes;
+        try {
+            mes = YearMonth.parse(txtMes.getText().trim(), FMT_MES);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Informe o mês no formato MM/yyyy.",
+                    "Aviso", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        lblTotais.setText("Calculando...");
+        new SwingWorker<IndicadoresMes, Void>() {
+            @Override
+            protected IndicadoresMes doInBackground() {
+                return service.calcular(mes, medicoId);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    IndicadoresMes ind = get();
+                    IndicadoresGrupo geral = ind.getGeral();
+                    lblTotais.setText(String.format(
+                            "Consultas: %d   Canceladas: %d (%.1f%%)   Faltas: %d (%.1f%%)",
+                            geral.getTotal(), geral.getCanceladas(), geral.getTaxaCancelamento() * 100,
+                            geral.getFaltas(), geral.getTaxaFalta() * 100));
+                    preencher(modeloMedicos, ind.getPorMedico());
+                    preencher(modeloEspecialidades, ind.getPorEspecialidade());
+                    preencher(modeloDias, ind.getPorDiaSemana());
+                    preencher(modeloAntecedencia, ind.getPorAntecedencia());
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    lblTotais.setText(" ");
+                    JOptionPane.showMessageDialog(PainelIndicadores.this,
+                            "Erro ao calcular os indicadores: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private static void preencher(DefaultTableModel modelo, List<IndicadoresGrupo> linhas) {
+        modelo.setRowCount(0);
+        for (IndicadoresGrupo g : linhas) {
+            modelo.addRow(new Object[]{
+                g.getGrupo(),
+                g.getTotal(),
+                g.getCanceladas(),
+                g.getFaltas(),
+                String.format("%.1f", g.getTaxaCancelamento() * 100),
+                String.format("%.1f", g.getTaxaFalta() * 100)
+            });
+        }
+    }
+
+    private static DefaultTableModel criarModelo() {
+        return new DefaultTableModel(COLUNAS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,298 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.service.MapaOcupacao;
+import br.com.clinica.service.OcupacaoService;
+import br.com.clinica.util.UIStyle;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Mapa de calor da ocupação da agenda de um médico por dia da semana e hora.
+ * <p>
+ * Cada célula mostra a ocupação da faixa no período ({@link MapaOcupacao}):
+ * quanto mais escura, mais cheia a agenda; faixas vazias ficam em branco. O
+ * cálculo de todos os médicos é feito uma vez por período, em segundo plano,
+ * e a troca de médico apenas redesenha a tabela. O mapa completo pode ser
+ * exportado em CSV.
+ */
+public class PainelOcupacao extends JPanel {
+
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Locale LOCALE = Locale.forLanguageTag("pt-BR");
+
+    /**
+     * Cor das faixas com agenda completa.
+     */
+    private static final Color COR_CHEIA = new Color(192, 0, 0);
+
+    private final OcupacaoService service = new OcupacaoService();
+
+    /**
+     * Médico ao qual o mapa é restrito, ou {@code null} para todos.
+     */
+    private final Integer medicoId;
+
+    private final JTextField txtInicio = new JTextField(8);
+    private final JTextField txtFim = new JTextField(8);
+    private final JComboBox<String> comboMedico = new JComboBox<>();
+    private final JLabel lblSituacao = new JLabel(" ");
+    private final DefaultTableModel modelo;
+
+    /**
+     * Ids dos médicos na ordem do combo.
+     */
+    private final List<Integer> idsMedicos = new ArrayList<>();
+
+    /**
+     * Último mapa calculado, ou {@code null}.
+     */
+    private MapaOcupacao mapa;
+
+    /**
+     * Cria o painel com os últimos 12 meses como período inicial.
+     *
+     * @param medicoId médico ao qual o mapa é restrito, ou {@code null} para
+     * todos os médicos
+     */
+    public PainelOcupacao(Integer medicoId) {
+        super(new BorderLayout(8, 8));
+        this.medicoId = medicoId;
+
+        LocalDate hoje = LocalDate.now();
+        txtInicio.setText(hoje.minusYears(1).plusDays(1).format(FMT_DATA));
+        txtFim.setText(hoje.format(FMT_DATA));
+
+        String[] colunas = new String[8];
+        colunas[0] = "Hora";
+        for (DayOfWeek d : DayOfWeek.values()) {
+            colunas[d.getValue()] = d.getDisplayName(TextStyle.SHORT, LOCALE);
+        }
+        modelo = new DefaultTableModel(colunas, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable tabela = new JTable(modelo);
+        tabela.setRowHeight(24);
+        tabela.setDefaultRenderer(Object.class, new RenderizadorOcupacao());
+
+        JLabel lblDe = new JLabel("De:");
+        JLabel lblAte = new JLabel("Até:");
+        UIStyle.aplicarAzul(lblDe, lblAte, lblSituacao);
+        JButton btnCalcular = new JButton("Calcular");
+        UIStyle.primaryButton(btnCalcular);
+        btnCalcular.addActionListener(e -> calcular());
+        JButton btnExportar = new JButton("Exportar CSV...");
+        btnExportar.addActionListener(e -> exportar());
+        comboMedico.addActionListener(e -> exibir());
+
+        JPanel filtros = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filtros.add(lblDe);
+        filtros.add(txtInicio);
+        filtros.add(lblAte);
+        filtros.add(txtFim);
+        filtros.add(btnCalcular);
+        filtros.add(comboMedico);
+        filtros.add(btnExportar);
+
+        add(filtros, BorderLayout.NORTH);
+        add(new JScrollPane(tabela), BorderLayout.CENTER);
+        add(lblSituacao, BorderLayout.SOUTH);
+        calcular();
+    }
+
+    /**
+     * Abre o mapa de ocupação em uma janela modal.
+     *
+     * @param pai componente pai da janela
+     * @param medicoId médico ao qual o mapa é restrito, ou {@code null} para
+     * todos os médicos
+     */
+    public static void abrir(Component pai, Integer medicoId) {
+        JDialog dialogo = new JDialog(SwingUtilities.getWindowAncestor(pai), "Ocupação da agenda",
+                JDialog.DEFAULT_MODALITY_TYPE);
+        dialogo.setContentPane(new PainelOcupacao(medicoId));
+        dialogo.setSize(760, 520);
+        dialogo.setLocationRelativeTo(pai);
+        dialogo.setVisible(true);
+    }
+
+    /**
+     * Recalcula em segundo plano o mapa do período informado nos campos.
+     */
+    private void calcular() {
+        LocalDate inicio;
+        LocalDate fim;
+        try {
+            inicio = LocalDate.parse(txtInicio.getText().trim(), FMT_DATA);
+            fim = LocalDate.parse(txtFim.getText().trim(), FMT_DATA);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Informe as datas no formato dd/MM/yyyy.",
+                    "Aviso", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        lblSituacao.setText("Calculando...");
+        long t0 = System.nanoTime();
+        new SwingWorker<MapaOcupacao, Void>() {
+            @Override
+            protected MapaOcupacao doInBackground() {
+                return service.calcular(inicio, fim, medicoId);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    mapa = get();
+                    Object selecionado = comboMedico.getSelectedItem();
+                    idsMedicos.clear();
+                    comboMedico.removeAllItems();
+                    for (Map.Entry<Integer, String> m : mapa.getMedicos().entrySet()) {
+                        idsMedicos.add(m.getKey());
+                        comboMedico.addItem(m.getValue());
+                    }
+                    if (selecionado != null) {
+                        comboMedico.setSelectedItem(selecionado);
+                    }
+                    exibir();
+                    lblSituacao.setText(String.format(LOCALE, "Calculado em %d ms", (System.nanoTime() - t0) / 1_000_000));
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    lblSituacao.setText(" ");
+                    JOptionPane.showMessageDialog(PainelOcupacao.this,
+                            "Erro ao calcular a ocupação: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Preenche a tabela com o médico selecionado no combo.
+     */
+    private void exibir() {
+        modelo.setRowCount(0);
+        int indice = comboMedico.getSelectedIndex();
+        if (mapa == null || indice < 0) {
+            return;
+        }
+        int id = idsMedicos.get(indice);
+        for (int hora = mapa.getHoraInicial(); hora <= mapa.getHoraFinal(); hora++) {
+            Object[] linha = new Object[8];
+            linha[0] = String.format("%02d:00", hora);
+            for (DayOfWeek d : DayOfWeek.values()) {
+                linha[d.getValue()] = new Faixa(mapa.consultas(id, d, hora), mapa.capacidade(d));
+            }
+            modelo.addRow(linha);
+        }
+    }
+
+    /**
+     * Pede o arquivo de destino e exporta o mapa de todos os médicos.
+     */
+    private void exportar() {
+        if (mapa == null) {
+            return;
+        }
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("Arquivo CSV", "csv"));
+        seletor.setSelectedFile(new File("ocupacao-agenda.csv"));
+        if (seletor.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File arquivo = seletor.getSelectedFile();
+        if (!arquivo.getName().toLowerCase().endsWith(".csv")) {
+            arquivo = new File(arquivo.getParentFile(), arquivo.getName() + ".csv");
+        }
+        try (Writer out = Files.newBufferedWriter(arquivo.toPath(), StandardCharsets.UTF_8)) {
+            out.write('\uFEFF'); // BOM: o Excel reconhece o arquivo como UTF-8
+            service.exportarCsv(mapa, out);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao exportar: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this, "Mapa exportado para " + arquivo.getAbsolutePath(),
+                "Exportação concluída", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Consultas e capacidade de uma célula do mapa.
+     */
+    private static final class Faixa {
+
+        private final int consultas;
+        private final int capacidade;
+
+        Faixa(int consultas, int capacidade) {
+            this.consultas = consultas;
+            this.capacidade = capacidade;
+        }
+
+        double ocupacao() {
+            return capacidade == 0 ? 0 : (double) consultas / capacidade;
+        }
+    }
+
+    /**
+     * Pinta cada faixa com intensidade proporcional à ocupação.
+     */
+    private static final class RenderizadorOcupacao extends DefaultTableCellRenderer {
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            setHorizontalAlignment(SwingConstants.CENTER);
+            setToolTipText(null);
+            if (!(value instanceof Faixa f)) {
+                setBackground(table.getBackground());
+                setForeground(table.getForeground());
+                return this;
+            }
+            double t = Math.min(1, f.ocupacao());
+            setText(f.capacidade == 0 ? "" : String.format("%.0f%%", f.ocupacao() * 100));
+            setToolTipText(f.consultas + " de " + f.capacidade + " consulta(s)");
+            setBackground(new Color(
+                    (int) (255 + (COR_CHEIA.getRed() - 255) * t),
+                    (int) (255 + (COR_CHEIA.getGreen() - 255) * t),
+                    (int) (255 + (COR_CHEIA.getBlue() - 255) * t)));
+            setForeground(t > 0.5 ? Color.WHITE : Color.BLACK);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.service.RelatorioService;
+import br.com.clinica.service.ResumoConsultas;
+import br.com.clinica.util.UIStyle;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.FlowLayout;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Painel de resumo gerencial das consultas de um período.
+ * <p>
+ * Exibe o total por status e a taxa de cancelamento do período, além das
+ * tabelas por médico e por mês. Os números são agregados pelo banco
+ * ({@link RelatorioService#resumoPorMedico}, {@link RelatorioService#resumoPorMes}
+ * e {@link RelatorioService#resumoGeral}); nenhuma consulta individual é
+ * carregada. As distribuições por dia da semana e por horário vêm da cópia
+ * colunar em memória e são calculadas em segundo plano.
+ */
+public class PainelResumo extends JPanel {
+
+    /**
+     * Formatador de datas no padrão {@code dd/MM/yyyy}.
+     */
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Colunas das tabelas de resumo.
+     */
+    private static final String[] COLUNAS = {
+        "Grupo", "Agendadas", "Realizadas", "Canceladas", "Total", "Cancelamento (%)"
+    };
+
+    private final RelatorioService service = new RelatorioService();
+
+    /**
+     * Médico ao qual o resumo é restrito, ou {@code null} para todos.
+     */
+    private final Integer medicoId;
+
+    private final JTextField txtInicio = new JTextField(8);
+    private final JTextField txtFim = new JTextField(8);
+    private final JLabel lblTotais = new JLabel(" ");
+    private final DefaultTableModel modeloMedicos = criarModelo();
+    private final DefaultTableModel modeloMeses = criarModelo();
+    private final DefaultTableModel modeloDiasSemana = criarModelo();
+    private final DefaultTableModel modeloHorarios = criarModelo();
+
+    /**
+     * Cria o painel com o ano corrente como período inicial.
+     *
+     * @param medicoId médico ao qual o resumo é restrito, ou {@code null}
+     * para todos os médicos
+     */
+    public PainelResumo(Integer medicoId) {
+        super(new BorderLayout(8, 8));
+        this.medicoId = medicoId;
+
+        LocalDate hoje = LocalDate.now();
+        txtInicio.setText(hoje.withDayOfYear(1).format(FMT_DATA));
+        txtFim.setText(hoje.withDayOfYear(hoje.lengthOfYear()).format(FMT_DATA));
+
+        JLabel lblDe = new JLabel("De:");
+        JLabel lblAte = new JLabel("Até:");
+        UIStyle.aplicarAzul(lblDe, lblAte, lblTotais);
+        JButton btnAtualizar = new JButton("Atualizar");
+        UIStyle.primaryButton(btnAtualizar);
+        btnAtualizar.addActionListener(e -> atualizar());
+
+        JPanel filtros = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filtros.add(lblDe);
+        filtros.add(txtInicio);
+        filtros.add(lblAte);
+        filtros.add(txtFim);
+        filtros.add(btnAtualizar);
+
+        JPanel topo = new JPanel(new BorderLayout());
+        topo.add(filtros, BorderLayout.NORTH);
+        topo.add(lblTotais, BorderLayout.SOUTH);
+
+        JTabbedPane abas = new JTabbedPane();
+        if (medicoId == null) {
+            abas.addTab("Por médico", new JScrollPane(new JTable(modeloMedicos)));
+        }
+        abas.addTab("Por mês", new JScrollPane(new JTable(modeloMeses)));
+        abas.addTab("Por dia da semana", new JScrollPane(new JTable(modeloDiasSemana)));
+        abas.addTab("Por horário", new JScrollPane(new JTable(modeloHorarios)));
+
+        add(topo, BorderLayout.NORTH);
+        add(abas, BorderLayout.CENTER);
+        atualizar();
+    }
+
+    /**
+     * Abre o painel de resumo em uma janela modal.
+     *
+     * @param pai componente pai da janela
+     * @param medicoId médico ao qual o resumo é restrito, ou {@code null}
+     * para todos os médicos
+     */
+    public static void abrir(Component pai, Integer medicoId) {
+        JDialog dialogo = new JDialog(SwingUtilities.getWindowAncestor(pai), "Resumo gerencial",
+                JDialog.DEFAULT_MODALITY_TYPE);
+        dialogo.setContentPane(new PainelResumo(medicoId));
+        dialogo.setSize(720, 480);
+        dialogo.setLocationRelativeTo(pai);
+        dialogo.setVisible(true);
+    }
+
+    /**
+     * Recalcula o resumo para o período informado nos campos.
+     */
+    private void atualizar() {
+        try {
+            LocalDate inicio = LocalDate.parse(txtInicio.getText().trim(), FMT_DATA);
+            LocalDate fim = LocalDate.parse(txtFim.getText().trim(), FMT_DATA);
+
+            ResumoConsultas geral = service.resumoGeral(inicio, fim, medicoId);
+            lblTotais.setText(String.format(
+                    "Total: %d   Agendadas: %d   Realizadas: %d   Canceladas: %d   Cancelamento: %.1f%%",
+                    geral.getTotal(), geral.getAgendadas(), geral.getRealizadas(),
+                    geral.getCanceladas(), geral.getTaxaCancelamento() * 100));
+
+            if (medicoId == null) {
+                preencher(modeloMedicos, service.resumoPorMedico(inicio, fim, null));
+            }
+            preencher(modeloMeses, service.resumoPorMes(inicio, fim, medicoId));
+            atualizarDistribuicao(inicio, fim);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao gerar resumo: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Recalcula em segundo plano as abas por dia da semana e por horário. Elas
+     * usam a cópia em memória das consultas, cuja primeira carga pode levar
+     * alguns segundos.
+     */
+    private void atualizarDistribuicao(LocalDate inicio, LocalDate fim) {
+        modeloDiasSemana.setRowCount(0);
+        modeloHorarios.setRowCount(0);
+        new SwingWorker<List<List<ResumoConsultas>>, Void>() {
+            @Override
+            protected List<List<ResumoConsultas>> doInBackground() {
+                return List.of(service.resumoPorDiaDaSemana(inicio, fim, medicoId),
+                        service.resumoPorHorario(inicio, fim, medicoId));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<List<ResumoConsultas>> resultado = get();
+                    preencher(modeloDiasSemana, resultado.get(0));
+                    preencher(modeloHorarios, resultado.get(1));
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(PainelResumo.this,
+                            "Erro ao gerar resumo: " + causa.getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private static void preencher(DefaultTableModel modelo, List<ResumoConsultas> linhas) {
+        modelo.setRowCount(0);
+        for (ResumoConsultas r : linhas) {
+            modelo.addRow(new Object[]{
+                r.getGrupo(),
+                r.getAgendadas(),
+                r.getRealizadas(),
+                r.getCanceladas(),
+                r.getTotal(),
+                String.format("%.1f", r.getTaxaCancelamento() * 100)
+            });
+        }
+    }
+
+    private static DefaultTableModel criarModelo() {
+        return new DefaultTableModel(COLUNAS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
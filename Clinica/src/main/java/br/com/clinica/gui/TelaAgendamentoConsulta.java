@@ -1,21 +1,27 @@
 package br.com.clinica.gui;
 
+import br.com.clinica.dao.ConflitoConcorrenciaException;
 import br.com.clinica.dao.ConsultaDAO;
 import br.com.clinica.model.Consulta;
 import br.com.clinica.model.Medico;
 import br.com.clinica.model.Paciente;
 import br.com.clinica.enums.StatusConsulta;
 import br.com.clinica.model.Usuario;
+import br.com.clinica.service.AquecimentoService;
+import br.com.clinica.service.ListaEsperaService;
+import br.com.clinica.service.PreCarregamentoService;
+import br.com.clinica.util.BarramentoAlteracoes;
 import br.com.clinica.util.UIStyle;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.Persistence;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Tela gráfica responsável pelo agendamento, edição, remoção e listagem de
@@ -35,7 +41,7 @@ import javax.swing.table.DefaultTableModel;
  *
  * @author Wesley
  */
-public class TelaAgendamentoConsulta extends javax.swing.JFrame {
+public class TelaAgendamentoConsulta extends javax.swing.JFrame implements Navegacao.Reutilizavel {
 
     /**
      * Usuário atualmente autenticado no sistema.
@@ -48,10 +54,47 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
     private Usuario usuarioLogado;
 
     /**
-     * Formatador de datas utilizado para exibir valores no padrão
-     * {@code dd/MM/yyyy} em componentes da interface.
+     * Serviço da lista de espera, criado sob demanda na primeira vez em que a
+     * tela precisa dele. Os pedidos ficam no índice compartilhado da estação,
+     * mantido em dia pelo barramento de alterações.
      */
-    private final DateTimeFormatter fmtData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private ListaEsperaService listaEsperaService;
+
+    /**
+     * Modelo da tabela de consultas. Guarda também a versão de cada consulta
+     * no momento em que foi exibida, usada para detectar edições concorrentes
+     * feitas por outras estações.
+     */
+    private final ModeloTabelaConsultas modeloConsultas = new ModeloTabelaConsultas();
+
+    /**
+     * Opções dos combos de paciente e médico, buscadas conforme o nome
+     * digitado.
+     */
+    private final ModeloComboBusca<Paciente> opcoesPacientes = ModeloComboBusca.pacientes();
+
+    private final ModeloComboBusca<Medico> opcoesMedicos = ModeloComboBusca.medicos();
+
+    /**
+     * Acompanhamento das consultas gravadas em outras telas desta estação,
+     * aplicadas diretamente na tabela.
+     */
+    private final BarramentoAlteracoes.Assinatura alteracoes;
+
+    /**
+     * Chave de idempotência do agendamento em preenchimento. Permanece a mesma
+     * enquanto o formulário salvo não muda, de modo que um novo clique em
+     * "Salvar" após uma falha não duplique a consulta; é renovada quando o
+     * formulário é alterado depois da tentativa, salvo com sucesso ou limpo
+     * (ver {@link #chaveAgendamento(Consulta)}).
+     */
+    private String chaveAgendamento;
+
+    /**
+     * Hash do conteúdo salvo com a {@link #chaveAgendamento} atual, ou
+     * {@code null} se a chave ainda não foi usada.
+     */
+    private String conteudoChaveAgendamento;
 
     /**
      * Constrói a tela de agendamento, aplicando estilos visuais, carregando
@@ -64,6 +107,9 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
     public TelaAgendamentoConsulta(Usuario usuarioLogado) {
         initComponents();
         this.usuarioLogado = usuarioLogado;
+        modeloConsultas.instalarEm(tblConsultas);
+        alteracoes = modeloConsultas.assinarAlteracoes(c -> txtBuscarConsulta.getText().trim().isEmpty()
+                && PreCarregamentoService.naJanela(c.getDataAgendada()));
 
         UIStyle.aplicarAzul(
                 lblTitulo,
@@ -83,8 +129,9 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
         borda.setTitleColor(UIStyle.AZUL);
 
         aplicarPermissoes();
-        carregarPacientes();
-        carregarMedicos();
+        configurarMenu();
+        opcoesPacientes.instalarEm(comboPaciente);
+        opcoesMedicos.instalarEm(comboMedico);
         atualizarTabela();
 
         /**
@@ -168,63 +215,78 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
     }
 
     /**
-     * Carrega todos os pacientes cadastrados no banco de dados e os insere no
-     * combobox de seleção.
-     *
-     * <p>
-     * A consulta é executada via JPA utilizando o persistence unit
-     * <code>clinicaPU</code>.
+     * Monta a barra de menus com as ações auxiliares da tela (reagendamento
+     * em lote e lista de espera). Disponível apenas para perfis que podem
+     * agendar consultas.
      */
-    private void carregarPacientes() {
-        EntityManager em = Persistence.createEntityManagerFactory("clinicaPU").createEntityManager();
-        List<Paciente> pacientes = em.createQuery("SELECT p FROM Paciente p", Paciente.class).getResultList();
-        em.close();
-
-        comboPaciente.removeAllItems();
-        for (Paciente p : pacientes) {
-            comboPaciente.addItem(p);
+    private void configurarMenu() {
+        String perfil = usuarioLogado.getPerfil().toUpperCase();
+        if (!"ADMIN".equals(perfil) && !"RECEP".equals(perfil)) {
+            return;
         }
+
+        JMenu menuListaEspera = new JMenu("Lista de Espera");
+        JMenuItem itemAdicionar = new JMenuItem("Adicionar paciente selecionado...");
+        itemAdicionar.addActionListener(e -> DialogoEncaixe.adicionarNaLista(this,
+                listaEspera(),
+                (Paciente) comboPaciente.getSelectedItem(),
+                (Medico) comboMedico.getSelectedItem()));
+        menuListaEspera.add(itemAdicionar);
+
+        JMenu menuAgenda = new JMenu("Agenda");
+        JMenuItem itemReagendar = new JMenuItem("Reagendar agenda do médico selecionado...");
+        itemReagendar.addActionListener(e -> DialogoReagendamento.abrir(this, (Medico) comboMedico.getSelectedItem()));
+        menuAgenda.add(itemReagendar);
+        JMenuItem itemExportarAgendas = new JMenuItem("Exportar agendas dos médicos (.ics)...");
+        itemExportarAgendas.addActionListener(e -> DialogoExportacao.exportarAgendas(this));
+        menuAgenda.add(itemExportarAgendas);
+
+        JMenuBar barra = new JMenuBar();
+        barra.add(menuAgenda);
+        barra.add(menuListaEspera);
+        setJMenuBar(barra);
+        pack();
+        setLocationRelativeTo(null);
     }
 
     /**
-     * Carrega todos os médicos cadastrados no banco de dados e os adiciona ao
-     * combobox de seleção.
+     * Retorna o serviço da lista de espera, criando-o na primeira chamada.
+     *
+     * @return serviço da lista de espera
      */
-    private void carregarMedicos() {
-        EntityManager em = Persistence.createEntityManagerFactory("clinicaPU").createEntityManager();
-        List<Medico> medicos = em.createQuery("SELECT m FROM Medico m", Medico.class).getResultList();
-        em.close();
-
-        comboMedico.removeAllItems();
-        for (Medico m : medicos) {
-            comboMedico.addItem(m);
+    private ListaEsperaService listaEspera() {
+        if (listaEsperaService == null) {
+            listaEsperaService = new ListaEsperaService();
         }
+        return listaEsperaService;
     }
 
     /**
-     * Atualiza a tabela de consultas exibida na interface, preenchendo todas as
-     * colunas com os dados fornecidos pelo {@link ConsultaDAO}.
+     * Atualiza a tabela de consultas exibida na interface com a agenda em
+     * torno do dia atual ({@link PreCarregamentoService#agenda()}), já
+     * pré-carregada após o login quando possível. Consultas de outras datas
+     * são encontradas pela busca.
      *
      * <p>
      * Remove todas as linhas existentes e popula novamente a tabela.
      */
     private void atualizarTabela() {
-        ConsultaDAO dao = new ConsultaDAO();
-        List<Consulta> lista = dao.listarTodos();
-
-        DefaultTableModel modelo = (DefaultTableModel) tblConsultas.getModel();
-        modelo.setRowCount(0);
-
-        for (Consulta c : lista) {
-            modelo.addRow(new Object[]{
-                c.getId(),
-                c.getPaciente().getNome(),
-                c.getMedico().getNome(),
-                c.getDataAgendada() != null ? c.getDataAgendada().format(fmtData) : "",
-                c.getHoraAgendada(),
-                c.getStatus()
-            });
-        }
+        List<Consulta> lista = PreCarregamentoService.agenda();
+
+        modeloConsultas.preencher(lista);
+        AquecimentoService.registrarPrimeiraTabela();
+        exibirPeriodo();
+    }
+
+    /**
+     * Mostra no título do painel o período da agenda exibida.
+     */
+    private void exibirPeriodo() {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM");
+        ((TitledBorder) pnlConsultas.getBorder()).setTitle("Consultas de "
+                + PreCarregamentoService.inicioJanela().format(fmt) + " a "
+                + PreCarregamentoService.fimJanela().format(fmt));
+        pnlConsultas.repaint();
     }
 
     /**
@@ -232,8 +294,9 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
      * informado pelo usuário.
      *
      * <p>
-     * Se o campo estiver vazio, todas as consultas são exibidas. Do contrário,
-     * a busca é delegada ao método {@link ConsultaDAO#buscarConsulta(String)}.
+     * Se o campo estiver vazio, a agenda em torno do dia atual é exibida. Do
+     * contrário, a busca é delegada ao método
+     * {@link ConsultaDAO#buscarConsulta(String)}.
      *
      * @param termo Texto digitado pelo usuário para filtragem de consultas.
      */
@@ -243,24 +306,39 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
         String perfil = usuarioLogado.getPerfil().trim().toUpperCase(); 
 
         if (termo.isEmpty()) {
-            lista = dao.listarTodos();
+            lista = dao.listarPorPeriodo(PreCarregamentoService.inicioJanela(), PreCarregamentoService.fimJanela());
         } else {
             lista = dao.buscarConsulta(termo, usuarioLogado, perfil);
         }
 
-        DefaultTableModel modelo = (DefaultTableModel) tblConsultas.getModel();
-        modelo.setRowCount(0);
-
-        for (Consulta c : lista) {
-            modelo.addRow(new Object[]{
-                c.getId(),
-                c.getPaciente() != null ? c.getPaciente().getNome() : "",
-                c.getMedico() != null ? c.getMedico().getNome() : "",
-                c.getDataAgendada() != null ? c.getDataAgendada().format(fmtData) : "",
-                c.getHoraAgendada() != null ? c.getHoraAgendada().toString() : "",
-                c.getStatus() != null ? c.getStatus().name() : ""
-            });
-        }
+        modeloConsultas.preencher(lista);
+    }
+
+    /**
+     * Deixa de acompanhar as alterações feitas em outras telas e fecha a
+     * janela.
+     */
+    @Override
+    public void dispose() {
+        alteracoes.cancelar();
+        super.dispose();
+    }
+
+    /**
+     * Suspende a atualização da tabela enquanto a tela está oculta.
+     */
+    @Override
+    public void aoOcultar() {
+        alteracoes.suspender();
+    }
+
+    /**
+     * Aplica de uma só vez as alterações feitas enquanto a tela estava
+     * oculta.
+     */
+    @Override
+    public void aoReexibir() {
+        alteracoes.retomar();
     }
 
     /**
@@ -489,6 +567,20 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
         setLocationRelativeTo(null);
     }// </editor-fold>//GEN-END:initComponents
 
+    /**
+     * Copia os valores digitados no formulário (paciente, médico, data, hora e
+     * status) para a consulta informada.
+     *
+     * @param c consulta que receberá os valores do formulário
+     */
+    private void preencherConsulta(Consulta c) {
+        c.setPaciente((Paciente) comboPaciente.getSelectedItem());
+        c.setMedico((Medico) comboMedico.getSelectedItem());
+        c.setDataAgendada(LocalDate.parse(txtData.getText(), DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        c.setHoraAgendada(LocalTime.parse(txtHora.getText(), DateTimeFormatter.ofPattern("HH:mm")));
+        c.setStatus(StatusConsulta.valueOf(comboStatus.getSelectedItem().toString().toUpperCase()));
+    }
+
     /**
      * Evento acionado ao clicar no botão "Remover".
      *
@@ -515,12 +607,12 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
                 "Confirmação", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            int id = (int) tblConsultas.getValueAt(linha, 0);
+            int id = modeloConsultas.getId(linha);
             ConsultaDAO dao = new ConsultaDAO();
             dao.deletar(id);
+            modeloConsultas.remover(id);
 
             JOptionPane.showMessageDialog(this, "Consulta removida com sucesso!");
-            atualizarTabela();
         }
     }//GEN-LAST:event_btnRemoverActionPerformed
 
@@ -555,23 +647,36 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
             }
 
             Consulta c = new Consulta();
-            c.setPaciente((Paciente) comboPaciente.getSelectedItem());
-            c.setMedico((Medico) comboMedico.getSelectedItem());
-            c.setDataAgendada(LocalDate.parse(txtData.getText(), DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-            c.setHoraAgendada(LocalTime.parse(txtHora.getText(), DateTimeFormatter.ofPattern("HH:mm")));
-            c.setStatus(StatusConsulta.valueOf(comboStatus.getSelectedItem().toString().toUpperCase()));
+            preencherConsulta(c);
 
             ConsultaDAO dao = new ConsultaDAO();
-            dao.inserir(c);
+            modeloConsultas.atualizar(dao.inserir(c, chaveAgendamento(c)));
 
             JOptionPane.showMessageDialog(this, "Consulta salva com sucesso!");
-            atualizarTabela();
             btnLimparActionPerformed(evt);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Erro ao salvar consulta: " + e.getMessage());
         }
     }//GEN-LAST:event_btnSalvarActionPerformed
 
+    /**
+     * Retorna a chave de idempotência para salvar a consulta preenchida. Se o
+     * formulário for o mesmo da última tentativa (repetição após uma falha),
+     * a chave é a mesma; se foi alterado, a tentativa é outra requisição e
+     * recebe uma chave nova.
+     *
+     * @param c consulta preenchida com os dados do formulário
+     * @return chave de idempotência
+     */
+    private String chaveAgendamento(Consulta c) {
+        String conteudo = ConsultaDAO.hashConteudo(c);
+        if (chaveAgendamento == null || !conteudo.equals(conteudoChaveAgendamento)) {
+            chaveAgendamento = UUID.randomUUID().toString();
+            conteudoChaveAgendamento = conteudo;
+        }
+        return chaveAgendamento;
+    }
+
     /**
      * Limpa todos os campos de entrada da tela, incluindo os comboboxes, data,
      * hora, campo de busca e seleção da tabela.
@@ -580,6 +685,8 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
      */
 
     private void btnLimparActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnLimparActionPerformed
+        chaveAgendamento = null;
+        conteudoChaveAgendamento = null;
         txtData.setText("");
         txtHora.setText("");
         txtBuscarConsulta.setText("");
@@ -593,8 +700,10 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
      * Evento acionado ao clicar no botão "Editar".
      *
      * <p>
-     * Valida os campos obrigatórios, carrega a consulta selecionada na tabela e
-     * atualiza seus dados antes de enviá-los ao {@link ConsultaDAO}.
+     * Valida os campos obrigatórios e grava os dados do formulário sobre a
+     * consulta selecionada, a partir da versão exibida na tabela. Só a linha
+     * da consulta é atualizada na tabela; não há nova leitura da consulta nem
+     * recarga da listagem.
      *
      * @param evt Evento do botão.
      */
@@ -623,20 +732,39 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
         }
 
         try {
-            int id = (Integer) tblConsultas.getValueAt(linha, 0);
+            int id = modeloConsultas.getId(linha);
             ConsultaDAO dao = new ConsultaDAO();
-            Consulta c = dao.buscarPorId(id);
-
-            c.setPaciente((Paciente) comboPaciente.getSelectedItem());
-            c.setMedico((Medico) comboMedico.getSelectedItem());
-            c.setDataAgendada(LocalDate.parse(txtData.getText(), DateTimeFormatter.ofPattern("dd/MM/yyyy")));
-            c.setHoraAgendada(LocalTime.parse(txtHora.getText(), DateTimeFormatter.ofPattern("HH:mm")));
-            c.setStatus(StatusConsulta.valueOf(comboStatus.getSelectedItem().toString().toUpperCase()));
-
-            dao.atualizar(c);
+            Consulta c = new Consulta();
+            c.setId(id);
+            c.setVersao(modeloConsultas.getVersao(linha));
+            StatusConsulta statusAnterior = modeloConsultas.getStatus(linha);
+            preencherConsulta(c);
+
+            while (true) {
+                try {
+                    c = dao.atualizar(c, ConsultaDAO.chaveAlteracao(c));
+                    break;
+                } catch (ConflitoConcorrenciaException conflito) {
+                    Consulta atual = conflito.getRegistroAtual(Consulta.class);
+                    if (DialogoConflito.perguntar(this, conflito) != DialogoConflito.SOBRESCREVER) {
+                        if (atual != null) {
+                            modeloConsultas.atualizar(atual);
+                        } else {
+                            modeloConsultas.remover(id);
+                        }
+                        return;
+                    }
+                    c = atual;
+                    statusAnterior = c.getStatus();
+                    preencherConsulta(c);
+                }
+            }
 
+            modeloConsultas.atualizar(c);
             JOptionPane.showMessageDialog(this, "Consulta atualizada com sucesso!");
-            atualizarTabela();
+            if (c.getStatus() == StatusConsulta.CANCELADA && statusAnterior != StatusConsulta.CANCELADA) {
+                DialogoEncaixe.oferecerEncaixes(this, listaEspera(), List.of(c));
+            }
             btnLimparActionPerformed(evt);
 
         } catch (Exception e) {
@@ -648,15 +776,15 @@ public class TelaAgendamentoConsulta extends javax.swing.JFrame {
     }//GEN-LAST:event_btnEditarActionPerformed
 
     /**
-     * Retorna ao menu principal, fechando a tela atual e abrindo a tela
-     * {@link TelaMenuPrincipal}.
+     * Retorna ao menu principal, ocultando a tela atual e exibindo a tela
+     * {@link TelaMenuPrincipal}. A tela é reaproveitada na próxima abertura
+     * ({@link Navegacao}).
      *
      * @param evt Evento do botão.
      */
 
     private void btnVoltarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnVoltarActionPerformed
-        this.dispose();
-        new TelaMenuPrincipal(usuarioLogado).setVisible(true);
+        Navegacao.exibir(this, usuarioLogado, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
     }//GEN-LAST:event_btnVoltarActionPerformed
 
     /**
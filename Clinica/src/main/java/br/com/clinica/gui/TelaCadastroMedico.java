@@ -1,13 +1,15 @@
 package br.com.clinica.gui;
 
+import br.com.clinica.dao.ConflitoConcorrenciaException;
 import br.com.clinica.dao.MedicoDAO;
 import br.com.clinica.model.Medico;
 import br.com.clinica.model.Usuario;
+import br.com.clinica.service.AquecimentoService;
+import br.com.clinica.util.BarramentoAlteracoes;
 import br.com.clinica.util.UIStyle;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Tela de cadastro de médicos.
@@ -23,7 +25,7 @@ import javax.swing.table.DefaultTableModel;
  *
  * @author Wesley
  */
-public class TelaCadastroMedico extends javax.swing.JFrame {
+public class TelaCadastroMedico extends javax.swing.JFrame implements Navegacao.Reutilizavel {
 
     /**
      * Usuário atualmente autenticado no sistema.
@@ -34,6 +36,19 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
      */
     private Usuario usuarioLogado;
 
+    /**
+     * Modelo da tabela de médicos. Guarda também a versão de cada registro no
+     * momento em que foi exibido, usada para detectar edições concorrentes
+     * feitas por outras estações.
+     */
+    private final ModeloTabelaMedicos modeloMedicos = new ModeloTabelaMedicos();
+
+    /**
+     * Acompanhamento das alterações de médicos gravadas em outras telas desta estação,
+     * aplicadas diretamente na tabela.
+     */
+    private final BarramentoAlteracoes.Assinatura alteracoes;
+
     /**
      * Construtor da tela de cadastro de médicos.
      *
@@ -43,6 +58,8 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
     public TelaCadastroMedico(Usuario usuarioLogado) {
         initComponents();
         this.usuarioLogado = usuarioLogado;
+        tblPacientes.setModel(modeloMedicos);
+        alteracoes = modeloMedicos.assinarAlteracoes(m -> txtBuscarMedico.getText().trim().isEmpty());
 
         UIStyle.aplicarAzul(
                 lblTitulo,
@@ -142,17 +159,8 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
         MedicoDAO dao = new MedicoDAO();
         List<Medico> lista = dao.listarTodos();
 
-        DefaultTableModel modelo = (DefaultTableModel) tblPacientes.getModel();
-        modelo.setRowCount(0);
-
-        for (Medico m : lista) {
-            modelo.addRow(new Object[]{
-                m.getId(),
-                m.getNome(),
-                m.getEspecialidade(),
-                m.getCrm()
-            });
-        }
+        modeloMedicos.preencher(lista);
+        AquecimentoService.registrarPrimeiraTabela();
     }
 
     /**
@@ -170,17 +178,34 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
             lista = dao.buscarPorNomeOuCrm(termo);
         }
 
-        DefaultTableModel modelo = (DefaultTableModel) tblPacientes.getModel();
-        modelo.setRowCount(0);
+        modeloMedicos.preencher(lista);
+    }
 
-        for (Medico m : lista) {
-            modelo.addRow(new Object[]{
-                m.getId(),
-                m.getNome(),
-                m.getEspecialidade(),
-                m.getCrm()
-            });
-        }
+    /**
+     * Deixa de acompanhar as alterações feitas em outras telas e fecha a
+     * janela.
+     */
+    @Override
+    public void dispose() {
+        alteracoes.cancelar();
+        super.dispose();
+    }
+
+    /**
+     * Suspende a atualização da tabela enquanto a tela está oculta.
+     */
+    @Override
+    public void aoOcultar() {
+        alteracoes.suspender();
+    }
+
+    /**
+     * Aplica de uma só vez as alterações feitas enquanto a tela estava
+     * oculta.
+     */
+    @Override
+    public void aoReexibir() {
+        alteracoes.retomar();
     }
 
     /**
@@ -399,7 +424,7 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
             return;
         }
 
-        int id = (Integer) tblPacientes.getValueAt(linha, 0);
+        int id = modeloMedicos.getId(linha);
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Deseja realmente remover este médico?",
@@ -409,8 +434,8 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
         if (confirm == JOptionPane.YES_OPTION) {
             MedicoDAO dao = new MedicoDAO();
             dao.deletar(id);
+            modeloMedicos.remover(id);
             JOptionPane.showMessageDialog(this, "Médico removido com sucesso!");
-            atualizarTabela();
         }
     }//GEN-LAST:event_btnRemoverActionPerformed
 
@@ -436,10 +461,9 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
         MedicoDAO dao = new MedicoDAO();
         Medico medico = new Medico(nome, especialidade, crm);
 
-        dao.inserir(medico);
+        modeloMedicos.incluir(dao.inserir(medico));
         JOptionPane.showMessageDialog(this, "Médico cadastrado com sucesso!");
 
-        atualizarTabela();
         btnLimparActionPerformed(evt);
     }//GEN-LAST:event_btnSalvarActionPerformed
 
@@ -471,7 +495,7 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
             return;
         }
 
-        int id = (Integer) tblPacientes.getValueAt(linha, 0);
+        int id = modeloMedicos.getId(linha);
         String nome = txtNome.getText().trim();
         String especialidade = txtEspecialidade.getText().trim();
         String crm = txtCRM.getText().trim();
@@ -487,11 +511,31 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
         MedicoDAO dao = new MedicoDAO();
         Medico medico = new Medico(nome, especialidade, crm);
         medico.setId(id);
+        medico.setVersao(modeloMedicos.getVersao(linha));
 
-        dao.atualizar(medico);
+        while (true) {
+            try {
+                medico = dao.atualizar(medico);
+                break;
+            } catch (ConflitoConcorrenciaException conflito) {
+                Medico atual = conflito.getRegistroAtual(Medico.class);
+                if (DialogoConflito.perguntar(this, conflito) != DialogoConflito.SOBRESCREVER) {
+                    if (atual != null) {
+                        modeloMedicos.atualizar(atual);
+                        txtNome.setText(atual.getNome());
+                        txtEspecialidade.setText(atual.getEspecialidade());
+                        txtCRM.setText(atual.getCrm());
+                    } else {
+                        modeloMedicos.remover(id);
+                    }
+                    return;
+                }
+                medico.setVersao(atual.getVersao());
+            }
+        }
+        modeloMedicos.atualizar(medico);
         JOptionPane.showMessageDialog(this, "Médico atualizado com sucesso!");
 
-        atualizarTabela();
         btnLimparActionPerformed(evt);
     }//GEN-LAST:event_btnEditarActionPerformed
 
@@ -501,8 +545,7 @@ public class TelaCadastroMedico extends javax.swing.JFrame {
      * @param evt Evento de clique.
      */
     private void btnVoltarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnVoltarActionPerformed
-        new TelaMenuPrincipal(usuarioLogado).setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
     }//GEN-LAST:event_btnVoltarActionPerformed
 
     /**
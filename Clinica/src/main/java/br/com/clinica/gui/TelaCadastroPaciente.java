@@ -1,13 +1,15 @@
 package br.com.clinica.gui;
 
+import br.com.clinica.dao.ConflitoConcorrenciaException;
 import br.com.clinica.dao.PacienteDAO;
 import br.com.clinica.model.Paciente;
 import br.com.clinica.model.Usuario;
+import br.com.clinica.service.AquecimentoService;
+import br.com.clinica.util.BarramentoAlteracoes;
 import br.com.clinica.util.UIStyle;
 import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Tela de cadastro e gerenciamento de pacientes do sistema de clínicas.
@@ -32,7 +34,7 @@ import javax.swing.table.DefaultTableModel;
  *
  * @author Wesley
  */
-public class TelaCadastroPaciente extends javax.swing.JFrame {
+public class TelaCadastroPaciente extends javax.swing.JFrame implements Navegacao.Reutilizavel {
 
     /**
      * Usuário atualmente autenticado no sistema.
@@ -43,6 +45,19 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
      */
     private Usuario usuarioLogado;
 
+    /**
+     * Modelo da tabela de pacientes. Guarda também a versão de cada registro no
+     * momento em que foi exibido, usada para detectar edições concorrentes
+     * feitas por outras estações.
+     */
+    private final ModeloTabelaPacientes modeloPacientes = new ModeloTabelaPacientes();
+
+    /**
+     * Acompanhamento das alterações de pacientes gravadas em outras telas desta estação,
+     * aplicadas diretamente na tabela.
+     */
+    private final BarramentoAlteracoes.Assinatura alteracoes;
+
     /**
      * Construtor da tela de cadastro de pacientes.
      *
@@ -52,6 +67,8 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
     public TelaCadastroPaciente(Usuario usuarioLogado) {
         initComponents();
         this.usuarioLogado = usuarioLogado;
+        tblPacientes.setModel(modeloPacientes);
+        alteracoes = modeloPacientes.assinarAlteracoes(p -> txtBuscarPaciente.getText().trim().isEmpty());
 
         UIStyle.aplicarAzul(
                 lblTitulo,
@@ -132,17 +149,7 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
             lista = dao.buscarPorNomeOuCpf(termo);
         }
 
-        DefaultTableModel modelo = (DefaultTableModel) tblPacientes.getModel();
-        modelo.setRowCount(0);
-
-        for (Paciente p : lista) {
-            modelo.addRow(new Object[]{
-                p.getId(),
-                p.getNome(),
-                p.getCpf(),
-                p.getTelefone()
-            });
-        }
+        modeloPacientes.preencher(lista);
     }
 
     /**
@@ -184,17 +191,35 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
         PacienteDAO dao = new PacienteDAO();
         List<Paciente> lista = dao.listarTodos();
 
-        DefaultTableModel modelo = (DefaultTableModel) tblPacientes.getModel();
-        modelo.setRowCount(0);
+        modeloPacientes.preencher(lista);
+        AquecimentoService.registrarPrimeiraTabela();
+    }
 
-        for (Paciente p : lista) {
-            modelo.addRow(new Object[]{
-                p.getId(),
-                p.getNome(),
-                p.getCpf(),
-                p.getTelefone()
-            });
-        }
+    /**
+     * Deixa de acompanhar as alterações feitas em outras telas e fecha a
+     * janela.
+     */
+    @Override
+    public void dispose() {
+        alteracoes.cancelar();
+        super.dispose();
+    }
+
+    /**
+     * Suspende a atualização da tabela enquanto a tela está oculta.
+     */
+    @Override
+    public void aoOcultar() {
+        alteracoes.suspender();
+    }
+
+    /**
+     * Aplica de uma só vez as alterações feitas enquanto a tela estava
+     * oculta.
+     */
+    @Override
+    public void aoReexibir() {
+        alteracoes.retomar();
     }
 
     /**
@@ -414,7 +439,7 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
             return;
         }
 
-        int id = (Integer) tblPacientes.getValueAt(linha, 0);
+        int id = modeloPacientes.getId(linha);
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Deseja realmente remover este paciente?",
@@ -424,8 +449,8 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
         if (confirm == JOptionPane.YES_OPTION) {
             PacienteDAO dao = new PacienteDAO();
             dao.deletar(id);
+            modeloPacientes.remover(id);
             JOptionPane.showMessageDialog(this, "Paciente removido com sucesso!");
-            atualizarTabela();
         }
     }//GEN-LAST:event_btnRemoverActionPerformed
 
@@ -451,11 +476,10 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
         PacienteDAO dao = new PacienteDAO();
         Paciente paciente = new Paciente(nome, cpf, telefone);
 
-        dao.inserir(paciente);
+        modeloPacientes.incluir(dao.inserir(paciente));
 
         JOptionPane.showMessageDialog(this, "Paciente cadastrado com sucesso!");
 
-        atualizarTabela();
         btnLimparActionPerformed(evt);
     }//GEN-LAST:event_btnSalvarActionPerformed
 
@@ -487,7 +511,7 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
             return;
         }
 
-        int id = (Integer) tblPacientes.getValueAt(linha, 0);
+        int id = modeloPacientes.getId(linha);
         String nome = txtNome.getText().trim();
         String cpf = txtCPF.getText().trim();
         String telefone = txtTelefone.getText().trim();
@@ -504,11 +528,32 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
         Paciente paciente = new Paciente(nome, cpf, telefone);
 
         paciente.setId(id);
-        dao.atualizar(paciente);
+        paciente.setVersao(modeloPacientes.getVersao(linha));
 
+        while (true) {
+            try {
+                paciente = dao.atualizar(paciente);
+                break;
+            } catch (ConflitoConcorrenciaException conflito) {
+                Paciente atual = conflito.getRegistroAtual(Paciente.class);
+                if (DialogoConflito.perguntar(this, conflito) != DialogoConflito.SOBRESCREVER) {
+                    if (atual != null) {
+                        modeloPacientes.atualizar(atual);
+                        txtNome.setText(atual.getNome());
+                        txtCPF.setText(atual.getCpf());
+                        txtTelefone.setText(atual.getTelefone());
+                    } else {
+                        modeloPacientes.remover(id);
+                    }
+                    return;
+                }
+                paciente.setVersao(atual.getVersao());
+            }
+        }
+
+        modeloPacientes.atualizar(paciente);
         JOptionPane.showMessageDialog(this, "Paciente atualizado com sucesso!");
 
-        atualizarTabela();
         btnLimparActionPerformed(evt);
     }//GEN-LAST:event_btnEditarActionPerformed
 
@@ -518,8 +563,7 @@ public class TelaCadastroPaciente extends javax.swing.JFrame {
      * @param evt evento de clique.
      */
     private void btnVoltarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnVoltarActionPerformed
-        new TelaMenuPrincipal(usuarioLogado).setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
     }//GEN-LAST:event_btnVoltarActionPerformed
 
     /**
@@ -21,6 +21,12 @@ public class TelaLogin extends javax.swing.JFrame {
      * <p>
      * Inicializa os componentes, aplica o estilo visual padrão e configura os
      * botões com o tema definido na classe {@link UIStyle}.     
+     *
+     * <p>
+     * Inicia também, em segundo plano, o aquecimento do acesso a dados e o
+     * pré-carregamento dos médicos
+     * ({@link br.com.clinica.service.AquecimentoService}), para que o login e
+     * a primeira tela não esperem pela inicialização do Hibernate.
      */
     public TelaLogin() {
 
@@ -34,6 +40,8 @@ public class TelaLogin extends javax.swing.JFrame {
 
         UIStyle.primaryButton(btnEntrar);
         UIStyle.ghostButton(btnLimpar);
+
+        br.com.clinica.service.AquecimentoService.iniciar(ModeloComboBusca::precarregar);
     }
 
     /**
@@ -139,7 +147,11 @@ public class TelaLogin extends javax.swing.JFrame {
      * <p>
      * Valida os campos, autentica o usuário por meio de
      * {@link br.com.clinica.service.LoginService}, e redireciona para a tela
-     * principal conforme o perfil de acesso.     
+     * principal conforme o perfil de acesso. Após o login, passa a receber as
+     * alterações feitas nas outras estações
+     * ({@link br.com.clinica.service.SincronizacaoService}) e pré-carrega em
+     * segundo plano os dados que o perfil deve abrir primeiro
+     * ({@link br.com.clinica.service.PreCarregamentoService}).
      *
      * @param evt evento disparado pelo clique do botão
      */
@@ -159,6 +171,8 @@ public class TelaLogin extends javax.swing.JFrame {
         br.com.clinica.model.Usuario usuario = loginService.autenticar(login, senha);
 
         if (usuario != null) {
+            br.com.clinica.service.SincronizacaoService.iniciar();
+            br.com.clinica.service.PreCarregamentoService.iniciar(usuario, ModeloComboBusca::precarregar);
             javax.swing.JOptionPane.showMessageDialog(this,
                     "Login realizado com sucesso!",
                     "Bem-vindo",
@@ -166,19 +180,19 @@ public class TelaLogin extends javax.swing.JFrame {
 
             switch (usuario.getPerfil().toUpperCase()) {
                 case "ADMIN":
-                    new TelaMenuPrincipal(usuario).setVisible(true);
+                    Navegacao.exibir(null, usuario, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
                     javax.swing.JOptionPane.showMessageDialog(this,
                             "Você entrou como ADMIN.");
                     break;
 
                 case "MEDICO":
-                    new TelaMenuPrincipal(usuario).setVisible(true);
+                    Navegacao.exibir(null, usuario, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
                     javax.swing.JOptionPane.showMessageDialog(this,
                             "Você entrou como MÉDICO.");
                     break;
 
                 case "RECEP":
-                    new TelaMenuPrincipal(usuario).setVisible(true);
+                    Navegacao.exibir(null, usuario, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
                     javax.swing.JOptionPane.showMessageDialog(this,
                             "Você entrou como RECEPCIONISTA.");
                     break;
@@ -244,6 +258,7 @@ public class TelaLogin extends javax.swing.JFrame {
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
                 new TelaLogin().setVisible(true);
+                br.com.clinica.service.AquecimentoService.registrarJanelaLogin();
             }
         });
 
@@ -205,9 +205,7 @@ public class TelaMenuPrincipal extends javax.swing.JFrame {
      * @param evt evento do botão
      */
     private void btnCadastroPacientesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCadastroPacientesActionPerformed
-        TelaCadastroPaciente tela = new TelaCadastroPaciente(usuarioLogado);
-        tela.setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaCadastroPaciente.class, TelaCadastroPaciente::new);
     }//GEN-LAST:event_btnCadastroPacientesActionPerformed
 
     /**
@@ -216,9 +214,7 @@ public class TelaMenuPrincipal extends javax.swing.JFrame {
      * @param evt evento do botão
      */
     private void btnCadastroMedicosActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCadastroMedicosActionPerformed
-        TelaCadastroMedico tela = new TelaCadastroMedico(usuarioLogado);
-        tela.setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaCadastroMedico.class, TelaCadastroMedico::new);
     }//GEN-LAST:event_btnCadastroMedicosActionPerformed
 
     /**
@@ -227,9 +223,7 @@ public class TelaMenuPrincipal extends javax.swing.JFrame {
      * @param evt evento do botão
      */
     private void btnAgendarConsultaActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnAgendarConsultaActionPerformed
-        TelaAgendamentoConsulta tela = new TelaAgendamentoConsulta(usuarioLogado);
-        tela.setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaAgendamentoConsulta.class, TelaAgendamentoConsulta::new);
     }//GEN-LAST:event_btnAgendarConsultaActionPerformed
 
     /**
@@ -238,19 +232,17 @@ public class TelaMenuPrincipal extends javax.swing.JFrame {
      * @param evt evento do botão
      */
     private void btnRelatoriosActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRelatoriosActionPerformed
-        TelaRelatorios tela = new TelaRelatorios(usuarioLogado);
-        tela.setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaRelatorios.class, TelaRelatorios::new);
     }//GEN-LAST:event_btnRelatoriosActionPerformed
 
     /**
-     * Retorna à tela de login.
+     * Retorna à tela de login, descartando as telas da sessão.
      *
      * @param evt evento do botão
      */
     private void btnSairActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnSairActionPerformed
-        this.dispose();
         new TelaLogin().setVisible(true);
+        Navegacao.encerrarSessao();
     }//GEN-LAST:event_btnSairActionPerformed
 
     /**
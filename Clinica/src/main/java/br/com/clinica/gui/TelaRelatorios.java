@@ -1,21 +1,31 @@
 package br.com.clinica.gui;
 
+import br.com.clinica.dao.ConflitoConcorrenciaException;
 import br.com.clinica.dao.ConsultaDAO;
-import br.com.clinica.dao.MedicoDAO;
-import br.com.clinica.dao.PacienteDAO;
 import br.com.clinica.enums.FiltroRelatorio;
 import br.com.clinica.model.Consulta;
 import br.com.clinica.model.Medico;
 import br.com.clinica.model.Paciente;
 import br.com.clinica.enums.StatusConsulta;
 import br.com.clinica.model.Usuario;
+import br.com.clinica.service.AquecimentoService;
+import br.com.clinica.service.ListaEsperaService;
+import br.com.clinica.service.PreCarregamentoService;
+import br.com.clinica.util.BarramentoAlteracoes;
+import br.com.clinica.util.DateTimeUtils;
+import br.com.clinica.util.Metricas;
 import br.com.clinica.util.UIStyle;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 
 /**
  * Tela responsável pela exibição, filtragem e manipulação de relatórios de
@@ -33,7 +43,9 @@ import javax.swing.table.DefaultTableModel;
  *
  * @author Wesley
  */
-public class TelaRelatorios extends javax.swing.JFrame {
+public class TelaRelatorios extends javax.swing.JFrame implements Navegacao.Reutilizavel {
+
+    private static final Logger LOG = Logger.getLogger(TelaRelatorios.class.getName());
 
     /**
      * Usuário atualmente autenticado no sistema.
@@ -50,6 +62,40 @@ public class TelaRelatorios extends javax.swing.JFrame {
      */
     private final DateTimeFormatter fmtData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    /**
+     * Modelo da tabela de consultas. Guarda também a versão de cada consulta
+     * no momento em que foi exibida, usada para detectar edições concorrentes
+     * feitas por outras estações.
+     */
+    private final ModeloTabelaConsultas modeloConsultas = new ModeloTabelaConsultas();
+
+    /**
+     * Acompanhamento das consultas gravadas em outras telas desta estação,
+     * aplicadas diretamente na tabela.
+     */
+    private final BarramentoAlteracoes.Assinatura alteracoes;
+
+    /**
+     * Indica se a tabela exibe a listagem padrão do perfil (e não o resultado
+     * de uma busca ou relatório), caso em que consultas incluídas em outras
+     * telas também entram na tabela.
+     */
+    private boolean listagemPadrao;
+
+    /**
+     * Ordenação e filtro das linhas exibidas. Clicar no cabeçalho ordena pela
+     * coluna; o filtro de texto refina em memória o resultado já carregado.
+     */
+    private final TableRowSorter<ModeloTabelaConsultas> ordenacao;
+
+    private final FiltroTextoConsultas filtroTexto;
+
+    /**
+     * Termo cujo resultado está carregado no modelo, ou {@code null} se a
+     * tabela não exibe o resultado de uma busca.
+     */
+    private String termoCarregado;
+
     /**
      * Cria a tela de relatórios e inicializa os componentes visuais, listeners,
      * regras de permissão e dados iniciais.
@@ -61,6 +107,12 @@ public class TelaRelatorios extends javax.swing.JFrame {
         this.usuarioLogado = usuarioLogado;
 
         initComponents();
+        modeloConsultas.instalarEm(tblRelatorios);
+        filtroTexto = new FiltroTextoConsultas(modeloConsultas);
+        ordenacao = new TableRowSorter<>(modeloConsultas);
+        ordenacao.setRowFilter(filtroTexto);
+        tblRelatorios.setRowSorter(ordenacao);
+        alteracoes = modeloConsultas.assinarAlteracoes(this::exibirNaListagem);
 
         UIStyle.aplicarAzul(
                 lblTitulo,
@@ -131,6 +183,50 @@ public class TelaRelatorios extends javax.swing.JFrame {
         aplicarPermissoes();
         carregarCombos();
         carregarConsultasIniciais();
+        configurarMenu();
+    }
+
+    /**
+     * Cria a barra de menus com a exportação e os relatórios gerenciais.
+     * <p>
+     * Médicos veem apenas o resumo da própria agenda; perfis sem acesso aos
+     * relatórios não recebem o menu.
+     */
+    private void configurarMenu() {
+        String perfil = perfilNormalizado();
+        if (!"ADMIN".equals(perfil) && !"RECEP".equals(perfil) && !"MEDICO".equals(perfil)) {
+            return;
+        }
+        Integer medicoId = "MEDICO".equals(perfil) ? usuarioLogado.getId() : null;
+
+        JMenu menuGerencial = new JMenu("Relatórios Gerenciais");
+        JMenuItem itemResumo = new JMenuItem("Resumo do período...");
+        itemResumo.addActionListener(e -> PainelResumo.abrir(this, medicoId));
+        menuGerencial.add(itemResumo);
+        JMenuItem itemFiltro = new JMenuItem("Filtro combinado...");
+        itemFiltro.addActionListener(e -> filtrarCombinado(medicoId));
+        menuGerencial.add(itemFiltro);
+        JMenuItem itemOcupacao = new JMenuItem("Ocupação por dia e horário...");
+        itemOcupacao.addActionListener(e -> PainelOcupacao.abrir(this, medicoId));
+        menuGerencial.add(itemOcupacao);
+        JMenuItem itemIndicadores = new JMenuItem("Cancelamentos e faltas...");
+        itemIndicadores.addActionListener(e -> PainelIndicadores.abrir(this, medicoId));
+        menuGerencial.add(itemIndicadores);
+
+        JMenu menuArquivo = new JMenu("Arquivo");
+        JMenuItem itemExportar = new JMenuItem("Exportar relatório em CSV...");
+        itemExportar.addActionListener(e -> exportarRelatorio());
+        menuArquivo.add(itemExportar);
+        JMenuItem itemPacote = new JMenuItem("Exportar pacote gerencial do mês...");
+        itemPacote.addActionListener(e -> DialogoExportacao.exportarPacote(this, medicoId));
+        menuArquivo.add(itemPacote);
+
+        JMenuBar barra = new JMenuBar();
+        barra.add(menuArquivo);
+        barra.add(menuGerencial);
+        setJMenuBar(barra);
+        pack();
+        setLocationRelativeTo(null);
     }
 
     /**
@@ -170,7 +266,6 @@ public class TelaRelatorios extends javax.swing.JFrame {
                 break;
             case "MEDICO":
                 btnRemover.setVisible(false);
-                carregarConsultasDoMedicoLogado();
                 break;
             default:
                 btnRemover.setVisible(false);
@@ -188,7 +283,9 @@ public class TelaRelatorios extends javax.swing.JFrame {
      * ADMIN e RECEP possuem acesso a todas as listas. MÉDICO não utiliza estes
      * filtros.
      *
-     * Em caso de falha, uma mensagem de aviso é exibida ao usuário.
+     * <p>
+     * As opções não são carregadas aqui: os combos buscam os registros
+     * conforme o nome digitado ({@link ModeloComboBusca}).
      */
     private void carregarCombos() {
         if (usuarioLogado == null) {
@@ -198,28 +295,8 @@ public class TelaRelatorios extends javax.swing.JFrame {
         String perfil = perfilNormalizado();
 
         if ("ADMIN".equals(perfil) || "RECEP".equals(perfil)) {
-            try {
-                PacienteDAO pacienteDAO = new PacienteDAO();
-                List<Paciente> pacientes = pacienteDAO.listarTodos();
-                comboPaciente.removeAllItems();
-                for (Paciente p : pacientes) {
-                    comboPaciente.addItem(p);
-                }
-                comboPaciente.setSelectedItem(null);
-
-                MedicoDAO medicoDAO = new MedicoDAO();
-                List<Medico> medicos = medicoDAO.listarTodos();
-                comboMedico.removeAllItems();
-                for (Medico m : medicos) {
-                    comboMedico.addItem(m);
-                }
-                comboMedico.setSelectedItem(null);
-
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this,
-                        "Falha ao carregar filtros de Paciente/Médico: " + e.getMessage(),
-                        "Aviso", JOptionPane.WARNING_MESSAGE);
-            }
+            ModeloComboBusca.pacientes().instalarEm(comboPaciente);
+            ModeloComboBusca.medicos().instalarEm(comboMedico);
         } else {
             comboPaciente.removeAllItems();
             comboMedico.removeAllItems();
@@ -233,51 +310,108 @@ public class TelaRelatorios extends javax.swing.JFrame {
      * <p>
      * Se o campo estiver vazio, recarrega a listagem padrão de consultas
      * conforme o perfil do usuário. Caso contrário, usa o método
-     * {@link ConsultaDAO#buscarConsulta(String)}.
+     * {@link ConsultaDAO#buscarConsulta(String, Usuario, String)}.
+     *
+     * <p>
+     * Quando o novo termo contém o termo já buscado (o usuário continuou
+     * digitando), o resultado só pode diminuir: as linhas carregadas são
+     * filtradas em memória por {@link FiltroTextoConsultas}, sem ir ao banco.
+     * Termos que formam uma data ou um horário sempre vão ao banco, pois a
+     * busca por data e hora não é um refinamento textual. Os contadores
+     * {@code relatorio.busca.memoria} e {@code relatorio.busca.banco} contam
+     * cada caso, e os temporizadores de mesmo nome medem o tempo gasto; o log
+     * em nível {@code FINE} mostra, a cada busca, a fração atendida em
+     * memória.
      */
     private void buscarRelatorios() {
         String termo = txtBuscar.getText().trim();
-        ConsultaDAO dao = new ConsultaDAO();
-        List<Consulta> consultas;
+        long t0 = System.nanoTime();
 
         if (termo.isEmpty()) {
             carregarConsultasIniciais();
             return;
         }
 
-        consultas = dao.buscarConsulta(termo, usuarioLogado, perfilNormalizado());
-        preencherTabela(consultas);
+        if (termoCarregado != null
+                && FiltroTextoConsultas.normalizar(termo).contains(FiltroTextoConsultas.normalizar(termoCarregado))
+                && DateTimeUtils.tryParseDate(termo) == null
+                && DateTimeUtils.tryParseTime(termo) == null) {
+            filtroTexto.setTermo(termo);
+            ordenacao.sort();
+            registrarBusca("relatorio.busca.memoria", termo, System.nanoTime() - t0);
+            return;
+        }
+
+        ConsultaDAO dao = new ConsultaDAO();
+        preencherTabela(dao.buscarConsulta(termo, usuarioLogado, perfilNormalizado()));
+        termoCarregado = termo;
+        registrarBusca("relatorio.busca.banco", termo, System.nanoTime() - t0);
+    }
+
+    /**
+     * Conta e mede uma busca atendida em memória ou pelo banco e registra no
+     * log a fração acumulada das que dispensaram o banco.
+     */
+    private void registrarBusca(String metrica, String termo, long nanos) {
+        Metricas.incrementar(metrica);
+        Metricas.registrarTempo(metrica, nanos);
+        if (LOG.isLoggable(Level.FINE)) {
+            long memoria = Metricas.contador("relatorio.busca.memoria");
+            long total = memoria + Metricas.contador("relatorio.busca.banco");
+            LOG.fine(String.format("Busca \"%s\" (%s) em %.1f ms; %d de %d buscas atendidas em memória (%.0f%%)",
+                    termo, metrica.substring(metrica.lastIndexOf('.') + 1), nanos / 1_000_000.0,
+                    memoria, total, 100.0 * memoria / total));
+        }
     }
 
     /**
      * Carrega as consultas iniciais exibidas ao abrir a tela.
      *
      * <p>
-     * Para médicos, carrega apenas consultas do médico logado. Para outros
-     * perfis, carrega todas as consultas.
+     * A listagem inicial é a agenda em torno do dia atual
+     * ({@link PreCarregamentoService#agenda()}); consultas de outras datas são
+     * encontradas pela busca e pelos relatórios. Para médicos, carrega apenas
+     * consultas do médico logado. Para outros perfis, as de todos os médicos.
      */
     private void carregarConsultasIniciais() {
         if (usuarioLogado != null && "MEDICO".equals(perfilNormalizado())) {
             carregarConsultasDoMedicoLogado();
         } else {
-            carregarTodasConsultas();
+            carregarAgenda();
         }
+        listagemPadrao = true;
+        AquecimentoService.registrarPrimeiraTabela();
     }
 
     /**
-     * Carrega todas as consultas cadastradas e preenche a tabela com elas.
+     * Indica se uma consulta incluída em outra tela deve entrar na tabela:
+     * apenas na listagem padrão, se a data estiver no período da agenda e,
+     * para médicos, se a consulta for sua.
+     *
+     * @param c consulta incluída
+     * @return {@code true} se a consulta deve ser exibida
      */
-    private void carregarTodasConsultas() {
-        ConsultaDAO dao = new ConsultaDAO();
-        preencherTabela(dao.listarTodos());
+    private boolean exibirNaListagem(Consulta c) {
+        if (!listagemPadrao || !PreCarregamentoService.naJanela(c.getDataAgendada())) {
+            return false;
+        }
+        return !"MEDICO".equals(perfilNormalizado())
+                || (c.getMedico() != null && c.getMedico().getId() == usuarioLogado.getId());
     }
 
     /**
-     * Carrega e exibe apenas as consultas pertencentes ao médico logado.
+     * Carrega as consultas da agenda de todos os médicos e preenche a tabela
+     * com elas.
+     */
+    private void carregarAgenda() {
+        preencherTabela(PreCarregamentoService.agenda());
+    }
+
+    /**
+     * Carrega e exibe apenas as consultas da agenda do médico logado.
      */
     private void carregarConsultasDoMedicoLogado() {
-        ConsultaDAO dao = new ConsultaDAO();
-        preencherTabela(dao.listarPorMedico(usuarioLogado.getId()));
+        preencherTabela(PreCarregamentoService.agendaDoMedico(usuarioLogado.getId()));
     }
 
     /**
@@ -311,6 +445,40 @@ public class TelaRelatorios extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * Exporta para CSV o relatório do filtro selecionado, lido do banco em
+     * fluxo, sem carregar as consultas na tabela.
+     */
+    private void exportarRelatorio() {
+        try {
+            FiltroRelatorio filtro = identificarFiltroSelecionado();
+            Object valor = obterValorSelecionado(filtro);
+            DialogoExportacao.exportar(this, filtro, usuarioLogado, perfilNormalizado(), valor);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao exportar relatório: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Exibe na tabela as consultas escolhidas no filtro combinado
+     * ({@link DialogoFiltroCombinado}).
+     *
+     * @param medicoId médico ao qual a seleção é restrita, ou {@code null}
+     */
+    private void filtrarCombinado(Integer medicoId) {
+        DialogoFiltroCombinado.abrir(this, medicoId, ids -> {
+            try {
+                preencherTabela(new ConsultaDAO().listarPorIds(ids));
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(this,
+                        "Erro ao gerar relatório: " + e.getMessage(),
+                        "Erro", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
     private FiltroRelatorio identificarFiltroSelecionado() {
         if (rdbPaciente.isSelected()) {
             return FiltroRelatorio.PACIENTE;
@@ -351,18 +519,37 @@ public class TelaRelatorios extends javax.swing.JFrame {
      * @param consultas lista de consultas que será exibida na tabela
      */
     private void preencherTabela(List<Consulta> consultas) {
-        DefaultTableModel model = (DefaultTableModel) tblRelatorios.getModel();
-        model.setRowCount(0);
-        for (Consulta c : consultas) {
-            model.addRow(new Object[]{
-                c.getId(),
-                c.getPaciente() != null ? c.getPaciente().getNome() : "",
-                c.getMedico() != null ? c.getMedico().getNome() : "",
-                c.getDataAgendada() != null ? c.getDataAgendada().format(fmtData) : "",
-                c.getHoraAgendada() != null ? c.getHoraAgendada().toString() : "",
-                c.getStatus() != null ? c.getStatus().name() : ""
-            });
-        }
+        listagemPadrao = false;
+        termoCarregado = null;
+        filtroTexto.setTermo(null);
+        modeloConsultas.preencher(consultas);
+    }
+
+    /**
+     * Deixa de acompanhar as alterações feitas em outras telas e fecha a
+     * janela.
+     */
+    @Override
+    public void dispose() {
+        alteracoes.cancelar();
+        super.dispose();
+    }
+
+    /**
+     * Suspende a atualização da tabela enquanto a tela está oculta.
+     */
+    @Override
+    public void aoOcultar() {
+        alteracoes.suspender();
+    }
+
+    /**
+     * Aplica de uma só vez as alterações feitas enquanto a tela estava
+     * oculta.
+     */
+    @Override
+    public void aoReexibir() {
+        alteracoes.retomar();
     }
 
     /**
@@ -613,8 +800,8 @@ public class TelaRelatorios extends javax.swing.JFrame {
      * @param evt evento do botão
      */
     private void btnRemoverActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRemoverActionPerformed
-        int linha = tblRelatorios.getSelectedRow();
-        if (linha == -1) {
+        int selecionada = tblRelatorios.getSelectedRow();
+        if (selecionada == -1) {
             JOptionPane.showMessageDialog(this,
                     "Selecione uma consulta para remover.",
                     "Aviso", JOptionPane.WARNING_MESSAGE);
@@ -626,11 +813,11 @@ public class TelaRelatorios extends javax.swing.JFrame {
                 "Confirmação", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            int id = (Integer) tblRelatorios.getValueAt(linha, 0);
+            int id = modeloConsultas.getId(tblRelatorios.convertRowIndexToModel(selecionada));
             ConsultaDAO dao = new ConsultaDAO();
             dao.deletar(id);
+            modeloConsultas.remover(id);
             JOptionPane.showMessageDialog(this, "Consulta removida com sucesso!");
-            carregarConsultasIniciais();
         }
     }//GEN-LAST:event_btnRemoverActionPerformed
 
@@ -645,27 +832,32 @@ public class TelaRelatorios extends javax.swing.JFrame {
     }//GEN-LAST:event_btnGerarRelatorioActionPerformed
 
     /**
-     * Retorna ao menu principal, fechando a tela atual.
+     * Retorna ao menu principal, ocultando a tela atual, que é reaproveitada
+     * na próxima abertura ({@link Navegacao}).
      *
      * @param evt evento do botão
      */
     private void btnVoltarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnVoltarActionPerformed
-        new TelaMenuPrincipal(usuarioLogado).setVisible(true);
-        this.dispose();
+        Navegacao.exibir(this, usuarioLogado, TelaMenuPrincipal.class, TelaMenuPrincipal::new);
     }//GEN-LAST:event_btnVoltarActionPerformed
 
     /**
      * Manipula o evento de edição de status da consulta selecionada.
      *
      * <p>
-     * Atualiza o status no banco de dados e recarrega a tabela. Exibe mensagens
+     * Atualiza o status no banco de dados e a linha da consulta na tabela. Exibe mensagens
      * de aviso caso nenhum item ou status seja selecionado.
      *
+     * <p>
+     * Se outra estação alterou a consulta depois de exibida, o novo status é
+     * reaplicado sobre a versão atual; o usuário só é consultado quando o
+     * próprio status também foi alterado.
+     *
      * @param evt evento do botão
      */
     private void btnEditarStatusActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnEditarStatusActionPerformed
-        int linha = tblRelatorios.getSelectedRow();
-        if (linha == -1) {
+        int selecionada = tblRelatorios.getSelectedRow();
+        if (selecionada == -1) {
             JOptionPane.showMessageDialog(this,
                     "Selecione uma consulta para editar o status.",
                     "Aviso", JOptionPane.WARNING_MESSAGE);
@@ -679,17 +871,47 @@ public class TelaRelatorios extends javax.swing.JFrame {
             return;
         }
 
-        int id = (Integer) tblRelatorios.getValueAt(linha, 0);
+        int linha = tblRelatorios.convertRowIndexToModel(selecionada);
+        int id = modeloConsultas.getId(linha);
         StatusConsulta novoStatus = StatusConsulta.valueOf(
                 comboStatus.getSelectedItem().toString().toUpperCase());
 
+        // A gravação parte da linha exibida, com a versão lida; só um conflito
+        // (alteração ou remoção por outra estação) lê a consulta atual.
         ConsultaDAO dao = new ConsultaDAO();
-        Consulta c = dao.buscarPorId(id);
+        Consulta c = modeloConsultas.getConsulta(linha);
+        StatusConsulta statusAnterior = c.getStatus();
         c.setStatus(novoStatus);
-        dao.atualizar(c);
 
+        while (true) {
+            try {
+                c = dao.atualizar(c, ConsultaDAO.chaveAlteracao(c));
+                break;
+            } catch (ConflitoConcorrenciaException conflito) {
+                Consulta atual = conflito.getRegistroAtual(Consulta.class);
+                // Se o outro usuário não mexeu no status, apenas reaplica o
+                // novo status sobre a versão atual; caso contrário, pergunta.
+                boolean mesmoStatus = atual != null && atual.getStatus() == statusAnterior;
+                if (!mesmoStatus && DialogoConflito.perguntar(this, conflito) != DialogoConflito.SOBRESCREVER) {
+                    if (atual != null) {
+                        modeloConsultas.atualizar(atual);
+                    } else {
+                        modeloConsultas.remover(id);
+                    }
+                    return;
+                }
+                statusAnterior = atual.getStatus();
+                atual.setStatus(novoStatus);
+                c = atual;
+            }
+        }
+
+        modeloConsultas.atualizar(c);
         JOptionPane.showMessageDialog(this, "Status atualizado com sucesso!");
-        carregarConsultasIniciais();
+        if (novoStatus == StatusConsulta.CANCELADA && statusAnterior != StatusConsulta.CANCELADA
+                && !"MEDICO".equals(perfilNormalizado())) {
+            DialogoEncaixe.oferecerEncaixes(this, new ListaEsperaService(), List.of(c));
+        }
     }//GEN-LAST:event_btnEditarStatusActionPerformed
 
     /**
@@ -0,0 +1,109 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.dao.UsuarioDAO;
+import br.com.clinica.util.JPAUtil;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JFrame;
+import javax.swing.UIManager;
+
+/**
+ * Execução de treino usada na geração do arquivo de compartilhamento de
+ * classes (AppCDS) da aplicação.
+ * <p>
+ * Executada pelo perfil {@code cds} do Maven com
+ * {@code -XX:ArchiveClassesAtExit}: carrega as classes que a partida da
+ * aplicação usa (as da própria aplicação, o visual Nimbus do Swing, o
+ * Hibernate e o driver do MySQL) e termina, e a JVM grava essas classes já
+ * verificadas em {@code clinica.jsa}. O lançador ({@code clinica.sh} /
+ * {@code clinica.bat}) usa esse arquivo com {@code -XX:SharedArchiveFile},
+ * evitando ler e verificar as mesmas classes a cada partida.
+ *
+ * <p>
+ * Sem banco disponível, a inicialização do Hibernate falha depois de carregar
+ * a maior parte das suas classes; a falha é registrada e o treino continua.
+ * Sem monitor, a tela de login não é criada e apenas o visual é carregado.
+ */
+public final class TreinoCds {
+
+    private static final Logger LOG = Logger.getLogger(TreinoCds.class.getName());
+
+    private static final String PACOTE = "br/com/clinica/";
+
+    private TreinoCds() {
+    }
+
+    /**
+     * Executa o treino e encerra a JVM.
+     *
+     * @param args não utilizados
+     * @throws Exception se o visual ou a tela de login não puderem ser
+     * carregados
+     */
+    public static void main(String[] args) throws Exception {
+        int classes = carregarClassesDaAplicacao();
+
+        for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
+            if ("Nimbus".equals(info.getName())) {
+                UIManager.setLookAndFeel(info.getClassName());
+                break;
+            }
+        }
+        if (!GraphicsEnvironment.isHeadless()) {
+            EventQueue.invokeAndWait(() -> {
+                JFrame tela = new TelaLogin();
+                tela.pack();
+                tela.dispose();
+            });
+        }
+
+        try {
+            new UsuarioDAO().buscarPorLogin("");
+            JPAUtil.fechar();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Banco indisponível no treino; classes do Hibernate carregadas até a falha", e);
+        }
+
+        LOG.info(() -> "Treino concluído; " + classes + " classes da aplicação carregadas");
+        System.exit(0);
+    }
+
+    /**
+     * Carrega, sem inicializar, todas as classes da aplicação contidas no jar
+     * em execução.
+     *
+     * @return quantidade de classes carregadas
+     */
+    private static int carregarClassesDaAplicacao() throws IOException, URISyntaxException {
+        File origem = new File(TreinoCds.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (!origem.isFile()) {
+            return 0;
+        }
+        int carregadas = 0;
+        ClassLoader loader = TreinoCds.class.getClassLoader();
+        try (JarFile jar = new JarFile(origem)) {
+            Enumeration<JarEntry> entradas = jar.entries();
+            while (entradas.hasMoreElements()) {
+                String nome = entradas.nextElement().getName();
+                if (!nome.startsWith(PACOTE) || !nome.endsWith(".class") || nome.contains("module-info")) {
+                    continue;
+                }
+                try {
+                    Class.forName(nome.substring(0, nome.length() - 6).replace('/', '.'), false, loader);
+                    carregadas++;
+                } catch (ClassNotFoundException | LinkageError e) {
+                    LOG.log(Level.FINE, "Classe não carregada: " + nome, e);
+                }
+            }
+        }
+        return carregadas;
+    }
+}
@@ -2,6 +2,7 @@ package br.com.clinica.model;
 
 import br.com.clinica.enums.StatusConsulta;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import jakarta.persistence.*;
 
@@ -12,7 +13,8 @@ import jakarta.persistence.*;
  * {@link Paciente} e {@link Medico}. Mapeada para a tabela {@code consulta}. 
  */
 @Entity
-@Table(name = "consulta")
+@Table(name = "consulta",
+        indexes = @Index(name = "idx_consulta_data_medico_versao", columnList = "dataAgendada, medico_id, versao"))
 public class Consulta {
 
     /**
@@ -22,6 +24,16 @@ public class Consulta {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /**
+     * Versão do registro, usada pelo controle de concorrência otimista.
+     * <p>
+     * Incrementada pelo JPA a cada atualização; uma atualização feita a partir
+     * de uma versão desatualizada é rejeitada em vez de sobrescrever a
+     * alteração de outra estação.
+     */
+    @Version
+    private int versao;
+
     /**
      * Data em que a consulta está agendada.
      */
@@ -54,6 +66,23 @@ public class Consulta {
     @JoinColumn(name = "medico_id")
     private Medico medico;
 
+    /**
+     * Momento em que a consulta foi marcada, usado no cálculo da antecedência
+     * do agendamento. Nulo em consultas gravadas antes da criação do campo.
+     */
+    @Column(updatable = false)
+    private LocalDateTime criadaEm;
+
+    /**
+     * Registra o momento da marcação na primeira gravação.
+     */
+    @PrePersist
+    void registrarCriacao() {
+        if (criadaEm == null) {
+            criadaEm = LocalDateTime.now();
+        }
+    }
+
     /**
      * Marca a consulta como realizada.
      * <p>
@@ -113,6 +142,25 @@ public class Consulta {
         this.id = id;
     }
 
+    /**
+     * Retorna a versão da consulta usada no controle de concorrência.
+     *
+     * @return versão atual
+     */
+    public int getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão da consulta, normalmente a versão exibida ao usuário
+     * quando ele iniciou a edição.
+     *
+     * @param versao versão de referência
+     */
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
+
     /**
      * Retorna a data agendada da consulta.
      *
@@ -203,4 +251,23 @@ public class Consulta {
         this.medico = medico;
     }
 
+    /**
+     * Retorna o momento em que a consulta foi marcada.
+     *
+     * @return momento da marcação, ou {@code null} se não registrado
+     */
+    public LocalDateTime getCriadaEm() {
+        return criadaEm;
+    }
+
+    /**
+     * Define o momento em que a consulta foi marcada. Se não informado, é
+     * preenchido na primeira gravação.
+     *
+     * @param criadaEm momento da marcação
+     */
+    public void setCriadaEm(LocalDateTime criadaEm) {
+        this.criadaEm = criadaEm;
+    }
+
 }
@@ -0,0 +1,199 @@
+package br.com.clinica.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Uma linha dos indicadores de cancelamento e falta de um mês já encerrado,
+ * gravada para que o cálculo sobreviva ao fechamento da aplicação.
+ * <p>
+ * Cada cálculo de {@link br.com.clinica.service.IndicadoresService} gera uma
+ * linha por grupo (total, médico, especialidade, dia da semana e faixa de
+ * antecedência), todas com a assinatura das consultas do mês de que foram
+ * calculadas; se a assinatura atual for outra, as linhas são descartadas e
+ * recalculadas. Mapeada para a tabela {@code indicador_mensal}.
+ */
+@Entity
+@Table(name = "indicador_mensal",
+        uniqueConstraints = @UniqueConstraint(name = "uk_indicador_mensal",
+                columnNames = {"mes", "medicoId", "dimensao", "ordem"}))
+public class IndicadorMensal {
+
+    /**
+     * Identificador único da linha (chave primária).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * Mês dos indicadores, no formato {@code aaaa-mm}.
+     */
+    @Column(length = 7, nullable = false)
+    private String mes;
+
+    /**
+     * Médico ao qual o cálculo foi restrito, ou 0 para todos.
+     */
+    private int medicoId;
+
+    /**
+     * Assinatura das consultas do mês no momento do cálculo.
+     */
+    @Column(length = 60, nullable = false)
+    private String assinatura;
+
+    /**
+     * Agrupamento da linha ({@code GERAL}, {@code MEDICO},
+     * {@code ESPECIALIDADE}, {@code DIA_SEMANA} ou {@code ANTECEDENCIA}).
+     */
+    @Column(length = 15, nullable = false)
+    private String dimensao;
+
+    /**
+     * Posição da linha dentro do agrupamento.
+     */
+    private int ordem;
+
+    /**
+     * Nome do grupo exibido no relatório.
+     */
+    @Column(length = 100, nullable = false)
+    private String grupo;
+
+    /**
+     * Consultas do grupo no mês.
+     */
+    private long total;
+
+    /**
+     * Consultas canceladas do grupo.
+     */
+    private long canceladas;
+
+    /**
+     * Faltas do grupo: consultas passadas que continuaram agendadas.
+     */
+    private long faltas;
+
+    /**
+     * Construtor padrão (necessário para o JPA).
+     */
+    public IndicadorMensal() {
+    }
+
+    /**
+     * Cria uma linha de indicadores.
+     *
+     * @param mes mês, no formato {@code aaaa-mm}
+     * @param medicoId médico do cálculo, ou 0 para todos
+     * @param assinatura assinatura das consultas do mês
+     * @param dimensao agrupamento da linha
+     * @param ordem posição no agrupamento
+     * @param grupo nome do grupo
+     * @param total consultas do grupo
+     * @param canceladas consultas canceladas
+     * @param faltas faltas
+     */
+    public IndicadorMensal(String mes, int medicoId, String assinatura, String dimensao, int ordem,
+            String grupo, long total, long canceladas, long faltas) {
+        this.mes = mes;
+        this.medicoId = medicoId;
+        this.assinatura = assinatura;
+        this.dimensao = dimensao;
+        this.ordem = ordem;
+        this.grupo = grupo;
+        this.total = total;
+        this.canceladas = canceladas;
+        this.faltas = faltas;
+    }
+
+    /**
+     * Retorna o identificador da linha.
+     *
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Retorna o mês dos indicadores.
+     *
+     * @return mês no formato {@code aaaa-mm}
+     */
+    public String getMes() {
+        return mes;
+    }
+
+    /**
+     * Retorna o médico ao qual o cálculo foi restrito.
+     *
+     * @return id do médico, ou 0 para todos
+     */
+    public int getMedicoId() {
+        return medicoId;
+    }
+
+    /**
+     * Retorna a assinatura das consultas do mês no momento do cálculo.
+     *
+     * @return assinatura
+     */
+    public String getAssinatura() {
+        return assinatura;
+    }
+
+    /**
+     * Retorna o agrupamento da linha.
+     *
+     * @return dimensão
+     */
+    public String getDimensao() {
+        return dimensao;
+    }
+
+    /**
+     * Retorna a posição da linha no agrupamento.
+     *
+     * @return ordem
+     */
+    public int getOrdem() {
+        return ordem;
+    }
+
+    /**
+     * Retorna o nome do grupo.
+     *
+     * @return grupo
+     */
+    public String getGrupo() {
+        return grupo;
+    }
+
+    /**
+     * Retorna a quantidade de consultas do grupo.
+     *
+     * @return total
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Retorna a quantidade de consultas canceladas.
+     *
+     * @return canceladas
+     */
+    public long getCanceladas() {
+        return canceladas;
+    }
+
+    /**
+     * Retorna a quantidade de faltas.
+     *
+     * @return faltas
+     */
+    public long getFaltas() {
+        return faltas;
+    }
+}
@@ -0,0 +1,307 @@
+package br.com.clinica.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Entidade que representa um pedido de paciente na lista de espera.
+ * <p>
+ * O pedido pode ser feito para um {@link Medico} específico ou apenas para uma
+ * especialidade, dentro de uma janela preferencial de datas e (opcionalmente)
+ * de horários. Mapeada para a tabela {@code lista_espera}.
+ */
+@Entity
+@Table(name = "lista_espera")
+public class ListaEspera {
+
+    /**
+     * Identificador único do pedido (chave primária).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * Paciente que aguarda por uma vaga.
+     */
+    @ManyToOne
+    @JoinColumn(name = "paciente_id")
+    private Paciente paciente;
+
+    /**
+     * Médico desejado. Pode ser {@code null} quando o pedido é apenas por
+     * especialidade.
+     */
+    @ManyToOne
+    @JoinColumn(name = "medico_id")
+    private Medico medico;
+
+    /**
+     * Especialidade desejada (usada quando {@link #medico} é {@code null}).
+     */
+    private String especialidade;
+
+    /**
+     * Primeiro dia aceito pelo paciente.
+     */
+    private LocalDate dataInicial;
+
+    /**
+     * Último dia aceito pelo paciente.
+     */
+    private LocalDate dataFinal;
+
+    /**
+     * Horário mínimo aceito. {@code null} indica qualquer horário.
+     */
+    private LocalTime horaInicial;
+
+    /**
+     * Horário máximo aceito. {@code null} indica qualquer horário.
+     */
+    private LocalTime horaFinal;
+
+    /**
+     * Momento de entrada na lista, usado para respeitar a ordem de chegada.
+     */
+    private LocalDateTime criadoEm;
+
+    /**
+     * Indica se o pedido ainda aguarda encaixe.
+     */
+    private boolean ativa = true;
+
+    /**
+     * Construtor padrão (necessário para o JPA).
+     */
+    public ListaEspera() {
+    }
+
+    /**
+     * Construtor conveniência para criar um pedido de espera.
+     *
+     * @param paciente paciente interessado
+     * @param medico médico desejado, ou {@code null}
+     * @param especialidade especialidade desejada, ou {@code null}
+     * @param dataInicial primeiro dia aceito
+     * @param dataFinal último dia aceito
+     */
+    public ListaEspera(Paciente paciente, Medico medico, String especialidade,
+            LocalDate dataInicial, LocalDate dataFinal) {
+        this.paciente = paciente;
+        this.medico = medico;
+        this.especialidade = especialidade;
+        this.dataInicial = dataInicial;
+        this.dataFinal = dataFinal;
+        this.criadoEm = LocalDateTime.now();
+    }
+
+    /**
+     * Verifica se o horário informado está dentro da janela preferencial.
+     *
+     * @param hora horário da vaga
+     * @return {@code true} se o paciente aceita o horário
+     */
+    public boolean aceitaHorario(LocalTime hora) {
+        if (hora == null) {
+            return true;
+        }
+        boolean depoisDoInicio = horaInicial == null || !hora.isBefore(horaInicial);
+        boolean antesDoFim = horaFinal == null || !hora.isAfter(horaFinal);
+        return depoisDoInicio && antesDoFim;
+    }
+
+    /**
+     * Retorna o identificador do pedido.
+     *
+     * @return id do pedido
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Define o identificador do pedido.
+     *
+     * @param id novo id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Retorna o paciente do pedido.
+     *
+     * @return paciente
+     */
+    public Paciente getPaciente() {
+        return paciente;
+    }
+
+    /**
+     * Define o paciente do pedido.
+     *
+     * @param paciente novo paciente
+     */
+    public void setPaciente(Paciente paciente) {
+        this.paciente = paciente;
+    }
+
+    /**
+     * Retorna o médico desejado.
+     *
+     * @return médico ou {@code null}
+     */
+    public Medico getMedico() {
+        return medico;
+    }
+
+    /**
+     * Define o médico desejado.
+     *
+     * @param medico novo médico
+     */
+    public void setMedico(Medico medico) {
+        this.medico = medico;
+    }
+
+    /**
+     * Retorna a especialidade desejada.
+     *
+     * @return especialidade ou {@code null}
+     */
+    public String getEspecialidade() {
+        return especialidade;
+    }
+
+    /**
+     * Define a especialidade desejada.
+     *
+     * @param especialidade nova especialidade
+     */
+    public void setEspecialidade(String especialidade) {
+        this.especialidade = especialidade;
+    }
+
+    /**
+     * Retorna o primeiro dia aceito.
+     *
+     * @return data inicial
+     */
+    public LocalDate getDataInicial() {
+        return dataInicial;
+    }
+
+    /**
+     * Define o primeiro dia aceito.
+     *
+     * @param dataInicial nova data inicial
+     */
+    public void setDataInicial(LocalDate dataInicial) {
+        this.dataInicial = dataInicial;
+    }
+
+    /**
+     * Retorna o último dia aceito.
+     *
+     * @return data final
+     */
+    public LocalDate getDataFinal() {
+        return dataFinal;
+    }
+
+    /**
+     * Define o último dia aceito.
+     *
+     * @param dataFinal nova data final
+     */
+    public void setDataFinal(LocalDate dataFinal) {
+        this.dataFinal = dataFinal;
+    }
+
+    /**
+     * Retorna o horário mínimo aceito.
+     *
+     * @return hora inicial ou {@code null}
+     */
+    public LocalTime getHoraInicial() {
+        return horaInicial;
+    }
+
+    /**
+     * Define o horário mínimo aceito.
+     *
+     * @param horaInicial nova hora inicial
+     */
+    public void setHoraInicial(LocalTime horaInicial) {
+        this.horaInicial = horaInicial;
+    }
+
+    /**
+     * Retorna o horário máximo aceito.
+     *
+     * @return hora final ou {@code null}
+     */
+    public LocalTime getHoraFinal() {
+        return horaFinal;
+    }
+
+    /**
+     * Define o horário máximo aceito.
+     *
+     * @param horaFinal nova hora final
+     */
+    public void setHoraFinal(LocalTime horaFinal) {
+        this.horaFinal = horaFinal;
+    }
+
+    /**
+     * Retorna o momento de entrada na lista.
+     *
+     * @return data e hora de criação
+     */
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    /**
+     * Define o momento de entrada na lista.
+     *
+     * @param criadoEm nova data e hora de criação
+     */
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    /**
+     * Indica se o pedido ainda aguarda encaixe.
+     *
+     * @return {@code true} se ativo
+     */
+    public boolean isAtiva() {
+        return ativa;
+    }
+
+    /**
+     * Define se o pedido ainda aguarda encaixe.
+     *
+     * @param ativa novo estado
+     */
+    public void setAtiva(boolean ativa) {
+        this.ativa = ativa;
+    }
+
+    /**
+     * Representação textual usada em diálogos de seleção.
+     *
+     * @return nome do paciente e preferência registrada
+     */
+    @Override
+    public String toString() {
+        String preferencia = medico != null ? medico.getNome() : especialidade;
+        return (paciente != null ? paciente.getNome() : "") + " (" + preferencia + ")";
+    }
+
+}
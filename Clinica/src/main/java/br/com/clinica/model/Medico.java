@@ -9,7 +9,7 @@ import jakarta.persistence.*;
  * profissional, como especialidade e CRM. 
  */
 @Entity
-@Table(name = "medico")
+@Table(name = "medico", indexes = @Index(name = "idx_medico_nome", columnList = "nome"))
 public class Medico {
 
     /**
@@ -19,6 +19,16 @@ public class Medico {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /**
+     * Versão do registro, usada pelo controle de concorrência otimista.
+     * <p>
+     * Incrementada pelo JPA a cada atualização; uma atualização feita a partir
+     * de uma versão desatualizada é rejeitada em vez de sobrescrever a
+     * alteração de outra estação.
+     */
+    @Version
+    private int versao;
+
     /**
      * Nome completo do médico.
      */
@@ -89,6 +99,25 @@ public class Medico {
         this.id = id;
     }
 
+    /**
+     * Retorna a versão do médico usada no controle de concorrência.
+     *
+     * @return versão atual
+     */
+    public int getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do médico, normalmente a versão exibida ao usuário
+     * quando ele iniciou a edição.
+     *
+     * @param versao versão de referência
+     */
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
+
     /**
      * Retorna o nome do médico.
      *
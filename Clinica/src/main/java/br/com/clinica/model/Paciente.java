@@ -10,7 +10,7 @@ import jakarta.persistence.*;
  * atualização de telefone.
  */
 @Entity
-@Table(name = "paciente")
+@Table(name = "paciente", indexes = @Index(name = "idx_paciente_nome", columnList = "nome"))
 public class Paciente {
 
     /**
@@ -20,6 +20,16 @@ public class Paciente {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /**
+     * Versão do registro, usada pelo controle de concorrência otimista.
+     * <p>
+     * Incrementada pelo JPA a cada atualização; uma atualização feita a partir
+     * de uma versão desatualizada é rejeitada em vez de sobrescrever a
+     * alteração de outra estação.
+     */
+    @Version
+    private int versao;
+
     /**
      * Nome completo do paciente.
      */
@@ -97,6 +107,25 @@ public class Paciente {
         this.id = id;
     }
 
+    /**
+     * Retorna a versão do paciente usada no controle de concorrência.
+     *
+     * @return versão atual
+     */
+    public int getVersao() {
+        return versao;
+    }
+
+    /**
+     * Define a versão do paciente, normalmente a versão exibida ao usuário
+     * quando ele iniciou a edição.
+     *
+     * @param versao versão de referência
+     */
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
+
     /**
      * Retorna o nome do paciente.
      *
@@ -0,0 +1,136 @@
+package br.com.clinica.model;
+
+import br.com.clinica.enums.TipoAlteracao;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entrada do registro de alterações de pacientes, médicos e consultas, usado
+ * para propagar as gravações de uma estação às demais.
+ * <p>
+ * Cada inclusão, alteração ou remoção grava uma entrada na mesma transação do
+ * registro alterado. As estações leem periodicamente apenas as entradas com
+ * sequência maior que a última vista (ver
+ * {@link br.com.clinica.service.SincronizacaoService}), e as entradas antigas
+ * são removidas. Mapeada para a tabela {@code registro_alteracao}.
+ */
+@Entity
+@Table(name = "registro_alteracao",
+        indexes = @Index(name = "idx_registro_alteracao_registrada_em", columnList = "registradaEm"))
+public class RegistroAlteracao {
+
+    /**
+     * Sequência da alteração (chave primária, crescente).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long seq;
+
+    /**
+     * Nome simples da entidade alterada ({@code Consulta}, {@code Paciente}
+     * ou {@code Medico}).
+     */
+    @Column(length = 30, nullable = false)
+    private String entidade;
+
+    /**
+     * Identificador do registro alterado.
+     */
+    private int registroId;
+
+    /**
+     * Tipo da alteração.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private TipoAlteracao tipo;
+
+    /**
+     * Estação que fez a alteração, para que ela não reaplique as próprias
+     * gravações.
+     */
+    @Column(length = 36, nullable = false)
+    private String estacao;
+
+    /**
+     * Momento da alteração.
+     */
+    @Column(nullable = false)
+    private LocalDateTime registradaEm;
+
+    /**
+     * Construtor padrão (necessário para o JPA).
+     */
+    public RegistroAlteracao() {
+    }
+
+    /**
+     * Construtor conveniência para registrar uma alteração feita agora.
+     *
+     * @param entidade nome simples da entidade alterada
+     * @param registroId id do registro alterado
+     * @param tipo tipo da alteração
+     * @param estacao estação que fez a alteração
+     */
+    public RegistroAlteracao(String entidade, int registroId, TipoAlteracao tipo, String estacao) {
+        this.entidade = entidade;
+        this.registroId = registroId;
+        this.tipo = tipo;
+        this.estacao = estacao;
+        this.registradaEm = LocalDateTime.now();
+    }
+
+    /**
+     * Retorna a sequência da alteração.
+     *
+     * @return sequência
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Retorna o nome simples da entidade alterada.
+     *
+     * @return entidade
+     */
+    public String getEntidade() {
+        return entidade;
+    }
+
+    /**
+     * Retorna o id do registro alterado.
+     *
+     * @return id do registro
+     */
+    public int getRegistroId() {
+        return registroId;
+    }
+
+    /**
+     * Retorna o tipo da alteração.
+     *
+     * @return tipo
+     */
+    public TipoAlteracao getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Retorna a estação que fez a alteração.
+     *
+     * @return identificador da estação
+     */
+    public String getEstacao() {
+        return estacao;
+    }
+
+    /**
+     * Retorna o momento da alteração.
+     *
+     * @return data e hora
+     */
+    public LocalDateTime getRegistradaEm() {
+        return registradaEm;
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.clinica.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Registro de uma requisição de escrita já processada, identificada por sua
+ * chave de idempotência.
+ * <p>
+ * Permite que uma operação repetida (novo clique em "Salvar" após uma falha de
+ * rede, ou uma nova tentativa automática) devolva o resultado original em vez
+ * de gravar o registro duas vezes. Junto da chave fica o hash do conteúdo da
+ * requisição, para que uma repetição com a mesma chave e outro conteúdo seja
+ * recusada em vez de devolver o resultado da original. As chaves expiram após
+ * um período e são removidas periodicamente. Mapeada para a tabela
+ * {@code requisicao_processada}.
+ */
+@Entity
+@Table(name = "requisicao_processada",
+        indexes = @Index(name = "idx_requisicao_expira_em", columnList = "expiraEm"))
+public class RequisicaoProcessada {
+
+    /**
+     * Chave de idempotência informada pelo cliente (chave primária).
+     */
+    @Id
+    @Column(length = 100)
+    private String chave;
+
+    /**
+     * Operação realizada (ex.: {@code INSERIR}, {@code ALTERAR_STATUS}).
+     */
+    private String operacao;
+
+    /**
+     * Identificador do registro produzido ou alterado pela operação.
+     */
+    private int resultadoId;
+
+    /**
+     * Hash SHA-256, em hexadecimal, do conteúdo da requisição. Nulo em
+     * registros gravados antes da criação do campo.
+     */
+    @Column(length = 64)
+    private String hashConteudo;
+
+    /**
+     * Momento em que a requisição foi processada.
+     */
+    private LocalDateTime processadaEm;
+
+    /**
+     * Momento a partir do qual a chave pode ser descartada.
+     */
+    private LocalDateTime expiraEm;
+
+    /**
+     * Construtor padrão (necessário para o JPA).
+     */
+    public RequisicaoProcessada() {
+    }
+
+    /**
+     * Construtor conveniência para registrar uma requisição processada agora.
+     *
+     * @param chave chave de idempotência
+     * @param operacao operação realizada
+     * @param resultadoId id do registro resultante
+     * @param hashConteudo hash do conteúdo da requisição
+     * @param expiraEm momento de expiração da chave
+     */
+    public RequisicaoProcessada(String chave, String operacao, int resultadoId, String hashConteudo,
+            LocalDateTime expiraEm) {
+        this.chave = chave;
+        this.operacao = operacao;
+        this.resultadoId = resultadoId;
+        this.hashConteudo = hashConteudo;
+        this.processadaEm = LocalDateTime.now();
+        this.expiraEm = expiraEm;
+    }
+
+    /**
+     * Retorna a chave de idempotência.
+     *
+     * @return chave
+     */
+    public String getChave() {
+        return chave;
+    }
+
+    /**
+     * Retorna a operação realizada.
+     *
+     * @return operação
+     */
+    public String getOperacao() {
+        return operacao;
+    }
+
+    /**
+     * Retorna o identificador do registro resultante.
+     *
+     * @return id do resultado
+     */
+    public int getResultadoId() {
+        return resultadoId;
+    }
+
+    /**
+     * Retorna o hash do conteúdo da requisição.
+     *
+     * @return hash em hexadecimal, ou {@code null} em registros antigos
+     */
+    public String getHashConteudo() {
+        return hashConteudo;
+    }
+
+    /**
+     * Retorna o momento em que a requisição foi processada.
+     *
+     * @return data e hora do processamento
+     */
+    public LocalDateTime getProcessadaEm() {
+        return processadaEm;
+    }
+
+    /**
+     * Retorna o momento de expiração da chave.
+     *
+     * @return data e hora de expiração
+     */
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.clinica.model;
+
+import br.com.clinica.enums.StatusConsulta;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Quantidade de consultas de um médico em um dia e status.
+ * <p>
+ * Tabela de resumo mantida de forma incremental a cada gravação de
+ * {@link Consulta} (na mesma transação), para que painéis e relatórios anuais
+ * leiam apenas linhas pré-agregadas em vez de percorrer a tabela de consultas.
+ * Mapeada para a tabela {@code resumo_diario}.
+ */
+@Entity
+@Table(name = "resumo_diario",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumo_diario",
+                columnNames = {"data", "medico_id", "status"}))
+public class ResumoDiario {
+
+    /**
+     * Identificador único da linha (chave primária).
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    /**
+     * Médico ao qual as consultas pertencem.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "medico_id", nullable = false)
+    private Medico medico;
+
+    /**
+     * Dia das consultas.
+     */
+    @Column(nullable = false)
+    private LocalDate data;
+
+    /**
+     * Status das consultas contadas nesta linha.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusConsulta status;
+
+    /**
+     * Quantidade de consultas do médico no dia com este status.
+     */
+    private long total;
+
+    /**
+     * Construtor padrão (necessário para o JPA).
+     */
+    public ResumoDiario() {
+    }
+
+    /**
+     * Retorna o identificador da linha.
+     *
+     * @return id
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Retorna o médico da linha.
+     *
+     * @return médico
+     */
+    public Medico getMedico() {
+        return medico;
+    }
+
+    /**
+     * Retorna o dia da linha.
+     *
+     * @return data
+     */
+    public LocalDate getData() {
+        return data;
+    }
+
+    /**
+     * Retorna o status contado na linha.
+     *
+     * @return status
+     */
+    public StatusConsulta getStatus() {
+        return status;
+    }
+
+    /**
+     * Retorna a quantidade de consultas.
+     *
+     * @return total
+     */
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,197 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.util.JPAUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static br.com.clinica.service.DocumentoHtml.documento;
+import static br.com.clinica.service.DocumentoHtml.escapar;
+import static br.com.clinica.service.DocumentoHtml.gravar;
+
+/**
+ * Geração em lote da agenda do dia de todos os médicos, para impressão pela
+ * recepção antes da abertura da clínica.
+ * <p>
+ * Substitui a emissão médico a médico pela tela de relatórios: as consultas
+ * do dia são lidas em uma única consulta ordenada por médico e horário, e a
+ * página HTML de cada médico é gerada e gravada em paralelo. Além dos arquivos
+ * individuais, é gravado um documento único com todas as agendas, uma por
+ * página, pronto para imprimir de uma vez.
+ *
+ * <p>
+ * Não usa interface gráfica e pode ser agendado no sistema operacional:
+ * <pre>
+ * java -cp clinica.jar br.com.clinica.service.AgendaDiariaBatch [dd/MM/yyyy] [diretório]
+ * </pre>
+ * Sem argumentos, gera a agenda de hoje no diretório {@code agendas}.
+ */
+public class AgendaDiariaBatch {
+
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final DateTimeFormatter FMT_ARQUIVO = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    /**
+     * Estilos próprios da agenda: uma agenda por página e consultas
+     * canceladas riscadas.
+     */
+    private static final String ESTILOS = "section { page-break-after: always; }\n"
+            + "tr.cancelada td { text-decoration: line-through; color: #888; }\n";
+
+    /**
+     * Quantidade de threads de gravação.
+     */
+    private final int threads;
+
+    /**
+     * Cria o lote com uma thread de gravação por processador, até quatro.
+     */
+    public AgendaDiariaBatch() {
+        this.threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Gera as agendas do dia informado.
+     * <p>
+     * Médicos sem consultas no dia não recebem página.
+     *
+     * @param data dia das agendas
+     * @param diretorio diretório de destino (criado se não existir)
+     * @return caminho do documento único com todas as agendas
+     * @throws IOException se a gravação de algum arquivo falhar
+     * @throws InterruptedException se a thread for interrompida
+     */
+    public Path gerar(LocalDate data, Path diretorio) throws IOException, InterruptedException {
+        Files.createDirectories(diretorio);
+        Map<Integer, AgendaMedico> agendas = carregar(data);
+
+        ExecutorService gravacao = Executors.newFixedThreadPool(threads);
+        List<Future<String>> paginas = new ArrayList<>();
+        try {
+            for (AgendaMedico agenda : agendas.values()) {
+                Callable<String> tarefa = () -> {
+                    String pagina = pagina(agenda, data);
+                    gravar(diretorio.resolve("agenda-" + data.format(FMT_ARQUIVO)
+                            + "-medico-" + agenda.medicoId + ".html"),
+                            documento("Agenda de " + agenda.nome, ESTILOS, pagina));
+                    return pagina;
+                };
+                paginas.add(gravacao.submit(tarefa));
+            }
+
+            StringBuilder todas = new StringBuilder();
+            for (Future<String> pagina : paginas) {
+                todas.append(pagina.get());
+            }
+            Path unico = diretorio.resolve("agenda-" + data.format(FMT_ARQUIVO) + ".html");
+            gravar(unico, documento("Agendas de " + data.format(FMT_DATA), ESTILOS, todas.toString()));
+            return unico;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            gravacao.shutdownNow();
+        }
+    }
+
+    /**
+     * Carrega as consultas do dia em uma única consulta, agrupando-as por
+     * médico na ordem de leitura.
+     */
+    private Map<Integer, AgendaMedico> carregar(LocalDate data) {
+        List<Object[]> linhas = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT m.id, m.nome, m.especialidade, c.horaAgendada, p.nome, p.telefone, c.status "
+                + "FROM Consulta c JOIN c.medico m LEFT JOIN c.paciente p "
+                + "WHERE c.dataAgendada = :data "
+                + "ORDER BY m.nome, m.id, c.horaAgendada",
+                Object[].class)
+                .setParameter("data", data)
+                .getResultList());
+
+        Map<Integer, AgendaMedico> agendas = new LinkedHashMap<>();
+        for (Object[] l : linhas) {
+            agendas.computeIfAbsent((Integer) l[0], id -> new AgendaMedico(id, (String) l[1], (String) l[2]))
+                    .linhas.add(l);
+        }
+        return agendas;
+    }
+
+    /**
+     * Monta a seção HTML da agenda de um médico, com quebra de página ao
+     * final.
+     */
+    private static String pagina(AgendaMedico agenda, LocalDate data) {
+        StringBuilder sb = new StringBuilder(256 + agenda.linhas.size() * 128);
+        sb.append("<section>\n<h1>").append(escapar(agenda.nome)).append("</h1>\n");
+        sb.append("<p>").append(escapar(agenda.especialidade)).append(" &mdash; ")
+                .append(data.format(FMT_DATA)).append("</p>\n");
+        sb.append("<table>\n<tr><th>Horário</th><th>Paciente</th><th>Telefone</th><th>Status</th></tr>\n");
+        for (Object[] l : agenda.linhas) {
+            StatusConsulta status = (StatusConsulta) l[6];
+            sb.append(status == StatusConsulta.CANCELADA ? "<tr class=\"cancelada\">" : "<tr>")
+                    .append("<td>").append(l[3] != null ? ((LocalTime) l[3]).toString() : "").append("</td>")
+                    .append("<td>").append(escapar((String) l[4])).append("</td>")
+                    .append("<td>").append(escapar((String) l[5])).append("</td>")
+                    .append("<td>").append(status != null ? status.name() : "").append("</td></tr>\n");
+        }
+        sb.append("</table>\n</section>\n");
+        return sb.toString();
+    }
+
+    /**
+     * Ponto de entrada da linha de comando.
+     *
+     * @param args data ({@code dd/MM/yyyy}) e diretório de destino, ambos
+     * opcionais
+     */
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            LocalDate data = args.length > 0 ? LocalDate.parse(args[0], FMT_DATA) : LocalDate.now();
+            Path diretorio = Paths.get(args.length > 1 ? args[1] : "agendas");
+            Path unico = new AgendaDiariaBatch().gerar(data, diretorio);
+            System.out.println("Agendas de " + data.format(FMT_DATA) + " geradas em " + unico.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("Falha ao gerar as agendas: " + e.getMessage());
+            status = 1;
+        } finally {
+            JPAUtil.fechar();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Consultas do dia de um médico, em ordem de horário.
+     */
+    private static final class AgendaMedico {
+
+        private final int medicoId;
+        private final String nome;
+        private final String especialidade;
+        private final List<Object[]> linhas = new ArrayList<>();
+
+        AgendaMedico(int medicoId, String nome, String especialidade) {
+            this.medicoId = medicoId;
+            this.nome = nome;
+            this.especialidade = especialidade;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package br.com.clinica.service;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Exportação da agenda de cada médico em um arquivo iCalendar ({@code .ics}),
+ * para importação em aplicativos de calendário.
+ * <p>
+ * As consultas do período são lidas em uma única varredura ordenada por
+ * médico, em fluxo. Assim que a agenda de um médico termina de ser lida, a
+ * gravação do seu arquivo é entregue a um conjunto fixo de threads, enquanto a
+ * leitura continua com o próximo médico. O número de agendas aguardando
+ * gravação é limitado, mantendo o uso de memória estável.
+ *
+ * <p>
+ * Na exportação incremental, cada agenda recebe uma impressão digital
+ * (SHA-256 do período e dos dados de cada consulta, inclusive a versão), que é
+ * guardada em {@value #ARQUIVO_ESTADO} no diretório de destino. Médicos cuja
+ * impressão digital não mudou têm o arquivo mantido, sem regravação.
+ */
+public class AgendaIcsService {
+
+    /**
+     * Arquivo, no diretório de destino, com a impressão digital da última
+     * agenda gravada de cada médico.
+     */
+    public static final String ARQUIVO_ESTADO = ".agenda-ics.properties";
+
+    /**
+     * Duração atribuída a cada consulta no calendário (a agenda registra só o
+     * horário de início).
+     */
+    private static final String DURACAO_CONSULTA = "PT30M";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final DateTimeFormatter FMT_ICS = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private static final DateTimeFormatter FMT_ICS_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    /**
+     * Quantidade de threads de gravação.
+     */
+    private final int threads;
+
+    /**
+     * Cria o serviço com uma thread de gravação por processador, até quatro.
+     */
+    public AgendaIcsService() {
+        this(Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Cria o serviço com a quantidade de threads de gravação informada.
+     *
+     * @param threads threads de gravação (mínimo 1)
+     */
+    public AgendaIcsService(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Gera um arquivo {@code medico-<id>.ics} por médico cadastrado com as
+     * consultas do período.
+     *
+     * @param diretorio diretório de destino (criado se não existir)
+     * @param inicio primeiro dia do período (inclusive)
+     * @param fim último dia do período (inclusive)
+     * @param incremental se {@code true}, regrava apenas as agendas que
+     * mudaram desde a última exportação
+     * @return quantidade de arquivos gerados e mantidos
+     * @throws IOException se a gravação de algum arquivo falhar
+     * @throws InterruptedIOException se a thread for interrompida
+     */
+    public ResultadoExportacaoAgenda exportar(Path diretorio, LocalDate inicio, LocalDate fim,
+            boolean incremental) throws IOException {
+        long t0 = System.nanoTime();
+        Files.createDirectories(diretorio);
+
+        Execucao execucao = new Execucao(diretorio, inicio, fim,
+                incremental ? carregarEstado(diretorio) : new Properties());
+
+        long consultas = 0;
+        EntityManager em = JPAUtil.getEntityManager();
+        try (Stream<Object[]> fluxo = em.createQuery(
+                "SELECT m.id, m.nome, c.id, c.versao, c.dataAgendada, c.horaAgendada, c.status, p.nome "
+                + "FROM Medico m LEFT JOIN Consulta c ON c.medico.id = m.id "
+                + "AND c.dataAgendada BETWEEN :inicio AND :fim "
+                + "LEFT JOIN c.paciente p "
+                + "ORDER BY m.id, c.dataAgendada, c.horaAgendada, c.id",
+                Object[].class)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+
+            Agenda atual = null;
+            Iterator<Object[]> it = fluxo.iterator();
+            while (it.hasNext() && execucao.erro.get() == null) {
+                Object[] linha = it.next();
+                int medicoId = (Integer) linha[0];
+                if (atual == null || atual.medicoId != medicoId) {
+                    if (atual != null) {
+                        execucao.enviar(atual);
+                    }
+                    atual = new Agenda(medicoId, (String) linha[1]);
+                }
+                if (linha[2] != null) {
+                    atual.consultas.add(linha);
+                    consultas++;
+                }
+            }
+            if (atual != null && execucao.erro.get() == null) {
+                execucao.enviar(atual);
+            }
+
+            execucao.gravacao.shutdown();
+            if (!execucao.gravacao.awaitTermination(10, TimeUnit.MINUTES)) {
+                throw new IOException("Tempo esgotado aguardando a gravação das agendas");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Exportação de agendas interrompida");
+        } finally {
+            execucao.gravacao.shutdownNow();
+            if (em.isOpen()) {
+                em.close();
+            }
+        }
+
+        if (execucao.erro.get() != null) {
+            throw execucao.erro.get();
+        }
+        salvarEstado(diretorio, execucao.estadoNovo);
+
+        ResultadoExportacaoAgenda resultado = new ResultadoExportacaoAgenda();
+        resultado.setGerados(execucao.gerados.get());
+        resultado.setInalterados(execucao.inalterados.get());
+        resultado.setConsultas(consultas);
+        long duracao = System.nanoTime() - t0;
+        resultado.setDuracaoMs(TimeUnit.NANOSECONDS.toMillis(duracao));
+        Metricas.registrarTempo("agenda.ics.exportacao", duracao);
+        return resultado;
+    }
+
+    /**
+     * Grava a agenda em um arquivo temporário e o move para o destino, para
+     * que um aplicativo de calendário nunca leia um arquivo pela metade.
+     */
+    private static void gravar(Agenda agenda, Path arquivo, String dtStamp) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+            linha(out, "BEGIN:VCALENDAR");
+            linha(out, "VERSION:2.0");
+            linha(out, "PRODID:-//Clinica//Agenda de Consultas//PT");
+            linha(out, "CALSCALE:GREGORIAN");
+            linha(out, "X-WR-CALNAME:" + texto("Consultas - " + agenda.nome));
+
+            for (Object[] c : agenda.consultas) {
+                LocalDate data = (LocalDate) c[4];
+                LocalTime hora = (LocalTime) c[5];
+                StatusConsulta status = (StatusConsulta) c[6];
+                String paciente = c[7] != null ? (String) c[7] : "";
+
+                linha(out, "BEGIN:VEVENT");
+                linha(out, "UID:consulta-" + c[2] + "@clinica");
+                linha(out, "SEQUENCE:" + c[3]);
+                linha(out, "DTSTAMP:" + dtStamp);
+                linha(out, "DTSTART:" + data.atTime(hora != null ? hora : LocalTime.MIDNIGHT).format(FMT_ICS));
+                linha(out, "DURATION:" + DURACAO_CONSULTA);
+                linha(out, "SUMMARY:" + texto("Consulta - " + paciente));
+                linha(out, "STATUS:" + (status == StatusConsulta.CANCELADA ? "CANCELLED" : "CONFIRMED"));
+                linha(out, "END:VEVENT");
+            }
+            linha(out, "END:VCALENDAR");
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Escreve uma linha de conteúdo, dobrando-a a cada 75 octetos como exige
+     * a RFC 5545.
+     */
+    private static void linha(Writer out, String conteudo) throws IOException {
+        int octetos = 0;
+        for (int i = 0; i < conteudo.length(); i++) {
+            char ch = conteudo.charAt(i);
+            int tamanho;
+            if (ch < 0x80) {
+                tamanho = 1;
+            } else if (ch < 0x800) {
+                tamanho = 2;
+            } else if (Character.isHighSurrogate(ch)) {
+                tamanho = 4;
+            } else if (Character.isLowSurrogate(ch)) {
+                tamanho = 0; // já contado no par
+            } else {
+                tamanho = 3;
+            }
+            if (tamanho > 0 && octetos + tamanho > 75) {
+                out.write("\r\n ");
+                octetos = 1;
+            }
+            out.write(ch);
+            octetos += tamanho;
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Escapa um valor de texto do iCalendar.
+     */
+    private static String texto(String valor) {
+        return valor.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n");
+    }
+
+    private static String impressaoDigital(Agenda agenda, LocalDate inicio, LocalDate fim) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            StringBuilder sb = new StringBuilder(64);
+            sb.append(inicio).append('|').append(fim).append('|').append(agenda.nome);
+            sha.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            for (Object[] c : agenda.consultas) {
+                sb.setLength(0);
+                sb.append('\n').append(c[2]).append('|').append(c[3]).append('|').append(c[4])
+                        .append('|').append(c[5]).append('|').append(c[6]).append('|').append(c[7]);
+                sha.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Properties carregarEstado(Path diretorio) throws IOException {
+        Properties estado = new Properties();
+        Path arquivo = diretorio.resolve(ARQUIVO_ESTADO);
+        if (Files.exists(arquivo)) {
+            try (BufferedReader in = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                estado.load(in);
+            }
+        }
+        return estado;
+    }
+
+    private static void salvarEstado(Path diretorio, Map<String, String> estadoNovo) throws IOException {
+        Properties estado = new Properties();
+        estado.putAll(estadoNovo);
+        Path temporario = diretorio.resolve(ARQUIVO_ESTADO + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+            estado.store(out, "Impressao digital da ultima agenda gravada por medico");
+        }
+        Files.move(temporario, diretorio.resolve(ARQUIVO_ESTADO),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Estado compartilhado entre a varredura e as threads de gravação de uma
+     * exportação.
+     */
+    private final class Execucao {
+
+        private final Path diretorio;
+        private final LocalDate inicio;
+        private final LocalDate fim;
+        private final Properties estadoAnterior;
+        private final String dtStamp = ZonedDateTime.now(ZoneOffset.UTC).format(FMT_ICS_UTC);
+        private final Map<String, String> estadoNovo = new ConcurrentHashMap<>();
+        private final AtomicInteger gerados = new AtomicInteger();
+        private final AtomicInteger inalterados = new AtomicInteger();
+        private final AtomicReference<IOException> erro = new AtomicReference<>();
+
+        /**
+         * Limita as agendas lidas e ainda não gravadas.
+         */
+        private final Semaphore pendentes = new Semaphore(threads * 2);
+
+        private final ExecutorService gravacao = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "agenda-ics");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Execucao(Path diretorio, LocalDate inicio, LocalDate fim, Properties estadoAnterior) {
+            this.diretorio = diretorio;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.estadoAnterior = estadoAnterior;
+        }
+
+        /**
+         * Entrega a agenda de um médico para gravação, aguardando se houver
+         * agendas demais na fila.
+         */
+        void enviar(Agenda agenda) throws InterruptedException {
+            pendentes.acquire();
+            gravacao.execute(() -> {
+                try {
+                    String chave = String.valueOf(agenda.medicoId);
+                    String impressao = impressaoDigital(agenda, inicio, fim);
+                    Path arquivo = diretorio.resolve("medico-" + agenda.medicoId + ".ics");
+
+                    if (impressao.equals(estadoAnterior.getProperty(chave)) && Files.exists(arquivo)) {
+                        inalterados.incrementAndGet();
+                    } else {
+                        gravar(agenda, arquivo, dtStamp);
+                        gerados.incrementAndGet();
+                    }
+                    estadoNovo.put(chave, impressao);
+                } catch (IOException e) {
+                    erro.compareAndSet(null, e);
+                } finally {
+                    pendentes.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Consultas de um médico no período, na ordem da varredura.
+     */
+    private static final class Agenda {
+
+        private final int medicoId;
+        private final String nome;
+        private final List<Object[]> consultas = new ArrayList<>();
+
+        Agenda(int medicoId, String nome) {
+            this.medicoId = medicoId;
+            this.nome = nome != null ? nome : "";
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.dao.UsuarioDAO;
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Aquecimento da aplicação em segundo plano enquanto a tela de login é
+ * exibida.
+ * <p>
+ * Em uma partida a frio, o primeiro acesso ao banco inicializa o Hibernate
+ * (leitura dos mapeamentos, atualização do esquema e abertura do pool de
+ * conexões), o que tornava lento o primeiro clique em "Entrar" e a primeira
+ * abertura de cada tela. {@link #iniciar(Runnable...)} executa essas etapas em
+ * uma thread própria assim que a tela de login é criada:
+ * <ol>
+ * <li>inicialização da unidade de persistência ({@link JPAUtil});</li>
+ * <li>execução, sem resultado útil, das consultas do login e da listagem de
+ * consultas, o que abre conexões do pool e deixa as consultas já
+ * interpretadas no cache do Hibernate;</li>
+ * <li>carga inicial do resumo diário, se a tabela estiver vazia
+ * ({@link ResumoDiarioService#garantirCarga()});</li>
+ * <li>tarefas informadas pela interface, como o pré-carregamento dos
+ * médicos.</li>
+ * </ol>
+ * Se o usuário clicar em "Entrar" antes do fim, o login apenas aguarda a
+ * etapa em curso; nada é inicializado duas vezes. Uma falha no aquecimento é
+ * registrada no log; como o {@link JPAUtil} não guarda a falha, a
+ * inicialização é tentada de novo no primeiro acesso.
+ *
+ * <p>
+ * Métricas, contadas a partir da partida da JVM:
+ * {@code inicializacao.janela.login} (tela de login exibida),
+ * {@code inicializacao.pronto.login} (persistência inicializada e primeira
+ * consulta concluída) e {@code inicializacao.primeira.tabela} (primeira
+ * tabela preenchida após o login, informada no log em nível {@code FINE}).
+ * {@code inicializacao.aquecimento} mede a duração do aquecimento inteiro.
+ *
+ * <p>
+ * Com a propriedade {@code -Dclinica.medirPartida=true}, a aplicação
+ * escreve na saída padrão o tempo até a tela de login e até a primeira
+ * consulta e termina; é o modo usado por {@code medir-partida.sh} para
+ * comparar partidas com e sem o arquivo AppCDS.
+ */
+public final class AquecimentoService {
+
+    private static final Logger LOG = Logger.getLogger(AquecimentoService.class.getName());
+
+    private static final AtomicBoolean iniciado = new AtomicBoolean();
+
+    private static final AtomicBoolean primeiraTabela = new AtomicBoolean();
+
+    private static final CountDownLatch janelaExibida = new CountDownLatch(1);
+
+    private static volatile long janelaLoginNanos;
+
+    private AquecimentoService() {
+    }
+
+    /**
+     * Inicia o aquecimento em segundo plano. Chamadas seguintes não têm
+     * efeito.
+     *
+     * @param tarefas tarefas executadas ao final, na mesma thread
+     */
+    public static void iniciar(Runnable... tarefas) {
+        if (!iniciado.compareAndSet(false, true)) {
+            return;
+        }
+        Thread t = new Thread(() -> aquecer(tarefas), "aquecimento");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void aquecer(Runnable[] tarefas) {
+        long t0 = System.nanoTime();
+        try {
+            JPAUtil.tamanhoPool();
+            new UsuarioDAO().buscarPorLogin("");
+            new ConsultaDAO().listarPorMedico(0);
+            long prontoNanos = desdePartida();
+            Metricas.registrarTempo("inicializacao.pronto.login", prontoNanos);
+            if (Boolean.getBoolean("clinica.medirPartida")) {
+                informarPartida(prontoNanos);
+            }
+            new ResumoDiarioService().garantirCarga();
+
+            for (Runnable tarefa : tarefas) {
+                tarefa.run();
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Falha no aquecimento; a inicialização será tentada de novo no primeiro acesso", e);
+            if (Boolean.getBoolean("clinica.medirPartida")) {
+                System.exit(1);
+            }
+        }
+        long nanos = System.nanoTime() - t0;
+        Metricas.registrarTempo("inicializacao.aquecimento", nanos);
+        LOG.fine(() -> String.format("Aquecimento concluído em %d ms", nanos / 1_000_000));
+    }
+
+    /**
+     * Registra o tempo até a tela de login ser exibida. Chamado pela própria
+     * tela na partida da aplicação.
+     */
+    public static void registrarJanelaLogin() {
+        if (janelaExibida.getCount() > 0) {
+            janelaLoginNanos = desdePartida();
+            Metricas.registrarTempo("inicializacao.janela.login", janelaLoginNanos);
+            janelaExibida.countDown();
+        }
+    }
+
+    /**
+     * Escreve os tempos de partida na saída padrão e encerra a aplicação
+     * (modo de medição).
+     */
+    private static void informarPartida(long prontoNanos) {
+        try {
+            janelaExibida.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("janela.login.ms=%d%nprimeira.consulta.ms=%d%n",
+                TimeUnit.NANOSECONDS.toMillis(janelaLoginNanos), TimeUnit.NANOSECONDS.toMillis(prontoNanos));
+        System.exit(0);
+    }
+
+    /**
+     * Registra o tempo até a primeira tabela preenchida e o informa no log.
+     * Chamado pelas telas ao carregar a listagem inicial; apenas a primeira
+     * chamada é considerada.
+     */
+    public static void registrarPrimeiraTabela() {
+        if (primeiraTabela.compareAndSet(false, true)) {
+            long nanos = desdePartida();
+            Metricas.registrarTempo("inicializacao.primeira.tabela", nanos);
+            LOG.fine(() -> String.format("Primeira tabela preenchida %d ms após a partida", nanos / 1_000_000));
+        }
+    }
+
+    /**
+     * Tempo decorrido desde a partida da JVM.
+     */
+    private static long desdePartida() {
+        return TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+}
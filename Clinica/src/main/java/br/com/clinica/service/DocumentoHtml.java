@@ -0,0 +1,64 @@
+package br.com.clinica.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Montagem e gravação dos documentos HTML gerados pelos relatórios em lote
+ * ({@link AgendaDiariaBatch} e {@link PacoteGerencialService}), com o mesmo
+ * cabeçalho e estilo de tabelas.
+ */
+final class DocumentoHtml {
+
+    private DocumentoHtml() {
+    }
+
+    /**
+     * Envolve o corpo em um documento HTML completo.
+     *
+     * @param titulo título do documento, ainda sem escape
+     * @param estilos regras de CSS próprias do relatório, acrescentadas às
+     * regras comuns
+     * @param corpo conteúdo do {@code <body>}, já em HTML
+     * @return documento completo
+     */
+    static String documento(String titulo, String estilos, String corpo) {
+        return "<!DOCTYPE html>\n<html lang=\"pt-BR\">\n<head>\n<meta charset=\"UTF-8\">\n"
+                + "<title>" + escapar(titulo) + "</title>\n"
+                + "<style>\n"
+                + "body { font-family: sans-serif; }\n"
+                + "table { border-collapse: collapse; width: 100%; }\n"
+                + "th, td { border: 1px solid #999; padding: 4px 8px; text-align: left; }\n"
+                + estilos
+                + "</style>\n</head>\n<body>\n" + corpo + "</body>\n</html>\n";
+    }
+
+    /**
+     * Escapa os caracteres especiais do HTML.
+     *
+     * @param texto texto a exibir, possivelmente {@code null}
+     * @return texto escapado, ou vazio se {@code null}
+     */
+    static String escapar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Grava o documento em UTF-8, substituindo o arquivo se existir.
+     *
+     * @param arquivo arquivo de destino
+     * @param conteudo documento
+     * @throws IOException se a gravação falhar
+     */
+    static void gravar(Path arquivo, String conteudo) throws IOException {
+        try (Writer out = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            out.write(conteudo);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.FiltroRelatorio;
+import br.com.clinica.model.Usuario;
+import br.com.clinica.util.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Exportação de relatórios de consultas em CSV, lidos do banco em fluxo.
+ * <p>
+ * As linhas são lidas como projeção (id, paciente, médico, data, hora e
+ * status), sem criar entidades {@code Consulta}, por um cursor somente para
+ * frente com {@link #FETCH_SIZE} linhas por ida ao banco
+ * ({@code useCursorFetch=true} na URL de conexão), e escritas no destino à
+ * medida que chegam. O uso de memória não depende da quantidade de linhas
+ * exportadas.
+ *
+ * <p>
+ * O arquivo usa {@code ;} como separador, formato aceito diretamente pelo
+ * Excel em português.
+ */
+public class ExportacaoService {
+
+    /**
+     * Quantidade de linhas buscadas por ida ao banco e intervalo entre
+     * notificações de progresso.
+     */
+    public static final int FETCH_SIZE = 1000;
+
+    private static final char SEPARADOR = ';';
+
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Conta as consultas do relatório, para o acompanhamento do progresso.
+     *
+     * @param filtro filtro selecionado
+     * @param usuario usuário logado
+     * @param perfil perfil normalizado do usuário
+     * @param valor valor do filtro
+     * @return quantidade de consultas que serão exportadas
+     */
+    public long contar(FiltroRelatorio filtro, Usuario usuario, String perfil, Object valor) {
+        Map<String, Object> parametros = new HashMap<>();
+        String condicao = filtro.condicao(usuario, perfil, valor, parametros);
+        return TransacaoJPA.consultar(em -> {
+            TypedQuery<Long> query = em.createQuery(
+                    "SELECT COUNT(c) FROM Consulta c WHERE " + condicao, Long.class);
+            parametros.forEach(query::setParameter);
+            return query.getSingleResult();
+        });
+    }
+
+    /**
+     * Escreve o relatório em CSV no destino informado.
+     * <p>
+     * A exportação pode ser interrompida interrompendo a thread que a executa
+     * (por exemplo, {@code SwingWorker.cancel(true)}).
+     * <p>
+     * Usa um {@link EntityManager} próprio em vez de
+     * {@link TransacaoJPA#consultar}: uma nova tentativa automática depois que
+     * parte das linhas já foi escrita duplicaria o conteúdo do arquivo.
+     *
+     * @param filtro filtro selecionado
+     * @param usuario usuário logado
+     * @param perfil perfil normalizado do usuário
+     * @param valor valor do filtro
+     * @param destino destino do CSV (não é fechado por este método)
+     * @param progresso recebe a quantidade de linhas já escritas, a cada
+     * {@link #FETCH_SIZE} linhas e ao final
+     * @return quantidade de linhas exportadas
+     * @throws IOException se a escrita no destino falhar
+     * @throws CancellationException se a thread for interrompida
+     */
+    public long exportarCsv(FiltroRelatorio filtro, Usuario usuario, String perfil, Object valor,
+            Writer destino, LongConsumer progresso) throws IOException {
+        Map<String, Object> parametros = new HashMap<>();
+        String condicao = filtro.condicao(usuario, perfil, valor, parametros);
+
+        destino.write("ID;Paciente;Médico;Data;Hora;Status\r\n");
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT c.id, p.nome, m.nome, c.dataAgendada, c.horaAgendada, c.status "
+                    + "FROM Consulta c LEFT JOIN c.paciente p LEFT JOIN c.medico m "
+                    + "WHERE " + condicao + " ORDER BY c.id",
+                    Object[].class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true);
+            parametros.forEach(query::setParameter);
+
+            long escritas = 0;
+            StringBuilder linha = new StringBuilder(128);
+            try (Stream<Object[]> fluxo = query.getResultStream()) {
+                Iterator<Object[]> it = fluxo.iterator();
+                while (it.hasNext()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException("Exportação cancelada");
+                    }
+                    Object[] c = it.next();
+                    linha.setLength(0);
+                    linha.append(c[0]).append(SEPARADOR);
+                    campo(linha, (String) c[1]).append(SEPARADOR);
+                    campo(linha, (String) c[2]).append(SEPARADOR);
+                    linha.append(c[3] != null ? ((LocalDate) c[3]).format(FMT_DATA) : "").append(SEPARADOR);
+                    linha.append(c[4] != null ? c[4] : "").append(SEPARADOR);
+                    linha.append(c[5] != null ? c[5] : "").append("\r\n");
+                    destino.append(linha);
+
+                    if (++escritas % FETCH_SIZE == 0) {
+                        progresso.accept(escritas);
+                    }
+                }
+            }
+            progresso.accept(escritas);
+            return escritas;
+        } finally {
+            if (em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Acrescenta um campo de texto, entre aspas quando contém separador,
+     * aspas ou quebra de linha.
+     */
+    private static StringBuilder campo(StringBuilder linha, String valor) {
+        if (valor == null) {
+            return linha;
+        }
+        if (valor.indexOf(SEPARADOR) < 0 && valor.indexOf('"') < 0
+                && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return linha.append(valor);
+        }
+        return linha.append('"').append(valor.replace("\"", "\"\"")).append('"');
+    }
+}
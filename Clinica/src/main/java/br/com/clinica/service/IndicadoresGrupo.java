@@ -0,0 +1,105 @@
+package br.com.clinica.service;
+
+/**
+ * Linha dos indicadores de cancelamento e falta de um mês, calculada por
+ * {@link IndicadoresService}.
+ * <p>
+ * Cada linha representa um grupo (um médico, uma especialidade, um dia da
+ * semana ou uma faixa de antecedência) e traz o total de consultas, as
+ * canceladas e as faltas.
+ */
+public class IndicadoresGrupo {
+
+    /**
+     * Descrição do grupo exibida ao usuário.
+     */
+    private final String grupo;
+
+    /**
+     * Quantidade de consultas do grupo, em qualquer status.
+     */
+    private final long total;
+
+    /**
+     * Quantidade de consultas canceladas no grupo.
+     */
+    private final long canceladas;
+
+    /**
+     * Quantidade de faltas no grupo: consultas cujo horário já passou e que
+     * continuam {@code AGENDADA}, sem terem sido realizadas nem canceladas.
+     */
+    private final long faltas;
+
+    /**
+     * Cria uma linha de indicadores.
+     *
+     * @param grupo descrição do grupo
+     * @param total consultas do grupo
+     * @param canceladas consultas canceladas
+     * @param faltas faltas
+     */
+    public IndicadoresGrupo(String grupo, long total, long canceladas, long faltas) {
+        this.grupo = grupo;
+        this.total = total;
+        this.canceladas = canceladas;
+        this.faltas = faltas;
+    }
+
+    /**
+     * Retorna a descrição do grupo.
+     *
+     * @return grupo
+     */
+    public String getGrupo() {
+        return grupo;
+    }
+
+    /**
+     * Retorna o total de consultas do grupo.
+     *
+     * @return total de consultas
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Retorna a quantidade de consultas canceladas.
+     *
+     * @return consultas canceladas
+     */
+    public long getCanceladas() {
+        return canceladas;
+    }
+
+    /**
+     * Retorna a quantidade de faltas.
+     *
+     * @return faltas
+     */
+    public long getFaltas() {
+        return faltas;
+    }
+
+    /**
+     * Retorna a taxa de cancelamento do grupo.
+     *
+     * @return canceladas sobre o total, entre 0 e 1 (0 se não houver
+     * consultas)
+     */
+    public double getTaxaCancelamento() {
+        return total == 0 ? 0 : (double) canceladas / total;
+    }
+
+    /**
+     * Retorna a taxa de faltas do grupo, sobre as consultas não canceladas.
+     *
+     * @return faltas sobre as consultas não canceladas, entre 0 e 1 (0 se não
+     * houver consultas)
+     */
+    public double getTaxaFalta() {
+        long mantidas = total - canceladas;
+        return mantidas == 0 ? 0 : (double) faltas / mantidas;
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.clinica.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Indicadores de cancelamento e falta de um mês, por médico, especialidade,
+ * dia da semana e antecedência do agendamento.
+ * <p>
+ * Instâncias são imutáveis e podem ser reaproveitadas pelo cache do
+ * {@link IndicadoresService}.
+ */
+public class IndicadoresMes {
+
+    private final YearMonth mes;
+    private final IndicadoresGrupo geral;
+    private final List<IndicadoresGrupo> porMedico;
+    private final List<IndicadoresGrupo> porEspecialidade;
+    private final List<IndicadoresGrupo> porDiaSemana;
+    private final List<IndicadoresGrupo> porAntecedencia;
+
+    IndicadoresMes(YearMonth mes, IndicadoresGrupo geral, List<IndicadoresGrupo> porMedico,
+            List<IndicadoresGrupo> porEspecialidade, List<IndicadoresGrupo> porDiaSemana,
+            List<IndicadoresGrupo> porAntecedencia) {
+        this.mes = mes;
+        this.geral = geral;
+        this.porMedico = List.copyOf(porMedico);
+        this.porEspecialidade = List.copyOf(porEspecialidade);
+        this.porDiaSemana = List.copyOf(porDiaSemana);
+        this.porAntecedencia = List.copyOf(porAntecedencia);
+    }
+
+    public YearMonth getMes() {
+        return mes;
+    }
+
+    /**
+     * Indicadores do mês inteiro.
+     *
+     * @return linha geral
+     */
+    public IndicadoresGrupo getGeral() {
+        return geral;
+    }
+
+    /**
+     * Indicadores por médico, em ordem de nome.
+     *
+     * @return uma linha por médico com consultas no mês
+     */
+    public List<IndicadoresGrupo> getPorMedico() {
+        return porMedico;
+    }
+
+    /**
+     * Indicadores por especialidade, em ordem alfabética.
+     *
+     * @return uma linha por especialidade com consultas no mês
+     */
+    public List<IndicadoresGrupo> getPorEspecialidade() {
+        return porEspecialidade;
+    }
+
+    /**
+     * Indicadores por dia da semana, de segunda a domingo.
+     *
+     * @return sete linhas
+     */
+    public List<IndicadoresGrupo> getPorDiaSemana() {
+        return porDiaSemana;
+    }
+
+    /**
+     * Indicadores por antecedência entre a marcação e a data da consulta.
+     *
+     * @return uma linha por faixa de antecedência
+     */
+    public List<IndicadoresGrupo> getPorAntecedencia() {
+        return porAntecedencia;
+    }
+}
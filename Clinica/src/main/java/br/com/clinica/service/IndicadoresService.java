@@ -0,0 +1,345 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.IndicadorMensal;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.TypedQuery;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Indicadores mensais de cancelamento e falta das consultas, por médico,
+ * especialidade, dia da semana e antecedência do agendamento.
+ * <p>
+ * Falta é a consulta cujo horário já passou e que continua
+ * {@link StatusConsulta#AGENDADA}: não foi marcada como realizada nem
+ * cancelada. A antecedência é contada em dias entre a marcação
+ * ({@code criadaEm}) e a data da consulta; consultas anteriores ao registro
+ * da marcação aparecem em "Sem registro".
+ *
+ * <p>
+ * Todos os indicadores de um mês saem de uma única leitura em fluxo das
+ * consultas do mês. Os de meses já encerrados são gravados na tabela
+ * {@code indicador_mensal} ({@link IndicadorMensal}) e guardados em memória,
+ * e são reaproveitados, inclusive depois de reiniciar a aplicação, enquanto
+ * as consultas do mês não mudarem. Antes de reaproveitá-los, uma assinatura
+ * das consultas do mês ({@code COUNT}, soma das versões e maior id) confirma
+ * que nenhuma foi incluída, alterada ou removida, inclusive por outras
+ * estações; o índice {@code idx_consulta_data_medico_versao} (data, médico e
+ * versão, além do id que acompanha todo índice secundário no InnoDB) cobre
+ * essa consulta, que não lê as linhas da tabela. O mês corrente é sempre
+ * recalculado.
+ */
+public class IndicadoresService {
+
+    private static final Logger LOG = Logger.getLogger(IndicadoresService.class.getName());
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final Locale LOCALE = Locale.forLanguageTag("pt-BR");
+
+    /**
+     * Faixas de antecedência; a última recebe as consultas sem registro da
+     * marcação.
+     */
+    private static final String[] FAIXAS_ANTECEDENCIA = {
+        "Mesmo dia", "1 a 2 dias", "3 a 7 dias", "8 a 14 dias", "15 a 30 dias", "Mais de 30 dias", "Sem registro"
+    };
+
+    private static final int TOTAL = 0;
+    private static final int CANCELADAS = 1;
+    private static final int FALTAS = 2;
+
+    /**
+     * Agrupamentos gravados em {@code indicador_mensal}.
+     */
+    private static final String GERAL = "GERAL";
+    private static final String MEDICO = "MEDICO";
+    private static final String ESPECIALIDADE = "ESPECIALIDADE";
+    private static final String DIA_SEMANA = "DIA_SEMANA";
+    private static final String ANTECEDENCIA = "ANTECEDENCIA";
+
+    /**
+     * Indicadores dos meses encerrados, por mês e médico.
+     */
+    private static final Map<String, Entrada> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Retorna os indicadores do mês.
+     *
+     * @param mes mês desejado
+     * @param medicoId médico ao qual os indicadores são restritos, ou
+     * {@code null} para todos
+     * @return indicadores do mês
+     */
+    public IndicadoresMes calcular(YearMonth mes, Integer medicoId) {
+        if (!mes.atEndOfMonth().isBefore(LocalDate.now())) {
+            return ler(mes, medicoId);
+        }
+
+        String chave = mes + "|" + (medicoId != null ? medicoId : "*");
+        String assinatura = assinatura(mes, medicoId);
+        Entrada entrada = CACHE.get(chave);
+        if (entrada != null && entrada.assinatura.equals(assinatura)) {
+            Metricas.incrementar("relatorio.indicadores.cache.acerto");
+            return entrada.indicadores;
+        }
+        IndicadoresMes indicadores = lerGravados(mes, medicoId, assinatura);
+        if (indicadores != null) {
+            Metricas.incrementar("relatorio.indicadores.cache.gravado");
+        } else {
+            Metricas.incrementar("relatorio.indicadores.cache.falha");
+            indicadores = ler(mes, medicoId);
+            gravar(mes, medicoId, assinatura, indicadores);
+        }
+        CACHE.put(chave, new Entrada(assinatura, indicadores));
+        return indicadores;
+    }
+
+    /**
+     * Descarta os indicadores guardados em memória, como num reinício da
+     * aplicação. Os gravados no banco continuam valendo.
+     */
+    static void esquecerCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Lê os indicadores gravados do mês, se foram calculados sobre as mesmas
+     * consultas.
+     *
+     * @return indicadores gravados, ou {@code null} se não houver ou se a
+     * assinatura mudou
+     */
+    private IndicadoresMes lerGravados(YearMonth mes, Integer medicoId, String assinatura) {
+        List<IndicadorMensal> linhas = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT i FROM IndicadorMensal i WHERE i.mes = :mes AND i.medicoId = :medicoId "
+                + "ORDER BY i.dimensao, i.ordem",
+                IndicadorMensal.class)
+                .setParameter("mes", mes.toString())
+                .setParameter("medicoId", medicoId != null ? medicoId : 0)
+                .getResultList());
+        if (linhas.isEmpty() || !linhas.get(0).getAssinatura().equals(assinatura)) {
+            return null;
+        }
+        Map<String, List<IndicadoresGrupo>> porDimensao = new HashMap<>();
+        for (IndicadorMensal l : linhas) {
+            porDimensao.computeIfAbsent(l.getDimensao(), k -> new ArrayList<>()).add(
+                    new IndicadoresGrupo(l.getGrupo(), l.getTotal(), l.getCanceladas(), l.getFaltas()));
+        }
+        List<IndicadoresGrupo> geral = porDimensao.get(GERAL);
+        if (geral == null) {
+            return null;
+        }
+        return new IndicadoresMes(mes, geral.get(0),
+                porDimensao.getOrDefault(MEDICO, List.of()),
+                porDimensao.getOrDefault(ESPECIALIDADE, List.of()),
+                porDimensao.getOrDefault(DIA_SEMANA, List.of()),
+                porDimensao.getOrDefault(ANTECEDENCIA, List.of()));
+    }
+
+    /**
+     * Substitui os indicadores gravados do mês pelos recém-calculados. Se
+     * outra estação gravar o mesmo mês ao mesmo tempo, a chave única recusa
+     * uma das gravações; o resultado calculado continua válido e é devolvido
+     * mesmo assim.
+     */
+    private void gravar(YearMonth mes, Integer medicoId, String assinatura, IndicadoresMes indicadores) {
+        String m = mes.toString();
+        int medico = medicoId != null ? medicoId : 0;
+        try {
+            TransacaoJPA.executar(em -> {
+                em.createQuery("DELETE FROM IndicadorMensal i WHERE i.mes = :mes AND i.medicoId = :medicoId")
+                        .setParameter("mes", m)
+                        .setParameter("medicoId", medico)
+                        .executeUpdate();
+                List<IndicadoresGrupo> geral = List.of(indicadores.getGeral());
+                gravar(em, m, medico, assinatura, GERAL, geral);
+                gravar(em, m, medico, assinatura, MEDICO, indicadores.getPorMedico());
+                gravar(em, m, medico, assinatura, ESPECIALIDADE, indicadores.getPorEspecialidade());
+                gravar(em, m, medico, assinatura, DIA_SEMANA, indicadores.getPorDiaSemana());
+                gravar(em, m, medico, assinatura, ANTECEDENCIA, indicadores.getPorAntecedencia());
+                return null;
+            });
+        } catch (PersistenceException e) {
+            LOG.log(Level.FINE, "Indicadores de " + m + " não gravados", e);
+        }
+    }
+
+    private static void gravar(EntityManager em, String mes, int medicoId, String assinatura, String dimensao,
+            List<IndicadoresGrupo> grupos) {
+        for (int i = 0; i < grupos.size(); i++) {
+            IndicadoresGrupo g = grupos.get(i);
+            em.persist(new IndicadorMensal(mes, medicoId, assinatura, dimensao, i,
+                    g.getGrupo(), g.getTotal(), g.getCanceladas(), g.getFaltas()));
+        }
+    }
+
+    /**
+     * Resume o estado das consultas do mês: qualquer inclusão, alteração
+     * (que incrementa a versão) ou remoção muda o resultado.
+     */
+    private String assinatura(YearMonth mes, Integer medicoId) {
+        Object[] r = TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT COUNT(c), COALESCE(SUM(c.versao), 0), COALESCE(MAX(c.id), 0) FROM Consulta c "
+                    + "WHERE c.dataAgendada BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND c.medico.id = :medicoId" : ""),
+                    Object[].class)
+                    .setParameter("inicio", mes.atDay(1))
+                    .setParameter("fim", mes.atEndOfMonth());
+            if (medicoId != null) {
+                query.setParameter("medicoId", medicoId);
+            }
+            return query.getSingleResult();
+        });
+        return r[0] + "/" + r[1] + "/" + r[2];
+    }
+
+    /**
+     * Lê as consultas do mês em uma única passagem e acumula todos os
+     * indicadores.
+     */
+    private IndicadoresMes ler(YearMonth mes, Integer medicoId) {
+        long t0 = System.nanoTime();
+        IndicadoresMes indicadores = TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT m.id, m.nome, m.especialidade, c.dataAgendada, c.horaAgendada, c.status, c.criadaEm "
+                    + "FROM Consulta c JOIN c.medico m "
+                    + "WHERE c.dataAgendada BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND m.id = :medicoId" : "")
+                    + " ORDER BY m.nome, m.id",
+                    Object[].class)
+                    .setParameter("inicio", mes.atDay(1))
+                    .setParameter("fim", mes.atEndOfMonth())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true);
+            if (medicoId != null) {
+                query.setParameter("medicoId", medicoId);
+            }
+
+            LocalDateTime agora = LocalDateTime.now();
+            long[] geral = new long[3];
+            Map<Integer, long[]> porMedico = new LinkedHashMap<>();
+            Map<Integer, String> nomes = new LinkedHashMap<>();
+            Map<String, long[]> porEspecialidade = new TreeMap<>();
+            long[][] porDia = new long[7][3];
+            long[][] porAntecedencia = new long[FAIXAS_ANTECEDENCIA.length][3];
+
+            try (Stream<Object[]> fluxo = query.getResultStream()) {
+                Iterator<Object[]> it = fluxo.iterator();
+                while (it.hasNext()) {
+                    Object[] l = it.next();
+                    LocalDate data = (LocalDate) l[3];
+                    LocalTime hora = (LocalTime) l[4];
+                    StatusConsulta status = (StatusConsulta) l[5];
+                    LocalDateTime criadaEm = (LocalDateTime) l[6];
+
+                    int situacao = status == StatusConsulta.CANCELADA ? CANCELADAS
+                            : status == StatusConsulta.AGENDADA && hora != null
+                            && LocalDateTime.of(data, hora).isBefore(agora) ? FALTAS
+                            : TOTAL;
+
+                    Integer id = (Integer) l[0];
+                    nomes.putIfAbsent(id, (String) l[1]);
+                    String especialidade = l[2] != null ? (String) l[2] : "";
+                    somar(geral, situacao);
+                    somar(porMedico.computeIfAbsent(id, k -> new long[3]), situacao);
+                    somar(porEspecialidade.computeIfAbsent(especialidade, k -> new long[3]), situacao);
+                    somar(porDia[data.getDayOfWeek().getValue() - 1], situacao);
+                    somar(porAntecedencia[faixa(criadaEm, data)], situacao);
+                }
+            }
+
+            List<IndicadoresGrupo> medicos = new ArrayList<>();
+            porMedico.forEach((id, c) -> medicos.add(grupo(nomes.get(id), c)));
+            List<IndicadoresGrupo> especialidades = new ArrayList<>();
+            porEspecialidade.forEach((nome, c) -> especialidades.add(grupo(nome, c)));
+            List<IndicadoresGrupo> dias = new ArrayList<>();
+            for (DayOfWeek d : DayOfWeek.values()) {
+                dias.add(grupo(d.getDisplayName(TextStyle.FULL, LOCALE), porDia[d.getValue() - 1]));
+            }
+            List<IndicadoresGrupo> antecedencias = new ArrayList<>();
+            for (int i = 0; i < FAIXAS_ANTECEDENCIA.length; i++) {
+                antecedencias.add(grupo(FAIXAS_ANTECEDENCIA[i], porAntecedencia[i]));
+            }
+            return new IndicadoresMes(mes, grupo("Total", geral), medicos, especialidades, dias, antecedencias);
+        });
+        Metricas.registrarTempo("relatorio.indicadores", System.nanoTime() - t0);
+        return indicadores;
+    }
+
+    /**
+     * Conta uma consulta no total e, se for o caso, nas canceladas ou nas
+     * faltas.
+     */
+    private static void somar(long[] contagem, int situacao) {
+        contagem[TOTAL]++;
+        if (situacao != TOTAL) {
+            contagem[situacao]++;
+        }
+    }
+
+    private static IndicadoresGrupo grupo(String nome, long[] c) {
+        return new IndicadoresGrupo(nome, c[TOTAL], c[CANCELADAS], c[FALTAS]);
+    }
+
+    /**
+     * Índice da faixa de antecedência entre a marcação e a consulta.
+     */
+    private static int faixa(LocalDateTime criadaEm, LocalDate data) {
+        if (criadaEm == null) {
+            return FAIXAS_ANTECEDENCIA.length - 1;
+        }
+        long dias = ChronoUnit.DAYS.between(criadaEm.toLocalDate(), data);
+        if (dias <= 0) {
+            return 0;
+        }
+        if (dias <= 2) {
+            return 1;
+        }
+        if (dias <= 7) {
+            return 2;
+        }
+        if (dias <= 14) {
+            return 3;
+        }
+        return dias <= 30 ? 4 : 5;
+    }
+
+    /**
+     * Indicadores de um mês encerrado e a assinatura das consultas das quais
+     * foram calculados.
+     */
+    private static final class Entrada {
+
+        private final String assinatura;
+        private final IndicadoresMes indicadores;
+
+        Entrada(String assinatura, IndicadoresMes indicadores) {
+            this.assinatura = assinatura;
+            this.indicadores = indicadores;
+        }
+    }
+}
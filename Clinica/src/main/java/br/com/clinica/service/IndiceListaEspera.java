@@ -0,0 +1,201 @@
+package br.com.clinica.service;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice em memória dos pedidos ativos da lista de espera.
+ * <p>
+ * Os pedidos são mantidos em dois índices — por médico e por especialidade —
+ * e, dentro de cada índice, ordenados pela data final da janela
+ * preferencial. Assim, para cada vaga só são examinados os pedidos do mesmo
+ * médico/especialidade que ainda aceitam a data da vaga, sem percorrer a
+ * lista inteira.
+ *
+ * <p>
+ * O índice é alterado pela thread que publica as gravações no barramento e
+ * lido pela thread de eventos do Swing; por isso todos os métodos são
+ * sincronizados.
+ */
+final class IndiceListaEspera {
+
+    /**
+     * Ordem de prioridade dentro de cada grupo (médico exato ou
+     * especialidade): ordem de chegada.
+     */
+    private static final Comparator<ListaEspera> ORDEM_CHEGADA
+            = Comparator.comparing(ListaEspera::getCriadoEm,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * Pedidos ativos por id do médico, ordenados pela data final.
+     */
+    private final Map<Integer, NavigableMap<LocalDate, List<ListaEspera>>> porMedico = new HashMap<>();
+
+    /**
+     * Pedidos ativos sem médico definido, por especialidade normalizada e
+     * ordenados pela data final.
+     */
+    private final Map<String, NavigableMap<LocalDate, List<ListaEspera>>> porEspecialidade = new HashMap<>();
+
+    /**
+     * Pedidos indexados, por id, para localizar a versão anterior de um pedido
+     * alterado.
+     */
+    private final Map<Integer, ListaEspera> porId = new HashMap<>();
+
+    /**
+     * Cria o índice com os pedidos informados; os inativos são ignorados.
+     *
+     * @param pedidos pedidos da lista de espera
+     */
+    IndiceListaEspera(Collection<ListaEspera> pedidos) {
+        for (ListaEspera l : pedidos) {
+            aplicar(l.getId(), l);
+        }
+    }
+
+    /**
+     * Substitui o pedido de id informado pelo seu estado atual: retira a
+     * versão anterior, se houver, e indexa a nova, se ainda estiver ativa.
+     *
+     * @param id id do pedido
+     * @param pedido estado atual do pedido, ou {@code null} se foi removido
+     */
+    synchronized void aplicar(int id, ListaEspera pedido) {
+        ListaEspera anterior = porId.remove(id);
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+        if (pedido != null && pedido.isAtiva() && indexar(pedido)) {
+            porId.put(id, pedido);
+        }
+    }
+
+    /**
+     * Retorna a quantidade de pedidos indexados.
+     *
+     * @return pedidos ativos no índice
+     */
+    synchronized int tamanho() {
+        return porId.size();
+    }
+
+    /**
+     * Busca os melhores candidatos para a vaga, ignorando os já reservados:
+     * primeiro os pedidos para o médico da vaga e depois os pedidos por
+     * especialidade, cada grupo em ordem de chegada.
+     *
+     * @param vaga consulta cancelada
+     * @param reservados ids dos pedidos a ignorar
+     * @param limite quantidade máxima de candidatos
+     * @return candidatos em ordem de prioridade
+     */
+    synchronized List<ListaEspera> buscarCandidatos(Consulta vaga, Set<Integer> reservados, int limite) {
+        LocalDate data = vaga.getDataAgendada();
+        LocalTime hora = vaga.getHoraAgendada();
+
+        List<ListaEspera> doMedico = filtrar(porMedico.get(vaga.getMedico().getId()), data, hora, reservados);
+        List<ListaEspera> daEspecialidade = filtrar(
+                porEspecialidade.get(normalizar(vaga.getMedico().getEspecialidade())), data, hora, reservados);
+
+        doMedico.sort(ORDEM_CHEGADA);
+        daEspecialidade.sort(ORDEM_CHEGADA);
+
+        List<ListaEspera> candidatos = new ArrayList<>(limite);
+        for (ListaEspera l : doMedico) {
+            if (candidatos.size() == limite) {
+                return candidatos;
+            }
+            candidatos.add(l);
+        }
+        for (ListaEspera l : daEspecialidade) {
+            if (candidatos.size() == limite) {
+                break;
+            }
+            candidatos.add(l);
+        }
+        return candidatos;
+    }
+
+    /**
+     * Percorre apenas os pedidos cuja data final é igual ou posterior à data
+     * da vaga e mantém os que também aceitam o início e o horário.
+     */
+    private List<ListaEspera> filtrar(NavigableMap<LocalDate, List<ListaEspera>> indice,
+            LocalDate data, LocalTime hora, Set<Integer> reservados) {
+        List<ListaEspera> resultado = new ArrayList<>();
+        if (indice == null) {
+            return resultado;
+        }
+        for (List<ListaEspera> pedidos : indice.tailMap(data, true).values()) {
+            for (ListaEspera l : pedidos) {
+                if (!reservados.contains(l.getId())
+                        && !l.getDataInicial().isAfter(data)
+                        && l.aceitaHorario(hora)) {
+                    resultado.add(l);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private boolean indexar(ListaEspera l) {
+        NavigableMap<LocalDate, List<ListaEspera>> indice = indiceDe(l, true);
+        if (indice == null) {
+            return false;
+        }
+        indice.computeIfAbsent(l.getDataFinal(), d -> new ArrayList<>()).add(l);
+        return true;
+    }
+
+    private void desindexar(ListaEspera l) {
+        NavigableMap<LocalDate, List<ListaEspera>> indice = indiceDe(l, false);
+        if (indice == null) {
+            return;
+        }
+        List<ListaEspera> pedidos = indice.get(l.getDataFinal());
+        if (pedidos != null) {
+            pedidos.removeIf(p -> p.getId() == l.getId());
+            if (pedidos.isEmpty()) {
+                indice.remove(l.getDataFinal());
+            }
+        }
+    }
+
+    /**
+     * Retorna o índice (por médico ou por especialidade) ao qual o pedido
+     * pertence.
+     */
+    private NavigableMap<LocalDate, List<ListaEspera>> indiceDe(ListaEspera l, boolean criar) {
+        if (l.getDataInicial() == null || l.getDataFinal() == null) {
+            return null;
+        }
+        if (l.getMedico() != null) {
+            int medicoId = l.getMedico().getId();
+            return criar ? porMedico.computeIfAbsent(medicoId, k -> new TreeMap<>()) : porMedico.get(medicoId);
+        }
+        String especialidade = normalizar(l.getEspecialidade());
+        if (especialidade.isEmpty()) {
+            return null;
+        }
+        return criar
+                ? porEspecialidade.computeIfAbsent(especialidade, k -> new TreeMap<>())
+                : porEspecialidade.get(especialidade);
+    }
+
+    private static String normalizar(String especialidade) {
+        return especialidade == null ? "" : especialidade.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,189 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ListaEsperaDAO;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import br.com.clinica.util.AlteracaoEntidade;
+import br.com.clinica.util.BarramentoAlteracoes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serviço responsável pela lista de espera e pelo encaixe automático de
+ * pacientes em vagas liberadas por cancelamento.
+ * <p>
+ * Os pedidos ativos são mantidos em um {@link IndiceListaEspera} único por
+ * estação, carregado na primeira vez em que é usado e compartilhado por todas
+ * as instâncias do serviço. A partir daí o índice não relê a tabela: cada
+ * inclusão, alteração ou remoção de pedido, feita nesta estação ou recebida
+ * das demais pelo {@link SincronizacaoService}, chega pelo
+ * {@link BarramentoAlteracoes} e é aplicada ao índice. Criar o serviço não
+ * custa nenhuma leitura.
+ *
+ * <p>
+ * Cancelamentos em lote (por exemplo, o dia inteiro de um médico) são tratados
+ * por {@link #proporEncaixes(Collection)}, que evita indicar o mesmo pedido
+ * como primeira opção para mais de uma vaga.
+ */
+public class ListaEsperaService {
+
+    /**
+     * Quantidade máxima de candidatos sugeridos por vaga.
+     */
+    private static final int MAX_CANDIDATOS = 3;
+
+    /**
+     * Índice compartilhado, ou {@code null} antes da primeira carga. Protegido
+     * pelo monitor de {@code ALTERACOES}.
+     */
+    private static IndiceListaEspera compartilhado;
+
+    /**
+     * Alterações recebidas durante a carga do índice compartilhado, aplicadas
+     * ao final dela; {@code null} fora da carga. Protegido pelo monitor de
+     * {@code ALTERACOES}.
+     */
+    private static List<AlteracaoEntidade> recebidasNaCarga;
+
+    private static final Object ALTERACOES = new Object();
+
+    static {
+        BarramentoAlteracoes.assinarImediato(ListaEspera.class, ListaEsperaService::aplicar);
+    }
+
+    private final ListaEsperaDAO listaEsperaDAO = new ListaEsperaDAO();
+
+    /**
+     * Índice próprio desta instância, ou {@code null} para usar o
+     * compartilhado.
+     */
+    private final IndiceListaEspera indice;
+
+    /**
+     * Cria o serviço sobre o índice compartilhado da estação.
+     */
+    public ListaEsperaService() {
+        this(null);
+    }
+
+    /**
+     * Cria o serviço sobre o índice informado.
+     *
+     * @param indice índice dos pedidos ativos, ou {@code null} para usar o
+     * compartilhado
+     */
+    ListaEsperaService(IndiceListaEspera indice) {
+        this.indice = indice;
+    }
+
+    /**
+     * Registra um novo pedido na lista de espera.
+     *
+     * @param pedido pedido a ser registrado
+     */
+    public void adicionar(ListaEspera pedido) {
+        listaEsperaDAO.inserir(pedido);
+    }
+
+    /**
+     * Gera propostas de encaixe para um conjunto de consultas canceladas.
+     * <p>
+     * As vagas são processadas em ordem cronológica; o primeiro candidato de
+     * cada vaga fica reservado e não é indicado para as vagas seguintes do
+     * mesmo lote. Consultas que não estejam canceladas são ignoradas.
+     *
+     * @param canceladas consultas canceladas
+     * @return propostas com ao menos um candidato
+     */
+    public List<PropostaEncaixe> proporEncaixes(Collection<Consulta> canceladas) {
+        List<Consulta> vagas = new ArrayList<>();
+        for (Consulta c : canceladas) {
+            if (c.getStatus() == StatusConsulta.CANCELADA && c.getMedico() != null
+                    && c.getDataAgendada() != null) {
+                vagas.add(c);
+            }
+        }
+        vagas.sort(Comparator.comparing(Consulta::getDataAgendada)
+                .thenComparing(Consulta::getHoraAgendada, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        IndiceListaEspera pedidos = indice();
+        Set<Integer> reservados = new HashSet<>();
+        List<PropostaEncaixe> propostas = new ArrayList<>();
+        for (Consulta vaga : vagas) {
+            List<ListaEspera> candidatos = pedidos.buscarCandidatos(vaga, reservados, MAX_CANDIDATOS);
+            if (!candidatos.isEmpty()) {
+                reservados.add(candidatos.get(0).getId());
+                propostas.add(new PropostaEncaixe(vaga, candidatos));
+            }
+        }
+        return propostas;
+    }
+
+    /**
+     * Confirma o encaixe de um candidato: agenda a nova consulta no horário da
+     * vaga e retira o pedido da lista de espera, na mesma transação.
+     *
+     * @param proposta proposta de encaixe
+     * @param escolhido candidato escolhido pela recepção
+     * @return consulta criada para o candidato
+     * @throws IllegalStateException se o pedido já foi atendido ou removido,
+     * nesta ou em outra estação
+     */
+    public Consulta confirmarEncaixe(PropostaEncaixe proposta, ListaEspera escolhido) {
+        Consulta vaga = proposta.getVaga();
+        Consulta nova = new Consulta(vaga.getDataAgendada(), vaga.getHoraAgendada(),
+                escolhido.getPaciente(), vaga.getMedico());
+        return listaEsperaDAO.encaixar(escolhido, nova);
+    }
+
+    private IndiceListaEspera indice() {
+        return indice != null ? indice : compartilhado();
+    }
+
+    /**
+     * Retorna o índice compartilhado, carregando-o na primeira chamada. As
+     * alterações publicadas enquanto a carga está em curso são retidas e
+     * aplicadas depois dela, para que nenhuma se perca.
+     */
+    private static synchronized IndiceListaEspera compartilhado() {
+        synchronized (ALTERACOES) {
+            if (compartilhado != null) {
+                return compartilhado;
+            }
+            recebidasNaCarga = new ArrayList<>();
+        }
+        try {
+            IndiceListaEspera carregado = new IndiceListaEspera(new ListaEsperaDAO().listarAtivas());
+            synchronized (ALTERACOES) {
+                for (AlteracaoEntidade a : recebidasNaCarga) {
+                    carregado.aplicar(a.getId(), a.getRegistro(ListaEspera.class));
+                }
+                compartilhado = carregado;
+                return carregado;
+            }
+        } finally {
+            synchronized (ALTERACOES) {
+                recebidasNaCarga = null;
+            }
+        }
+    }
+
+    /**
+     * Aplica ao índice compartilhado uma alteração de pedido publicada no
+     * barramento.
+     */
+    private static void aplicar(AlteracaoEntidade a) {
+        synchronized (ALTERACOES) {
+            if (compartilhado != null) {
+                compartilhado.aplicar(a.getId(), a.getRegistro(ListaEspera.class));
+            } else if (recebidasNaCarga != null) {
+                recebidasNaCarga.add(a);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.clinica.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Ocupação da agenda de cada médico por dia da semana e hora em um período,
+ * calculada por {@link OcupacaoService}.
+ * <p>
+ * Para cada médico guarda a quantidade de consultas não canceladas em cada
+ * faixa (dia da semana, hora). A capacidade de uma faixa é a quantidade de
+ * vezes que o dia da semana ocorre no período multiplicada por
+ * {@link #CONSULTAS_POR_HORA}; a ocupação pode passar de 100% quando há
+ * encaixes.
+ */
+public class MapaOcupacao {
+
+    /**
+     * Consultas que cabem em uma hora de agenda (consultas de 30 minutos).
+     */
+    public static final int CONSULTAS_POR_HORA = 2;
+
+    private final LocalDate inicio;
+    private final LocalDate fim;
+
+    /**
+     * Ocorrências de cada dia da semana no período (0 = segunda).
+     */
+    private final int[] diasNoPeriodo;
+
+    /**
+     * Nome de cada médico, na ordem de exibição.
+     */
+    private final Map<Integer, String> medicos;
+
+    /**
+     * Consultas por médico, indexadas por {@code dia * 24 + hora}.
+     */
+    private final Map<Integer, int[]> consultas;
+
+    private final int horaInicial;
+    private final int horaFinal;
+
+    MapaOcupacao(LocalDate inicio, LocalDate fim, Map<Integer, String> medicos, Map<Integer, int[]> consultas) {
+        this.inicio = inicio;
+        this.fim = fim;
+        this.medicos = Collections.unmodifiableMap(medicos);
+        this.consultas = consultas;
+
+        this.diasNoPeriodo = new int[7];
+        for (LocalDate d = inicio; !d.isAfter(fim); d = d.plusDays(1)) {
+            diasNoPeriodo[d.getDayOfWeek().getValue() - 1]++;
+        }
+
+        // Expediente padrão, ampliado se houver consultas fora dele.
+        int primeira = 8;
+        int ultima = 17;
+        for (int[] c : consultas.values()) {
+            for (int i = 0; i < c.length; i++) {
+                if (c[i] > 0) {
+                    primeira = Math.min(primeira, i % 24);
+                    ultima = Math.max(ultima, i % 24);
+                }
+            }
+        }
+        this.horaInicial = primeira;
+        this.horaFinal = ultima;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public LocalDate getFim() {
+        return fim;
+    }
+
+    /**
+     * Médicos do mapa (id e nome), em ordem de nome.
+     *
+     * @return médicos do mapa
+     */
+    public Map<Integer, String> getMedicos() {
+        return medicos;
+    }
+
+    /**
+     * Primeira hora com consultas no período (no máximo 8).
+     *
+     * @return hora inicial do mapa
+     */
+    public int getHoraInicial() {
+        return horaInicial;
+    }
+
+    /**
+     * Última hora com consultas no período (no mínimo 17).
+     *
+     * @return hora final do mapa, inclusive
+     */
+    public int getHoraFinal() {
+        return horaFinal;
+    }
+
+    /**
+     * Quantidade de consultas não canceladas do médico na faixa.
+     *
+     * @param medicoId id do médico
+     * @param dia dia da semana
+     * @param hora hora (0 a 23)
+     * @return quantidade de consultas
+     */
+    public int consultas(int medicoId, DayOfWeek dia, int hora) {
+        int[] c = consultas.get(medicoId);
+        return c == null ? 0 : c[(dia.getValue() - 1) * 24 + hora];
+    }
+
+    /**
+     * Quantidade de consultas que cabem em uma faixa do dia da semana no
+     * período.
+     *
+     * @param dia dia da semana
+     * @return capacidade de cada hora desse dia
+     */
+    public int capacidade(DayOfWeek dia) {
+        return diasNoPeriodo[dia.getValue() - 1] * CONSULTAS_POR_HORA;
+    }
+
+    /**
+     * Ocupação do médico na faixa, entre 0 e 1 (ou mais, com encaixes).
+     *
+     * @param medicoId id do médico
+     * @param dia dia da semana
+     * @param hora hora (0 a 23)
+     * @return consultas divididas pela capacidade, ou 0 se o dia não ocorre no
+     * período
+     */
+    public double ocupacao(int medicoId, DayOfWeek dia, int hora) {
+        int capacidade = capacidade(dia);
+        return capacidade == 0 ? 0 : (double) consultas(medicoId, dia, hora) / capacidade;
+    }
+}
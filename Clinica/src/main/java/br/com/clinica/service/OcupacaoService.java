@@ -0,0 +1,137 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Relatório de ocupação da agenda dos médicos por dia da semana e hora.
+ * <p>
+ * As consultas do período são lidas em uma única passagem, em fluxo e como
+ * projeção (médico, data e hora), e somadas em um vetor de 7 × 24 contadores
+ * por médico; nenhuma entidade é criada e a memória usada depende apenas da
+ * quantidade de médicos. Consultas canceladas não ocupam a agenda.
+ */
+public class OcupacaoService {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final char SEPARADOR = ';';
+
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final Locale LOCALE = Locale.forLanguageTag("pt-BR");
+
+    /**
+     * Calcula a ocupação no período.
+     *
+     * @param inicio primeiro dia (inclusive)
+     * @param fim último dia (inclusive)
+     * @param medicoId médico ao qual o relatório é restrito, ou {@code null}
+     * para todos
+     * @return mapa de ocupação
+     */
+    public MapaOcupacao calcular(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        long t0 = System.nanoTime();
+        Map<Integer, String> medicos = new LinkedHashMap<>();
+        for (Object[] m : TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT m.id, m.nome FROM Medico m"
+                    + (medicoId != null ? " WHERE m.id = :medicoId" : "")
+                    + " ORDER BY m.nome",
+                    Object[].class);
+            if (medicoId != null) {
+                query.setParameter("medicoId", medicoId);
+            }
+            return query.getResultList();
+        })) {
+            medicos.put((Integer) m[0], (String) m[1]);
+        }
+
+        Map<Integer, int[]> consultas = TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT c.medico.id, c.dataAgendada, c.horaAgendada FROM Consulta c "
+                    + "WHERE c.dataAgendada BETWEEN :inicio AND :fim AND c.status <> :cancelada "
+                    + (medicoId != null ? "AND c.medico.id = :medicoId" : ""),
+                    Object[].class)
+                    .setParameter("inicio", inicio)
+                    .setParameter("fim", fim)
+                    .setParameter("cancelada", StatusConsulta.CANCELADA)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true);
+            if (medicoId != null) {
+                query.setParameter("medicoId", medicoId);
+            }
+
+            // Sem ORDER BY: o banco não precisa ordenar o período inteiro.
+            // Linhas seguidas do mesmo médico, comuns na ordem do índice,
+            // apenas evitam a busca no mapa.
+            Map<Integer, int[]> contagens = new HashMap<>();
+            Integer atual = null;
+            int[] contagem = null;
+            try (Stream<Object[]> fluxo = query.getResultStream()) {
+                Iterator<Object[]> it = fluxo.iterator();
+                while (it.hasNext()) {
+                    Object[] l = it.next();
+                    if (l[2] == null) {
+                        continue;
+                    }
+                    if (!l[0].equals(atual)) {
+                        atual = (Integer) l[0];
+                        contagem = contagens.computeIfAbsent(atual, k -> new int[7 * 24]);
+                    }
+                    int dia = ((LocalDate) l[1]).getDayOfWeek().getValue() - 1;
+                    contagem[dia * 24 + ((LocalTime) l[2]).getHour()]++;
+                }
+            }
+            return contagens;
+        });
+
+        Metricas.registrarTempo("relatorio.ocupacao", System.nanoTime() - t0);
+        return new MapaOcupacao(inicio, fim, medicos, consultas);
+    }
+
+    /**
+     * Escreve o mapa em CSV, uma linha por médico, dia da semana e hora.
+     *
+     * @param mapa mapa de ocupação
+     * @param destino destino do CSV (não é fechado por este método)
+     * @throws IOException se a escrita no destino falhar
+     */
+    public void exportarCsv(MapaOcupacao mapa, Writer destino) throws IOException {
+        destino.write("Período;" + mapa.getInicio().format(FMT_DATA) + " a " + mapa.getFim().format(FMT_DATA) + "\r\n");
+        destino.write("Médico;Dia da semana;Hora;Consultas;Capacidade;Ocupação (%)\r\n");
+        StringBuilder linha = new StringBuilder(96);
+        for (Map.Entry<Integer, String> m : mapa.getMedicos().entrySet()) {
+            String nome = m.getValue() == null ? "" : m.getValue().replace(SEPARADOR, ',');
+            for (DayOfWeek dia : DayOfWeek.values()) {
+                for (int hora = mapa.getHoraInicial(); hora <= mapa.getHoraFinal(); hora++) {
+                    linha.setLength(0);
+                    linha.append(nome).append(SEPARADOR)
+                            .append(dia.getDisplayName(TextStyle.FULL, LOCALE)).append(SEPARADOR)
+                            .append(String.format("%02d:00", hora)).append(SEPARADOR)
+                            .append(mapa.consultas(m.getKey(), dia, hora)).append(SEPARADOR)
+                            .append(mapa.capacidade(dia)).append(SEPARADOR)
+                            .append(String.format(LOCALE, "%.1f", mapa.ocupacao(m.getKey(), dia, hora) * 100))
+                            .append("\r\n");
+                    destino.append(linha);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.clinica.service;
+
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Pacote gerencial gerado por {@link PacoteGerencialService}: documento HTML
+ * com todas as seções e o tempo de geração de cada uma.
+ */
+public class PacoteGerencial {
+
+    private final YearMonth mes;
+    private final String html;
+
+    /**
+     * Tempo de geração de cada seção, em milissegundos, na ordem do
+     * documento.
+     */
+    private final Map<String, Long> temposMs;
+
+    /**
+     * Tempo total da geração, em milissegundos.
+     */
+    private final long duracaoMs;
+
+    PacoteGerencial(YearMonth mes, String html, Map<String, Long> temposMs, long duracaoMs) {
+        this.mes = mes;
+        this.html = html;
+        this.temposMs = Collections.unmodifiableMap(temposMs);
+        this.duracaoMs = duracaoMs;
+    }
+
+    public YearMonth getMes() {
+        return mes;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public Map<String, Long> getTemposMs() {
+        return temposMs;
+    }
+
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    /**
+     * Soma dos tempos das seções, isto é, o tempo que a geração levaria se as
+     * seções fossem geradas uma após a outra.
+     *
+     * @return soma dos tempos, em milissegundos
+     */
+    public long getSomaSecoesMs() {
+        long soma = 0;
+        for (long t : temposMs.values()) {
+            soma += t;
+        }
+        return soma;
+    }
+}
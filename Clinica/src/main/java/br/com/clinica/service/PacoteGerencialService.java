@@ -0,0 +1,212 @@
+package br.com.clinica.service;
+
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static br.com.clinica.service.DocumentoHtml.documento;
+import static br.com.clinica.service.DocumentoHtml.escapar;
+
+/**
+ * Geração do pacote gerencial mensal: resumo por status, por médico, por
+ * especialidade, evolução dos últimos 12 meses e cancelamentos e faltas, em
+ * um único documento HTML.
+ * <p>
+ * As seções são independentes entre si e geradas em paralelo, cada uma em
+ * sua própria leitura do banco; o tempo total fica próximo ao da seção mais
+ * lenta, e não à soma de todas. A quantidade de threads é limitada à metade
+ * do pool de conexões ({@link JPAUtil#tamanhoPool()}), deixando conexões
+ * livres para as demais telas. O tempo de cada seção é registrado no próprio
+ * documento e em {@link Metricas}.
+ *
+ * <p>
+ * Pode ser executado pela linha de comando:
+ * <pre>
+ * java -cp clinica.jar br.com.clinica.service.PacoteGerencialService [MM/yyyy] [arquivo]
+ * </pre>
+ * Sem argumentos, gera o pacote do mês anterior.
+ */
+public class PacoteGerencialService {
+
+    private static final DateTimeFormatter FMT_MES = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    /**
+     * Estilo próprio do pacote: tempo de geração abaixo de cada seção.
+     */
+    private static final String ESTILOS = "p.tempo { color: #888; font-size: small; }\n";
+
+    private final RelatorioService relatorios = new RelatorioService();
+
+    private final IndicadoresService indicadores = new IndicadoresService();
+
+    /**
+     * Gera o pacote gerencial do mês.
+     *
+     * @param mes mês do pacote
+     * @param medicoId médico ao qual o pacote é restrito, ou {@code null} para
+     * todos
+     * @return documento gerado e tempos das seções
+     * @throws InterruptedException se a thread for interrompida
+     */
+    public PacoteGerencial gerar(YearMonth mes, Integer medicoId) throws InterruptedException {
+        long t0 = System.nanoTime();
+        LocalDate inicio = mes.atDay(1);
+        LocalDate fim = mes.atEndOfMonth();
+
+        Map<String, Callable<String>> secoes = new LinkedHashMap<>();
+        secoes.put("Resumo do mês", () -> tabela(List.of(relatorios.resumoGeral(inicio, fim, medicoId))));
+        if (medicoId == null) {
+            secoes.put("Por médico", () -> tabela(relatorios.resumoPorMedico(inicio, fim, null)));
+            secoes.put("Por especialidade", () -> tabela(relatorios.resumoPorEspecialidade(inicio, fim, null)));
+        }
+        secoes.put("Últimos 12 meses", () -> tabela(
+                relatorios.resumoPorMes(mes.minusMonths(11).atDay(1), fim, medicoId)));
+        secoes.put("Cancelamentos e faltas", () -> tabelaIndicadores(indicadores.calcular(mes, medicoId)));
+
+        int threads = Math.max(1, Math.min(secoes.size(), JPAUtil.tamanhoPool() / 2));
+        ExecutorService execucao = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SecaoGerada>> geradas = new ArrayList<>();
+            for (Map.Entry<String, Callable<String>> secao : secoes.entrySet()) {
+                geradas.add(execucao.submit(() -> {
+                    long inicioSecao = System.nanoTime();
+                    String conteudo = secao.getValue().call();
+                    long nanos = System.nanoTime() - inicioSecao;
+                    Metricas.registrarTempo("relatorio.pacote.secao", nanos);
+                    return new SecaoGerada(secao.getKey(), conteudo, nanos / 1_000_000);
+                }));
+            }
+
+            StringBuilder corpo = new StringBuilder();
+            corpo.append("<h1>Pacote gerencial &mdash; ").append(mes.format(FMT_MES)).append("</h1>\n");
+            Map<String, Long> temposMs = new LinkedHashMap<>();
+            for (Future<SecaoGerada> f : geradas) {
+                SecaoGerada s = f.get();
+                temposMs.put(s.titulo, s.duracaoMs);
+                corpo.append("<section>\n<h2>").append(escapar(s.titulo)).append("</h2>\n")
+                        .append(s.conteudo)
+                        .append("<p class=\"tempo\">Gerada em ").append(s.duracaoMs).append(" ms</p>\n</section>\n");
+            }
+
+            long duracaoMs = (System.nanoTime() - t0) / 1_000_000;
+            corpo.append("<p class=\"tempo\">").append(secoes.size()).append(" seções geradas em ")
+                    .append(duracaoMs).append(" ms com ").append(threads).append(" thread(s).</p>\n");
+            Metricas.registrarTempo("relatorio.pacote", System.nanoTime() - t0);
+            return new PacoteGerencial(mes, documento("Pacote gerencial " + mes.format(FMT_MES), ESTILOS, corpo.toString()),
+                    temposMs, duracaoMs);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            execucao.shutdownNow();
+        }
+    }
+
+    /**
+     * Grava o documento do pacote no arquivo informado.
+     *
+     * @param pacote pacote gerado
+     * @param arquivo arquivo de destino
+     * @throws IOException se a gravação falhar
+     */
+    public void gravar(PacoteGerencial pacote, Path arquivo) throws IOException {
+        DocumentoHtml.gravar(arquivo, pacote.getHtml());
+    }
+
+    /**
+     * Monta a tabela HTML de um resumo por status.
+     */
+    private static String tabela(List<ResumoConsultas> linhas) {
+        StringBuilder sb = new StringBuilder(256 + linhas.size() * 160);
+        sb.append("<table>\n<tr><th>Grupo</th><th>Agendadas</th><th>Realizadas</th><th>Canceladas</th>"
+                + "<th>Total</th><th>Cancelamento (%)</th></tr>\n");
+        for (ResumoConsultas r : linhas) {
+            sb.append("<tr><td>").append(escapar(r.getGrupo())).append("</td>")
+                    .append("<td>").append(r.getAgendadas()).append("</td>")
+                    .append("<td>").append(r.getRealizadas()).append("</td>")
+                    .append("<td>").append(r.getCanceladas()).append("</td>")
+                    .append("<td>").append(r.getTotal()).append("</td>")
+                    .append("<td>").append(String.format("%.1f", r.getTaxaCancelamento() * 100)).append("</td></tr>\n");
+        }
+        return sb.append("</table>\n").toString();
+    }
+
+    /**
+     * Monta a tabela HTML dos indicadores de cancelamento e falta por médico,
+     * precedida da linha geral.
+     */
+    private static String tabelaIndicadores(IndicadoresMes ind) {
+        List<IndicadoresGrupo> linhas = new ArrayList<>();
+        linhas.add(ind.getGeral());
+        linhas.addAll(ind.getPorMedico());
+        StringBuilder sb = new StringBuilder(256 + linhas.size() * 160);
+        sb.append("<table>\n<tr><th>Grupo</th><th>Consultas</th><th>Canceladas</th><th>Faltas</th>"
+                + "<th>Cancelamento (%)</th><th>Faltas (%)</th></tr>\n");
+        for (IndicadoresGrupo g : linhas) {
+            sb.append("<tr><td>").append(escapar(g.getGrupo())).append("</td>")
+                    .append("<td>").append(g.getTotal()).append("</td>")
+                    .append("<td>").append(g.getCanceladas()).append("</td>")
+                    .append("<td>").append(g.getFaltas()).append("</td>")
+                    .append("<td>").append(String.format("%.1f", g.getTaxaCancelamento() * 100)).append("</td>")
+                    .append("<td>").append(String.format("%.1f", g.getTaxaFalta() * 100)).append("</td></tr>\n");
+        }
+        return sb.append("</table>\n").toString();
+    }
+
+    /**
+     * Ponto de entrada da linha de comando.
+     *
+     * @param args mês ({@code MM/yyyy}) e arquivo de destino, ambos opcionais
+     */
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            YearMonth mes = args.length > 0 ? YearMonth.parse(args[0], FMT_MES) : YearMonth.now().minusMonths(1);
+            Path arquivo = Paths.get(args.length > 1 ? args[1] : "pacote-gerencial-" + mes + ".html");
+            PacoteGerencialService service = new PacoteGerencialService();
+            PacoteGerencial pacote = service.gerar(mes, null);
+            service.gravar(pacote, arquivo);
+            pacote.getTemposMs().forEach((secao, ms) -> System.out.println(secao + ": " + ms + " ms"));
+            System.out.println("Pacote gerado em " + pacote.getDuracaoMs() + " ms (soma das seções: "
+                    + pacote.getSomaSecoesMs() + " ms): " + arquivo.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("Falha ao gerar o pacote gerencial: " + e.getMessage());
+            status = 1;
+        } finally {
+            JPAUtil.fechar();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Conteúdo e tempo de geração de uma seção.
+     */
+    private static final class SecaoGerada {
+
+        private final String titulo;
+        private final String conteudo;
+        private final long duracaoMs;
+
+        SecaoGerada(String titulo, String conteudo, long duracaoMs) {
+            this.titulo = titulo;
+            this.conteudo = conteudo;
+            this.duracaoMs = duracaoMs;
+        }
+    }
+}
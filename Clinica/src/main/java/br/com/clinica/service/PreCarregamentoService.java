@@ -0,0 +1,290 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Usuario;
+import br.com.clinica.util.AlteracaoEntidade;
+import br.com.clinica.util.BarramentoAlteracoes;
+import br.com.clinica.util.JPAUtil;
+import br.com.clinica.util.Metricas;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pré-carregamento, logo após o login, dos dados que o usuário provavelmente
+ * abrirá primeiro.
+ * <p>
+ * O conjunto previsto é limitado à agenda em torno do dia atual, de
+ * {@value #DIAS_JANELA} dias antes a {@value #DIAS_JANELA} dias depois de
+ * hoje, e depende do perfil:
+ * <ul>
+ * <li>MEDICO: as consultas do próprio médico nesse período, exibidas ao abrir
+ * os relatórios;</li>
+ * <li>ADMIN e RECEP: as consultas de todos os médicos nesse período, exibidas
+ * na tela de agendamento e nos relatórios;</li>
+ * <li>todos: as tarefas informadas pela interface, como a primeira página de
+ * médicos e pacientes dos combos de seleção.</li>
+ * </ul>
+ * As cargas rodam em segundo plano com no máximo {@value #MAX_THREADS}
+ * threads, abaixo do tamanho do pool de conexões. As telas pedem a agenda a
+ * {@link #agenda()} e {@link #agendaDoMedico(int)}, que entregam o resultado
+ * pré-carregado (aguardando-o, se ainda estiver em curso) ou, se não houver,
+ * consultam o banco. Cada resultado é entregue uma única vez; a partir daí a
+ * tela se mantém atualizada pelo {@link BarramentoAlteracoes}.
+ * <p>
+ * Uma alteração de consulta descarta apenas os resultados ainda não
+ * entregues que ela pode ter desatualizado: os que ainda estão em curso, os
+ * que já contêm a consulta e aqueles em cujo período (e médico) a consulta
+ * gravada passou a se encaixar.
+ *
+ * <p>
+ * Para validar a previsão, as métricas {@code precarga.acerto} e
+ * {@code precarga.falha} contam as listagens atendidas ou não pelo
+ * pré-carregamento, {@code precarga.invalidada} os resultados descartados por
+ * alterações e {@code precarga.nao.usada} os que nenhuma tela pediu até o
+ * login seguinte. A cada listagem pedida, o log em nível {@code FINE} mostra a
+ * taxa de acerto acumulada ({@link #taxaAcerto()}).
+ */
+public final class PreCarregamentoService {
+
+    private static final Logger LOG = Logger.getLogger(PreCarregamentoService.class.getName());
+
+    /**
+     * Máximo de cargas simultâneas.
+     */
+    public static final int MAX_THREADS = 2;
+
+    /**
+     * Dias antes e depois de hoje incluídos na agenda.
+     */
+    public static final int DIAS_JANELA = 7;
+
+    /**
+     * Valor de {@code medicoId} das listagens de todos os médicos.
+     */
+    static final int TODOS_MEDICOS = 0;
+
+    /**
+     * Listagens pré-carregadas ainda não entregues, por chave.
+     */
+    private static final Map<String, Carga> carregadas = new ConcurrentHashMap<>();
+
+    static {
+        BarramentoAlteracoes.assinarImediato(Consulta.class, a -> {
+            int descartadas = 0;
+            for (Map.Entry<String, Carga> e : carregadas.entrySet()) {
+                if (e.getValue().afetadaPor(a) && carregadas.remove(e.getKey(), e.getValue())) {
+                    descartadas++;
+                }
+            }
+            if (descartadas > 0) {
+                Metricas.somar("precarga.invalidada", descartadas);
+            }
+        });
+    }
+
+    private PreCarregamentoService() {
+    }
+
+    /**
+     * Inicia em segundo plano o pré-carregamento do conjunto previsto para o
+     * perfil do usuário. Resultados não usados do login anterior são
+     * descartados.
+     *
+     * @param usuario usuário autenticado
+     * @param tarefas tarefas adicionais, executadas no mesmo conjunto de
+     * threads
+     */
+    public static void iniciar(Usuario usuario, Runnable... tarefas) {
+        Metricas.somar("precarga.nao.usada", carregadas.size());
+        carregadas.clear();
+
+        int threads = Math.max(1, Math.min(MAX_THREADS, JPAUtil.tamanhoPool() / 2));
+        ExecutorService execucao = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pre-carregamento");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            LocalDate inicio = inicioJanela();
+            LocalDate fim = fimJanela();
+            if ("MEDICO".equals(usuario.getPerfil().trim().toUpperCase())) {
+                carregar(execucao, inicio, fim, usuario.getId());
+            } else {
+                carregar(execucao, inicio, fim, TODOS_MEDICOS);
+            }
+            for (Runnable tarefa : tarefas) {
+                execucao.execute(() -> {
+                    try {
+                        tarefa.run();
+                    } catch (RuntimeException e) {
+                        LOG.log(Level.WARNING, "Falha no pré-carregamento", e);
+                    }
+                });
+            }
+        } finally {
+            execucao.shutdown();
+        }
+    }
+
+    /**
+     * Retorna as consultas de todos os médicos no período da agenda,
+     * pré-carregadas se possível.
+     *
+     * @return lista de consultas
+     */
+    public static List<Consulta> agenda() {
+        return obter(inicioJanela(), fimJanela(), TODOS_MEDICOS);
+    }
+
+    /**
+     * Retorna as consultas de um médico no período da agenda, pré-carregadas
+     * se possível.
+     *
+     * @param medicoId id do médico
+     * @return lista de consultas do médico
+     */
+    public static List<Consulta> agendaDoMedico(int medicoId) {
+        return obter(inicioJanela(), fimJanela(), medicoId);
+    }
+
+    /**
+     * Primeiro dia da agenda.
+     *
+     * @return {@value #DIAS_JANELA} dias antes de hoje
+     */
+    public static LocalDate inicioJanela() {
+        return LocalDate.now().minusDays(DIAS_JANELA);
+    }
+
+    /**
+     * Último dia da agenda.
+     *
+     * @return {@value #DIAS_JANELA} dias depois de hoje
+     */
+    public static LocalDate fimJanela() {
+        return LocalDate.now().plusDays(DIAS_JANELA);
+    }
+
+    /**
+     * Indica se a data está no período da agenda.
+     *
+     * @param data data da consulta
+     * @return {@code true} se está entre {@link #inicioJanela()} e
+     * {@link #fimJanela()}, inclusive
+     */
+    public static boolean naJanela(LocalDate data) {
+        return data != null && !data.isBefore(inicioJanela()) && !data.isAfter(fimJanela());
+    }
+
+    /**
+     * Retorna a fração das listagens pedidas pelas telas que foram atendidas
+     * pelo pré-carregamento.
+     *
+     * @return taxa de acerto entre 0 e 1, ou 0 se nada foi pedido
+     */
+    public static double taxaAcerto() {
+        long acertos = Metricas.contador("precarga.acerto");
+        long total = acertos + Metricas.contador("precarga.falha");
+        return total == 0 ? 0 : (double) acertos / total;
+    }
+
+    private static void carregar(ExecutorService execucao, LocalDate inicio, LocalDate fim, int medicoId) {
+        Future<List<Consulta>> resultado = execucao.submit(() -> {
+            long t0 = System.nanoTime();
+            List<Consulta> consultas = consultar(inicio, fim, medicoId);
+            Metricas.registrarTempo("precarga.carga", System.nanoTime() - t0);
+            return consultas;
+        });
+        carregadas.put(chave(inicio, fim, medicoId), new Carga(inicio, fim, medicoId, resultado));
+    }
+
+    private static List<Consulta> obter(LocalDate inicio, LocalDate fim, int medicoId) {
+        String chave = chave(inicio, fim, medicoId);
+        Carga carga = carregadas.remove(chave);
+        if (carga != null) {
+            try {
+                List<Consulta> resultado = carga.resultado().get();
+                Metricas.incrementar("precarga.acerto");
+                registrarPedido(chave, true);
+                return resultado;
+            } catch (ExecutionException e) {
+                LOG.log(Level.WARNING, "Falha no pré-carregamento de " + chave, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Metricas.incrementar("precarga.falha");
+        registrarPedido(chave, false);
+        return consultar(inicio, fim, medicoId);
+    }
+
+    private static void registrarPedido(String chave, boolean atendido) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(String.format("Listagem %s %s pelo pré-carregamento; taxa de acerto %.0f%%",
+                    chave, atendido ? "atendida" : "não atendida", 100 * taxaAcerto()));
+        }
+    }
+
+    private static List<Consulta> consultar(LocalDate inicio, LocalDate fim, int medicoId) {
+        ConsultaDAO dao = new ConsultaDAO();
+        return medicoId == TODOS_MEDICOS
+                ? dao.listarPorPeriodo(inicio, fim)
+                : dao.listarPorPeriodoEMedico(inicio, fim, medicoId);
+    }
+
+    private static String chave(LocalDate inicio, LocalDate fim, int medicoId) {
+        String periodo = "consultas." + inicio + "." + fim;
+        return medicoId == TODOS_MEDICOS ? periodo : periodo + ".medico." + medicoId;
+    }
+
+    /**
+     * Listagem pré-carregada, com o período e o médico ({@code 0} para todos)
+     * que a definem.
+     */
+    record Carga(LocalDate inicio, LocalDate fim, int medicoId, Future<List<Consulta>> resultado) {
+
+        /**
+         * Indica se a alteração pode ter desatualizado a listagem.
+         */
+        boolean afetadaPor(AlteracaoEntidade a) {
+            if (!resultado.isDone()) {
+                // A leitura em curso pode ter sido feita antes da gravação.
+                return true;
+            }
+            Consulta gravada = a.getRegistro(Consulta.class);
+            if (gravada != null && inclui(gravada)) {
+                return true;
+            }
+            // Removida, ou alterada para fora do período: só importa se já
+            // estava na listagem.
+            try {
+                for (Consulta c : resultado.get()) {
+                    if (c.getId() == a.getId()) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+        }
+
+        private boolean inclui(Consulta c) {
+            LocalDate data = c.getDataAgendada();
+            return data != null && !data.isBefore(inicio) && !data.isAfter(fim)
+                    && (medicoId == TODOS_MEDICOS || (c.getMedico() != null && c.getMedico().getId() == medicoId));
+        }
+    }
+}
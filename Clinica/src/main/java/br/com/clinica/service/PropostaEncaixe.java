@@ -0,0 +1,54 @@
+package br.com.clinica.service;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import java.util.List;
+
+/**
+ * Proposta de encaixe gerada pelo {@link ListaEsperaService} para uma vaga
+ * liberada por cancelamento.
+ * <p>
+ * Reúne a consulta cancelada (que define médico, data e horário da vaga) e os
+ * candidatos da lista de espera, já ordenados do mais para o menos indicado.
+ */
+public class PropostaEncaixe {
+
+    /**
+     * Consulta cancelada que liberou a vaga.
+     */
+    private final Consulta vaga;
+
+    /**
+     * Candidatos indicados para a vaga, em ordem de prioridade.
+     */
+    private final List<ListaEspera> candidatos;
+
+    /**
+     * Cria uma proposta de encaixe.
+     *
+     * @param vaga consulta cancelada
+     * @param candidatos candidatos ordenados por prioridade
+     */
+    public PropostaEncaixe(Consulta vaga, List<ListaEspera> candidatos) {
+        this.vaga = vaga;
+        this.candidatos = candidatos;
+    }
+
+    /**
+     * Retorna a consulta cancelada que liberou a vaga.
+     *
+     * @return consulta cancelada
+     */
+    public Consulta getVaga() {
+        return vaga;
+    }
+
+    /**
+     * Retorna os candidatos indicados para a vaga.
+     *
+     * @return candidatos em ordem de prioridade
+     */
+    public List<ListaEspera> getCandidatos() {
+        return candidatos;
+    }
+}
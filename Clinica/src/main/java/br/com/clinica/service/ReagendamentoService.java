@@ -0,0 +1,213 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.AjusteResumoDiario;
+import br.com.clinica.dao.RegistroAlteracoes;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.util.BarramentoAlteracoes;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serviço de reagendamento em lote da agenda de um médico.
+ * <p>
+ * Usado quando um médico se ausenta: todas as consultas
+ * {@link StatusConsulta#AGENDADA} do período são deslocadas por um número de
+ * dias ou reatribuídas a outros médicos da mesma especialidade. Os horários
+ * ocupados são carregados de uma só vez e a verificação de conflitos é feita em
+ * memória; as alterações são aplicadas em uma única transação
+ * ({@link TransacaoJPA}), com os {@code UPDATE}s agrupados em lote pelo
+ * Hibernate ({@code hibernate.jdbc.batch_size}). Em caso de falha transitória
+ * a transação inteira é refeita a partir de uma nova leitura da agenda.
+ *
+ * <p>
+ * Consultas sem horário livre permanecem inalteradas e são devolvidas em
+ * {@link ResultadoReagendamento#getNaoAlocadas()}.
+ */
+public class ReagendamentoService {
+
+    /**
+     * Desloca as consultas agendadas de um médico no período informado.
+     *
+     * @param medicoId médico ausente
+     * @param inicio primeiro dia afetado (inclusive)
+     * @param fim último dia afetado (inclusive)
+     * @param dias quantidade de dias a deslocar (pode ser negativa)
+     * @return consultas movidas e não alocadas
+     */
+    public ResultadoReagendamento deslocar(int medicoId, LocalDate inicio, LocalDate fim, int dias) {
+        ResultadoReagendamento concluido = TransacaoJPA.executar(em -> {
+            List<Consulta> afetadas = new ArrayList<>(listarAgendadas(em, medicoId, inicio, fim));
+            Set<Integer> idsAfetados = new HashSet<>();
+            for (Consulta c : afetadas) {
+                idsAfetados.add(c.getId());
+            }
+
+            Set<String> ocupados = carregarOcupados(em, List.of(medicoId),
+                    inicio.plusDays(dias), fim.plusDays(dias), idsAfetados);
+
+            // Ao deslocar para frente, as consultas mais tardias são movidas
+            // primeiro; assim uma consulta que fica no lugar por falta de vaga
+            // já ocupa seu horário quando as anteriores forem verificadas.
+            if (dias > 0) {
+                Collections.reverse(afetadas);
+            }
+
+            ResultadoReagendamento resultado = new ResultadoReagendamento();
+            AjusteResumoDiario ajuste = new AjusteResumoDiario();
+            for (Consulta c : afetadas) {
+                LocalDate novaData = c.getDataAgendada().plusDays(dias);
+                if (ocupados.add(chave(medicoId, novaData, c.getHoraAgendada()))) {
+                    ajuste.remover(c);
+                    c.setDataAgendada(novaData);
+                    ajuste.adicionar(c);
+                    RegistroAlteracoes.registrar(em, Consulta.class, c.getId(), TipoAlteracao.ALTERACAO);
+                    resultado.getReagendadas().add(c);
+                } else {
+                    ocupados.add(chave(medicoId, c.getDataAgendada(), c.getHoraAgendada()));
+                    resultado.getNaoAlocadas().add(c);
+                }
+            }
+
+            ajuste.aplicar(em);
+            return resultado;
+        });
+        for (Consulta c : concluido.getReagendadas()) {
+            BarramentoAlteracoes.publicar(Consulta.class, c.getId(), TipoAlteracao.ALTERACAO, c);
+        }
+        return concluido;
+    }
+
+    /**
+     * Reatribui as consultas agendadas de um médico, mantendo data e horário,
+     * a outros médicos da mesma especialidade.
+     * <p>
+     * Para cada consulta é escolhido, entre os colegas com o horário livre, o
+     * que recebeu menos consultas até o momento, distribuindo a carga.
+     *
+     * @param medicoId médico ausente
+     * @param inicio primeiro dia afetado (inclusive)
+     * @param fim último dia afetado (inclusive)
+     * @return consultas movidas e não alocadas; vazio se o médico não
+     * existir mais
+     */
+    public ResultadoReagendamento reatribuir(int medicoId, LocalDate inicio, LocalDate fim) {
+        ResultadoReagendamento concluido = TransacaoJPA.executar(em -> {
+            Medico ausente = em.find(Medico.class, medicoId);
+            if (ausente == null) {
+                // Removido por outra estação; sem médico não há consultas.
+                return new ResultadoReagendamento();
+            }
+            List<Medico> colegas = em.createQuery(
+                    "SELECT m FROM Medico m WHERE m.especialidade = :especialidade AND m.id <> :medicoId",
+                    Medico.class)
+                    .setParameter("especialidade", ausente.getEspecialidade())
+                    .setParameter("medicoId", medicoId)
+                    .getResultList();
+
+            List<Consulta> afetadas = listarAgendadas(em, medicoId, inicio, fim);
+            ResultadoReagendamento resultado = new ResultadoReagendamento();
+            if (colegas.isEmpty()) {
+                resultado.getNaoAlocadas().addAll(afetadas);
+                return resultado;
+            }
+
+            List<Integer> idsColegas = new ArrayList<>();
+            for (Medico m : colegas) {
+                idsColegas.add(m.getId());
+            }
+            Set<String> ocupados = carregarOcupados(em, idsColegas, inicio, fim, Set.of());
+            Map<Integer, Integer> carga = new HashMap<>();
+            AjusteResumoDiario ajuste = new AjusteResumoDiario();
+
+            for (Consulta c : afetadas) {
+                Medico escolhido = null;
+                for (Medico m : colegas) {
+                    boolean livre = !ocupados.contains(chave(m.getId(), c.getDataAgendada(), c.getHoraAgendada()));
+                    if (livre && (escolhido == null
+                            || carga.getOrDefault(m.getId(), 0) < carga.getOrDefault(escolhido.getId(), 0))) {
+                        escolhido = m;
+                    }
+                }
+
+                if (escolhido == null) {
+                    resultado.getNaoAlocadas().add(c);
+                } else {
+                    ocupados.add(chave(escolhido.getId(), c.getDataAgendada(), c.getHoraAgendada()));
+                    carga.merge(escolhido.getId(), 1, Integer::sum);
+                    ajuste.remover(c);
+                    c.setMedico(escolhido);
+                    ajuste.adicionar(c);
+                    RegistroAlteracoes.registrar(em, Consulta.class, c.getId(), TipoAlteracao.ALTERACAO);
+                    resultado.getReagendadas().add(c);
+                }
+            }
+            ajuste.aplicar(em);
+
+            return resultado;
+        });
+        for (Consulta c : concluido.getReagendadas()) {
+            BarramentoAlteracoes.publicar(Consulta.class, c.getId(), TipoAlteracao.ALTERACAO, c);
+        }
+        return concluido;
+    }
+
+    /**
+     * Carrega, em ordem cronológica, as consultas agendadas do médico no
+     * período. As entidades ficam gerenciadas pelo {@code em} informado.
+     */
+    private List<Consulta> listarAgendadas(EntityManager em, int medicoId, LocalDate inicio, LocalDate fim) {
+        return em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.medico.id = :medicoId AND c.status = :status "
+                + "AND c.dataAgendada BETWEEN :inicio AND :fim ORDER BY c.dataAgendada, c.horaAgendada",
+                Consulta.class)
+                .setParameter("medicoId", medicoId)
+                .setParameter("status", StatusConsulta.AGENDADA)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList();
+    }
+
+    /**
+     * Carrega em uma única consulta os horários já ocupados (consultas não
+     * canceladas) dos médicos no período, ignorando as consultas que serão
+     * movidas.
+     */
+    private Set<String> carregarOcupados(EntityManager em, Collection<Integer> medicoIds,
+            LocalDate inicio, LocalDate fim, Set<Integer> ignorar) {
+        List<Object[]> linhas = em.createQuery(
+                "SELECT c.id, c.medico.id, c.dataAgendada, c.horaAgendada FROM Consulta c "
+                + "WHERE c.medico.id IN :medicoIds AND c.status <> :cancelada "
+                + "AND c.dataAgendada BETWEEN :inicio AND :fim",
+                Object[].class)
+                .setParameter("medicoIds", medicoIds)
+                .setParameter("cancelada", StatusConsulta.CANCELADA)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList();
+
+        Set<String> ocupados = new HashSet<>();
+        for (Object[] linha : linhas) {
+            if (!ignorar.contains((Integer) linha[0])) {
+                ocupados.add(chave((Integer) linha[1], (LocalDate) linha[2], (LocalTime) linha[3]));
+            }
+        }
+        return ocupados;
+    }
+
+    private static String chave(int medicoId, LocalDate data, LocalTime hora) {
+        return medicoId + "|" + data + "|" + hora;
+    }
+}
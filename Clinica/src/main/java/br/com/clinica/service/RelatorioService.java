@@ -1,10 +1,18 @@
 package br.com.clinica.service;
 
+import br.com.clinica.analise.Agrupamento;
+import br.com.clinica.analise.FiltroColunar;
+import br.com.clinica.analise.SnapshotConsultas;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
 import br.com.clinica.model.Consulta;
-import br.com.clinica.util.JPAUtil;
-import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Serviço responsável por consultas de relatório relacionadas à entidade
@@ -12,8 +20,20 @@ import java.util.List;
  * <p>
  * Este serviço oferece métodos de leitura (somente leitura) para recuperar
  * consultas filtradas por paciente, médico ou período. Internamente utiliza
- * {@link JPAUtil} para obter o {@link EntityManager} e fecha a unidade de
- * persistência após cada operação de leitura. 
+ * {@link TransacaoJPA#consultar(java.util.function.Function)}, que fecha o
+ * {@code EntityManager} após cada leitura e repete falhas transitórias.
+ *
+ * <p>
+ * Os relatórios gerenciais ({@code resumoPor...}) são calculados no próprio
+ * banco com {@code GROUP BY} e devolvem apenas uma linha
+ * {@link ResumoConsultas} por grupo: um ano inteiro de todos os médicos
+ * resulta em poucas centenas de linhas, e não em uma entidade por consulta.
+ * Eles leem a tabela pré-agregada {@code resumo_diario} (no máximo uma linha
+ * por médico, dia e status), e não a tabela de consultas; ver
+ * {@link ResumoDiarioService}, que faz a carga inicial da tabela antes do
+ * primeiro relatório, se ela estiver vazia. Os resumos por dia da semana e por horário,
+ * que dependem do horário de cada consulta, são calculados sobre a cópia
+ * colunar em memória {@link SnapshotConsultas}.
  *
  * <p>
  * <b>Observação:</b> os métodos retornam listas possivelmente vazias se não
@@ -22,6 +42,19 @@ import java.util.List;
  */
 public class RelatorioService {
 
+    private static final Locale LOCALE = Locale.forLanguageTag("pt-BR");
+
+    private final ResumoDiarioService resumoDiario = new ResumoDiarioService();
+
+    /**
+     * Contagens por status calculadas em cada grupo dos relatórios
+     * gerenciais.
+     */
+    private static final String CONTAGENS
+            = "SUM(CASE WHEN r.status = :agendada THEN r.total ELSE 0 END), "
+            + "SUM(CASE WHEN r.status = :realizada THEN r.total ELSE 0 END), "
+            + "SUM(CASE WHEN r.status = :cancelada THEN r.total ELSE 0 END)";
+
     /**
      * Busca consultas cujo nome do paciente contenha o texto informado
      * (case-insensitive).
@@ -31,18 +64,10 @@ public class RelatorioService {
      * vazia se nenhuma correspondência
      */
     public List<Consulta> consultaPorPaciente(String nome) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            List<Consulta> lista = em.createQuery(
-                    "SELECT c FROM Consulta c WHERE LOWER(c.paciente.nome) LIKE :nome", Consulta.class)
-                    .setParameter("nome", "%" + nome.toLowerCase() + "%")
-                    .getResultList();
-            return lista;
-        } finally {
-            if (em.isOpen()) {
-                em.close();
-            }
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE LOWER(c.paciente.nome) LIKE :nome", Consulta.class)
+                .setParameter("nome", "%" + nome.toLowerCase() + "%")
+                .getResultList());
     }
 
     /**
@@ -54,18 +79,10 @@ public class RelatorioService {
      * vazia se nenhuma correspondência
      */
     public List<Consulta> consultaPorMedico(String nome) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            List<Consulta> lista = em.createQuery(
-                    "SELECT c FROM Consulta c WHERE LOWER(c.medico.nome) LIKE :nome", Consulta.class)
-                    .setParameter("nome", "%" + nome.toLowerCase() + "%")
-                    .getResultList();
-            return lista;
-        } finally {
-            if (em.isOpen()) {
-                em.close();
-            }
-        }
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE LOWER(c.medico.nome) LIKE :nome", Consulta.class)
+                .setParameter("nome", "%" + nome.toLowerCase() + "%")
+                .getResultList());
     }
 
     /**
@@ -77,18 +94,186 @@ public class RelatorioService {
      * {@code inicio} e {@code fim}; lista vazia se nenhuma correspondência
      */
     public List<Consulta> consultaPorPeriodo(LocalDate inicio, LocalDate fim) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            List<Consulta> lista = em.createQuery(
-                    "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :inicio AND :fim", Consulta.class)
-                    .setParameter("inicio", inicio)
-                    .setParameter("fim", fim)
-                    .getResultList();
-            return lista;
-        } finally {
-            if (em.isOpen()) {
-                em.close();
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c FROM Consulta c WHERE c.dataAgendada BETWEEN :inicio AND :fim", Consulta.class)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList());
+    }
+
+    /**
+     * Resume as consultas do período por médico.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return uma linha por médico, em ordem alfabética
+     */
+    public List<ResumoConsultas> resumoPorMedico(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        resumoDiario.garantirCarga();
+        return TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT r.medico.nome, " + CONTAGENS + " FROM ResumoDiario r "
+                    + "WHERE r.data BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND r.medico.id = :medicoId" : "")
+                    + " GROUP BY r.medico.id, r.medico.nome ORDER BY r.medico.nome",
+                    Object[].class);
+            return executarResumo(query, inicio, fim, medicoId);
+        });
+    }
+
+    /**
+     * Resume as consultas do período por especialidade do médico.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return uma linha por especialidade, em ordem alfabética
+     */
+    public List<ResumoConsultas> resumoPorEspecialidade(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        resumoDiario.garantirCarga();
+        return TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT r.medico.especialidade, " + CONTAGENS + " FROM ResumoDiario r "
+                    + "WHERE r.data BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND r.medico.id = :medicoId" : "")
+                    + " GROUP BY r.medico.especialidade ORDER BY r.medico.especialidade",
+                    Object[].class);
+            return executarResumo(query, inicio, fim, medicoId);
+        });
+    }
+
+    /**
+     * Resume as consultas do período por mês.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return uma linha por mês ({@code MM/yyyy}), em ordem cronológica
+     */
+    public List<ResumoConsultas> resumoPorMes(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        resumoDiario.garantirCarga();
+        return TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT YEAR(r.data) * 100 + MONTH(r.data), " + CONTAGENS
+                    + " FROM ResumoDiario r WHERE r.data BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND r.medico.id = :medicoId" : "")
+                    + " GROUP BY YEAR(r.data), MONTH(r.data)"
+                    + " ORDER BY YEAR(r.data), MONTH(r.data)",
+                    Object[].class);
+            List<ResumoConsultas> linhas = new ArrayList<>();
+            for (ResumoConsultas r : executarResumo(query, inicio, fim, medicoId)) {
+                int anoMes = Integer.parseInt(r.getGrupo());
+                linhas.add(new ResumoConsultas(String.format("%02d/%d", anoMes % 100, anoMes / 100),
+                        r.getAgendadas(), r.getRealizadas(), r.getCanceladas()));
+            }
+            return linhas;
+        });
+    }
+
+    /**
+     * Resume todas as consultas do período em uma única linha, com o total
+     * por status e a taxa de cancelamento.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return resumo do período
+     */
+    public ResumoConsultas resumoGeral(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        resumoDiario.garantirCarga();
+        return TransacaoJPA.consultar(em -> {
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT 'Total', " + CONTAGENS + " FROM ResumoDiario r "
+                    + "WHERE r.data BETWEEN :inicio AND :fim"
+                    + (medicoId != null ? " AND r.medico.id = :medicoId" : ""),
+                    Object[].class);
+            return executarResumo(query, inicio, fim, medicoId).get(0);
+        });
+    }
+
+    /**
+     * Resume as consultas do período por dia da semana.
+     * <p>
+     * Calculado sobre a cópia colunar em memória ({@link SnapshotConsultas}),
+     * carregada na primeira chamada.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return sete linhas, de segunda-feira a domingo
+     */
+    public List<ResumoConsultas> resumoPorDiaDaSemana(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        long[][] contagem = SnapshotConsultas.obter().contar(
+                new FiltroColunar().periodo(inicio, fim).medico(medicoId), Agrupamento.DIA_SEMANA);
+        List<ResumoConsultas> linhas = new ArrayList<>();
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            linhas.add(resumo(dia.getDisplayName(TextStyle.FULL, LOCALE), contagem[dia.ordinal()]));
+        }
+        return linhas;
+    }
+
+    /**
+     * Resume as consultas do período por hora do dia.
+     * <p>
+     * Calculado sobre a cópia colunar em memória ({@link SnapshotConsultas}),
+     * carregada na primeira chamada.
+     *
+     * @param inicio data inicial do intervalo (inclusive)
+     * @param fim data final do intervalo (inclusive)
+     * @param medicoId restringe o resumo a um médico, ou {@code null} para
+     * todos
+     * @return uma linha por hora com consultas ({@code HH:00})
+     */
+    public List<ResumoConsultas> resumoPorHorario(LocalDate inicio, LocalDate fim, Integer medicoId) {
+        long[][] contagem = SnapshotConsultas.obter().contar(
+                new FiltroColunar().periodo(inicio, fim).medico(medicoId), Agrupamento.HORA);
+        List<ResumoConsultas> linhas = new ArrayList<>();
+        for (int hora = 0; hora < contagem.length; hora++) {
+            ResumoConsultas r = resumo(String.format("%02d:00", hora), contagem[hora]);
+            if (r.getTotal() > 0) {
+                linhas.add(r);
             }
         }
+        return linhas;
+    }
+
+    private static ResumoConsultas resumo(String grupo, long[] porStatus) {
+        return new ResumoConsultas(grupo,
+                porStatus[StatusConsulta.AGENDADA.ordinal()],
+                porStatus[StatusConsulta.REALIZADA.ordinal()],
+                porStatus[StatusConsulta.CANCELADA.ordinal()]);
+    }
+
+    /**
+     * Preenche os parâmetros comuns e converte cada linha agrupada em
+     * {@link ResumoConsultas}. Somas vazias ({@code NULL}) contam como zero.
+     */
+    private static List<ResumoConsultas> executarResumo(TypedQuery<Object[]> query,
+            LocalDate inicio, LocalDate fim, Integer medicoId) {
+        query.setParameter("agendada", StatusConsulta.AGENDADA)
+                .setParameter("realizada", StatusConsulta.REALIZADA)
+                .setParameter("cancelada", StatusConsulta.CANCELADA)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim);
+        if (medicoId != null) {
+            query.setParameter("medicoId", medicoId);
+        }
+
+        List<ResumoConsultas> linhas = new ArrayList<>();
+        for (Object[] linha : query.getResultList()) {
+            linhas.add(new ResumoConsultas(String.valueOf(linha[0]),
+                    contagem(linha[1]), contagem(linha[2]), contagem(linha[3])));
+        }
+        return linhas;
+    }
+
+    private static long contagem(Object valor) {
+        return valor == null ? 0 : ((Number) valor).longValue();
     }
 }
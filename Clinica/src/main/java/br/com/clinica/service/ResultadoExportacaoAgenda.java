@@ -0,0 +1,81 @@
+package br.com.clinica.service;
+
+/**
+ * Resultado de uma exportação de agendas em iCalendar feita pelo
+ * {@link AgendaIcsService}.
+ */
+public class ResultadoExportacaoAgenda {
+
+    /**
+     * Quantidade de arquivos {@code .ics} gravados.
+     */
+    private int gerados;
+
+    /**
+     * Quantidade de médicos cuja agenda não mudou desde a última exportação
+     * e cujo arquivo foi mantido.
+     */
+    private int inalterados;
+
+    /**
+     * Quantidade de consultas lidas do banco.
+     */
+    private long consultas;
+
+    /**
+     * Duração total da exportação, em milissegundos.
+     */
+    private long duracaoMs;
+
+    /**
+     * Retorna a quantidade de arquivos gravados.
+     *
+     * @return arquivos gerados
+     */
+    public int getGerados() {
+        return gerados;
+    }
+
+    void setGerados(int gerados) {
+        this.gerados = gerados;
+    }
+
+    /**
+     * Retorna a quantidade de agendas inalteradas (arquivos mantidos).
+     *
+     * @return agendas inalteradas
+     */
+    public int getInalterados() {
+        return inalterados;
+    }
+
+    void setInalterados(int inalterados) {
+        this.inalterados = inalterados;
+    }
+
+    /**
+     * Retorna a quantidade de consultas lidas.
+     *
+     * @return consultas lidas
+     */
+    public long getConsultas() {
+        return consultas;
+    }
+
+    void setConsultas(long consultas) {
+        this.consultas = consultas;
+    }
+
+    /**
+     * Retorna a duração total da exportação.
+     *
+     * @return duração em milissegundos
+     */
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    void setDuracaoMs(long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+}
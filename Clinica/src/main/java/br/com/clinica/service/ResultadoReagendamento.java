@@ -0,0 +1,43 @@
+package br.com.clinica.service;
+
+import br.com.clinica.model.Consulta;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de um reagendamento em lote feito pelo
+ * {@link ReagendamentoService}.
+ * <p>
+ * Separa as consultas efetivamente movidas (já com o novo médico, data e
+ * horário) das que não puderam ser alocadas por conflito de horário.
+ */
+public class ResultadoReagendamento {
+
+    /**
+     * Consultas movidas para o novo horário ou médico.
+     */
+    private final List<Consulta> reagendadas = new ArrayList<>();
+
+    /**
+     * Consultas que permaneceram no horário original por falta de vaga.
+     */
+    private final List<Consulta> naoAlocadas = new ArrayList<>();
+
+    /**
+     * Retorna as consultas movidas.
+     *
+     * @return consultas reagendadas
+     */
+    public List<Consulta> getReagendadas() {
+        return reagendadas;
+    }
+
+    /**
+     * Retorna as consultas que não puderam ser alocadas.
+     *
+     * @return consultas não alocadas
+     */
+    public List<Consulta> getNaoAlocadas() {
+        return naoAlocadas;
+    }
+}
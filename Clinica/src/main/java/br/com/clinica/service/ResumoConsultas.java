@@ -0,0 +1,103 @@
+package br.com.clinica.service;
+
+/**
+ * Linha de um relatório agregado de consultas, calculada pelo banco com
+ * {@code GROUP BY}.
+ * <p>
+ * Cada linha representa um grupo (um médico, um mês ou o período inteiro) e
+ * traz apenas as contagens por status, sem carregar as consultas em si.
+ */
+public class ResumoConsultas {
+
+    /**
+     * Descrição do grupo exibida ao usuário (ex.: nome do médico ou
+     * {@code 03/2025}).
+     */
+    private final String grupo;
+
+    /**
+     * Quantidade de consultas agendadas no grupo.
+     */
+    private final long agendadas;
+
+    /**
+     * Quantidade de consultas realizadas no grupo.
+     */
+    private final long realizadas;
+
+    /**
+     * Quantidade de consultas canceladas no grupo.
+     */
+    private final long canceladas;
+
+    /**
+     * Cria uma linha de resumo.
+     *
+     * @param grupo descrição do grupo
+     * @param agendadas consultas agendadas
+     * @param realizadas consultas realizadas
+     * @param canceladas consultas canceladas
+     */
+    public ResumoConsultas(String grupo, long agendadas, long realizadas, long canceladas) {
+        this.grupo = grupo;
+        this.agendadas = agendadas;
+        this.realizadas = realizadas;
+        this.canceladas = canceladas;
+    }
+
+    /**
+     * Retorna a descrição do grupo.
+     *
+     * @return grupo
+     */
+    public String getGrupo() {
+        return grupo;
+    }
+
+    /**
+     * Retorna a quantidade de consultas agendadas.
+     *
+     * @return consultas agendadas
+     */
+    public long getAgendadas() {
+        return agendadas;
+    }
+
+    /**
+     * Retorna a quantidade de consultas realizadas.
+     *
+     * @return consultas realizadas
+     */
+    public long getRealizadas() {
+        return realizadas;
+    }
+
+    /**
+     * Retorna a quantidade de consultas canceladas.
+     *
+     * @return consultas canceladas
+     */
+    public long getCanceladas() {
+        return canceladas;
+    }
+
+    /**
+     * Retorna o total de consultas do grupo, em qualquer status.
+     *
+     * @return total de consultas
+     */
+    public long getTotal() {
+        return agendadas + realizadas + canceladas;
+    }
+
+    /**
+     * Retorna a taxa de cancelamento do grupo.
+     *
+     * @return canceladas sobre o total, entre 0 e 1 (0 se não houver
+     * consultas)
+     */
+    public double getTaxaCancelamento() {
+        long total = getTotal();
+        return total == 0 ? 0 : (double) canceladas / total;
+    }
+}
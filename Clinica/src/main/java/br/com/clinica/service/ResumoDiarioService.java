@@ -0,0 +1,212 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.util.JPAUtil;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Manutenção da tabela {@code resumo_diario} (quantidade de consultas por
+ * médico, dia e status).
+ * <p>
+ * No dia a dia a tabela é atualizada de forma incremental pelo
+ * {@link br.com.clinica.dao.ConsultaDAO} e pelo {@link ReagendamentoService}.
+ * Este serviço cobre os casos restantes: a carga inicial ou a correção de um
+ * período ({@link #reconstruir(LocalDate, LocalDate)}) e a conferência do
+ * resumo com uma recontagem completa da tabela de consultas
+ * ({@link #verificar()}).
+ * <p>
+ * Em um banco já existente, o {@code hibernate.hbm2ddl.auto=update} cria a
+ * tabela vazia. {@link #garantirCarga()}, chamado pelo aquecimento da
+ * aplicação e antes de cada relatório gerencial, faz então a carga inicial
+ * automaticamente, uma vez por execução.
+ *
+ * <p>
+ * Também pode ser executado pela linha de comando:
+ * <pre>
+ * java -cp clinica.jar br.com.clinica.service.ResumoDiarioService reconstruir [dd/MM/yyyy dd/MM/yyyy]
+ * java -cp clinica.jar br.com.clinica.service.ResumoDiarioService verificar
+ * </pre>
+ */
+public class ResumoDiarioService {
+
+    /**
+     * Formatador de datas no padrão {@code dd/MM/yyyy}.
+     */
+    private static final DateTimeFormatter FMT_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Indica que a existência da carga inicial já foi conferida nesta
+     * execução.
+     */
+    private static volatile boolean cargaConferida;
+
+    /**
+     * Faz a carga inicial do resumo ({@link #reconstruirTudo()}) se a tabela
+     * estiver vazia e houver consultas. A conferência é feita apenas na
+     * primeira chamada de cada execução; as seguintes retornam de imediato.
+     *
+     * @return quantidade de linhas gravadas pela carga, ou 0 se ela não foi
+     * necessária
+     */
+    public int garantirCarga() {
+        if (cargaConferida) {
+            return 0;
+        }
+        synchronized (ResumoDiarioService.class) {
+            if (cargaConferida) {
+                return 0;
+            }
+            boolean carregar = TransacaoJPA.consultar(em
+                    -> em.createQuery("SELECT r.id FROM ResumoDiario r").setMaxResults(1).getResultList().isEmpty()
+                    && !em.createQuery("SELECT c.id FROM Consulta c").setMaxResults(1).getResultList().isEmpty());
+            int gravadas = carregar ? reconstruirTudo() : 0;
+            cargaConferida = true;
+            return gravadas;
+        }
+    }
+
+    /**
+     * Recalcula o resumo de um período a partir da tabela de consultas.
+     * <p>
+     * As linhas do período são apagadas e regravadas com um único
+     * {@code INSERT ... SELECT ... GROUP BY} na mesma transação. Durante a
+     * execução o banco bloqueia as consultas lidas, de modo que gravações
+     * concorrentes no período aguardam e não são contadas duas vezes.
+     *
+     * @param inicio primeiro dia (inclusive)
+     * @param fim último dia (inclusive)
+     * @return quantidade de linhas de resumo gravadas
+     */
+    public int reconstruir(LocalDate inicio, LocalDate fim) {
+        return TransacaoJPA.executar(em -> {
+            em.createQuery("DELETE FROM ResumoDiario r WHERE r.data BETWEEN :inicio AND :fim")
+                    .setParameter("inicio", inicio)
+                    .setParameter("fim", fim)
+                    .executeUpdate();
+            return em.createNativeQuery(
+                    "INSERT INTO resumo_diario (data, medico_id, status, total) "
+                    + "SELECT dataAgendada, medico_id, status, COUNT(*) FROM consulta "
+                    + "WHERE dataAgendada BETWEEN :inicio AND :fim "
+                    + "GROUP BY dataAgendada, medico_id, status")
+                    .setParameter("inicio", inicio)
+                    .setParameter("fim", fim)
+                    .executeUpdate();
+        });
+    }
+
+    /**
+     * Recalcula o resumo de todo o histórico, um mês por transação, para não
+     * manter bloqueios sobre a tabela inteira de consultas.
+     *
+     * @return quantidade de linhas de resumo gravadas
+     */
+    public int reconstruirTudo() {
+        LocalDate[] limites = TransacaoJPA.consultar(em -> {
+            Object[] linha = em.createQuery(
+                    "SELECT MIN(c.dataAgendada), MAX(c.dataAgendada) FROM Consulta c", Object[].class)
+                    .getSingleResult();
+            return new LocalDate[]{(LocalDate) linha[0], (LocalDate) linha[1]};
+        });
+        if (limites[0] == null) {
+            TransacaoJPA.executar(em -> em.createQuery("DELETE FROM ResumoDiario r").executeUpdate());
+            return 0;
+        }
+
+        // Linhas órfãs fora do intervalo atual de consultas.
+        TransacaoJPA.executar(em -> em.createQuery(
+                "DELETE FROM ResumoDiario r WHERE r.data < :inicio OR r.data > :fim")
+                .setParameter("inicio", limites[0])
+                .setParameter("fim", limites[1])
+                .executeUpdate());
+
+        int gravadas = 0;
+        for (LocalDate mes = limites[0].withDayOfMonth(1); !mes.isAfter(limites[1]); mes = mes.plusMonths(1)) {
+            gravadas += reconstruir(mes, mes.plusMonths(1).minusDays(1));
+        }
+        return gravadas;
+    }
+
+    /**
+     * Compara o resumo com uma recontagem completa da tabela de consultas.
+     *
+     * @return uma descrição por linha divergente; lista vazia se o resumo
+     * estiver consistente
+     */
+    public List<String> verificar() {
+        return TransacaoJPA.consultar(em -> {
+            Map<String, Long> recontagem = contar(em,
+                    "SELECT c.dataAgendada, c.medico.id, c.status, COUNT(c) FROM Consulta c "
+                    + "GROUP BY c.dataAgendada, c.medico.id, c.status");
+            Map<String, Long> resumo = contar(em,
+                    "SELECT r.data, r.medico.id, r.status, r.total FROM ResumoDiario r WHERE r.total <> 0");
+
+            TreeSet<String> chaves = new TreeSet<>(recontagem.keySet());
+            chaves.addAll(resumo.keySet());
+
+            List<String> divergencias = new ArrayList<>();
+            for (String chave : chaves) {
+                long esperado = recontagem.getOrDefault(chave, 0L);
+                long gravado = resumo.getOrDefault(chave, 0L);
+                if (esperado != gravado) {
+                    divergencias.add(chave + ": resumo=" + gravado + ", recontagem=" + esperado);
+                }
+            }
+            return divergencias;
+        });
+    }
+
+    /**
+     * Executa uma consulta (data, médico, status, quantidade) e indexa as
+     * quantidades por "data médico status".
+     */
+    private static Map<String, Long> contar(EntityManager em, String jpql) {
+        Map<String, Long> contagens = new HashMap<>();
+        for (Object[] linha : em.createQuery(jpql, Object[].class).getResultList()) {
+            contagens.put(linha[0] + " médico " + linha[1] + " " + linha[2], ((Number) linha[3]).longValue());
+        }
+        return contagens;
+    }
+
+    /**
+     * Ponto de entrada da linha de comando: {@code reconstruir} (todo o
+     * histórico ou um período) ou {@code verificar}.
+     *
+     * @param args comando e, opcionalmente, período
+     */
+    public static void main(String[] args) {
+        ResumoDiarioService service = new ResumoDiarioService();
+        int status = 0;
+        try {
+            String comando = args.length > 0 ? args[0] : "";
+            switch (comando) {
+                case "reconstruir":
+                    int linhas = args.length >= 3
+                            ? service.reconstruir(LocalDate.parse(args[1], FMT_DATA), LocalDate.parse(args[2], FMT_DATA))
+                            : service.reconstruirTudo();
+                    System.out.println("Resumo reconstruído: " + linhas + " linha(s).");
+                    break;
+                case "verificar":
+                    List<String> divergencias = service.verificar();
+                    divergencias.forEach(System.out::println);
+                    System.out.println(divergencias.isEmpty()
+                            ? "Resumo consistente."
+                            : divergencias.size() + " divergência(s) encontrada(s).");
+                    status = divergencias.isEmpty() ? 0 : 1;
+                    break;
+                default:
+                    System.err.println("Uso: ResumoDiarioService reconstruir [dd/MM/yyyy dd/MM/yyyy] | verificar");
+                    status = 2;
+            }
+        } finally {
+            JPAUtil.fechar();
+        }
+        System.exit(status);
+    }
+}
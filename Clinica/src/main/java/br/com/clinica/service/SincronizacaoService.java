@@ -0,0 +1,264 @@
+package br.com.clinica.service;
+
+import br.com.clinica.analise.SnapshotConsultas;
+import br.com.clinica.dao.RegistroAlteracoes;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.model.RegistroAlteracao;
+import br.com.clinica.util.BarramentoAlteracoes;
+import br.com.clinica.util.Metricas;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Propagação, para esta estação, das alterações de consultas, pacientes,
+ * médicos e pedidos da lista de espera feitas nas demais.
+ * <p>
+ * Uma thread em segundo plano lê a cada {@value #INTERVALO_MS} ms as entradas
+ * novas de {@link RegistroAlteracao}, relê de uma só vez os registros
+ * alterados e publica cada alteração no {@link BarramentoAlteracoes}, que
+ * atualiza a cópia em memória das consultas e as tabelas abertas como se a
+ * gravação tivesse sido feita aqui. As entradas gravadas por esta estação são
+ * ignoradas.
+ *
+ * <p>
+ * A leitura percorre a chave primária a partir da última sequência vista, de
+ * modo que o custo de cada verificação depende só da quantidade de alterações
+ * novas, e não do tamanho das tabelas. Como sequências de transações
+ * concorrentes podem ser confirmadas fora de ordem, as últimas
+ * {@value #JANELA} sequências são relidas a cada verificação e as já aplicadas
+ * são descartadas. Entradas com mais de um dia são removidas periodicamente.
+ *
+ * <p>
+ * Na mesma frequência da limpeza, a cópia em memória das consultas, se já
+ * carregada, relê as consultas mais recentes do banco
+ * ({@link SnapshotConsultas#sincronizar()}). Isso traz as inclusões que não
+ * passaram pelo registro de alterações, como cargas feitas por script, ou
+ * cujas entradas foram removidas antes de serem lidas.
+ */
+public class SincronizacaoService {
+
+    private static final Logger LOG = Logger.getLogger(SincronizacaoService.class.getName());
+
+    /**
+     * Intervalo entre verificações, em milissegundos.
+     */
+    public static final long INTERVALO_MS = 2000;
+
+    /**
+     * Sequências abaixo da maior já vista relidas em cada verificação.
+     */
+    private static final int JANELA = 200;
+
+    /**
+     * Máximo de entradas lidas por verificação; o restante fica para a
+     * seguinte.
+     */
+    private static final int LOTE = 1000;
+
+    private static final long INTERVALO_LIMPEZA_MS = 60 * 60 * 1000L;
+
+    private static final Map<String, Class<?>> TIPOS = Map.of(
+            "Consulta", Consulta.class,
+            "Paciente", Paciente.class,
+            "Medico", Medico.class,
+            "ListaEspera", ListaEspera.class);
+
+    private static ScheduledExecutorService execucao;
+
+    /**
+     * Maior sequência vista, ou {@code -1} antes da primeira verificação.
+     */
+    private long ultimaSeq = -1;
+
+    /**
+     * Sequências já aplicadas dentro da janela de releitura.
+     */
+    private final Set<Long> vistas = new HashSet<>();
+
+    private long ultimaLimpeza = System.currentTimeMillis();
+
+    /**
+     * Inicia a verificação periódica nesta estação. Chamadas repetidas não
+     * têm efeito.
+     */
+    public static synchronized void iniciar() {
+        if (execucao != null) {
+            return;
+        }
+        SincronizacaoService service = new SincronizacaoService();
+        execucao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sincronizacao-alteracoes");
+            t.setDaemon(true);
+            return t;
+        });
+        execucao.scheduleWithFixedDelay(() -> {
+            try {
+                service.verificar();
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Falha ao ler as alterações das outras estações", e);
+            }
+        }, 0, INTERVALO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrompe a verificação periódica.
+     */
+    public static synchronized void parar() {
+        if (execucao != null) {
+            execucao.shutdownNow();
+            execucao = null;
+        }
+    }
+
+    /**
+     * Lê as alterações novas das outras estações e publica-as no
+     * {@link BarramentoAlteracoes}. Na primeira chamada apenas registra a
+     * sequência atual: o que foi gravado antes já está nos dados carregados.
+     *
+     * @return quantidade de alterações aplicadas
+     */
+    public int verificar() {
+        if (ultimaSeq < 0) {
+            ultimaSeq = TransacaoJPA.consultar(em -> em.createQuery(
+                    "SELECT COALESCE(MAX(r.seq), 0) FROM RegistroAlteracao r", Long.class)
+                    .getSingleResult());
+            return 0;
+        }
+
+        long t0 = System.nanoTime();
+        long desde = Math.max(0, ultimaSeq - JANELA);
+        String estacao = RegistroAlteracoes.estacao();
+        Leitura leitura = TransacaoJPA.consultar(em -> {
+            List<RegistroAlteracao> entradas = em.createQuery(
+                    "SELECT r FROM RegistroAlteracao r WHERE r.seq > :desde ORDER BY r.seq",
+                    RegistroAlteracao.class)
+                    .setParameter("desde", desde)
+                    .setMaxResults(LOTE)
+                    .getResultList();
+
+            // Última alteração de cada registro, por entidade.
+            Map<String, Map<Integer, TipoAlteracao>> alteracoes = new LinkedHashMap<>();
+            for (RegistroAlteracao r : entradas) {
+                if (!vistas.contains(r.getSeq()) && !estacao.equals(r.getEstacao())
+                        && TIPOS.containsKey(r.getEntidade())) {
+                    alteracoes.computeIfAbsent(r.getEntidade(), k -> new LinkedHashMap<>())
+                            .put(r.getRegistroId(), r.getTipo());
+                }
+            }
+
+            Map<String, Map<Integer, Object>> registros = new HashMap<>();
+            for (Map.Entry<String, Map<Integer, TipoAlteracao>> e : alteracoes.entrySet()) {
+                List<Integer> ids = new ArrayList<>();
+                e.getValue().forEach((id, tipo) -> {
+                    if (tipo != TipoAlteracao.REMOCAO) {
+                        ids.add(id);
+                    }
+                });
+                Map<Integer, Object> porId = new HashMap<>();
+                if (!ids.isEmpty()) {
+                    Class<?> classe = TIPOS.get(e.getKey());
+                    for (Object registro : em.createQuery(
+                            "SELECT e FROM " + e.getKey() + " e WHERE e.id IN :ids", classe)
+                            .setParameter("ids", ids)
+                            .getResultList()) {
+                        porId.put(idDe(registro), registro);
+                    }
+                }
+                registros.put(e.getKey(), porId);
+            }
+            return new Leitura(entradas, alteracoes, registros);
+        });
+
+        for (RegistroAlteracao r : leitura.entradas) {
+            vistas.add(r.getSeq());
+            ultimaSeq = Math.max(ultimaSeq, r.getSeq());
+        }
+        long limite = ultimaSeq - JANELA;
+        vistas.removeIf(seq -> seq <= limite);
+
+        int aplicadas = 0;
+        for (Map.Entry<String, Map<Integer, TipoAlteracao>> e : leitura.alteracoes.entrySet()) {
+            Class<?> classe = TIPOS.get(e.getKey());
+            Map<Integer, Object> porId = leitura.registros.get(e.getKey());
+            for (Map.Entry<Integer, TipoAlteracao> a : e.getValue().entrySet()) {
+                Object registro = porId.get(a.getKey());
+                // Registro alterado e removido em seguida: a leitura já não o
+                // encontra.
+                TipoAlteracao tipo = registro == null ? TipoAlteracao.REMOCAO : a.getValue();
+                BarramentoAlteracoes.publicar(classe, a.getKey(), tipo, registro);
+                aplicadas++;
+            }
+        }
+
+        Metricas.somar("sincronizacao.aplicadas", aplicadas);
+        Metricas.registrarTempo("sincronizacao.verificacao", System.nanoTime() - t0);
+        limparPeriodicamente();
+        return aplicadas;
+    }
+
+    /**
+     * Remove as entradas com mais de um dia e sincroniza a cópia em memória
+     * das consultas. Executado no máximo uma vez por hora por estação.
+     */
+    private void limparPeriodicamente() {
+        long agora = System.currentTimeMillis();
+        if (agora - ultimaLimpeza < INTERVALO_LIMPEZA_MS) {
+            return;
+        }
+        ultimaLimpeza = agora;
+        int removidas = TransacaoJPA.executar(em -> em.createQuery(
+                "DELETE FROM RegistroAlteracao r WHERE r.registradaEm < :limite")
+                .setParameter("limite", LocalDateTime.now().minusDays(1))
+                .executeUpdate());
+        Metricas.somar("sincronizacao.limpeza", removidas);
+        if (SnapshotConsultas.carregado()) {
+            Metricas.somar("sincronizacao.snapshot", SnapshotConsultas.obter().sincronizar());
+        }
+    }
+
+    private static int idDe(Object registro) {
+        if (registro instanceof Consulta c) {
+            return c.getId();
+        }
+        if (registro instanceof Paciente p) {
+            return p.getId();
+        }
+        if (registro instanceof ListaEspera l) {
+            return l.getId();
+        }
+        return ((Medico) registro).getId();
+    }
+
+    /**
+     * Resultado de uma leitura do registro de alterações.
+     */
+    private static final class Leitura {
+
+        private final List<RegistroAlteracao> entradas;
+        private final Map<String, Map<Integer, TipoAlteracao>> alteracoes;
+        private final Map<String, Map<Integer, Object>> registros;
+
+        Leitura(List<RegistroAlteracao> entradas, Map<String, Map<Integer, TipoAlteracao>> alteracoes,
+                Map<String, Map<Integer, Object>> registros) {
+            this.entradas = entradas;
+            this.alteracoes = alteracoes;
+            this.registros = registros;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.clinica.util;
+
+import br.com.clinica.enums.TipoAlteracao;
+
+/**
+ * Alteração de um registro gravada por esta estação, publicada em
+ * {@link BarramentoAlteracoes}.
+ * <p>
+ * Inclusões e alterações carregam o registro como foi gravado (com id e
+ * versão atualizados), para que quem recebe possa aplicá-lo sem nova leitura
+ * do banco. Remoções carregam apenas o id.
+ */
+public class AlteracaoEntidade {
+
+    private final Class<?> tipo;
+    private final int id;
+    private final TipoAlteracao alteracao;
+    private final Object registro;
+
+    /**
+     * @param tipo tipo da entidade alterada
+     * @param id identificador do registro
+     * @param alteracao tipo da alteração
+     * @param registro registro gravado, ou {@code null} em remoções
+     */
+    public AlteracaoEntidade(Class<?> tipo, int id, TipoAlteracao alteracao, Object registro) {
+        this.tipo = tipo;
+        this.id = id;
+        this.alteracao = alteracao;
+        this.registro = registro;
+    }
+
+    public Class<?> getTipo() {
+        return tipo;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public TipoAlteracao getAlteracao() {
+        return alteracao;
+    }
+
+    /**
+     * Retorna o registro gravado, convertido para o tipo informado.
+     *
+     * @param <T> tipo da entidade
+     * @param classe classe da entidade
+     * @return registro gravado, ou {@code null} em remoções
+     */
+    public <T> T getRegistro(Class<T> classe) {
+        return classe.cast(registro);
+    }
+}
@@ -0,0 +1,293 @@
+package br.com.clinica.util;
+
+import br.com.clinica.enums.TipoAlteracao;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Timer;
+
+/**
+ * Barramento em memória das alterações de registros feitas por esta estação.
+ * <p>
+ * Os DAOs publicam cada inclusão, alteração ou remoção confirmada
+ * ({@link #publicar(Class, int, TipoAlteracao, Object)}), e quem mantém uma
+ * cópia dos dados assina o tipo de entidade que lhe interessa, em um de dois
+ * modos:
+ * <ul>
+ * <li>{@link #assinar(Class, Consumer)}: para as telas. As alterações são
+ * acumuladas por {@value #JANELA_MS} ms e entregues em lote na thread de
+ * eventos do Swing; várias alterações do mesmo registro na janela viram uma
+ * só, de modo que uma rajada (um reagendamento, por exemplo) custa uma única
+ * atualização da tela;</li>
+ * <li>{@link #assinarImediato(Class, Consumer)}: para caches que precisam
+ * refletir a gravação antes que o método do DAO retorne. O ouvinte é chamado
+ * na própria thread que publicou e deve ser rápido.</li>
+ * </ul>
+ * Sem assinantes para o tipo, a publicação não custa mais que uma consulta a
+ * um mapa.
+ * <p>
+ * A entrega às telas pode ser suspensa enquanto a tela está oculta
+ * ({@link Assinatura#suspender()}): as alterações ficam retidas, uma por
+ * registro, e são entregues em um único lote ao retomar.
+ */
+public final class BarramentoAlteracoes {
+
+    private static final Logger LOG = Logger.getLogger(BarramentoAlteracoes.class.getName());
+
+    /**
+     * Janela, em milissegundos, em que as alterações são acumuladas antes da
+     * entrega às telas.
+     */
+    public static final int JANELA_MS = 150;
+
+    private static final Map<Class<?>, List<Consumer<List<AlteracaoEntidade>>>> assinantes = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, List<Consumer<AlteracaoEntidade>>> assinantesImediatos = new ConcurrentHashMap<>();
+
+    /**
+     * Alterações aguardando entrega, pela chave tipo/id. Protegido pelo
+     * monitor de {@code pendentes}.
+     */
+    private static final Map<String, AlteracaoEntidade> pendentes = new LinkedHashMap<>();
+
+    private static Timer entrega;
+
+    private BarramentoAlteracoes() {
+    }
+
+    /**
+     * Assina as alterações de um tipo de entidade, entregues em lote na thread
+     * de eventos do Swing.
+     *
+     * @param tipo tipo da entidade
+     * @param ouvinte recebe as alterações acumuladas, uma por registro, na
+     * ordem em que cada registro foi alterado pela primeira vez na janela
+     * @return assinatura, a ser cancelada quando o ouvinte deixar de existir
+     */
+    public static Assinatura assinar(Class<?> tipo, Consumer<List<AlteracaoEntidade>> ouvinte) {
+        List<Consumer<List<AlteracaoEntidade>>> lista
+                = assinantes.computeIfAbsent(tipo, k -> new CopyOnWriteArrayList<>());
+        OuvinteSuspensivel suspensivel = new OuvinteSuspensivel(ouvinte);
+        lista.add(suspensivel);
+        return new Assinatura(() -> lista.remove(suspensivel), List.of(suspensivel));
+    }
+
+    /**
+     * Assina as alterações de um tipo de entidade, recebidas na thread que as
+     * publicou, antes do retorno do DAO.
+     *
+     * @param tipo tipo da entidade
+     * @param ouvinte recebe cada alteração
+     * @return assinatura, a ser cancelada quando o ouvinte deixar de existir
+     */
+    public static Assinatura assinarImediato(Class<?> tipo, Consumer<AlteracaoEntidade> ouvinte) {
+        List<Consumer<AlteracaoEntidade>> lista
+                = assinantesImediatos.computeIfAbsent(tipo, k -> new CopyOnWriteArrayList<>());
+        lista.add(ouvinte);
+        return new Assinatura(() -> lista.remove(ouvinte), List.of());
+    }
+
+    /**
+     * Publica uma alteração já confirmada no banco.
+     *
+     * @param tipo tipo da entidade
+     * @param id identificador do registro
+     * @param alteracao tipo da alteração
+     * @param registro registro gravado, ou {@code null} em remoções
+     */
+    public static void publicar(Class<?> tipo, int id, TipoAlteracao alteracao, Object registro) {
+        AlteracaoEntidade evento = new AlteracaoEntidade(tipo, id, alteracao, registro);
+        Metricas.incrementar("alteracoes.publicadas");
+
+        List<Consumer<AlteracaoEntidade>> imediatos = assinantesImediatos.get(tipo);
+        if (imediatos != null) {
+            for (Consumer<AlteracaoEntidade> ouvinte : imediatos) {
+                try {
+                    ouvinte.accept(evento);
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Falha ao aplicar alteração de " + tipo.getSimpleName() + " #" + id, e);
+                }
+            }
+        }
+
+        List<Consumer<List<AlteracaoEntidade>>> telas = assinantes.get(tipo);
+        if (telas == null || telas.isEmpty()) {
+            return;
+        }
+        synchronized (pendentes) {
+            String chave = tipo.getName() + '#' + id;
+            pendentes.put(chave, combinar(pendentes.get(chave), evento));
+            if (entrega == null) {
+                entrega = new Timer(JANELA_MS, e -> entregar());
+                entrega.setRepeats(false);
+            }
+            if (!entrega.isRunning()) {
+                entrega.start();
+            }
+        }
+    }
+
+    /**
+     * Combina duas alterações do mesmo registro na que deve ser entregue: a
+     * mais recente, exceto que uma inclusão seguida de alteração continua
+     * sendo inclusão (do registro já alterado).
+     *
+     * @param anterior alteração ainda não entregue, ou {@code null}
+     * @param nova alteração mais recente
+     * @return alteração a entregar
+     */
+    private static AlteracaoEntidade combinar(AlteracaoEntidade anterior, AlteracaoEntidade nova) {
+        if (anterior == null) {
+            return nova;
+        }
+        Metricas.incrementar("alteracoes.coalescidas");
+        if (anterior.getAlteracao() == TipoAlteracao.INCLUSAO && nova.getAlteracao() == TipoAlteracao.ALTERACAO) {
+            return new AlteracaoEntidade(nova.getTipo(), nova.getId(), TipoAlteracao.INCLUSAO, nova.getRegistro(Object.class));
+        }
+        return nova;
+    }
+
+    /**
+     * Entrega aos assinantes as alterações acumuladas. Executado na thread de
+     * eventos do Swing.
+     */
+    private static void entregar() {
+        Map<Class<?>, List<AlteracaoEntidade>> porTipo = new LinkedHashMap<>();
+        synchronized (pendentes) {
+            for (AlteracaoEntidade a : pendentes.values()) {
+                porTipo.computeIfAbsent(a.getTipo(), k -> new ArrayList<>()).add(a);
+            }
+            pendentes.clear();
+        }
+        for (Map.Entry<Class<?>, List<AlteracaoEntidade>> e : porTipo.entrySet()) {
+            List<Consumer<List<AlteracaoEntidade>>> telas = assinantes.get(e.getKey());
+            if (telas == null) {
+                continue;
+            }
+            Metricas.somar("alteracoes.entregues", e.getValue().size());
+            for (Consumer<List<AlteracaoEntidade>> ouvinte : telas) {
+                try {
+                    ouvinte.accept(e.getValue());
+                } catch (RuntimeException ex) {
+                    LOG.log(Level.WARNING, "Falha ao entregar alterações de " + e.getKey().getSimpleName(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ouvinte de tela cuja entrega pode ser suspensa. Usado apenas na thread
+     * de eventos do Swing.
+     */
+    private static final class OuvinteSuspensivel implements Consumer<List<AlteracaoEntidade>> {
+
+        private final Consumer<List<AlteracaoEntidade>> destino;
+
+        /**
+         * Alterações retidas por id enquanto suspenso, ou {@code null} se a
+         * entrega está ativa.
+         */
+        private Map<Integer, AlteracaoEntidade> retidas;
+
+        OuvinteSuspensivel(Consumer<List<AlteracaoEntidade>> destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void accept(List<AlteracaoEntidade> alteracoes) {
+            if (retidas == null) {
+                destino.accept(alteracoes);
+                return;
+            }
+            for (AlteracaoEntidade a : alteracoes) {
+                retidas.put(a.getId(), combinar(retidas.get(a.getId()), a));
+            }
+        }
+
+        void suspender() {
+            if (retidas == null) {
+                retidas = new LinkedHashMap<>();
+            }
+        }
+
+        void retomar() {
+            if (retidas == null) {
+                return;
+            }
+            List<AlteracaoEntidade> lote = new ArrayList<>(retidas.values());
+            retidas = null;
+            if (!lote.isEmpty()) {
+                Metricas.somar("alteracoes.retidas", lote.size());
+                destino.accept(lote);
+            }
+        }
+    }
+
+    /**
+     * Assinatura de um ouvinte no barramento.
+     */
+    public static final class Assinatura {
+
+        private final Runnable cancelamento;
+        private final List<OuvinteSuspensivel> suspensiveis;
+
+        private Assinatura(Runnable cancelamento, List<OuvinteSuspensivel> suspensiveis) {
+            this.cancelamento = cancelamento;
+            this.suspensiveis = suspensiveis;
+        }
+
+        /**
+         * Agrupa várias assinaturas em uma, cancelada de uma só vez.
+         *
+         * @param assinaturas assinaturas a agrupar
+         * @return assinatura que cancela todas as informadas
+         */
+        public static Assinatura todas(Assinatura... assinaturas) {
+            List<OuvinteSuspensivel> suspensiveis = new ArrayList<>();
+            for (Assinatura a : assinaturas) {
+                suspensiveis.addAll(a.suspensiveis);
+            }
+            return new Assinatura(() -> {
+                for (Assinatura a : assinaturas) {
+                    a.cancelar();
+                }
+            }, suspensiveis);
+        }
+
+        /**
+         * Remove o ouvinte do barramento. Alterações ainda não entregues não
+         * são mais enviadas a ele.
+         */
+        public void cancelar() {
+            cancelamento.run();
+        }
+
+        /**
+         * Retém as alterações destinadas aos ouvintes de tela desta
+         * assinatura até {@link #retomar()}. Deve ser chamado na thread de
+         * eventos do Swing.
+         */
+        public void suspender() {
+            for (OuvinteSuspensivel o : suspensiveis) {
+                o.suspender();
+            }
+        }
+
+        /**
+         * Entrega de uma só vez as alterações retidas desde
+         * {@link #suspender()}, uma por registro, e volta à entrega normal.
+         * Deve ser chamado na thread de eventos do Swing.
+         */
+        public void retomar() {
+            for (OuvinteSuspensivel o : suspensiveis) {
+                o.retomar();
+            }
+        }
+    }
+}
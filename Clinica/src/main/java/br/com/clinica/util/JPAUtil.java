@@ -3,6 +3,8 @@ package br.com.clinica.util;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Classe utilitária para gerenciamento do JPA e fornecimento de instâncias de
@@ -13,17 +15,27 @@ import jakarta.persistence.Persistence;
  * múltiplas inicializações desnecessárias. 
  *
  * <p>
- * O factory é criado uma única vez com base na unidade de persistência
- * "clinicaPU".
+ * O factory é criado uma única vez, no primeiro uso, com base na unidade de
+ * persistência "clinicaPU". Se a criação falhar (por exemplo, com o banco
+ * fora do ar), a exceção é repassada a quem o pediu e nada fica guardado: o
+ * uso seguinte tenta criá-lo de novo. Propriedades de sistema
+ * {@code jakarta.persistence.*} e
+ * {@code hibernate.*} substituem as do {@code persistence.xml}; os testes as
+ * usam para apontar a unidade para um banco em memória.
  */
 public class JPAUtil {
 
     /**
-     * Fábrica de EntityManagers compartilhada por toda a aplicação. Instanciada
-     * apenas uma vez ao carregar a classe.
+     * Fábrica de EntityManagers compartilhada por toda a aplicação, ou
+     * {@code null} enquanto não tiver sido criada com sucesso.
      */
-    private static final EntityManagerFactory emf
-            = Persistence.createEntityManagerFactory("clinicaPU");
+    private static volatile EntityManagerFactory emf;
+
+    /**
+     * Tamanho do pool de conexões embutido do Hibernate quando não
+     * configurado.
+     */
+    private static final int TAMANHO_POOL_PADRAO = 20;
 
     /**
      * Obtém uma nova instância de {@link EntityManager}.
@@ -34,7 +46,54 @@ public class JPAUtil {
      * @return um novo EntityManager
      */
     public static EntityManager getEntityManager() {
-        return emf.createEntityManager();
+        return fabrica().createEntityManager();
+    }
+
+    /**
+     * Retorna a quantidade máxima de conexões abertas com o banco
+     * ({@code hibernate.connection.pool_size}), para limitar tarefas
+     * paralelas que usam o banco.
+     *
+     * @return tamanho do pool de conexões
+     */
+    public static int tamanhoPool() {
+        Object valor = fabrica().getProperties().get("hibernate.connection.pool_size");
+        return valor != null ? Integer.parseInt(valor.toString().trim()) : TAMANHO_POOL_PADRAO;
+    }
+
+    /**
+     * Retorna o factory, criando-o na primeira chamada. Chamadas simultâneas
+     * aguardam a criação em curso em vez de iniciar outra.
+     *
+     * @throws jakarta.persistence.PersistenceException se a unidade de
+     * persistência não puder ser inicializada
+     */
+    private static EntityManagerFactory fabrica() {
+        EntityManagerFactory f = emf;
+        if (f == null) {
+            synchronized (JPAUtil.class) {
+                f = emf;
+                if (f == null) {
+                    f = Persistence.createEntityManagerFactory("clinicaPU", propriedadesDeSistema());
+                    emf = f;
+                }
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Retorna as propriedades de sistema que substituem as da unidade de
+     * persistência.
+     */
+    private static Map<String, String> propriedadesDeSistema() {
+        Map<String, String> propriedades = new HashMap<>();
+        for (String nome : System.getProperties().stringPropertyNames()) {
+            if (nome.startsWith("jakarta.persistence.") || nome.startsWith("hibernate.")) {
+                propriedades.put(nome, System.getProperty(nome));
+            }
+        }
+        return propriedades;
     }
 
     /**
@@ -44,8 +103,9 @@ public class JPAUtil {
      * fechamento nenhuma nova instância de EntityManager poderá ser criada.     
      */
     public static void fechar() {
-        if (emf.isOpen()) {
-            emf.close();
+        EntityManagerFactory f = emf;
+        if (f != null && f.isOpen()) {
+            f.close();
         }
     }
 }
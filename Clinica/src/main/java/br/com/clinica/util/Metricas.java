@@ -0,0 +1,150 @@
+package br.com.clinica.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Classe utilitária que mantém métricas simples da aplicação em memória.
+ * <p>
+ * Oferece contadores (ex.: quantidade de novas tentativas no acesso a dados) e
+ * temporizadores (quantidade, tempo total e tempo máximo de uma operação),
+ * identificados por nome. Todos os métodos são seguros para uso concorrente e
+ * de baixo custo, podendo ser chamados em caminhos frequentes.
+ *
+ * <p>
+ * As métricas podem ser consultadas individualmente ou registradas no log em
+ * nível {@code FINE} por meio de {@link #registrarNoLog()}, o que a
+ * navegação faz ao fim de cada sessão de usuário.
+ */
+public final class Metricas {
+
+    private static final Logger LOG = Logger.getLogger(Metricas.class.getName());
+
+    /**
+     * Contadores por nome.
+     */
+    private static final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+
+    /**
+     * Temporizadores por nome.
+     */
+    private static final Map<String, Temporizador> temporizadores = new ConcurrentHashMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * Incrementa em 1 o contador informado.
+     *
+     * @param nome nome do contador
+     */
+    public static void incrementar(String nome) {
+        contadores.computeIfAbsent(nome, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Soma o valor informado ao contador.
+     *
+     * @param nome nome do contador
+     * @param valor valor a ser somado
+     */
+    public static void somar(String nome, long valor) {
+        contadores.computeIfAbsent(nome, k -> new LongAdder()).add(valor);
+    }
+
+    /**
+     * Retorna o valor atual do contador.
+     *
+     * @param nome nome do contador
+     * @return valor acumulado, ou 0 se o contador nunca foi usado
+     */
+    public static long contador(String nome) {
+        LongAdder c = contadores.get(nome);
+        return c == null ? 0 : c.sum();
+    }
+
+    /**
+     * Registra a duração de uma execução da operação informada.
+     *
+     * @param nome nome da operação
+     * @param nanos duração em nanossegundos
+     */
+    public static void registrarTempo(String nome, long nanos) {
+        temporizadores.computeIfAbsent(nome, k -> new Temporizador()).registrar(nanos);
+    }
+
+    /**
+     * Retorna o tempo médio, em milissegundos, da operação informada.
+     *
+     * @param nome nome da operação
+     * @return média em ms, ou 0 se não houver registros
+     */
+    public static double tempoMedioMs(String nome) {
+        Temporizador t = temporizadores.get(nome);
+        return t == null ? 0 : t.mediaMs();
+    }
+
+    /**
+     * Retorna o tempo máximo, em milissegundos, da operação informada.
+     *
+     * @param nome nome da operação
+     * @return máximo em ms, ou 0 se não houver registros
+     */
+    public static double tempoMaximoMs(String nome) {
+        Temporizador t = temporizadores.get(nome);
+        return t == null ? 0 : t.maximo.get() / 1_000_000.0;
+    }
+
+    /**
+     * Monta um resumo textual de todas as métricas, em ordem alfabética.
+     *
+     * @return uma métrica por linha
+     */
+    public static String resumo() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(contadores).entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(e.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, Temporizador> e : new TreeMap<>(temporizadores).entrySet()) {
+            Temporizador t = e.getValue();
+            sb.append(String.format("%s: n=%d média=%.1fms máx=%.1fms%n",
+                    e.getKey(), t.quantidade.sum(), t.mediaMs(), t.maximo.get() / 1_000_000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Registra o resumo das métricas no log, em nível {@code FINE}.
+     */
+    public static void registrarNoLog() {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Métricas:\n" + resumo());
+        }
+    }
+
+    /**
+     * Acumula quantidade, tempo total e tempo máximo de uma operação.
+     */
+    private static final class Temporizador {
+
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        void registrar(long nanos) {
+            quantidade.increment();
+            total.add(nanos);
+            maximo.accumulate(nanos);
+        }
+
+        double mediaMs() {
+            long n = quantidade.sum();
+            return n == 0 ? 0 : total.sum() / (n * 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package br.com.clinica.analise;
+
+import br.com.clinica.enums.StatusConsulta;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da álgebra de conjuntos de {@link ConjuntoConsultas} e das seleções
+ * de {@link IndiceBitmap}, comparadas com conjuntos comuns.
+ */
+class IndiceBitmapTest {
+
+    /**
+     * Ids espalhados por vários blocos de 65.536, inclusive nas bordas.
+     */
+    private static final int MAIOR_ID = 5 * 65_536;
+
+    @Test
+    void operacoesIguaisAsDeConjuntosComuns() {
+        Random aleatorio = new Random(42);
+        TreeSet<Integer> a = sortear(aleatorio, 20_000);
+        TreeSet<Integer> b = sortear(aleatorio, 20_000);
+        // Bloco presente só em um dos operandos.
+        a.add(MAIOR_ID + 10);
+        ConjuntoConsultas x = conjunto(a);
+        ConjuntoConsultas y = conjunto(b);
+
+        TreeSet<Integer> e = new TreeSet<>(a);
+        e.retainAll(b);
+        TreeSet<Integer> ou = new TreeSet<>(a);
+        ou.addAll(b);
+        TreeSet<Integer> exceto = new TreeSet<>(a);
+        exceto.removeAll(b);
+
+        assertArrayEquals(ids(e), x.e(y).ids());
+        assertArrayEquals(ids(e), y.e(x).ids());
+        assertArrayEquals(ids(ou), x.ou(y).ids());
+        assertArrayEquals(ids(exceto), x.exceto(y).ids());
+        assertEquals(exceto.size(), x.exceto(y).cardinalidade());
+    }
+
+    @Test
+    void operacoesNaoAlteramOsOperandos() {
+        ConjuntoConsultas x = conjunto(new TreeSet<>(List.of(1, 2, 70_000)));
+        ConjuntoConsultas y = conjunto(new TreeSet<>(List.of(2, 3, 200_000)));
+
+        x.e(y);
+        x.ou(y);
+        x.exceto(y);
+
+        assertArrayEquals(new int[]{1, 2, 70_000}, x.ids());
+        assertArrayEquals(new int[]{2, 3, 200_000}, y.ids());
+    }
+
+    @Test
+    void bordasDosBlocos() {
+        int[] bordas = {0, 63, 64, 65_535, 65_536, 131_071, 131_072};
+        ConjuntoConsultas c = new ConjuntoConsultas();
+        for (int id : bordas) {
+            c.adicionar(id);
+        }
+        assertArrayEquals(bordas, c.ids());
+        for (int id : bordas) {
+            assertTrue(c.contem(id));
+        }
+        assertFalse(c.contem(1));
+        assertFalse(c.contem(Integer.MAX_VALUE));
+
+        for (int id : bordas) {
+            c.remover(id);
+        }
+        assertTrue(c.vazio());
+        assertEquals(0, c.ids().length);
+    }
+
+    @Test
+    void intersecaoVaziaEDiferencaComSiMesmo() {
+        ConjuntoConsultas x = conjunto(new TreeSet<>(List.of(5, 6, 100_000)));
+        ConjuntoConsultas y = conjunto(new TreeSet<>(List.of(7, 200_000)));
+
+        assertTrue(x.e(y).vazio());
+        assertTrue(x.exceto(x).vazio());
+        assertTrue(new ConjuntoConsultas().e(x).vazio());
+        assertArrayEquals(x.ids(), x.exceto(new ConjuntoConsultas()).ids());
+        assertArrayEquals(x.ids(), new ConjuntoConsultas().ou(x).ids());
+    }
+
+    @Test
+    void blocosDensosEEsparsosNasMesmasOperacoes() {
+        Random aleatorio = new Random(7);
+        // Bloco 0 denso nos dois operandos, bloco 1 denso só em a, bloco 2
+        // esparso nos dois.
+        TreeSet<Integer> a = new TreeSet<>();
+        TreeSet<Integer> b = new TreeSet<>();
+        while (a.size() < 30_000) {
+            a.add(aleatorio.nextInt(2 * 65_536));
+        }
+        while (b.size() < 10_000) {
+            b.add(aleatorio.nextInt(65_536));
+        }
+        for (int i = 0; i < 500; i++) {
+            a.add(2 * 65_536 + aleatorio.nextInt(65_536));
+            b.add(65_536 + aleatorio.nextInt(3 * 65_536));
+        }
+        ConjuntoConsultas x = conjunto(a);
+        ConjuntoConsultas y = conjunto(b);
+
+        TreeSet<Integer> e = new TreeSet<>(a);
+        e.retainAll(b);
+        TreeSet<Integer> ou = new TreeSet<>(a);
+        ou.addAll(b);
+        TreeSet<Integer> exceto = new TreeSet<>(a);
+        exceto.removeAll(b);
+        assertArrayEquals(ids(e), x.e(y).ids());
+        assertArrayEquals(ids(ou), x.ou(y).ids());
+        assertArrayEquals(ids(exceto), x.exceto(y).ids());
+        TreeSet<Integer> inverso = new TreeSet<>(b);
+        inverso.removeAll(a);
+        assertArrayEquals(ids(inverso), y.exceto(x).ids());
+
+        ConjuntoConsultas acumulado = y.copia();
+        acumulado.acumular(x);
+        assertArrayEquals(ids(ou), acumulado.ids());
+        assertArrayEquals(ids(b), y.ids());
+    }
+
+    @Test
+    void blocoMudaDeFormaAoCruzarOLimite() {
+        ConjuntoConsultas c = new ConjuntoConsultas();
+        for (int i = 0; i < ConjuntoConsultas.LIMITE_VETOR; i++) {
+            c.adicionar(65_536 + 2 * i);
+        }
+        assertEquals(2L * ConjuntoConsultas.LIMITE_VETOR, c.bytes());
+
+        c.adicionar(65_537);
+        assertEquals(8 * 1024, c.bytes());
+        assertEquals(ConjuntoConsultas.LIMITE_VETOR + 1, c.cardinalidade());
+        assertTrue(c.contem(65_537));
+
+        c.remover(65_536);
+        c.remover(65_536);
+        assertEquals(ConjuntoConsultas.LIMITE_VETOR, c.cardinalidade());
+        assertTrue(c.bytes() <= 2L * ConjuntoConsultas.LIMITE_VETOR);
+        assertFalse(c.contem(65_536));
+        assertTrue(c.contem(65_537));
+        assertTrue(c.contem(65_538));
+    }
+
+    @Test
+    void indiceEsparsoOcupaDoisBytesPorId() {
+        // 300 ids espalhados por 20 blocos, como as consultas de um médico.
+        ConjuntoConsultas c = new ConjuntoConsultas();
+        for (int i = 0; i < 300; i++) {
+            c.adicionar(i * 4_369);
+        }
+        assertEquals(300, c.cardinalidade());
+        assertTrue(c.bytes() < 20 * 8 * 1024 / 10);
+    }
+
+    @Test
+    void selecoesDoIndice() {
+        IndiceBitmap indice = new IndiceBitmap(new ReentrantReadWriteLock().readLock());
+        LocalDate segunda = LocalDate.of(2025, 3, 3);
+        LocalDate sabado = LocalDate.of(2025, 4, 5);
+        indice.incluir(1, dia(segunda), StatusConsulta.AGENDADA.ordinal(), 10);
+        indice.incluir(2, dia(segunda), StatusConsulta.CANCELADA.ordinal(), 20);
+        indice.incluir(70_000, dia(sabado), StatusConsulta.CANCELADA.ordinal(), 10);
+        indice.incluir(3, dia(sabado), StatusConsulta.REALIZADA.ordinal(), 30);
+
+        assertArrayEquals(new int[]{1, 2, 3, 70_000}, indice.todas().ids());
+        assertArrayEquals(new int[]{2, 70_000}, indice.status(StatusConsulta.CANCELADA).ids());
+        assertArrayEquals(new int[]{1, 70_000}, indice.medicos(List.of(10)).ids());
+        assertArrayEquals(new int[]{1, 2}, indice.diasDaSemana(DayOfWeek.MONDAY).ids());
+        assertArrayEquals(new int[]{3, 70_000}, indice.meses(YearMonth.of(2025, 4), YearMonth.of(2025, 12)).ids());
+        assertArrayEquals(new int[]{1, 3}, indice.nao(indice.status(StatusConsulta.CANCELADA)).ids());
+
+        // Canceladas do médico 10 em sábados.
+        ConjuntoConsultas combinada = indice.status(StatusConsulta.CANCELADA)
+                .e(indice.medicos(List.of(10)))
+                .e(indice.diasDaSemana(DayOfWeek.SATURDAY));
+        assertArrayEquals(new int[]{70_000}, combinada.ids());
+
+        indice.excluir(70_000, dia(sabado), StatusConsulta.CANCELADA.ordinal(), 10);
+        assertArrayEquals(new int[]{2}, indice.status(StatusConsulta.CANCELADA).ids());
+        assertArrayEquals(new int[]{1}, indice.medicos(List.of(10)).ids());
+        assertTrue(indice.medicos(List.of(99)).vazio());
+    }
+
+    private static TreeSet<Integer> sortear(Random aleatorio, int quantidade) {
+        TreeSet<Integer> ids = new TreeSet<>();
+        while (ids.size() < quantidade) {
+            ids.add(aleatorio.nextInt(MAIOR_ID));
+        }
+        return ids;
+    }
+
+    private static ConjuntoConsultas conjunto(TreeSet<Integer> ids) {
+        ConjuntoConsultas c = new ConjuntoConsultas();
+        for (int id : ids) {
+            c.adicionar(id);
+        }
+        return c;
+    }
+
+    private static int[] ids(TreeSet<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+}
@@ -0,0 +1,217 @@
+package br.com.clinica.analise;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.dao.PacienteDAO;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Testes do {@link SnapshotConsultas} sobre o banco H2 em memória configurado
+ * no {@code pom.xml}: as contagens da cópia devem ser sempre iguais às do
+ * banco.
+ * <p>
+ * {@link #compararComSql()} é uma medição, desligada por padrão: com
+ * {@code -Dclinica.benchmark=true} grava {@code clinica.benchmark.linhas}
+ * consultas (20 milhões, se não informado) e compara o tempo das contagens
+ * da cópia com o das consultas SQL equivalentes. Para 20 milhões de linhas no
+ * H2 em memória, a JVM do teste precisa de alguns GB de heap
+ * ({@code -DargLine=-Xmx8g}).
+ */
+class SnapshotConsultasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2033, 3, 7);
+
+    private final ConsultaDAO consultaDAO = new ConsultaDAO();
+
+    /**
+     * Consultas gravadas por outra thread enquanto a cópia é carregada chegam
+     * pelo barramento durante a leitura; nenhuma pode se perder.
+     */
+    @Test
+    void gravacoesDuranteACargaNaoSePerdem() throws Exception {
+        Medico medico = new MedicoDAO().inserir(new Medico("Dr. Colunar", "Geriatria", "CRM-0005"));
+        Paciente paciente = new PacienteDAO().inserir(new Paciente("Paciente Colunar", "555.555.555-55", "5555-5555"));
+        for (int i = 0; i < 50; i++) {
+            consultaDAO.inserir(new Consulta(DIA.plusDays(i % 7), LocalTime.of(8 + i % 10, 0), paciente, medico));
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> gravacoes = executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    Consulta c = consultaDAO.inserir(
+                            new Consulta(DIA.plusDays(i % 7), LocalTime.of(13 + i % 5, 30), paciente, medico));
+                    if (i % 3 == 0) {
+                        c.cancelar();
+                        consultaDAO.atualizar(c);
+                    } else if (i % 10 == 1) {
+                        consultaDAO.deletar(c.getId());
+                    }
+                }
+            });
+            SnapshotConsultas snapshot = SnapshotConsultas.obter();
+            gravacoes.get(60, TimeUnit.SECONDS);
+
+            FiltroColunar filtro = new FiltroColunar().medico(medico.getId());
+            assertArrayEquals(contarNoBanco(medico.getId()), snapshot.contarPorStatus(filtro));
+        } finally {
+            executor.shutdownNow();
+            for (Consulta c : consultaDAO.listarPorMedico(medico.getId())) {
+                consultaDAO.deletar(c.getId());
+            }
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "clinica.benchmark", matches = "true")
+    void compararComSql() {
+        int linhas = Integer.getInteger("clinica.benchmark.linhas", 20_000_000);
+        Medico medico = new MedicoDAO().inserir(new Medico("Dra. Medição", "Radiologia", "CRM-0006"));
+        Paciente paciente = new PacienteDAO().inserir(new Paciente("Paciente Medição", "666.666.666-66", "6666-6666"));
+        long t0 = System.nanoTime();
+        gravarEmLote(linhas, medico.getId(), paciente.getId());
+        System.out.printf("Gravação de %,d consultas: %d ms%n", linhas, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+
+        try {
+            t0 = System.nanoTime();
+            SnapshotConsultas snapshot = SnapshotConsultas.obter();
+            snapshot.sincronizar();
+            System.out.printf("Carga da cópia: %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+
+            LocalDate inicio = DIA.minusYears(5);
+            LocalDate fim = DIA;
+            FiltroColunar filtro = new FiltroColunar().periodo(inicio, fim).medico(medico.getId());
+
+            long[] porStatus = medir("Contagem por status, cópia", () -> snapshot.contarPorStatus(filtro));
+            long[] porStatusSql = medir("Contagem por status, SQL", () -> contarNoBanco(medico.getId(), inicio, fim));
+            assertArrayEquals(porStatusSql, porStatus);
+
+            long[][] porHora = medir("Contagem por hora, cópia", () -> snapshot.contar(filtro, Agrupamento.HORA));
+            long[][] porHoraSql = medir("Contagem por hora, SQL", () -> contarPorHoraNoBanco(medico.getId(), inicio, fim));
+            for (int h = 0; h < 24; h++) {
+                assertArrayEquals(porHoraSql[h], porHora[h], "hora " + h);
+            }
+        } finally {
+            int[] faixa = removerEmLote(medico.getId());
+            for (int id = faixa[0]; id <= faixa[1]; id++) {
+                SnapshotConsultas.registrarRemocao(id);
+            }
+            new MedicoDAO().deletar(medico.getId());
+        }
+    }
+
+    /**
+     * Executa a contagem algumas vezes, para aquecer o JIT, e escreve o
+     * melhor tempo.
+     */
+    private static <T> T medir(String nome, Supplier<T> contagem) {
+        T resultado = null;
+        long melhor = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long t0 = System.nanoTime();
+            resultado = contagem.get();
+            melhor = Math.min(melhor, System.nanoTime() - t0);
+        }
+        System.out.printf("%s: %.1f ms%n", nome, melhor / 1e6);
+        return resultado;
+    }
+
+    private static void gravarEmLote(int linhas, int medicoId, int pacienteId) {
+        StatusConsulta[] status = StatusConsulta.values();
+        TransacaoJPA.executar(em -> {
+            em.unwrap(Session.class).doWork(con -> {
+                try (PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO consulta (paciente_id, medico_id, dataAgendada, horaAgendada, status, versao, criadaEm) "
+                        + "VALUES (?, ?, ?, ?, ?, 0, ?)")) {
+                    Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+                    for (int i = 0; i < linhas; i++) {
+                        ps.setInt(1, pacienteId);
+                        ps.setInt(2, medicoId);
+                        ps.setObject(3, DIA.minusDays(i % 3650));
+                        ps.setObject(4, LocalTime.of(7 + i % 12, (i % 4) * 15));
+                        ps.setString(5, status[i % status.length].name());
+                        ps.setTimestamp(6, agora);
+                        ps.addBatch();
+                        if (i % 10_000 == 9_999) {
+                            ps.executeBatch();
+                        }
+                    }
+                    ps.executeBatch();
+                }
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Remove as consultas do médico sem passar pelo DAO e devolve a faixa de
+     * ids removida.
+     */
+    private static int[] removerEmLote(int medicoId) {
+        return TransacaoJPA.executar(em -> {
+            Object[] faixa = em.createQuery(
+                    "SELECT MIN(c.id), MAX(c.id) FROM Consulta c WHERE c.medico.id = :id", Object[].class)
+                    .setParameter("id", medicoId)
+                    .getSingleResult();
+            em.createQuery("DELETE FROM Consulta c WHERE c.medico.id = :id")
+                    .setParameter("id", medicoId)
+                    .executeUpdate();
+            return faixa[0] == null ? new int[]{0, -1} : new int[]{(Integer) faixa[0], (Integer) faixa[1]};
+        });
+    }
+
+    private static long[] contarNoBanco(int medicoId) {
+        return contarNoBanco(medicoId, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31));
+    }
+
+    private static long[] contarNoBanco(int medicoId, LocalDate inicio, LocalDate fim) {
+        List<Object[]> linhas = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT c.status, COUNT(c) FROM Consulta c WHERE c.medico.id = :id "
+                + "AND c.dataAgendada BETWEEN :inicio AND :fim GROUP BY c.status", Object[].class)
+                .setParameter("id", medicoId)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList());
+        long[] contagem = new long[StatusConsulta.values().length];
+        for (Object[] l : linhas) {
+            contagem[((StatusConsulta) l[0]).ordinal()] = (Long) l[1];
+        }
+        return contagem;
+    }
+
+    private static long[][] contarPorHoraNoBanco(int medicoId, LocalDate inicio, LocalDate fim) {
+        List<Object[]> linhas = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT extract(hour from c.horaAgendada), c.status, COUNT(c) FROM Consulta c "
+                + "WHERE c.medico.id = :id AND c.dataAgendada BETWEEN :inicio AND :fim "
+                + "GROUP BY extract(hour from c.horaAgendada), c.status", Object[].class)
+                .setParameter("id", medicoId)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList());
+        long[][] contagem = new long[24][StatusConsulta.values().length];
+        for (Object[] l : linhas) {
+            contagem[((Number) l[0]).intValue()][((StatusConsulta) l[1]).ordinal()] = (Long) l[2];
+        }
+        return contagem;
+    }
+}
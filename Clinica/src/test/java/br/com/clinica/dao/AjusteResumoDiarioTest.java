@@ -0,0 +1,152 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do acúmulo das variações de {@link AjusteResumoDiario}, sem banco:
+ * os comandos enviados ao {@link EntityManager} são apenas registrados.
+ */
+class AjusteResumoDiarioTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 6, 10);
+
+    private final Medico medico1 = medico(1);
+    private final Medico medico2 = medico(2);
+
+    private final List<Comando> comandos = new ArrayList<>();
+
+    @Test
+    void alteracaoQueNaoMudaALinhaNaoGravaNada() {
+        Consulta antes = consulta(medico1, DIA, StatusConsulta.AGENDADA);
+        Consulta depois = consulta(medico1, DIA, StatusConsulta.AGENDADA);
+        depois.setHoraAgendada(LocalTime.of(15, 0));
+
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.remover(antes);
+        ajuste.adicionar(depois);
+        ajuste.aplicar(gerenciador());
+
+        assertTrue(comandos.isEmpty());
+    }
+
+    @Test
+    void mudancaDeStatusMoveAContagemEApagaALinhaZerada() {
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.remover(consulta(medico1, DIA, StatusConsulta.AGENDADA));
+        ajuste.adicionar(consulta(medico1, DIA, StatusConsulta.CANCELADA));
+        ajuste.aplicar(gerenciador());
+
+        assertEquals(3, comandos.size());
+        assertUpsert(comandos.get(0), DIA, 1, StatusConsulta.AGENDADA, -1);
+        assertRemocaoZerada(comandos.get(1), DIA, 1, StatusConsulta.AGENDADA);
+        assertUpsert(comandos.get(2), DIA, 1, StatusConsulta.CANCELADA, 1);
+    }
+
+    @Test
+    void variacoesDaMesmaLinhaSaoSomadasEGravadasEmOrdem() {
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.adicionar(consulta(medico2, DIA, StatusConsulta.AGENDADA));
+        ajuste.adicionar(consulta(medico1, DIA.plusDays(1), StatusConsulta.AGENDADA));
+        ajuste.adicionar(consulta(medico2, DIA, StatusConsulta.AGENDADA));
+        ajuste.adicionar(consulta(medico1, DIA, StatusConsulta.REALIZADA));
+        ajuste.adicionar(consulta(medico2, DIA, StatusConsulta.AGENDADA));
+        ajuste.aplicar(gerenciador());
+
+        assertEquals(3, comandos.size());
+        assertUpsert(comandos.get(0), DIA, 1, StatusConsulta.REALIZADA, 1);
+        assertUpsert(comandos.get(1), DIA, 2, StatusConsulta.AGENDADA, 3);
+        assertUpsert(comandos.get(2), DIA.plusDays(1), 1, StatusConsulta.AGENDADA, 1);
+    }
+
+    @Test
+    void consultasIncompletasSaoIgnoradasEOAcumuladorEhLimpo() {
+        AjusteResumoDiario ajuste = new AjusteResumoDiario();
+        ajuste.adicionar(consulta(null, DIA, StatusConsulta.AGENDADA));
+        ajuste.adicionar(consulta(medico1, null, StatusConsulta.AGENDADA));
+        ajuste.remover(null);
+        ajuste.adicionar(consulta(medico1, DIA, StatusConsulta.AGENDADA));
+        ajuste.aplicar(gerenciador());
+        ajuste.aplicar(gerenciador());
+
+        assertEquals(1, comandos.size());
+    }
+
+    private static void assertUpsert(Comando c, LocalDate data, int medicoId, StatusConsulta status, long delta) {
+        assertTrue(c.sql.startsWith("INSERT INTO resumo_diario"), c.sql);
+        assertEquals(data, c.parametros.get("data"));
+        assertEquals(medicoId, c.parametros.get("medicoId"));
+        assertEquals(status.name(), c.parametros.get("status"));
+        assertEquals(delta, c.parametros.get("delta"));
+    }
+
+    private static void assertRemocaoZerada(Comando c, LocalDate data, int medicoId, StatusConsulta status) {
+        assertTrue(c.sql.startsWith("DELETE FROM resumo_diario") && c.sql.contains("total = 0"), c.sql);
+        assertEquals(data, c.parametros.get("data"));
+        assertEquals(medicoId, c.parametros.get("medicoId"));
+        assertEquals(status.name(), c.parametros.get("status"));
+    }
+
+    /**
+     * Cria um {@link EntityManager} que apenas registra os comandos nativos
+     * executados.
+     */
+    private EntityManager gerenciador() {
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (em, metodo, args) -> {
+                    if (!metodo.getName().equals("createNativeQuery")) {
+                        throw new UnsupportedOperationException(metodo.getName());
+                    }
+                    Comando comando = new Comando((String) args[0]);
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class<?>[]{Query.class}, (query, m, a) -> {
+                                switch (m.getName()) {
+                                    case "setParameter":
+                                        comando.parametros.put((String) a[0], a[1]);
+                                        return query;
+                                    case "executeUpdate":
+                                        comandos.add(comando);
+                                        return 1;
+                                    default:
+                                        throw new UnsupportedOperationException(m.getName());
+                                }
+                            });
+                });
+    }
+
+    private static Consulta consulta(Medico medico, LocalDate data, StatusConsulta status) {
+        Consulta c = new Consulta(data, LocalTime.of(9, 0), null, medico);
+        c.setStatus(status);
+        return c;
+    }
+
+    private static Medico medico(int id) {
+        Medico m = new Medico("Médico " + id, "Clínica Geral", "CRM-" + id);
+        m.setId(id);
+        return m;
+    }
+
+    private static final class Comando {
+
+        private final String sql;
+        private final Map<String, Object> parametros = new LinkedHashMap<>();
+
+        Comando(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.Metricas;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de estresse do bloqueio otimista de {@link ConsultaDAO#atualizar}:
+ * várias threads alteram a mesma consulta ao mesmo tempo, cada uma lendo,
+ * alterando e gravando, e nenhuma alteração pode se perder.
+ * <p>
+ * Usa o banco H2 em memória configurado no {@code pom.xml}.
+ */
+class ConsultaDAOConcorrenciaTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ALTERACOES_POR_THREAD = 25;
+
+    private static final LocalDate DATA_INICIAL = LocalDate.of(2030, 1, 1);
+
+    /**
+     * Tempo máximo de uma gravação, bem abaixo do tempo limite de espera por
+     * bloqueio do banco de testes ({@code LOCK_TIMEOUT=10000}).
+     */
+    private static final long LIMITE_GRAVACAO_MS = 2_000;
+
+    private static final ConsultaDAO dao = new ConsultaDAO();
+
+    private static Medico medico;
+
+    private static Paciente paciente;
+
+    @BeforeAll
+    static void cadastrar() {
+        medico = new MedicoDAO().inserir(new Medico("Dra. Estresse", "Clínica Geral", "CRM-0001"));
+        paciente = new PacienteDAO().inserir(new Paciente("Paciente Estresse", "000.000.000-00", "0000-0000"));
+    }
+
+    @AfterAll
+    static void remover() {
+        for (Consulta c : dao.listarPorMedico(medico.getId())) {
+            dao.deletar(c.getId());
+        }
+    }
+
+    /**
+     * Cada thread adia a consulta em um dia, repetindo a leitura a cada
+     * conflito. Sem alteração perdida, a data final avança exatamente o
+     * total de alterações confirmadas e a versão cresce na mesma medida.
+     * <p>
+     * A disputa deve ser resolvida pelo caminho otimista: há conflitos de
+     * versão, repetidos pela thread, e nenhuma gravação esgota a espera por
+     * bloqueio ({@code PessimisticLockException} ou
+     * {@code LockTimeoutException}), nem chegando à thread nem repetida por
+     * {@link TransacaoJPA} ({@code dao.falhas.transitorias}). Nenhuma
+     * gravação leva mais que {@value #LIMITE_GRAVACAO_MS} ms.
+     */
+    @Test
+    void alteracoesConcorrentesNaoSePerdem() throws Exception {
+        Consulta inicial = dao.inserir(new Consulta(DATA_INICIAL, LocalTime.of(9, 0), paciente, medico));
+        int id = inicial.getId();
+        int versaoInicial = dao.buscarPorId(id).getVersao();
+
+        long falhasTransitorias = Metricas.contador("dao.falhas.transitorias");
+        AtomicInteger conflitos = new AtomicInteger();
+        AtomicInteger esperasPorBloqueio = new AtomicInteger();
+        LongAccumulator maiorGravacao = new LongAccumulator(Math::max, 0);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService execucao = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(execucao.submit(() -> {
+                largada.await();
+                for (int i = 0; i < ALTERACOES_POR_THREAD; i++) {
+                    while (true) {
+                        Consulta c = dao.buscarPorId(id);
+                        c.setDataAgendada(c.getDataAgendada().plusDays(1));
+                        long t0 = System.nanoTime();
+                        try {
+                            dao.atualizar(c);
+                            break;
+                        } catch (ConflitoConcorrenciaException e) {
+                            conflitos.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            if (esperouPorBloqueio(e)) {
+                                esperasPorBloqueio.incrementAndGet();
+                            }
+                            throw e;
+                        } finally {
+                            maiorGravacao.accumulate(System.nanoTime() - t0);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> f : tarefas) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        execucao.shutdown();
+
+        int total = THREADS * ALTERACOES_POR_THREAD;
+        Consulta fim = dao.buscarPorId(id);
+        assertEquals(DATA_INICIAL.plusDays(total), fim.getDataAgendada());
+        assertEquals(versaoInicial + total, fim.getVersao());
+        assertTrue(conflitos.get() > 0, "as threads deveriam ter disputado a mesma versão");
+        assertEquals(0, esperasPorBloqueio.get(), "nenhuma gravação deveria esgotar a espera por bloqueio");
+        assertEquals(falhasTransitorias, Metricas.contador("dao.falhas.transitorias"),
+                "nenhuma gravação deveria ter sido repetida por falha de bloqueio");
+        long maiorMs = TimeUnit.NANOSECONDS.toMillis(maiorGravacao.get());
+        assertTrue(maiorMs < LIMITE_GRAVACAO_MS, "gravação mais lenta: " + maiorMs + " ms");
+    }
+
+    private static boolean esperouPorBloqueio(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PessimisticLockException || t instanceof LockTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Uma gravação a partir de uma versão já superada é recusada e não altera
+     * a consulta.
+     */
+    @Test
+    void gravacaoDeVersaoAntigaEhRecusada() {
+        Consulta original = dao.inserir(new Consulta(DATA_INICIAL, LocalTime.of(10, 0), paciente, medico));
+        Consulta primeira = dao.buscarPorId(original.getId());
+        Consulta segunda = dao.buscarPorId(original.getId());
+
+        primeira.setHoraAgendada(LocalTime.of(11, 0));
+        dao.atualizar(primeira);
+
+        segunda.setHoraAgendada(LocalTime.of(12, 0));
+        ConflitoConcorrenciaException e = assertThrows(ConflitoConcorrenciaException.class, () -> dao.atualizar(segunda));
+        assertEquals(LocalTime.of(11, 0), e.getRegistroAtual(Consulta.class).getHoraAgendada());
+        assertEquals(LocalTime.of(11, 0), dao.buscarPorId(original.getId()).getHoraAgendada());
+    }
+
+    /**
+     * A alteração montada só com os valores exibidos na tela (paciente e
+     * médico reduzidos a id e nome), sem ler a consulta antes, grava o novo
+     * status sem alterar o paciente e o médico; se a consulta foi removida
+     * nesse intervalo, a gravação é recusada como conflito.
+     */
+    @Test
+    void alteracaoSemLeituraPreviaUsaAVersaoExibida() {
+        Consulta original = dao.inserir(new Consulta(DATA_INICIAL, LocalTime.of(13, 0), paciente, medico));
+
+        Consulta exibida = copiaExibida(original);
+        exibida.setStatus(StatusConsulta.REALIZADA);
+        Consulta gravada = dao.atualizar(exibida);
+
+        assertEquals(original.getVersao() + 1, gravada.getVersao());
+        assertEquals(StatusConsulta.REALIZADA, dao.buscarPorId(original.getId()).getStatus());
+        assertEquals("Paciente Estresse", new PacienteDAO().buscarPorId(paciente.getId()).getNome());
+
+        Consulta removida = copiaExibida(gravada);
+        dao.deletar(original.getId());
+        removida.setStatus(StatusConsulta.CANCELADA);
+        ConflitoConcorrenciaException e = assertThrows(ConflitoConcorrenciaException.class, () -> dao.atualizar(removida));
+        assertTrue(e.isRemovido());
+    }
+
+    private static Consulta copiaExibida(Consulta c) {
+        Paciente p = new Paciente();
+        p.setId(c.getPaciente().getId());
+        p.setNome("Nome exibido");
+        Medico m = new Medico();
+        m.setId(c.getMedico().getId());
+        m.setNome("Nome exibido");
+        Consulta copia = new Consulta();
+        copia.setId(c.getId());
+        copia.setVersao(c.getVersao());
+        copia.setDataAgendada(c.getDataAgendada());
+        copia.setHoraAgendada(c.getHoraAgendada());
+        copia.setStatus(c.getStatus());
+        copia.setPaciente(p);
+        copia.setMedico(m);
+        return copia;
+    }
+}
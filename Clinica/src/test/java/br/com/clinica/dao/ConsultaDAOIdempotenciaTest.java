@@ -0,0 +1,68 @@
+package br.com.clinica.dao;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes das chaves de idempotência de {@link ConsultaDAO}, sobre o banco H2
+ * em memória configurado no {@code pom.xml}.
+ */
+class ConsultaDAOIdempotenciaTest {
+
+    private static final LocalDate DIA = LocalDate.of(2031, 5, 20);
+
+    private static final ConsultaDAO dao = new ConsultaDAO();
+
+    private static Medico medico;
+
+    private static Paciente paciente;
+
+    @BeforeAll
+    static void cadastrar() {
+        medico = new MedicoDAO().inserir(new Medico("Dr. Idempotente", "Pediatria", "CRM-0002"));
+        paciente = new PacienteDAO().inserir(new Paciente("Paciente Idempotente", "111.111.111-11", "1111-1111"));
+    }
+
+    @Test
+    void repeticaoComMesmoConteudoDevolveAConsultaOriginal() {
+        String chave = UUID.randomUUID().toString();
+        Consulta primeira = dao.inserir(new Consulta(DIA, LocalTime.of(8, 0), paciente, medico), chave);
+        Consulta repetida = dao.inserir(new Consulta(DIA, LocalTime.of(8, 0), paciente, medico), chave);
+
+        assertEquals(primeira.getId(), repetida.getId());
+        assertEquals(1, dao.listarPorPeriodoEMedico(DIA, DIA, medico.getId()).stream()
+                .filter(c -> c.getHoraAgendada().equals(LocalTime.of(8, 0))).count());
+    }
+
+    @Test
+    void repeticaoComOutroConteudoEhRecusada() {
+        String chave = UUID.randomUUID().toString();
+        Consulta original = dao.inserir(new Consulta(DIA, LocalTime.of(9, 0), paciente, medico), chave);
+
+        Consulta alterada = new Consulta(DIA.plusDays(1), LocalTime.of(14, 0), paciente, medico);
+        assertThrows(IllegalStateException.class, () -> dao.inserir(alterada, chave));
+
+        assertEquals(DIA, dao.buscarPorId(original.getId()).getDataAgendada());
+        assertEquals(0, dao.listarPorPeriodoEMedico(DIA.plusDays(1), DIA.plusDays(1), medico.getId()).size());
+    }
+
+    @Test
+    void hashMudaComQualquerCampoGravado() {
+        Consulta c = new Consulta(DIA, LocalTime.of(10, 0), paciente, medico);
+        String hash = ConsultaDAO.hashConteudo(c);
+
+        assertEquals(hash, ConsultaDAO.hashConteudo(new Consulta(DIA, LocalTime.of(10, 0), paciente, medico)));
+        c.setHoraAgendada(LocalTime.of(10, 30));
+        assertNotEquals(hash, ConsultaDAO.hashConteudo(c));
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.clinica.dao;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import br.com.clinica.model.Medico;
+import java.net.SocketException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.exception.LockAcquisitionException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da classificação de falhas transitórias e das novas tentativas de
+ * {@link TransacaoJPA}.
+ */
+class TransacaoJPATest {
+
+    @Test
+    void deadlockEEsperaDeBloqueioDoMySqlSaoTransitorios() {
+        assertTrue(TransacaoJPA.isTransitoria(persistencia(new SQLException("Deadlock found", "40001", 1213))));
+        assertTrue(TransacaoJPA.isTransitoria(persistencia(new SQLException("Lock wait timeout", "HY000", 1205))));
+        assertTrue(TransacaoJPA.isTransitoria(new LockAcquisitionException("deadlock", new SQLException())));
+        assertTrue(TransacaoJPA.isTransitoria(new LockTimeoutException("timeout")));
+    }
+
+    @Test
+    void falhasDeConexaoSaoTransitorias() {
+        assertTrue(TransacaoJPA.isTransitoria(persistencia(new SQLException("Communications link failure", "08S01"))));
+        assertTrue(TransacaoJPA.isTransitoria(persistencia(new SQLTransientConnectionException("pool"))));
+        assertTrue(TransacaoJPA.isTransitoria(persistencia(new SQLException("io", new SocketException("reset")))));
+    }
+
+    @Test
+    void conflitoDeVersaoNuncaEhTransitorio() {
+        assertFalse(TransacaoJPA.isTransitoria(new OptimisticLockException("versão")));
+        assertFalse(TransacaoJPA.isTransitoria(new OptimisticLockException("versão",
+                new SQLTransactionRollbackException("rollback", "40001"))));
+    }
+
+    @Test
+    void errosDeDadosNaoSaoTransitorios() {
+        assertFalse(TransacaoJPA.isTransitoria(persistencia(
+                new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062))));
+        assertFalse(TransacaoJPA.isTransitoria(persistencia(new SQLException("syntax", "42000", 1064))));
+        assertFalse(TransacaoJPA.isTransitoria(new IllegalStateException("regra de negócio")));
+    }
+
+    @Test
+    void leituraComFalhaTransitoriaEhRepetida() {
+        AtomicInteger tentativas = new AtomicInteger();
+        int resultado = TransacaoJPA.consultar(em -> {
+            if (tentativas.incrementAndGet() < 3) {
+                throw persistencia(new SQLTransientConnectionException("conexão perdida"));
+            }
+            return 42;
+        });
+
+        assertEquals(42, resultado);
+        assertEquals(3, tentativas.get());
+    }
+
+    @Test
+    void falhaNaoTransitoriaNaoEhRepetida() {
+        AtomicInteger tentativas = new AtomicInteger();
+        assertThrows(PersistenceException.class, () -> TransacaoJPA.executar(em -> {
+            tentativas.incrementAndGet();
+            throw persistencia(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062));
+        }));
+        assertEquals(1, tentativas.get());
+    }
+
+    @Test
+    void tentativasSeEsgotam() {
+        AtomicInteger tentativas = new AtomicInteger();
+        assertThrows(PersistenceException.class, () -> TransacaoJPA.executar(em -> {
+            tentativas.incrementAndGet();
+            throw persistencia(new SQLException("Deadlock found", "40001", 1213));
+        }));
+        assertEquals(4, tentativas.get());
+    }
+
+    /**
+     * A primeira tentativa insere o registro e falha antes do commit; a
+     * segunda precisa inseri-lo de novo, com o mesmo objeto.
+     */
+    @Test
+    void insercaoComFalhaTransitoriaEhRepetida() {
+        AtomicInteger tentativas = new AtomicInteger();
+        Medico medico = new Medico("Dr. Repetição", "Urologia", "CRM-0007");
+        Medico gravado = TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, medico);
+            em.flush();
+            if (tentativas.incrementAndGet() == 1) {
+                throw persistencia(new SQLException("Deadlock found", "40001", 1213));
+            }
+            return medico;
+        });
+
+        assertEquals(2, tentativas.get());
+        assertNotEquals(0, gravado.getId());
+        long gravados = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT COUNT(m) FROM Medico m WHERE m.crm = :crm", Long.class)
+                .setParameter("crm", "CRM-0007")
+                .getSingleResult());
+        assertEquals(1, gravados);
+        new MedicoDAO().deletar(gravado.getId());
+    }
+
+    @Test
+    void falhaNaoRepetidaDevolveORegistroComoNaoGravado() {
+        Medico medico = new Medico("Dra. Recusa", "Urologia", "CRM-0008");
+        assertThrows(IllegalStateException.class, () -> TransacaoJPA.executar(em -> {
+            TransacaoJPA.persistir(em, medico);
+            em.flush();
+            throw new IllegalStateException("regra de negócio");
+        }));
+
+        assertEquals(0, medico.getId());
+        Medico gravado = new MedicoDAO().inserir(medico);
+        assertNotEquals(0, gravado.getId());
+        new MedicoDAO().deletar(gravado.getId());
+    }
+
+    private static PersistenceException persistencia(SQLException causa) {
+        return new PersistenceException(causa.getMessage(), causa);
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import javax.swing.table.TableRowSorter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes da normalização e do filtro em memória de
+ * {@link FiltroTextoConsultas}.
+ */
+class FiltroTextoConsultasTest {
+
+    @Test
+    void normalizarIgnoraMaiusculasEAcentos() {
+        assertEquals("joao", FiltroTextoConsultas.normalizar("João"));
+        assertEquals("conceicao aragao", FiltroTextoConsultas.normalizar("CONCEIÇÃO Aragão"));
+        assertEquals("jose", FiltroTextoConsultas.normalizar("José"));
+        assertEquals("istanbul", FiltroTextoConsultas.normalizar("ISTANBUL"));
+        assertEquals("", FiltroTextoConsultas.normalizar(""));
+    }
+
+    @Test
+    void filtraPorPacienteMedicoOuStatus() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(List.of(
+                consulta(1, "João Silva", "Dra. Ana"),
+                consulta(2, "Maria Souza", "Dr. Antônio"),
+                consulta(3, "Carlos Pereira", "Dr. Roberto")));
+        FiltroTextoConsultas filtro = new FiltroTextoConsultas(modelo);
+        TableRowSorter<ModeloTabelaConsultas> ordenador = new TableRowSorter<>(modelo);
+        ordenador.setRowFilter(filtro);
+
+        assertEquals(3, visiveis(ordenador, filtro, null));
+        assertEquals(1, visiveis(ordenador, filtro, "JOAO"));
+        assertEquals(1, visiveis(ordenador, filtro, "antonio"));
+        assertEquals(2, visiveis(ordenador, filtro, "AN"));
+        assertEquals(3, visiveis(ordenador, filtro, "agendada"));
+        assertEquals(0, visiveis(ordenador, filtro, "cancelada"));
+        // O fim do nome do paciente e o início do médico não formam uma ocorrência.
+        assertEquals(0, visiveis(ordenador, filtro, "silvadra"));
+    }
+
+    @Test
+    void alteracaoDaLinhaDescartaAChaveGuardada() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(List.of(consulta(1, "João Silva", "Dra. Ana"), consulta(2, "Maria Souza", "Dra. Ana")));
+        FiltroTextoConsultas filtro = new FiltroTextoConsultas(modelo);
+        TableRowSorter<ModeloTabelaConsultas> ordenador = new TableRowSorter<>(modelo);
+        ordenador.setRowFilter(filtro);
+        assertEquals(0, visiveis(ordenador, filtro, "cancelada"));
+
+        Consulta cancelada = consulta(2, "Maria Souza", "Dra. Ana");
+        cancelada.cancelar();
+        modelo.atualizar(cancelada);
+        assertEquals(1, visiveis(ordenador, filtro, "cancelada"));
+
+        modelo.remover(1);
+        modelo.incluir(consulta(3, "Conceição", "Dra. Ana"));
+        assertEquals(1, visiveis(ordenador, filtro, "conceicao"));
+        assertEquals(0, visiveis(ordenador, filtro, "joao"));
+    }
+
+    private static int visiveis(TableRowSorter<ModeloTabelaConsultas> ordenador,
+            FiltroTextoConsultas filtro, String termo) {
+        filtro.setTermo(termo);
+        ordenador.sort();
+        return ordenador.getViewRowCount();
+    }
+
+    private static Consulta consulta(int id, String paciente, String medico) {
+        Consulta c = new Consulta(LocalDate.of(2025, 6, 2), LocalTime.of(9, 0),
+                new Paciente(paciente, "000.000.000-0" + id, "0000-0000"),
+                new Medico(medico, "Clínica Geral", "CRM-" + id));
+        c.setId(id);
+        return c;
+    }
+}
@@ -0,0 +1,232 @@
+package br.com.clinica.gui;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.AlteracaoEntidade;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes de {@link ModeloTabelaConsultas} e da base
+ * {@link ModeloTabelaColunar}.
+ * <p>
+ * {@link #compararComDefaultTableModel()} é uma medição, desligada por
+ * padrão: com {@code -Dclinica.benchmark=true} preenche uma {@code JTable}
+ * com 100 mil consultas pelo {@code DefaultTableModel}, como as telas faziam,
+ * e pelo modelo colunar, e escreve o tempo de carga, o tempo de leitura de
+ * todas as células e a memória ocupada por cada um.
+ */
+class ModeloTabelaConsultasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 5, 5);
+
+    /**
+     * Recebe o resultado das leituras da medição, para que o JIT não as
+     * descarte.
+     */
+    private static volatile int sumidouro;
+
+    @Test
+    void preencherExibeOsValoresPorColuna() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(consultas(3));
+
+        assertEquals(3, modelo.getRowCount());
+        assertEquals(2, modelo.getValueAt(1, 0));
+        assertEquals("Paciente 2", modelo.getValueAt(1, 1));
+        assertEquals("Médico 2", modelo.getValueAt(1, 2));
+        assertEquals(DIA.plusDays(2), modelo.getValueAt(1, 3));
+        assertEquals(LocalTime.of(10, 30), modelo.getValueAt(1, 4));
+        assertEquals(StatusConsulta.AGENDADA, modelo.getStatus(1));
+        assertEquals(7, modelo.getVersao(1));
+        assertEquals(1, modelo.linhaDe(2));
+        assertEquals(-1, modelo.linhaDe(99));
+    }
+
+    @Test
+    void consultaMontadaComOsValoresDaLinha() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(consultas(3));
+
+        Consulta c = modelo.getConsulta(1);
+        assertEquals(2, c.getId());
+        assertEquals(7, c.getVersao());
+        assertEquals(DIA.plusDays(2), c.getDataAgendada());
+        assertEquals(LocalTime.of(10, 30), c.getHoraAgendada());
+        assertEquals(StatusConsulta.AGENDADA, c.getStatus());
+        assertEquals(2, c.getPaciente().getId());
+        assertEquals("Paciente 2", c.getPaciente().getNome());
+        assertEquals(2, c.getMedico().getId());
+        assertEquals("Médico 2", c.getMedico().getNome());
+    }
+
+    @Test
+    void atualizarMantemAPosicaoERemoverDeslocaAsSeguintes() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(consultas(4));
+
+        Consulta alterada = consulta(2);
+        alterada.cancelar();
+        alterada.setVersao(8);
+        modelo.atualizar(alterada);
+        assertEquals(1, modelo.linhaDe(2));
+        assertEquals(StatusConsulta.CANCELADA, modelo.getStatus(1));
+        assertEquals(8, modelo.getVersao(1));
+
+        modelo.remover(2);
+        assertEquals(3, modelo.getRowCount());
+        assertEquals(-1, modelo.linhaDe(2));
+        assertEquals(1, modelo.linhaDe(3));
+        assertEquals("Paciente 3", modelo.getValueAt(1, 1));
+        assertEquals(2, modelo.linhaDe(4));
+
+        modelo.remover(99);
+        assertEquals(3, modelo.getRowCount());
+    }
+
+    @Test
+    void incluirAcrescentaAoFinal() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(consultas(2));
+
+        for (int id = 3; id <= 40; id++) {
+            modelo.incluir(consulta(id));
+        }
+        assertEquals(40, modelo.getRowCount());
+        assertEquals(39, modelo.linhaDe(40));
+        assertEquals("Paciente 40", modelo.getValueAt(39, 1));
+
+        // Registro ausente é incluído ao ser atualizado.
+        modelo.atualizar(consulta(41));
+        assertEquals(40, modelo.linhaDe(41));
+    }
+
+    @Test
+    void aplicarAlteracoesDoBarramento() {
+        ModeloTabelaConsultas modelo = new ModeloTabelaConsultas();
+        modelo.preencher(consultas(3));
+
+        Consulta alterada = consulta(1);
+        alterada.cancelar();
+        modelo.aplicar(List.of(
+                new AlteracaoEntidade(Consulta.class, 1, TipoAlteracao.ALTERACAO, alterada),
+                new AlteracaoEntidade(Consulta.class, 2, TipoAlteracao.REMOCAO, null),
+                new AlteracaoEntidade(Consulta.class, 10, TipoAlteracao.INCLUSAO, consulta(10)),
+                new AlteracaoEntidade(Consulta.class, 11, TipoAlteracao.INCLUSAO, consulta(11))),
+                c -> c.getId() != 11);
+
+        assertEquals(3, modelo.getRowCount());
+        assertEquals(StatusConsulta.CANCELADA, modelo.getStatus(0));
+        assertEquals(-1, modelo.linhaDe(2));
+        assertEquals(1, modelo.linhaDe(3));
+        assertEquals(2, modelo.linhaDe(10));
+        // Inclusões fora do filtro da tela não entram na tabela.
+        assertEquals(-1, modelo.linhaDe(11));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "clinica.benchmark", matches = "true")
+    void compararComDefaultTableModel() {
+        List<Consulta> consultas = consultas(100_000);
+        DateTimeFormatter fmtData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        for (int rodada = 0; rodada < 3; rodada++) {
+            JTable tabelaPadrao = new JTable();
+            long memoriaAntes = memoriaUsada();
+            long t0 = System.nanoTime();
+            DefaultTableModel padrao = new DefaultTableModel(
+                    new Object[]{"ID", "Paciente", "Médico", "Data", "Hora", "Status"}, 0);
+            tabelaPadrao.setModel(padrao);
+            for (Consulta c : consultas) {
+                padrao.addRow(new Object[]{
+                    c.getId(),
+                    c.getPaciente().getNome(),
+                    c.getMedico().getNome(),
+                    c.getDataAgendada().format(fmtData),
+                    c.getHoraAgendada(),
+                    c.getStatus()
+                });
+            }
+            long cargaPadrao = System.nanoTime() - t0;
+            long leituraPadrao = lerTodas(padrao);
+            long memoriaPadrao = memoriaUsada() - memoriaAntes;
+
+            JTable tabelaColunar = new JTable();
+            memoriaAntes = memoriaUsada();
+            t0 = System.nanoTime();
+            ModeloTabelaConsultas colunar = new ModeloTabelaConsultas();
+            colunar.instalarEm(tabelaColunar);
+            colunar.preencher(consultas);
+            long cargaColunar = System.nanoTime() - t0;
+            long leituraColunar = lerTodas(colunar);
+            long memoriaColunar = memoriaUsada() - memoriaAntes;
+
+            assertEquals(padrao.getRowCount(), colunar.getRowCount());
+            System.out.printf("Rodada %d, %,d linhas:%n", rodada + 1, consultas.size());
+            System.out.printf("  DefaultTableModel:     carga %d ms, leitura %d ms, %,d KB%n",
+                    TimeUnit.NANOSECONDS.toMillis(cargaPadrao), TimeUnit.NANOSECONDS.toMillis(leituraPadrao),
+                    memoriaPadrao / 1024);
+            System.out.printf("  ModeloTabelaConsultas: carga %d ms, leitura %d ms, %,d KB%n",
+                    TimeUnit.NANOSECONDS.toMillis(cargaColunar), TimeUnit.NANOSECONDS.toMillis(leituraColunar),
+                    memoriaColunar / 1024);
+        }
+    }
+
+    /**
+     * Lê todas as células, como ao desenhar a tabela inteira, e devolve o
+     * tempo gasto.
+     */
+    private static long lerTodas(TableModel modelo) {
+        long t0 = System.nanoTime();
+        int hash = 0;
+        for (int i = 0; i < modelo.getRowCount(); i++) {
+            for (int j = 0; j < modelo.getColumnCount(); j++) {
+                hash += System.identityHashCode(modelo.getValueAt(i, j));
+            }
+        }
+        long nanos = System.nanoTime() - t0;
+        sumidouro = hash;
+        return nanos;
+    }
+
+    private static long memoriaUsada() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static List<Consulta> consultas(int quantidade) {
+        List<Consulta> consultas = new ArrayList<>(quantidade);
+        for (int id = 1; id <= quantidade; id++) {
+            consultas.add(consulta(id));
+        }
+        return consultas;
+    }
+
+    private static Consulta consulta(int id) {
+        Paciente paciente = new Paciente("Paciente " + id, String.format("%011d", id), "0000-0000");
+        paciente.setId(id);
+        Medico medico = new Medico("Médico " + id % 50, "Clínica Geral", "CRM-" + id % 50);
+        medico.setId(id % 50);
+        Consulta c = new Consulta(DIA.plusDays(id % 365), LocalTime.of(8 + id % 10, 30), paciente, medico);
+        c.setId(id);
+        c.setVersao(7);
+        return c;
+    }
+}
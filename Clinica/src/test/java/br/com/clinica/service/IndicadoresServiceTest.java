@@ -0,0 +1,80 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.dao.PacienteDAO;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.Metricas;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes da gravação e do reaproveitamento dos indicadores de meses
+ * encerrados de {@link IndicadoresService}, sobre o banco H2 em memória
+ * configurado no {@code pom.xml}.
+ */
+class IndicadoresServiceTest {
+
+    private static final YearMonth MES = YearMonth.of(2024, 2);
+
+    private static final ConsultaDAO dao = new ConsultaDAO();
+
+    private static Medico medico;
+
+    private static Paciente paciente;
+
+    @BeforeAll
+    static void cadastrar() {
+        medico = new MedicoDAO().inserir(new Medico("Dra. Indicadores", "Dermatologia", "CRM-0039"));
+        paciente = new PacienteDAO().inserir(new Paciente("Paciente Indicadores", "039.039.039-39", "3939-3939"));
+    }
+
+    @Test
+    void indicadoresGravadosSobrevivemAoReinicioAteAsConsultasMudarem() {
+        Consulta realizada = new Consulta(MES.atDay(5), LocalTime.of(9, 0), paciente, medico);
+        realizada.setStatus(StatusConsulta.REALIZADA);
+        dao.inserir(realizada);
+        Consulta cancelada = new Consulta(MES.atDay(6), LocalTime.of(9, 0), paciente, medico);
+        cancelada.setStatus(StatusConsulta.CANCELADA);
+        dao.inserir(cancelada);
+        Consulta falta = dao.inserir(new Consulta(MES.atDay(7), LocalTime.of(9, 0), paciente, medico));
+
+        IndicadoresService service = new IndicadoresService();
+        IndicadoresMes calculado = service.calcular(MES, medico.getId());
+        assertEquals(3, calculado.getGeral().getTotal());
+        assertEquals(1, calculado.getGeral().getCanceladas());
+        assertEquals(1, calculado.getGeral().getFaltas());
+        long gravadas = TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT COUNT(i) FROM IndicadorMensal i WHERE i.mes = :mes AND i.medicoId = :medicoId", Long.class)
+                .setParameter("mes", MES.toString())
+                .setParameter("medicoId", medico.getId())
+                .getSingleResult());
+        assertEquals(1 + 1 + 1 + 7 + 7, gravadas);
+
+        IndicadoresService.esquecerCache();
+        long reaproveitados = Metricas.contador("relatorio.indicadores.cache.gravado");
+        IndicadoresMes relido = service.calcular(MES, medico.getId());
+        assertEquals(reaproveitados + 1, Metricas.contador("relatorio.indicadores.cache.gravado"));
+        assertEquals(3, relido.getGeral().getTotal());
+        assertEquals("Dra. Indicadores", relido.getPorMedico().get(0).getGrupo());
+        assertEquals("Dermatologia", relido.getPorEspecialidade().get(0).getGrupo());
+        assertEquals(7, relido.getPorDiaSemana().size());
+        assertEquals(calculado.getPorAntecedencia().get(6).getTotal(), relido.getPorAntecedencia().get(6).getTotal());
+
+        falta.setStatus(StatusConsulta.REALIZADA);
+        dao.atualizar(falta);
+        IndicadoresService.esquecerCache();
+        long recalculados = Metricas.contador("relatorio.indicadores.cache.falha");
+        IndicadoresMes atualizado = service.calcular(MES, medico.getId());
+        assertEquals(recalculados + 1, Metricas.contador("relatorio.indicadores.cache.falha"));
+        assertEquals(0, atualizado.getGeral().getFaltas());
+    }
+}
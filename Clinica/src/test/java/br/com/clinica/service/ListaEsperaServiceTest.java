@@ -0,0 +1,146 @@
+package br.com.clinica.service;
+
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.ListaEspera;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da escolha de candidatos da lista de espera para as vagas liberadas
+ * por cancelamento, sobre um {@link IndiceListaEspera} montado em memória.
+ */
+class ListaEsperaServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 3, 15);
+
+    private final Medico cardio = medico(1, "Cardiologia");
+    private final Medico outroCardio = medico(2, "cardiologia ");
+    private final Medico orto = medico(3, "Ortopedia");
+
+    private int proximoId = 1;
+
+    @Test
+    void pedidoParaOMedicoVemAntesDoPedidoPorEspecialidade() {
+        ListaEspera porEspecialidade = pedido(null, "Cardiologia", DIA, DIA, 1);
+        ListaEspera paraOMedico = pedido(cardio, null, DIA, DIA, 2);
+
+        List<PropostaEncaixe> propostas = service(porEspecialidade, paraOMedico).proporEncaixes(List.of(vaga(cardio, DIA, 9)));
+
+        assertEquals(1, propostas.size());
+        assertEquals(List.of(paraOMedico, porEspecialidade), propostas.get(0).getCandidatos());
+    }
+
+    @Test
+    void dentroDoGrupoRespeitaOrdemDeChegadaELimiteDeCandidatos() {
+        ListaEspera terceiro = pedido(cardio, null, DIA, DIA, 3);
+        ListaEspera primeiro = pedido(cardio, null, DIA, DIA, 1);
+        ListaEspera quarto = pedido(cardio, null, DIA, DIA, 4);
+        ListaEspera segundo = pedido(cardio, null, DIA, DIA, 2);
+
+        List<ListaEspera> candidatos = service(terceiro, primeiro, quarto, segundo)
+                .proporEncaixes(List.of(vaga(cardio, DIA, 9))).get(0).getCandidatos();
+
+        assertEquals(List.of(primeiro, segundo, terceiro), candidatos);
+    }
+
+    @Test
+    void ignoraPedidosForaDaJanelaDeDatasEHorarios() {
+        ListaEspera terminouAntes = pedido(cardio, null, DIA.minusDays(10), DIA.minusDays(1), 1);
+        ListaEspera comecaDepois = pedido(cardio, null, DIA.plusDays(1), DIA.plusDays(10), 2);
+        ListaEspera soATarde = pedido(cardio, null, DIA, DIA, 3);
+        soATarde.setHoraInicial(LocalTime.of(13, 0));
+        ListaEspera aceita = pedido(cardio, null, DIA.minusDays(5), DIA.plusDays(5), 4);
+
+        List<PropostaEncaixe> propostas = service(terminouAntes, comecaDepois, soATarde, aceita)
+                .proporEncaixes(List.of(vaga(cardio, DIA, 9)));
+
+        assertEquals(List.of(aceita), propostas.get(0).getCandidatos());
+    }
+
+    @Test
+    void especialidadeComparadaSemDiferencaDeCaixaEEspacos() {
+        ListaEspera pedido = pedido(null, "  CARDIOLOGIA", DIA, DIA, 1);
+
+        List<PropostaEncaixe> propostas = service(pedido).proporEncaixes(List.of(vaga(outroCardio, DIA, 9)));
+
+        assertEquals(List.of(pedido), propostas.get(0).getCandidatos());
+    }
+
+    @Test
+    void primeiroCandidatoDeUmaVagaNaoEhIndicadoParaAsSeguintes() {
+        ListaEspera unico = pedido(cardio, null, DIA, DIA.plusDays(1), 1);
+        ListaEspera reserva = pedido(cardio, null, DIA, DIA.plusDays(1), 2);
+
+        List<PropostaEncaixe> propostas = service(unico, reserva).proporEncaixes(List.of(
+                vaga(cardio, DIA.plusDays(1), 9), vaga(cardio, DIA, 9)));
+
+        assertEquals(2, propostas.size());
+        assertEquals(DIA, propostas.get(0).getVaga().getDataAgendada());
+        assertEquals(unico, propostas.get(0).getCandidatos().get(0));
+        assertEquals(List.of(reserva), propostas.get(1).getCandidatos());
+    }
+
+    @Test
+    void consultasNaoCanceladasEOutrosMedicosNaoGeramProposta() {
+        ListaEspera pedido = pedido(cardio, null, DIA, DIA, 1);
+        Consulta agendada = vaga(cardio, DIA, 9);
+        agendada.setStatus(StatusConsulta.AGENDADA);
+
+        assertTrue(service(pedido).proporEncaixes(List.of(agendada, vaga(orto, DIA, 9))).isEmpty());
+    }
+
+    @Test
+    void indiceAplicaAlteracoesERemocoes() {
+        ListaEspera pedido = pedido(cardio, null, DIA, DIA, 1);
+        IndiceListaEspera indice = new IndiceListaEspera(List.of(pedido));
+
+        ListaEspera adiado = pedido(cardio, null, DIA.plusDays(7), DIA.plusDays(7), 1);
+        adiado.setId(pedido.getId());
+        indice.aplicar(adiado.getId(), adiado);
+        ListaEsperaService service = new ListaEsperaService(indice);
+        assertEquals(1, indice.tamanho());
+        assertTrue(service.proporEncaixes(List.of(vaga(cardio, DIA, 9))).isEmpty());
+        assertEquals(1, service.proporEncaixes(List.of(vaga(cardio, DIA.plusDays(7), 9))).size());
+
+        adiado.setAtiva(false);
+        indice.aplicar(adiado.getId(), adiado);
+        assertEquals(0, indice.tamanho());
+
+        indice.aplicar(pedido.getId(), pedido);
+        indice.aplicar(pedido.getId(), null);
+        assertTrue(service.proporEncaixes(List.of(vaga(cardio, DIA, 9))).isEmpty());
+    }
+
+    private static ListaEsperaService service(ListaEspera... pedidos) {
+        return new ListaEsperaService(new IndiceListaEspera(List.of(pedidos)));
+    }
+
+    private ListaEspera pedido(Medico medico, String especialidade, LocalDate inicio, LocalDate fim, int ordemChegada) {
+        Paciente paciente = new Paciente("Paciente " + proximoId, "", "");
+        ListaEspera l = new ListaEspera(paciente, medico, especialidade, inicio, fim);
+        l.setId(proximoId++);
+        l.setCriadoEm(LocalDateTime.of(2030, 1, 1, 8, 0).plusMinutes(ordemChegada));
+        return l;
+    }
+
+    private static Consulta vaga(Medico medico, LocalDate data, int hora) {
+        Consulta c = new Consulta(data, LocalTime.of(hora, 0), null, medico);
+        c.cancelar();
+        return c;
+    }
+
+    private static Medico medico(int id, String especialidade) {
+        Medico m = new Medico("Médico " + id, especialidade, "CRM-" + id);
+        m.setId(id);
+        return m;
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.clinica.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes do cálculo de capacidade e ocupação de {@link MapaOcupacao}.
+ */
+class MapaOcupacaoTest {
+
+    private static final int MEDICO = 7;
+
+    /**
+     * Segunda-feira, 3 de março de 2025.
+     */
+    private static final LocalDate SEGUNDA = LocalDate.of(2025, 3, 3);
+
+    @Test
+    void capacidadeContaAsOcorrenciasDeCadaDiaNoPeriodo() {
+        // 10 dias a partir de uma segunda: segunda a quarta ocorrem duas vezes.
+        MapaOcupacao mapa = mapa(SEGUNDA, SEGUNDA.plusDays(9), new int[7 * 24]);
+
+        assertEquals(2 * MapaOcupacao.CONSULTAS_POR_HORA, mapa.capacidade(DayOfWeek.MONDAY));
+        assertEquals(2 * MapaOcupacao.CONSULTAS_POR_HORA, mapa.capacidade(DayOfWeek.WEDNESDAY));
+        assertEquals(MapaOcupacao.CONSULTAS_POR_HORA, mapa.capacidade(DayOfWeek.THURSDAY));
+        assertEquals(MapaOcupacao.CONSULTAS_POR_HORA, mapa.capacidade(DayOfWeek.SUNDAY));
+    }
+
+    @Test
+    void ocupacaoDivideConsultasPelaCapacidade() {
+        int[] consultas = new int[7 * 24];
+        consultas[faixa(DayOfWeek.MONDAY, 9)] = 3;
+        consultas[faixa(DayOfWeek.TUESDAY, 10)] = 5;
+        MapaOcupacao mapa = mapa(SEGUNDA, SEGUNDA.plusDays(13), consultas);
+
+        // Duas segundas, 2 consultas por hora: capacidade 4.
+        assertEquals(0.75, mapa.ocupacao(MEDICO, DayOfWeek.MONDAY, 9), 1e-9);
+        // Encaixes levam a ocupação acima de 100%.
+        assertEquals(1.25, mapa.ocupacao(MEDICO, DayOfWeek.TUESDAY, 10), 1e-9);
+        assertEquals(0, mapa.ocupacao(MEDICO, DayOfWeek.MONDAY, 10), 1e-9);
+        assertEquals(0, mapa.ocupacao(99, DayOfWeek.MONDAY, 9), 1e-9);
+    }
+
+    @Test
+    void diaAusenteDoPeriodoTemOcupacaoZero() {
+        int[] consultas = new int[7 * 24];
+        consultas[faixa(DayOfWeek.SATURDAY, 9)] = 1;
+        MapaOcupacao mapa = mapa(SEGUNDA, SEGUNDA.plusDays(2), consultas);
+
+        assertEquals(0, mapa.capacidade(DayOfWeek.SATURDAY));
+        assertEquals(0, mapa.ocupacao(MEDICO, DayOfWeek.SATURDAY, 9), 1e-9);
+    }
+
+    @Test
+    void expedienteAmpliadoPorConsultasForaDoPadrao() {
+        MapaOcupacao padrao = mapa(SEGUNDA, SEGUNDA, new int[7 * 24]);
+        assertEquals(8, padrao.getHoraInicial());
+        assertEquals(17, padrao.getHoraFinal());
+
+        int[] consultas = new int[7 * 24];
+        consultas[faixa(DayOfWeek.MONDAY, 6)] = 1;
+        consultas[faixa(DayOfWeek.FRIDAY, 20)] = 1;
+        MapaOcupacao ampliado = mapa(SEGUNDA, SEGUNDA.plusDays(6), consultas);
+        assertEquals(6, ampliado.getHoraInicial());
+        assertEquals(20, ampliado.getHoraFinal());
+    }
+
+    private static MapaOcupacao mapa(LocalDate inicio, LocalDate fim, int[] consultas) {
+        return new MapaOcupacao(inicio, fim, Map.of(MEDICO, "Dr. Mapa"), Map.of(MEDICO, consultas));
+    }
+
+    private static int faixa(DayOfWeek dia, int hora) {
+        return (dia.getValue() - 1) * 24 + hora;
+    }
+}
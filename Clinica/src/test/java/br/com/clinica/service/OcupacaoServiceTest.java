@@ -0,0 +1,60 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.dao.PacienteDAO;
+import br.com.clinica.enums.StatusConsulta;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes da contagem de {@link OcupacaoService}, sobre o banco H2 em memória
+ * configurado no {@code pom.xml}.
+ */
+class OcupacaoServiceTest {
+
+    /**
+     * Segunda-feira, 1º de maio de 2023.
+     */
+    private static final LocalDate SEGUNDA = LocalDate.of(2023, 5, 1);
+
+    @Test
+    void consultasIntercaladasDeVariosMedicosSaoSomadasAoMedicoCerto() {
+        MedicoDAO medicos = new MedicoDAO();
+        Medico a = medicos.inserir(new Medico("Dr. Ocupação A", "Cardiologia", "CRM-0038A"));
+        Medico b = medicos.inserir(new Medico("Dr. Ocupação B", "Cardiologia", "CRM-0038B"));
+        Paciente paciente = new PacienteDAO().inserir(new Paciente("Paciente Ocupação", "038.038.038-38", "3838-3838"));
+        ConsultaDAO dao = new ConsultaDAO();
+        // Inclusão alternada, para que as linhas de um médico não cheguem
+        // seguidas.
+        for (int semana = 0; semana < 3; semana++) {
+            LocalDate segunda = SEGUNDA.plusWeeks(semana);
+            dao.inserir(new Consulta(segunda, LocalTime.of(9, 0), paciente, a));
+            dao.inserir(new Consulta(segunda, LocalTime.of(9, 30), paciente, b));
+            dao.inserir(new Consulta(segunda, LocalTime.of(10, 0), paciente, a));
+            dao.inserir(new Consulta(segunda.plusDays(1), LocalTime.of(9, 0), paciente, b));
+        }
+        Consulta cancelada = new Consulta(SEGUNDA, LocalTime.of(9, 0), paciente, a);
+        cancelada.setStatus(StatusConsulta.CANCELADA);
+        dao.inserir(cancelada);
+
+        OcupacaoService service = new OcupacaoService();
+        MapaOcupacao todos = service.calcular(SEGUNDA, SEGUNDA.plusDays(20), null);
+        assertEquals(3, todos.consultas(a.getId(), DayOfWeek.MONDAY, 9));
+        assertEquals(3, todos.consultas(a.getId(), DayOfWeek.MONDAY, 10));
+        assertEquals(3, todos.consultas(b.getId(), DayOfWeek.MONDAY, 9));
+        assertEquals(3, todos.consultas(b.getId(), DayOfWeek.TUESDAY, 9));
+        assertEquals(0, todos.consultas(a.getId(), DayOfWeek.TUESDAY, 9));
+
+        MapaOcupacao soB = service.calcular(SEGUNDA, SEGUNDA.plusDays(20), b.getId());
+        assertEquals(1, soB.getMedicos().size());
+        assertEquals(3, soB.consultas(b.getId(), DayOfWeek.TUESDAY, 9));
+    }
+}
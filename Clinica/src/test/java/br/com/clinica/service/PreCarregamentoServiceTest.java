@@ -0,0 +1,77 @@
+package br.com.clinica.service;
+
+import br.com.clinica.enums.TipoAlteracao;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import br.com.clinica.util.AlteracaoEntidade;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da invalidação seletiva das listagens pré-carregadas por
+ * {@link PreCarregamentoService}.
+ */
+class PreCarregamentoServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2025, 6, 2);
+    private static final LocalDate FIM = INICIO.plusDays(14);
+
+    @Test
+    void consultaGravadaForaDoPeriodoNaoInvalida() {
+        PreCarregamentoService.Carga carga = carga(PreCarregamentoService.TODOS_MEDICOS, consulta(1, INICIO, 10));
+
+        assertFalse(carga.afetadaPor(alteracao(consulta(2, FIM.plusDays(1), 10))));
+        assertFalse(carga.afetadaPor(alteracao(consulta(3, INICIO.minusDays(1), 10))));
+        assertTrue(carga.afetadaPor(alteracao(consulta(4, FIM, 10))));
+    }
+
+    @Test
+    void listagemDeMedicoSoEhInvalidadaPorConsultasDele() {
+        PreCarregamentoService.Carga carga = carga(10, consulta(1, INICIO, 10));
+
+        assertFalse(carga.afetadaPor(alteracao(consulta(2, INICIO, 20))));
+        assertTrue(carga.afetadaPor(alteracao(consulta(3, INICIO, 10))));
+    }
+
+    @Test
+    void consultaJaListadaInvalidaAoSairDoPeriodoOuSerRemovida() {
+        PreCarregamentoService.Carga carga = carga(PreCarregamentoService.TODOS_MEDICOS, consulta(1, INICIO, 10));
+
+        assertTrue(carga.afetadaPor(alteracao(consulta(1, FIM.plusDays(30), 10))));
+        assertTrue(carga.afetadaPor(new AlteracaoEntidade(Consulta.class, 1, TipoAlteracao.REMOCAO, null)));
+        assertFalse(carga.afetadaPor(new AlteracaoEntidade(Consulta.class, 99, TipoAlteracao.REMOCAO, null)));
+    }
+
+    @Test
+    void cargaEmCursoEhSempreInvalidada() {
+        PreCarregamentoService.Carga carga = new PreCarregamentoService.Carga(INICIO, FIM,
+                PreCarregamentoService.TODOS_MEDICOS, new CompletableFuture<>());
+
+        assertTrue(carga.afetadaPor(alteracao(consulta(2, FIM.plusDays(1), 10))));
+    }
+
+    private static PreCarregamentoService.Carga carga(int medicoId, Consulta... consultas) {
+        return new PreCarregamentoService.Carga(INICIO, FIM, medicoId,
+                CompletableFuture.completedFuture(List.of(consultas)));
+    }
+
+    private static AlteracaoEntidade alteracao(Consulta c) {
+        return new AlteracaoEntidade(Consulta.class, c.getId(), TipoAlteracao.ALTERACAO, c);
+    }
+
+    private static Consulta consulta(int id, LocalDate data, int medicoId) {
+        Medico medico = new Medico("Médico " + medicoId, "Clínica Geral", "CRM-" + medicoId);
+        medico.setId(medicoId);
+        Consulta c = new Consulta(data, LocalTime.of(9, 0),
+                new Paciente("Paciente " + id, String.format("%011d", id), "0000-0000"), medico);
+        c.setId(id);
+        return c;
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.clinica.service;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes de {@link ReagendamentoService}, sobre o banco H2 em memória
+ * configurado no {@code pom.xml}.
+ */
+class ReagendamentoServiceTest {
+
+    @Test
+    void reatribuirMedicoInexistenteNaoMoveNada() {
+        LocalDate dia = LocalDate.of(2023, 6, 1);
+        ResultadoReagendamento resultado = new ReagendamentoService().reatribuir(Integer.MAX_VALUE, dia, dia.plusDays(7));
+
+        assertTrue(resultado.getReagendadas().isEmpty());
+        assertTrue(resultado.getNaoAlocadas().isEmpty());
+    }
+}
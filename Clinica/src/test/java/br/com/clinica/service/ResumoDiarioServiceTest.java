@@ -0,0 +1,68 @@
+package br.com.clinica.service;
+
+import br.com.clinica.dao.ConsultaDAO;
+import br.com.clinica.dao.MedicoDAO;
+import br.com.clinica.dao.PacienteDAO;
+import br.com.clinica.dao.TransacaoJPA;
+import br.com.clinica.model.Consulta;
+import br.com.clinica.model.Medico;
+import br.com.clinica.model.Paciente;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da manutenção de {@code resumo_diario}, sobre o banco H2 em memória
+ * configurado no {@code pom.xml}.
+ */
+class ResumoDiarioServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2032, 2, 2);
+
+    private final ConsultaDAO consultaDAO = new ConsultaDAO();
+    private final MedicoDAO medicoDAO = new MedicoDAO();
+    private final ResumoDiarioService service = new ResumoDiarioService();
+
+    @Test
+    void medicoSemConsultasPodeSerRemovidoDepoisDeTerTidoConsultas() {
+        Medico medico = medicoDAO.inserir(new Medico("Dr. Temporário", "Dermatologia", "CRM-0003"));
+        Paciente paciente = new PacienteDAO().inserir(new Paciente("Paciente Resumo", "222.222.222-22", "2222-2222"));
+        Consulta c = consultaDAO.inserir(new Consulta(DIA, LocalTime.of(9, 0), paciente, medico));
+        c.cancelar();
+        c = consultaDAO.atualizar(c);
+        assertEquals(1, linhasDoMedico(medico.getId()));
+
+        consultaDAO.deletar(c.getId());
+        assertEquals(0, linhasDoMedico(medico.getId()));
+
+        medicoDAO.deletar(medico.getId());
+        assertNull(medicoDAO.buscarPorId(medico.getId()));
+        assertTrue(service.verificar().isEmpty(), () -> String.join("\n", service.verificar()));
+    }
+
+    @Test
+    void cargaInicialPreencheTabelaVazia() {
+        Medico medico = medicoDAO.inserir(new Medico("Dra. Carga", "Neurologia", "CRM-0004"));
+        Paciente paciente = new PacienteDAO().inserir(new Paciente("Paciente Carga", "333.333.333-33", "3333-3333"));
+        consultaDAO.inserir(new Consulta(DIA, LocalTime.of(10, 0), paciente, medico));
+        consultaDAO.inserir(new Consulta(DIA, LocalTime.of(11, 0), paciente, medico));
+
+        // Banco atualizado pelo hbm2ddl: a tabela de resumo existe, mas vazia.
+        TransacaoJPA.executar(em -> em.createQuery("DELETE FROM ResumoDiario r").executeUpdate());
+
+        assertTrue(service.garantirCarga() > 0);
+        assertTrue(service.verificar().isEmpty(), () -> String.join("\n", service.verificar()));
+        assertEquals(0, service.garantirCarga());
+    }
+
+    private static long linhasDoMedico(int medicoId) {
+        return TransacaoJPA.consultar(em -> em.createQuery(
+                "SELECT COUNT(r) FROM ResumoDiario r WHERE r.medico.id = :id", Long.class)
+                .setParameter("id", medicoId)
+                .getSingleResult());
+    }
+}
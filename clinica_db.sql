@@ -6,7 +6,9 @@ CREATE TABLE paciente (
     id INT AUTO_INCREMENT PRIMARY KEY,
     nome VARCHAR(100) NOT NULL,
     cpf VARCHAR(14) UNIQUE NOT NULL,
-    telefone VARCHAR(20)
+    telefone VARCHAR(20),
+    versao INT NOT NULL DEFAULT 0,
+    INDEX idx_paciente_nome (nome)
 );
 
 -- Tabela de médicos
@@ -14,7 +16,9 @@ CREATE TABLE medico (
     id INT AUTO_INCREMENT PRIMARY KEY,
     nome VARCHAR(100) NOT NULL,
     especialidade VARCHAR(100),
-    crm VARCHAR(20) UNIQUE NOT NULL
+    crm VARCHAR(20) UNIQUE NOT NULL,
+    versao INT NOT NULL DEFAULT 0,
+    INDEX idx_medico_nome (nome)
 );
 
 -- Tabela de usuários (login do sistema)
@@ -33,8 +37,76 @@ CREATE TABLE consulta (
     dataAgendada DATE NOT NULL,
     horaAgendada TIME NOT NULL,
     status VARCHAR(20) NOT NULL,
+    versao INT NOT NULL DEFAULT 0,
+    criadaEm DATETIME NULL,
     FOREIGN KEY (paciente_id) REFERENCES paciente(id),
-    FOREIGN KEY (medico_id) REFERENCES medico(id)
+    FOREIGN KEY (medico_id) REFERENCES medico(id),
+    INDEX idx_consulta_data_medico_versao (dataAgendada, medico_id, versao)
+);
+
+-- Tabela da lista de espera (pedidos por médico ou por especialidade)
+CREATE TABLE lista_espera (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    paciente_id INT NOT NULL,
+    medico_id INT,
+    especialidade VARCHAR(100),
+    dataInicial DATE NOT NULL,
+    dataFinal DATE NOT NULL,
+    horaInicial TIME,
+    horaFinal TIME,
+    criadoEm DATETIME NOT NULL,
+    ativa BOOLEAN NOT NULL DEFAULT TRUE,
+    FOREIGN KEY (paciente_id) REFERENCES paciente(id),
+    FOREIGN KEY (medico_id) REFERENCES medico(id),
+    INDEX idx_lista_espera_ativa (ativa, criadoEm)
+);
+
+-- Chaves de idempotência das operações de escrita (expiram após 24h)
+CREATE TABLE requisicao_processada (
+    chave VARCHAR(100) PRIMARY KEY,
+    operacao VARCHAR(30) NOT NULL,
+    resultadoId INT NOT NULL,
+    hashConteudo VARCHAR(64),
+    processadaEm DATETIME NOT NULL,
+    expiraEm DATETIME NOT NULL,
+    INDEX idx_requisicao_expira_em (expiraEm)
+);
+
+-- Resumo de consultas por dia, médico e status (mantido pelo ConsultaDAO)
+CREATE TABLE resumo_diario (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    data DATE NOT NULL,
+    medico_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (medico_id) REFERENCES medico(id),
+    UNIQUE KEY uk_resumo_diario (data, medico_id, status)
+);
+
+-- Alterações de consultas, pacientes e médicos lidas pelas demais estações (mantidas por 1 dia)
+CREATE TABLE registro_alteracao (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entidade VARCHAR(30) NOT NULL,
+    registroId INT NOT NULL,
+    tipo VARCHAR(10) NOT NULL,
+    estacao VARCHAR(36) NOT NULL,
+    registradaEm DATETIME NOT NULL,
+    INDEX idx_registro_alteracao_registrada_em (registradaEm)
+);
+
+-- Indicadores de cancelamento e falta dos meses encerrados (mantidos pelo IndicadoresService)
+CREATE TABLE indicador_mensal (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    mes VARCHAR(7) NOT NULL,
+    medicoId INT NOT NULL,
+    assinatura VARCHAR(60) NOT NULL,
+    dimensao VARCHAR(15) NOT NULL,
+    ordem INT NOT NULL,
+    grupo VARCHAR(100) NOT NULL,
+    total BIGINT NOT NULL,
+    canceladas BIGINT NOT NULL,
+    faltas BIGINT NOT NULL,
+    UNIQUE KEY uk_indicador_mensal (mes, medicoId, dimensao, ordem)
 );
 
 -- Inserir pacientes
@@ -62,4 +134,9 @@ INSERT INTO consulta (paciente_id, medico_id, dataAgendada, horaAgendada, status
 (1, 1, '2025-11-25', '10:00:00', 'AGENDADA'),
 (2, 2, '2025-11-26', '14:30:00', 'AGENDADA'),
 (3, 3, '2025-11-27', '09:00:00', 'REALIZADA'),
-(1, 2, '2025-11-28', '11:15:00', 'CANCELADA');
\ No newline at end of file
+(1, 2, '2025-11-28', '11:15:00', 'CANCELADA');
+
+-- Carga inicial do resumo diário
+INSERT INTO resumo_diario (data, medico_id, status, total)
+SELECT dataAgendada, medico_id, status, COUNT(*) FROM consulta
+GROUP BY dataAgendada, medico_id, status;